@@ -16,20 +16,32 @@
 
 package io.github.mem4j.autoconfigure;
 
+import io.github.mem4j.embeddings.CoalescingEmbeddingService;
 import io.github.mem4j.embeddings.DashScopeEmbeddingService;
+import io.github.mem4j.embeddings.DashScopeReactiveEmbeddingService;
 import io.github.mem4j.embeddings.EmbeddingService;
 import io.github.mem4j.embeddings.OpenAIEmbeddingService;
+import io.github.mem4j.embeddings.ReactiveEmbeddingService;
+import io.github.mem4j.ingestion.IngestionQueue;
 import io.github.mem4j.llms.AnthropicLLMService;
 import io.github.mem4j.llms.DashScopeLLMService;
+import io.github.mem4j.llms.DashScopeReactiveLLMService;
 import io.github.mem4j.llms.LLMService;
 import io.github.mem4j.llms.OpenAILLMService;
+import io.github.mem4j.llms.ReactiveLLMService;
 import io.github.mem4j.memory.Memory;
+import io.github.mem4j.memory.ReactiveMemory;
+import io.github.mem4j.util.AsyncExecutors;
+import io.github.mem4j.vectorstores.CapacityLimitedVectorStoreService;
+import io.github.mem4j.vectorstores.ExpiringVectorStoreService;
 import io.github.mem4j.vectorstores.InMemoryVectorStoreService;
 import io.github.mem4j.vectorstores.MilvusVectorStoreService;
 import io.github.mem4j.vectorstores.QdrantVectorStoreService;
+import io.github.mem4j.vectorstores.ReactiveVectorStoreService;
 import io.github.mem4j.vectorstores.VectorStoreService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -37,6 +49,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
 /**
  * Auto-configuration for Lang Memory system
  * <p>
@@ -46,6 +61,11 @@ import org.springframework.context.annotation.Bean;
  * <li>Memory core bean with all required dependencies</li>
  * <li>Default InMemoryVectorStore when no other vector store is configured</li>
  * <li>Conditional VectorStore beans based on configuration type</li>
+ * <li>Capacity limits ({@code max-memories}, {@code max-total-memories}) and
+ * per-memory-type TTLs enforced on whichever VectorStore is selected</li>
+ * <li>ReactiveMemory bean for WebFlux applications, backed by the same services</li>
+ * <li>IngestionQueue bean adding conversations to Memory in the background</li>
+ * <li>One async executor shared by these beans and shut down with the context</li>
  * </ul>
  * <p>
  * LLM and Embedding services are automatically selected based on configuration.
@@ -58,6 +78,24 @@ public class MemoryAutoConfiguration {
 
 	private static final Logger logger = LoggerFactory.getLogger(MemoryAutoConfiguration.class);
 
+	/**
+	 * Name of the executor bean shared by the asynchronous operations
+	 */
+	public static final String ASYNC_EXECUTOR = "mem4jAsyncExecutor";
+
+	/**
+	 * Creates the executor shared by the asynchronous Memory operations, the reactive
+	 * adapters of blocking services and embedding coalescing, sized by
+	 * {@code mem4j.async-threads}. It is shut down when the context closes.
+	 * @param memoryConfig the memory configuration properties
+	 * @return the shared async executor
+	 */
+	@Bean(name = ASYNC_EXECUTOR, destroyMethod = "shutdown")
+	@ConditionalOnMissingBean(name = ASYNC_EXECUTOR)
+	public ExecutorService mem4jAsyncExecutor(MemoryConfig memoryConfig) {
+		return AsyncExecutors.create(memoryConfig.getAsyncThreads());
+	}
+
 	/**
 	 * Creates the main Memory bean with all required dependencies. This bean will be
 	 * created only if no other Memory bean exists.
@@ -65,28 +103,71 @@ public class MemoryAutoConfiguration {
 	 * @param vectorStoreService the vector store service (auto-selected based on config)
 	 * @param llmService the LLM service (auto-selected based on config)
 	 * @param embeddingService the embedding service (auto-selected based on config)
+	 * @param executor the shared async executor
 	 * @return configured Memory instance
 	 */
 	@Bean
 	@ConditionalOnMissingBean
 	public Memory memory(MemoryConfig memoryConfig, VectorStoreService vectorStoreService, LLMService llmService,
-			EmbeddingService embeddingService) {
+			EmbeddingService embeddingService, @Qualifier(ASYNC_EXECUTOR) ExecutorService executor) {
 		logger.info("Creating Memory bean with vector store type: {}", memoryConfig.getVectorStore().getType());
-		return new Memory(memoryConfig, vectorStoreService, llmService, embeddingService);
+		return new Memory(memoryConfig, vectorStoreService, llmService, embeddingService, executor);
+	}
+
+	/**
+	 * Creates the reactive Memory facade over the selected services. DashScope services
+	 * are replaced by their WebClient counterparts; other services run their blocking
+	 * calls on the async executor.
+	 * @param memoryConfig the memory configuration properties
+	 * @param vectorStoreService the vector store service (auto-selected based on config)
+	 * @param llmService the LLM service (auto-selected based on config)
+	 * @param embeddingService the embedding service (auto-selected based on config)
+	 * @param executor the shared async executor
+	 * @return configured ReactiveMemory instance
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+	public ReactiveMemory reactiveMemory(MemoryConfig memoryConfig, VectorStoreService vectorStoreService,
+			LLMService llmService, EmbeddingService embeddingService,
+			@Qualifier(ASYNC_EXECUTOR) ExecutorService executor) {
+		ReactiveLLMService reactiveLLMService = llmService instanceof DashScopeLLMService
+				? new DashScopeReactiveLLMService(memoryConfig) : ReactiveLLMService.from(llmService, executor);
+		ReactiveEmbeddingService reactiveEmbeddingService = embeddingService instanceof DashScopeEmbeddingService
+				? new DashScopeReactiveEmbeddingService(memoryConfig)
+				: ReactiveEmbeddingService.from(embeddingService, executor);
+		return new ReactiveMemory(memoryConfig, ReactiveVectorStoreService.from(vectorStoreService), reactiveLLMService,
+				reactiveEmbeddingService);
+	}
+
+	/**
+	 * Creates the background ingestion queue in front of the Memory bean, sized by
+	 * {@code mem4j.ingestion}. Queued conversations are ingested before the context
+	 * closes.
+	 * @param memoryConfig the memory configuration properties
+	 * @param memory the Memory bean the queued conversations are added to
+	 * @return configured IngestionQueue instance
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public IngestionQueue ingestionQueue(MemoryConfig memoryConfig, Memory memory) {
+		return new IngestionQueue(memory, memoryConfig);
 	}
 
 	/**
 	 * Creates an InMemoryVectorStore service when no other VectorStore is configured or
-	 * when explicitly configured to use 'inmemory' type.
+	 * when explicitly configured to use 'inmemory' type. The index (flat or HNSW) is
+	 * selected through {@code mem4j.vector-store.options.index-type}.
+	 * @param memoryConfig the memory configuration properties
 	 * @return InMemoryVectorStoreService instance
 	 */
 	@Bean
 	@ConditionalOnMissingBean
 	@ConditionalOnProperty(prefix = "mem4j.vector-store", name = "type", havingValue = "inmemory",
 			matchIfMissing = true)
-	public VectorStoreService inMemoryVectorStoreService() {
+	public VectorStoreService inMemoryVectorStoreService(MemoryConfig memoryConfig) {
 		logger.info("Creating InMemoryVectorStoreService");
-		return new InMemoryVectorStoreService();
+		return withRetention(memoryConfig, new InMemoryVectorStoreService(memoryConfig));
 	}
 
 	/**
@@ -102,7 +183,7 @@ public class MemoryAutoConfiguration {
 	@ConditionalOnClass(name = "io.qdrant.client.QdrantClient")
 	public VectorStoreService qdrantVectorStoreService(MemoryConfig memoryConfig) {
 		logger.info("Creating QdrantVectorStoreService");
-		return new QdrantVectorStoreService(memoryConfig);
+		return withRetention(memoryConfig, new QdrantVectorStoreService(memoryConfig));
 	}
 
 	/**
@@ -118,7 +199,31 @@ public class MemoryAutoConfiguration {
 	@ConditionalOnClass(name = "io.milvus.client.MilvusClient")
 	public VectorStoreService milvusVectorStoreService(MemoryConfig memoryConfig) {
 		logger.info("Creating MilvusVectorStoreService");
-		return new MilvusVectorStoreService(memoryConfig);
+		return withRetention(memoryConfig, new MilvusVectorStoreService(memoryConfig));
+	}
+
+	/**
+	 * Wraps a vector store so that writes evict memories beyond the configured capacity
+	 * and memories of types with a TTL expire, skipping whatever is not configured.
+	 * @param memoryConfig the memory configuration properties
+	 * @param vectorStoreService the vector store to wrap
+	 * @return the vector store enforcing the retention settings
+	 */
+	private static VectorStoreService withRetention(MemoryConfig memoryConfig, VectorStoreService vectorStoreService) {
+		VectorStoreService result = vectorStoreService;
+		boolean limited = memoryConfig.getMaxMemories() != null && memoryConfig.getMaxMemories() > 0
+				|| memoryConfig.getMaxTotalMemories() != null && memoryConfig.getMaxTotalMemories() > 0;
+		if (limited) {
+			logger.info("Limiting memories to {} per user and {} in total, evicting by {}",
+					memoryConfig.getMaxMemories(), memoryConfig.getMaxTotalMemories(),
+					memoryConfig.getEvictionPolicy());
+			result = new CapacityLimitedVectorStoreService(result, memoryConfig);
+		}
+		if (!memoryConfig.getMemoryTypeTtls().isEmpty()) {
+			logger.info("Expiring memories by type after {}", memoryConfig.getMemoryTypeTtls());
+			result = new ExpiringVectorStoreService(result, memoryConfig);
+		}
+		return result;
 	}
 
 	/**
@@ -146,17 +251,20 @@ public class MemoryAutoConfiguration {
 
 	/**
 	 * Creates the appropriate Embedding service based on configuration. Supports OpenAI
-	 * and DashScope implementations.
+	 * and DashScope implementations. Concurrent single-text requests are coalesced into
+	 * batches when {@code embeddings.options.batch-delay-ms} is set.
 	 * @param memoryConfig the memory configuration properties
+	 * @param executor the shared async executor the coalesced batches are embedded on
 	 * @return EmbeddingService instance based on configuration
 	 */
 	@Bean
 	@ConditionalOnMissingBean
-	public EmbeddingService embeddingService(MemoryConfig memoryConfig) {
+	public EmbeddingService embeddingService(MemoryConfig memoryConfig,
+			@Qualifier(ASYNC_EXECUTOR) ExecutorService executor) {
 		String embeddingType = memoryConfig.getEmbeddings().getType();
 		logger.info("Creating Embedding service of type: {}", embeddingType);
 
-		return switch (embeddingType.toLowerCase()) {
+		EmbeddingService embeddingService = switch (embeddingType.toLowerCase()) {
 			case "dashscope" -> new DashScopeEmbeddingService(memoryConfig);
 			case "openai" -> new OpenAIEmbeddingService(memoryConfig);
 			default -> {
@@ -164,6 +272,16 @@ public class MemoryAutoConfiguration {
 				yield new OpenAIEmbeddingService(memoryConfig);
 			}
 		};
+
+		MemoryConfig.EmbeddingsOptionsConfig options = memoryConfig.getEmbeddings().getOptions();
+		if (options != null && options.getBatchDelayMs() != null && options.getBatchDelayMs() > 0) {
+			int batchSize = options.getBatchSize() != null ? options.getBatchSize() : 10;
+			logger.info("Coalescing embedding requests: up to {} texts within {} ms", batchSize,
+					options.getBatchDelayMs());
+			return new CoalescingEmbeddingService(embeddingService, batchSize,
+					Duration.ofMillis(options.getBatchDelayMs()), executor);
+		}
+		return embeddingService;
 	}
 
 }
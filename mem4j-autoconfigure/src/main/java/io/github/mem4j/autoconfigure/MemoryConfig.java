@@ -23,6 +23,8 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -46,18 +48,69 @@ public class MemoryConfig implements MemoryConfigurable {
 
 	private GraphConfig graph;
 
+	private IngestionConfig ingestion = new IngestionConfig();
+
 	@JsonProperty("memory-types")
-	private Map<String, String> memoryTypes;
+	private Map<String, MemoryTypeConfig> memoryTypes;
 
 	@JsonProperty("max-memories")
 	private Integer maxMemories = 1000;
 
+	@JsonProperty("max-total-memories")
+	private Integer maxTotalMemories;
+
+	@JsonProperty("eviction-policy")
+	private String evictionPolicy = "lru";
+
+	@JsonProperty("async-threads")
+	private Integer asyncThreads;
+
+	@JsonProperty("decision-concurrency")
+	private Integer decisionConcurrency = 4;
+
+	@JsonProperty("batch-decisions")
+	private Boolean batchDecisions = false;
+
 	@JsonProperty("embedding-dimension")
 	private Integer embeddingDimension = 1536;
 
 	@JsonProperty("similarity-threshold")
 	private Double similarityThreshold = 0.7;
 
+	/**
+	 * Settings of one memory type. A plain string is accepted as the description alone.
+	 */
+	public static class MemoryTypeConfig {
+
+		private String description;
+
+		private Duration ttl;
+
+		public MemoryTypeConfig() {
+		}
+
+		public MemoryTypeConfig(String description) {
+			this.description = description;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public void setDescription(String description) {
+			this.description = description;
+		}
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
 	public static class VectorStoreConfig implements MemoryConfigurable.VectorStore {
 
 		@NotBlank
@@ -69,7 +122,7 @@ public class MemoryConfig implements MemoryConfigurable {
 		@NotBlank
 		private String collection;
 
-		private VectorStoreOptions options;
+		private VectorStoreOptionsConfig options;
 
 		// Getters and Setters
 		public String getType() {
@@ -96,16 +149,151 @@ public class MemoryConfig implements MemoryConfigurable {
 			this.collection = collection;
 		}
 
-		public VectorStoreOptions getOptions() {
+		public VectorStoreOptionsConfig getOptions() {
 			return options;
 		}
 
-		public void setOptions(VectorStoreOptions options) {
+		public void setOptions(VectorStoreOptionsConfig options) {
 			this.options = options;
 		}
 
 	}
 
+	public static class VectorStoreOptionsConfig implements VectorStoreOptions {
+
+		private Double similarityThreshold;
+
+		private String indexType = "flat";
+
+		private Integer hnswM = 16;
+
+		private Integer hnswEfConstruction = 200;
+
+		private Integer hnswEfSearch = 64;
+
+		private String quantization = "none";
+
+		private Integer rescoreFactor = 4;
+
+		private Integer parallelScanThreshold = 50000;
+
+		private String persistenceDirectory;
+
+		private Boolean walFsync = true;
+
+		private Integer snapshotIntervalSeconds = 300;
+
+		private Integer segmentFlushSize = 100000;
+
+		private Double mergeDeadRatio = 0.3;
+
+		// Getters and Setters
+		public Double getSimilarityThreshold() {
+			return similarityThreshold;
+		}
+
+		public void setSimilarityThreshold(Double similarityThreshold) {
+			this.similarityThreshold = similarityThreshold;
+		}
+
+		public String getIndexType() {
+			return indexType;
+		}
+
+		public void setIndexType(String indexType) {
+			this.indexType = indexType;
+		}
+
+		public Integer getHnswM() {
+			return hnswM;
+		}
+
+		public void setHnswM(Integer hnswM) {
+			this.hnswM = hnswM;
+		}
+
+		public Integer getHnswEfConstruction() {
+			return hnswEfConstruction;
+		}
+
+		public void setHnswEfConstruction(Integer hnswEfConstruction) {
+			this.hnswEfConstruction = hnswEfConstruction;
+		}
+
+		public Integer getHnswEfSearch() {
+			return hnswEfSearch;
+		}
+
+		public void setHnswEfSearch(Integer hnswEfSearch) {
+			this.hnswEfSearch = hnswEfSearch;
+		}
+
+		public String getQuantization() {
+			return quantization;
+		}
+
+		public void setQuantization(String quantization) {
+			this.quantization = quantization;
+		}
+
+		public Integer getRescoreFactor() {
+			return rescoreFactor;
+		}
+
+		public void setRescoreFactor(Integer rescoreFactor) {
+			this.rescoreFactor = rescoreFactor;
+		}
+
+		public Integer getParallelScanThreshold() {
+			return parallelScanThreshold;
+		}
+
+		public void setParallelScanThreshold(Integer parallelScanThreshold) {
+			this.parallelScanThreshold = parallelScanThreshold;
+		}
+
+		public String getPersistenceDirectory() {
+			return persistenceDirectory;
+		}
+
+		public void setPersistenceDirectory(String persistenceDirectory) {
+			this.persistenceDirectory = persistenceDirectory;
+		}
+
+		public Boolean getWalFsync() {
+			return walFsync;
+		}
+
+		public void setWalFsync(Boolean walFsync) {
+			this.walFsync = walFsync;
+		}
+
+		public Integer getSnapshotIntervalSeconds() {
+			return snapshotIntervalSeconds;
+		}
+
+		public void setSnapshotIntervalSeconds(Integer snapshotIntervalSeconds) {
+			this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+		}
+
+		public Integer getSegmentFlushSize() {
+			return segmentFlushSize;
+		}
+
+		public void setSegmentFlushSize(Integer segmentFlushSize) {
+			this.segmentFlushSize = segmentFlushSize;
+		}
+
+		public Double getMergeDeadRatio() {
+			return mergeDeadRatio;
+		}
+
+		public void setMergeDeadRatio(Double mergeDeadRatio) {
+			this.mergeDeadRatio = mergeDeadRatio;
+		}
+
+	}
+
 	public static class LLMConfig implements Llm {
 
 		@NotBlank
@@ -162,7 +350,7 @@ public class MemoryConfig implements MemoryConfigurable {
 		@NotBlank
 		private String model;
 
-		private EmbeddingsOptions options;
+		private EmbeddingsOptionsConfig options;
 
 		// Getters and Setters
 		public String getType() {
@@ -181,16 +369,136 @@ public class MemoryConfig implements MemoryConfigurable {
 			this.model = model;
 		}
 
-		public EmbeddingsOptions getOptions() {
+		public EmbeddingsOptionsConfig getOptions() {
 			return options;
 		}
 
-		public void setOptions(EmbeddingsOptions options) {
+		public void setOptions(EmbeddingsOptionsConfig options) {
 			this.options = options;
 		}
 
 	}
 
+	public static class EmbeddingsOptionsConfig implements EmbeddingsOptions {
+
+		private Integer dimensions;
+
+		private Integer batchSize = 10;
+
+		private Integer batchDelayMs = 0;
+
+		// Getters and Setters
+		public Integer getDimensions() {
+			return dimensions;
+		}
+
+		public void setDimensions(Integer dimensions) {
+			this.dimensions = dimensions;
+		}
+
+		public Integer getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(Integer batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public Integer getBatchDelayMs() {
+			return batchDelayMs;
+		}
+
+		public void setBatchDelayMs(Integer batchDelayMs) {
+			this.batchDelayMs = batchDelayMs;
+		}
+
+	}
+
+	public static class IngestionConfig implements Ingestion {
+
+		private Integer workers = 2;
+
+		private Integer queueCapacity = 1000;
+
+		private Integer maxLagMs = 0;
+
+		private String rejectionPolicy = "block";
+
+		private Integer maxAttempts = 3;
+
+		private Integer retryBackoffMs = 1000;
+
+		private String journalDirectory;
+
+		private Integer journalSyncIntervalMs = 10;
+
+		// Getters and Setters
+		public Integer getWorkers() {
+			return workers;
+		}
+
+		public void setWorkers(Integer workers) {
+			this.workers = workers;
+		}
+
+		public Integer getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(Integer queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public Integer getMaxLagMs() {
+			return maxLagMs;
+		}
+
+		public void setMaxLagMs(Integer maxLagMs) {
+			this.maxLagMs = maxLagMs;
+		}
+
+		public String getRejectionPolicy() {
+			return rejectionPolicy;
+		}
+
+		public void setRejectionPolicy(String rejectionPolicy) {
+			this.rejectionPolicy = rejectionPolicy;
+		}
+
+		public Integer getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(Integer maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Integer getRetryBackoffMs() {
+			return retryBackoffMs;
+		}
+
+		public void setRetryBackoffMs(Integer retryBackoffMs) {
+			this.retryBackoffMs = retryBackoffMs;
+		}
+
+		public String getJournalDirectory() {
+			return journalDirectory;
+		}
+
+		public void setJournalDirectory(String journalDirectory) {
+			this.journalDirectory = journalDirectory;
+		}
+
+		public Integer getJournalSyncIntervalMs() {
+			return journalSyncIntervalMs;
+		}
+
+		public void setJournalSyncIntervalMs(Integer journalSyncIntervalMs) {
+			this.journalSyncIntervalMs = journalSyncIntervalMs;
+		}
+
+	}
+
 	public static class GraphConfig {
 
 		private String type;
@@ -271,6 +579,14 @@ public class MemoryConfig implements MemoryConfigurable {
 		this.embeddings = embeddings;
 	}
 
+	public IngestionConfig getIngestion() {
+		return ingestion;
+	}
+
+	public void setIngestion(IngestionConfig ingestion) {
+		this.ingestion = ingestion;
+	}
+
 	public GraphConfig getGraph() {
 		return graph;
 	}
@@ -279,14 +595,26 @@ public class MemoryConfig implements MemoryConfigurable {
 		this.graph = graph;
 	}
 
-	public Map<String, String> getMemoryTypes() {
+	public Map<String, MemoryTypeConfig> getMemoryTypes() {
 		return memoryTypes;
 	}
 
-	public void setMemoryTypes(Map<String, String> memoryTypes) {
+	public void setMemoryTypes(Map<String, MemoryTypeConfig> memoryTypes) {
 		this.memoryTypes = memoryTypes;
 	}
 
+	public Map<String, Duration> getMemoryTypeTtls() {
+		Map<String, Duration> ttls = new LinkedHashMap<>();
+		if (memoryTypes != null) {
+			memoryTypes.forEach((type, config) -> {
+				if (config != null && config.getTtl() != null) {
+					ttls.put(type, config.getTtl());
+				}
+			});
+		}
+		return ttls;
+	}
+
 	public Integer getMaxMemories() {
 		return maxMemories;
 	}
@@ -295,6 +623,46 @@ public class MemoryConfig implements MemoryConfigurable {
 		this.maxMemories = maxMemories;
 	}
 
+	public Integer getMaxTotalMemories() {
+		return maxTotalMemories;
+	}
+
+	public void setMaxTotalMemories(Integer maxTotalMemories) {
+		this.maxTotalMemories = maxTotalMemories;
+	}
+
+	public String getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	public void setEvictionPolicy(String evictionPolicy) {
+		this.evictionPolicy = evictionPolicy;
+	}
+
+	public Integer getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	public void setAsyncThreads(Integer asyncThreads) {
+		this.asyncThreads = asyncThreads;
+	}
+
+	public Integer getDecisionConcurrency() {
+		return decisionConcurrency;
+	}
+
+	public void setDecisionConcurrency(Integer decisionConcurrency) {
+		this.decisionConcurrency = decisionConcurrency;
+	}
+
+	public Boolean getBatchDecisions() {
+		return batchDecisions;
+	}
+
+	public void setBatchDecisions(Boolean batchDecisions) {
+		this.batchDecisions = batchDecisions;
+	}
+
 	public Integer getEmbeddingDimension() {
 		return embeddingDimension;
 	}
@@ -16,6 +16,9 @@
 
 package io.github.mem4j.config;
 
+import java.time.Duration;
+import java.util.Map;
+
 /**
  * Interface for configurable Mem4j components
  */
@@ -40,6 +43,95 @@ public interface MemoryConfigurable {
 
 		Double getSimilarityThreshold();
 
+		/**
+		 * Index used by the in-memory store: "flat" (exact scan) or "hnsw"
+		 */
+		default String getIndexType() {
+			return null;
+		}
+
+		/**
+		 * HNSW: maximum links per node on the upper layers (twice this on layer 0)
+		 */
+		default Integer getHnswM() {
+			return null;
+		}
+
+		/**
+		 * HNSW: candidate list size while inserting; higher builds a better graph
+		 */
+		default Integer getHnswEfConstruction() {
+			return null;
+		}
+
+		/**
+		 * HNSW: candidate list size while searching; higher trades latency for recall
+		 */
+		default Integer getHnswEfSearch() {
+			return null;
+		}
+
+		/**
+		 * Scan-path quantization of the in-memory store: "none" or "int8"
+		 */
+		default String getQuantization() {
+			return null;
+		}
+
+		/**
+		 * Quantized search: multiple of the result limit rescored at full precision
+		 */
+		default Integer getRescoreFactor() {
+			return null;
+		}
+
+		/**
+		 * Minimum number of candidates before an exact in-memory scan runs in parallel; 0
+		 * disables parallel scans
+		 */
+		default Integer getParallelScanThreshold() {
+			return null;
+		}
+
+		/**
+		 * Directory for the in-memory store's write-ahead log and snapshots; unset keeps
+		 * the store volatile
+		 */
+		default String getPersistenceDirectory() {
+			return null;
+		}
+
+		/**
+		 * Whether writes wait for the write-ahead log to be fsynced
+		 */
+		default Boolean getWalFsync() {
+			return null;
+		}
+
+		/**
+		 * Seconds between flushes of a persistent in-memory store's write buffer into a
+		 * sealed segment; 0 disables periodic flushes
+		 */
+		default Integer getSnapshotIntervalSeconds() {
+			return null;
+		}
+
+		/**
+		 * Number of buffered entries that triggers a flush of a persistent in-memory
+		 * store
+		 */
+		default Integer getSegmentFlushSize() {
+			return null;
+		}
+
+		/**
+		 * Share of deleted entries at which a sealed segment of the in-memory store is
+		 * merged
+		 */
+		default Double getMergeDeadRatio() {
+			return null;
+		}
+
 	}
 
 	/**
@@ -82,6 +174,72 @@ public interface MemoryConfigurable {
 
 		Integer getDimensions();
 
+		/**
+		 * Most texts coalesced into one embedding request
+		 */
+		default Integer getBatchSize() {
+			return null;
+		}
+
+		/**
+		 * Milliseconds a text waits for others to share its embedding request; 0 sends
+		 * every text on its own
+		 */
+		default Integer getBatchDelayMs() {
+			return null;
+		}
+
+	}
+
+	/**
+	 * Background ingestion queue configuration interface
+	 */
+	interface Ingestion {
+
+		/**
+		 * Worker threads adding queued conversations
+		 */
+		Integer getWorkers();
+
+		/**
+		 * Conversations that may wait before the queue counts as saturated
+		 */
+		Integer getQueueCapacity();
+
+		/**
+		 * Milliseconds the oldest conversation may wait before the queue counts as
+		 * saturated; 0 for no limit
+		 */
+		Integer getMaxLagMs();
+
+		/**
+		 * What a submission to a saturated queue does: "block", "reject" or "drop-oldest"
+		 */
+		String getRejectionPolicy();
+
+		/**
+		 * Times a conversation is tried before it fails
+		 */
+		Integer getMaxAttempts();
+
+		/**
+		 * Milliseconds before the first retry of a failed conversation, doubled for each
+		 * further retry
+		 */
+		Integer getRetryBackoffMs();
+
+		/**
+		 * Directory of the journal that keeps queued conversations across restarts; unset
+		 * keeps them in memory only
+		 */
+		String getJournalDirectory();
+
+		/**
+		 * Milliseconds between background fsyncs of the journal; 0 makes every submission
+		 * wait for its fsync
+		 */
+		Integer getJournalSyncIntervalMs();
+
 	}
 
 	// Root configuration methods
@@ -91,8 +249,62 @@ public interface MemoryConfigurable {
 
 	Embeddings getEmbeddings();
 
+	default Ingestion getIngestion() {
+		return null;
+	}
+
+	/**
+	 * Memories kept per user before the eviction policy removes some; 0 or null for no
+	 * limit
+	 */
 	Integer getMaxMemories();
 
+	/**
+	 * Memories kept across all users; 0 or null for no limit
+	 */
+	default Integer getMaxTotalMemories() {
+		return null;
+	}
+
+	/**
+	 * How memories beyond capacity are chosen: "lru", "lfu", "oldest" or "importance"
+	 */
+	default String getEvictionPolicy() {
+		return null;
+	}
+
+	/**
+	 * Time to live per memory type value, counted from a memory's last update; types
+	 * without an entry never expire
+	 */
+	default Map<String, Duration> getMemoryTypeTtls() {
+		return Map.of();
+	}
+
+	/**
+	 * Threads running asynchronous memory operations; null or 0 for virtual threads where
+	 * available
+	 */
+	default Integer getAsyncThreads() {
+		return null;
+	}
+
+	/**
+	 * Memories of one conversation whose similarity lookup and LLM decision run at the
+	 * same time; null for the default of 4
+	 */
+	default Integer getDecisionConcurrency() {
+		return null;
+	}
+
+	/**
+	 * Whether the LLM reconciles all ambiguous memories of a conversation in one
+	 * structured call instead of one call per memory
+	 */
+	default Boolean getBatchDecisions() {
+		return null;
+	}
+
 	Integer getEmbeddingDimension();
 
 	Double getSimilarityThreshold();
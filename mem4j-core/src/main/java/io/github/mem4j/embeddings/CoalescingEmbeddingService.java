@@ -0,0 +1,203 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding service decorator that coalesces concurrent single-text requests
+ * <p>
+ * Texts are gathered for up to {@code maxDelay}, or until {@code maxBatchSize} distinct
+ * texts are waiting, and embedded with one {@link EmbeddingService#embed(String[])} call.
+ * Each caller is answered from the shared response, and callers asking for the same text
+ * share one slot of the batch. A failed batch fails every caller in it.
+ */
+public class CoalescingEmbeddingService implements EmbeddingService, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(CoalescingEmbeddingService.class);
+
+	private final EmbeddingService delegate;
+
+	private final int maxBatchSize;
+
+	private final long maxDelayNanos;
+
+	// Runs the batched requests
+	private final Executor executor;
+
+	private final ScheduledExecutorService timer;
+
+	private final Object lock = new Object();
+
+	// Texts waiting for the next batch, guarded by lock
+	private Map<String, CompletableFuture<Double[]>> pending = new LinkedHashMap<>();
+
+	private ScheduledFuture<?> scheduledFlush;
+
+	public CoalescingEmbeddingService(EmbeddingService delegate, int maxBatchSize, Duration maxDelay,
+			Executor executor) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+		}
+		this.delegate = delegate;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayNanos = maxDelay.toNanos();
+		this.executor = executor;
+		this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "mem4j-embedding-batcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public Double[] embed(String text) {
+		try {
+			return embedAsync(text, executor).join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Texts passed together are already batched and go straight to the delegate
+	 */
+	@Override
+	public Double[][] embed(String[] texts) {
+		return delegate.embed(texts);
+	}
+
+	/**
+	 * Queue the text for the next batch; the batch runs on this service's executor
+	 */
+	@Override
+	public CompletableFuture<Double[]> embedAsync(String text, Executor ignored) {
+		CompletableFuture<Double[]> future;
+		Map<String, CompletableFuture<Double[]>> batch = null;
+		synchronized (lock) {
+			future = pending.get(text);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				pending.put(text, future);
+				if (pending.size() >= maxBatchSize) {
+					batch = takePending();
+				}
+				else if (pending.size() == 1) {
+					scheduledFlush = timer.schedule(this::flush, maxDelayNanos, TimeUnit.NANOSECONDS);
+				}
+			}
+		}
+		if (batch != null) {
+			dispatch(batch);
+		}
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<Double[][]> embedAsync(String[] texts, Executor executor) {
+		return delegate.embedAsync(texts, executor);
+	}
+
+	@Override
+	public Integer getDimension() {
+		return delegate.getDimension();
+	}
+
+	@Override
+	public Boolean isAvailable() {
+		return delegate.isAvailable();
+	}
+
+	/**
+	 * Send the waiting texts and stop the batching timer
+	 */
+	@Override
+	public void close() {
+		flush();
+		timer.shutdown();
+	}
+
+	private void flush() {
+		Map<String, CompletableFuture<Double[]>> batch;
+		synchronized (lock) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = takePending();
+		}
+		dispatch(batch);
+	}
+
+	// Called with lock held
+	private Map<String, CompletableFuture<Double[]>> takePending() {
+		Map<String, CompletableFuture<Double[]>> batch = pending;
+		pending = new LinkedHashMap<>();
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		return batch;
+	}
+
+	private void dispatch(Map<String, CompletableFuture<Double[]>> batch) {
+		String[] texts = batch.keySet().toArray(String[]::new);
+		List<CompletableFuture<Double[]>> futures = new ArrayList<>(batch.values());
+		logger.debug("Embedding {} coalesced texts in one request", texts.length);
+
+		CompletableFuture<Double[][]> embeddings;
+		try {
+			embeddings = delegate.embedAsync(texts, executor);
+		}
+		catch (RuntimeException e) {
+			embeddings = CompletableFuture.failedFuture(e);
+		}
+		embeddings.whenComplete((result, e) -> {
+			if (e == null && (result == null || result.length != texts.length)) {
+				e = new RuntimeException(
+						"Expected " + texts.length + " embeddings but got " + (result == null ? 0 : result.length));
+			}
+			if (e != null) {
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				logger.error("Error generating {} coalesced embeddings", texts.length, cause);
+				futures.forEach(future -> future.completeExceptionally(cause));
+				return;
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				futures.get(i).complete(result[i]);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.embeddings;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.mem4j.config.MemoryConfigurable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DashScope implementation of ReactiveEmbeddingService using a non-blocking WebClient
+ */
+public class DashScopeReactiveEmbeddingService implements ReactiveEmbeddingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DashScopeReactiveEmbeddingService.class);
+
+	private static final String DASHSCOPE_EMBEDDING_API_URL = "https://dashscope.aliyuncs.com/api/v1/services/embeddings/text-embedding/text-embedding";
+
+	private final WebClient webClient;
+
+	private final ObjectMapper objectMapper;
+
+	private final String model;
+
+	private final int dimension;
+
+	public DashScopeReactiveEmbeddingService(MemoryConfigurable config) {
+		this(config, WebClient.builder().clientConnector(new JdkClientHttpConnector()));
+	}
+
+	public DashScopeReactiveEmbeddingService(MemoryConfigurable config, WebClient.Builder webClientBuilder) {
+		this.webClient = webClientBuilder.baseUrl(DASHSCOPE_EMBEDDING_API_URL)
+			.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + config.getLlm().getApiKey())
+			.build();
+		this.objectMapper = new ObjectMapper();
+		this.model = config.getEmbeddings().getModel();
+		this.dimension = config.getEmbeddingDimension();
+	}
+
+	@Override
+	public Mono<Double[]> embed(String text) {
+		return request(List.of(text)).map(embeddings -> {
+			if (embeddings.length == 0) {
+				throw new RuntimeException("No embedding generated");
+			}
+			return embeddings[0];
+		}).onErrorMap(e -> {
+			logger.error("Error generating embedding", e);
+			return new RuntimeException("Failed to generate embedding", e);
+		});
+	}
+
+	@Override
+	public Mono<Double[][]> embed(String[] texts) {
+		return request(Arrays.asList(texts)).onErrorMap(e -> {
+			logger.error("Error generating embeddings", e);
+			return new RuntimeException("Failed to generate embeddings", e);
+		});
+	}
+
+	@Override
+	public Integer getDimension() {
+		return dimension;
+	}
+
+	private Mono<Double[][]> request(List<String> texts) {
+		Map<String, Object> requestBody = new HashMap<>();
+		requestBody.put("model", model);
+
+		Map<String, Object> input = new HashMap<>();
+		input.put("texts", texts);
+		requestBody.put("input", input);
+
+		return webClient.post()
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(requestBody)
+			.retrieve()
+			.bodyToMono(String.class)
+			.map(this::parseEmbeddings);
+	}
+
+	private Double[][] parseEmbeddings(String body) {
+		try {
+			JsonNode embeddings = objectMapper.readTree(body).path("output").path("embeddings");
+
+			Double[][] result = new Double[embeddings.size()][];
+			for (int i = 0; i < embeddings.size(); i++) {
+				JsonNode embeddingArray = embeddings.get(i).path("embedding");
+				result[i] = new Double[embeddingArray.size()];
+				for (int j = 0; j < embeddingArray.size(); j++) {
+					result[i][j] = embeddingArray.get(j).asDouble();
+				}
+			}
+			return result;
+		}
+		catch (Exception e) {
+			throw new RuntimeException("Invalid embedding response", e);
+		}
+	}
+
+}
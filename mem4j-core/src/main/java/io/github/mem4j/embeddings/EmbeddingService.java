@@ -16,6 +16,9 @@
 
 package io.github.mem4j.embeddings;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Interface for embedding operations
  */
@@ -32,6 +35,22 @@ public interface EmbeddingService {
 	 */
 	Double[][] embed(String[] texts);
 
+	/**
+	 * Generate embedding for a text without blocking the caller. The default runs
+	 * {@link #embed(String)} on the executor; implementations with a non-blocking client
+	 * may ignore it.
+	 */
+	default CompletableFuture<Double[]> embedAsync(String text, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> embed(text), executor);
+	}
+
+	/**
+	 * Generate embeddings for multiple texts without blocking the caller
+	 */
+	default CompletableFuture<Double[][]> embedAsync(String[] texts, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> embed(texts), executor);
+	}
+
 	/**
 	 * Get the dimension of embeddings
 	 */
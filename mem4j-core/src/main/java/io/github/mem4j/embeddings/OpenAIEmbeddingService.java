@@ -85,7 +85,7 @@ public class OpenAIEmbeddingService implements EmbeddingService {
 
 			return result.getData()
 				.stream()
-				.map(data -> data.getEmbedding().stream().mapToDouble(Double::doubleValue).toArray())
+				.map(data -> data.getEmbedding().toArray(new Double[0]))
 				.toArray(Double[][]::new);
 		}
 		catch (Exception e) {
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.embeddings;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Interface for embedding operations on a non-blocking client
+ * <p>
+ * Nothing happens until the returned {@link Mono} is subscribed, and no thread waits for
+ * the response.
+ */
+public interface ReactiveEmbeddingService {
+
+	/**
+	 * Generate embedding for a single text
+	 */
+	Mono<Double[]> embed(String text);
+
+	/**
+	 * Generate embeddings for multiple texts
+	 */
+	Mono<Double[][]> embed(String[] texts);
+
+	/**
+	 * Get the dimension of embeddings
+	 */
+	Integer getDimension();
+
+	/**
+	 * Adapt a blocking embedding service, whose calls run on the given executor
+	 */
+	static ReactiveEmbeddingService from(EmbeddingService embeddingService, Executor executor) {
+		return new ReactiveEmbeddingService() {
+
+			@Override
+			public Mono<Double[]> embed(String text) {
+				return Mono.fromFuture(() -> embeddingService.embedAsync(text, executor));
+			}
+
+			@Override
+			public Mono<Double[][]> embed(String[] texts) {
+				return Mono.fromFuture(() -> embeddingService.embedAsync(texts, executor));
+			}
+
+			@Override
+			public Integer getDimension() {
+				return embeddingService.getDimension();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.ingestion;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.memory.Message;
+import io.github.mem4j.util.AppendLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable journal of the conversations accepted by an {@link IngestionQueue}
+ * <p>
+ * Every submission is appended to an {@link AppendLog} before it is queued, and
+ * acknowledged once {@link io.github.mem4j.memory.Memory#add} has written its memories.
+ * On startup, {@link #recover()} returns the submissions that were never acknowledged, so
+ * a restart or crash does not lose queued conversations. Each attempt to ingest an entry
+ * is logged too: an entry that keeps failing, or that was being ingested when the process
+ * died too often, is moved to the dead-letter log instead of being retried forever.
+ * <p>
+ * With a sync interval, submissions return once written and a background thread fsyncs
+ * the journal periodically, so a crash loses at most that interval. Without one, each
+ * submission waits for an fsync shared with concurrent submissions. Acknowledgements are
+ * never waited for: losing one only means the conversation is added again.
+ */
+public final class IngestionJournal implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(IngestionJournal.class);
+
+	private static final String LOG_PREFIX = "ingest-";
+
+	private static final String DEAD_LETTER_PREFIX = "dead-letter-";
+
+	private static final byte OP_SUBMIT = 1;
+
+	private static final byte OP_ACK = 2;
+
+	private static final byte OP_ATTEMPT = 3;
+
+	// Carries the last id into a new generation, so ids keep increasing after older
+	// generations are deleted
+	private static final byte OP_LAST_ID = 4;
+
+	// Records per generation before the journal rotates and drops acknowledged ones
+	private static final int ROTATE_RECORDS = 10_000;
+
+	private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+		.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+		.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	private static final TypeReference<List<Message>> MESSAGES_TYPE = new TypeReference<>() {
+	};
+
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+	};
+
+	/**
+	 * A journaled conversation that is not acknowledged yet
+	 */
+	public static final class Entry {
+
+		private final long id;
+
+		private final String userId;
+
+		private final List<Message> messages;
+
+		private final Map<String, Object> metadata;
+
+		private final boolean infer;
+
+		private final MemoryType memoryType;
+
+		private int attempts;
+
+		Entry(long id, String userId, List<Message> messages, Map<String, Object> metadata, boolean infer,
+				MemoryType memoryType) {
+			this.id = id;
+			this.userId = userId;
+			this.messages = messages;
+			this.metadata = metadata;
+			this.infer = infer;
+			this.memoryType = memoryType;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public String getUserId() {
+			return userId;
+		}
+
+		public List<Message> getMessages() {
+			return messages;
+		}
+
+		public Map<String, Object> getMetadata() {
+			return metadata;
+		}
+
+		public boolean isInfer() {
+			return infer;
+		}
+
+		public MemoryType getMemoryType() {
+			return memoryType;
+		}
+
+		/**
+		 * Ingestion attempts started for this entry, including those of earlier runs
+		 */
+		public int getAttempts() {
+			return attempts;
+		}
+
+	}
+
+	private final AppendLog log;
+
+	private final AppendLog deadLetters;
+
+	private final ScheduledExecutorService syncer;
+
+	// Generation holding the submission of each unacknowledged entry, by id
+	private final TreeMap<Long, Long> pending = new TreeMap<>();
+
+	private long lastId;
+
+	private long generation;
+
+	private int recordsInGeneration;
+
+	private boolean open;
+
+	// The dead-letter log gets a generation only once something is dead-lettered
+	private boolean deadLettersOpen;
+
+	/**
+	 * @param directory directory holding the journal, created if missing
+	 * @param syncInterval how often the journal is fsynced in the background; zero makes
+	 * every submission wait for its fsync
+	 */
+	public IngestionJournal(Path directory, Duration syncInterval) throws IOException {
+		this.log = new AppendLog(directory, LOG_PREFIX, true);
+		this.deadLetters = new AppendLog(directory, DEAD_LETTER_PREFIX, true);
+		if (syncInterval.isZero() || syncInterval.isNegative()) {
+			this.syncer = null;
+		}
+		else {
+			this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "mem4j-ingestion-journal");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long intervalNanos = syncInterval.toNanos();
+			this.syncer.scheduleWithFixedDelay(this::syncQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Read the unacknowledged entries, oldest first, and open the journal for appends.
+	 * They are rewritten into a fresh generation so that older generations can be deleted
+	 * right away.
+	 */
+	public synchronized List<Entry> recover() throws IOException {
+		if (open) {
+			throw new IllegalStateException("Journal is already recovered");
+		}
+		Map<Long, Entry> entries = new LinkedHashMap<>();
+		Map<Long, Integer> attempts = new HashMap<>();
+		log.replay(0, (logGeneration, payload) -> {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+			byte op = in.readByte();
+			long id = in.readLong();
+			lastId = Math.max(lastId, id);
+			switch (op) {
+				case OP_SUBMIT -> entries.put(id, readEntry(id, in));
+				case OP_ACK -> entries.remove(id);
+				case OP_ATTEMPT -> attempts.merge(id, 1, Integer::sum);
+				case OP_LAST_ID -> {
+				}
+				default -> throw new IOException("Unknown ingestion journal operation: " + op);
+			}
+		});
+		generation = log.open();
+		append(OP_LAST_ID, lastId, null);
+		List<Entry> recovered = new ArrayList<>(entries.values());
+		for (Entry entry : recovered) {
+			entry.attempts = attempts.getOrDefault(entry.id, 0);
+			append(OP_SUBMIT, entry.id, entry);
+			for (int i = 0; i < entry.attempts; i++) {
+				append(OP_ATTEMPT, entry.id, null);
+			}
+			pending.put(entry.id, generation);
+		}
+		log.sync(log.lastSequence());
+		log.deleteBefore(generation);
+		open = true;
+		if (!recovered.isEmpty()) {
+			logger.info("Recovered {} unacknowledged conversations from the ingestion journal", recovered.size());
+		}
+		return recovered;
+	}
+
+	/**
+	 * Journal a conversation, waiting for it to be on disk unless a sync interval is set
+	 * @return the entry, with an id that increases across restarts
+	 */
+	public Entry append(List<Message> messages, String userId, Map<String, Object> metadata, boolean infer,
+			MemoryType memoryType) throws IOException {
+		long sequence;
+		Entry entry;
+		synchronized (this) {
+			ensureOpen();
+			entry = new Entry(++lastId, userId, messages, metadata, infer, memoryType);
+			sequence = append(OP_SUBMIT, entry.id, entry);
+			pending.put(entry.id, generation);
+		}
+		if (syncer == null) {
+			log.sync(sequence);
+		}
+		return entry;
+	}
+
+	/**
+	 * Record that an attempt to ingest the entry starts
+	 */
+	public synchronized void recordAttempt(Entry entry) throws IOException {
+		ensureOpen();
+		entry.attempts++;
+		append(OP_ATTEMPT, entry.id, null);
+	}
+
+	/**
+	 * Mark the entry as ingested, so it is not recovered again
+	 */
+	public synchronized void acknowledge(Entry entry) throws IOException {
+		ensureOpen();
+		append(OP_ACK, entry.id, null);
+		pending.remove(entry.id);
+		if (recordsInGeneration >= ROTATE_RECORDS) {
+			generation = log.rotate();
+			recordsInGeneration = 0;
+			append(OP_LAST_ID, lastId, null);
+			log.deleteBefore(pending.isEmpty() ? generation : pending.firstEntry().getValue());
+		}
+	}
+
+	/**
+	 * Move an entry that cannot be ingested to the dead-letter log, with the reason, and
+	 * acknowledge it
+	 */
+	public void deadLetter(Entry entry, String reason) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeLong(entry.id);
+		out.writeUTF(reason == null ? "" : reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+		out.writeInt(entry.attempts);
+		writeEntry(out, entry);
+		out.flush();
+		long sequence;
+		synchronized (this) {
+			ensureOpen();
+			if (!deadLettersOpen) {
+				deadLetters.open();
+				deadLettersOpen = true;
+			}
+			sequence = deadLetters.append(bytes.toByteArray());
+		}
+		deadLetters.sync(sequence);
+		logger.error("Moved conversation {} for user {} to the ingestion dead-letter log after {} attempts: {}",
+				entry.id, entry.userId, entry.attempts, reason);
+		acknowledge(entry);
+	}
+
+	/**
+	 * Unacknowledged entries, including those still queued or being ingested
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (syncer != null) {
+			syncer.shutdown();
+			try {
+				syncer.awaitTermination(1, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			open = false;
+			log.close();
+			deadLetters.close();
+		}
+	}
+
+	// Called with this locked
+	private long append(byte op, long id, Entry entry) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry != null ? 512 : 16);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(op);
+		out.writeLong(id);
+		if (entry != null) {
+			writeEntry(out, entry);
+		}
+		out.flush();
+		recordsInGeneration++;
+		return log.append(bytes.toByteArray());
+	}
+
+	private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("userId", entry.userId);
+		fields.put("memoryType", entry.memoryType != null ? entry.memoryType.getValue() : null);
+		fields.put("infer", entry.infer);
+		fields.put("metadata", entry.metadata);
+		fields.put("messages", entry.messages);
+		out.write(objectMapper.writeValueAsBytes(fields));
+	}
+
+	private static Entry readEntry(long id, DataInputStream in) throws IOException {
+		JsonNode fields = objectMapper.readTree(in.readAllBytes());
+		String memoryType = fields.path("memoryType").textValue();
+		return new Entry(id, fields.path("userId").textValue(),
+				objectMapper.convertValue(fields.path("messages"), MESSAGES_TYPE),
+				objectMapper.convertValue(fields.get("metadata"), MAP_TYPE), fields.path("infer").asBoolean(true),
+				memoryType != null ? MemoryType.fromString(memoryType) : null);
+	}
+
+	private void ensureOpen() throws IOException {
+		if (!open) {
+			throw new IOException("Ingestion journal is not recovered or already closed");
+		}
+	}
+
+	private void syncQuietly() {
+		try {
+			log.sync(log.lastSequence());
+		}
+		catch (IOException | RuntimeException e) {
+			logger.error("Error syncing ingestion journal", e);
+		}
+	}
+
+}
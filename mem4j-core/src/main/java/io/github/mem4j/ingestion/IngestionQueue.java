@@ -0,0 +1,606 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.ingestion;
+
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.memory.Memory;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.memory.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded queue that adds conversations to a {@link Memory} in the background
+ * <p>
+ * {@link #submit} returns an {@link IngestionTicket} right away, and a fixed pool of
+ * workers runs {@link Memory#add} for the queued conversations. Conversations of one user
+ * are added one at a time in submission order, since each may update memories the
+ * previous one stored; different users are served in the order they became ready.
+ * <p>
+ * The queue counts as saturated when {@code queue-capacity} conversations wait, or when
+ * the oldest has waited longer than {@code max-lag-ms}. Submissions to a saturated queue
+ * follow the {@link RejectionPolicy}.
+ * <p>
+ * A failed conversation is retried up to {@code max-attempts} times with exponential
+ * backoff, still ahead of later conversations of its user. With an
+ * {@link IngestionJournal}, accepted conversations are journaled before they are queued
+ * and acknowledged once added, the queue starts with the conversations a previous run
+ * left unacknowledged, and conversations that are dropped or run out of attempts go to
+ * the journal's dead-letter log.
+ */
+public class IngestionQueue implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(IngestionQueue.class);
+
+	private final Memory memory;
+
+	private final int capacity;
+
+	// 0 when lag does not saturate the queue
+	private final long maxLagNanos;
+
+	private final RejectionPolicy rejectionPolicy;
+
+	// null when queued conversations are lost on shutdown
+	private final IngestionJournal journal;
+
+	private final int maxAttempts;
+
+	private final long retryBackoffNanos;
+
+	private final Thread[] workers;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition readyNotEmpty = lock.newCondition();
+
+	private final Condition notSaturated = lock.newCondition();
+
+	private final Condition idle = lock.newCondition();
+
+	// Every waiting conversation in submission order, guarded by lock
+	private final LinkedHashMap<Long, Task> queued = new LinkedHashMap<>();
+
+	// Waiting conversations per user, guarded by lock
+	private final Map<String, ArrayDeque<Task>> waiting = new HashMap<>();
+
+	// Users with waiting conversations and none running, guarded by lock
+	private final ArrayDeque<String> ready = new ArrayDeque<>();
+
+	// Users with a conversation being added, guarded by lock
+	private final Set<String> running = new HashSet<>();
+
+	private boolean closed;
+
+	public IngestionQueue(Memory memory, MemoryConfigurable config) {
+		this(memory, setting(config, MemoryConfigurable.Ingestion::getWorkers, 2),
+				setting(config, MemoryConfigurable.Ingestion::getQueueCapacity, 1000),
+				Duration.ofMillis(setting(config, MemoryConfigurable.Ingestion::getMaxLagMs, 0)),
+				RejectionPolicy
+					.named(config.getIngestion() != null ? config.getIngestion().getRejectionPolicy() : null),
+				openJournal(config), setting(config, MemoryConfigurable.Ingestion::getMaxAttempts, 3),
+				Duration.ofMillis(setting(config, MemoryConfigurable.Ingestion::getRetryBackoffMs, 1000)));
+	}
+
+	public IngestionQueue(Memory memory, int workers, int capacity, Duration maxLag, RejectionPolicy rejectionPolicy) {
+		this(memory, workers, capacity, maxLag, rejectionPolicy, null, 1, Duration.ZERO);
+	}
+
+	/**
+	 * @param journal journal to recover from and record conversations in, closed with
+	 * this queue; null to keep queued conversations in memory only
+	 * @param maxAttempts times a conversation is tried before it fails
+	 * @param retryBackoff wait before the first retry, doubled for each further one
+	 */
+	public IngestionQueue(Memory memory, int workers, int capacity, Duration maxLag, RejectionPolicy rejectionPolicy,
+			IngestionJournal journal, int maxAttempts, Duration retryBackoff) {
+		if (workers < 1) {
+			throw new IllegalArgumentException("workers must be positive: " + workers);
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.memory = memory;
+		this.capacity = capacity;
+		this.maxLagNanos = maxLag.toNanos();
+		this.rejectionPolicy = rejectionPolicy;
+		this.journal = journal;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.retryBackoffNanos = retryBackoff.toNanos();
+		if (journal != null) {
+			recover(journal);
+		}
+		this.workers = new Thread[workers];
+		for (int i = 0; i < workers; i++) {
+			Thread worker = new Thread(this::work, "mem4j-ingestion-" + (i + 1));
+			worker.setDaemon(true);
+			worker.start();
+			this.workers[i] = worker;
+		}
+	}
+
+	/**
+	 * Queue a conversation for {@link Memory#add(List, String)}
+	 */
+	public IngestionTicket submit(List<Message> messages, String userId) {
+		return submit(messages, userId, null, true, MemoryType.FACTUAL);
+	}
+
+	/**
+	 * Queue a conversation for {@link Memory#add(List, String, Map, boolean, MemoryType)}
+	 * @throws RejectedExecutionException if the queue is closed, or saturated under the
+	 * {@link RejectionPolicy#REJECT} policy
+	 */
+	public IngestionTicket submit(List<Message> messages, String userId, Map<String, Object> metadata, boolean infer,
+			MemoryType memoryType) {
+		IngestionJournal.Entry entry = journal != null ? journalEntry(messages, userId, metadata, infer, memoryType)
+				: null;
+		IngestionTicket ticket = new IngestionTicket(entry != null ? entry.getId() : sequence.incrementAndGet(),
+				userId);
+		Task task = new Task(ticket, messages, metadata, infer, memoryType, entry);
+		List<Task> dropped = new ArrayList<>();
+		RejectedExecutionException rejection = null;
+		lock.lock();
+		try {
+			while (!closed && isSaturated()) {
+				if (rejectionPolicy == RejectionPolicy.REJECT) {
+					rejected.incrementAndGet();
+					rejection = new RejectedExecutionException("Ingestion queue is saturated with " + queued.size()
+							+ " conversations, rejecting conversation for user: " + userId);
+					break;
+				}
+				if (rejectionPolicy == RejectionPolicy.DROP_OLDEST) {
+					dropped.add(removeOldest());
+				}
+				else if (!awaitRoom()) {
+					rejection = new RejectedExecutionException(
+							"Interrupted while waiting to queue conversation for user: " + userId);
+					break;
+				}
+			}
+			if (rejection == null && closed) {
+				rejection = new RejectedExecutionException("Ingestion queue is closed");
+			}
+			if (rejection == null) {
+				enqueue(task);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		for (Task oldest : dropped) {
+			rejected.incrementAndGet();
+			logger.warn("Ingestion queue is saturated, dropping conversation {} for user {}", oldest.ticket.getId(),
+					oldest.ticket.getUserId());
+			deadLetter(oldest, "Dropped from the saturated ingestion queue");
+			oldest.ticket.fail(new RejectedExecutionException(
+					"Dropped from the saturated ingestion queue: conversation " + oldest.ticket.getId()));
+		}
+		if (rejection != null) {
+			// The caller keeps the conversation, so the journal must not replay it
+			acknowledge(task);
+			throw rejection;
+		}
+		return ticket;
+	}
+
+	/**
+	 * Conversations waiting for a worker
+	 */
+	public int getDepth() {
+		lock.lock();
+		try {
+			return queued.size();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * How long the oldest waiting conversation has waited, or zero when none waits
+	 */
+	public Duration getLag() {
+		lock.lock();
+		try {
+			return Duration.ofNanos(lagNanos());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Conversations rejected or dropped because the queue was saturated
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Wait until every conversation submitted so far has been ingested or has failed
+	 * @return false if conversations are still queued or running after the timeout
+	 */
+	public boolean flush(Duration timeout) throws InterruptedException {
+		long remaining = timeout.toNanos();
+		lock.lock();
+		try {
+			while (!queued.isEmpty() || !running.isEmpty()) {
+				if (remaining <= 0) {
+					return false;
+				}
+				remaining = idle.awaitNanos(remaining);
+			}
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stop accepting conversations, let the workers ingest the queued ones and wait for
+	 * them to finish, then close the journal
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			readyNotEmpty.signalAll();
+			notSaturated.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.warn("Interrupted while waiting for {} conversations to be ingested", getDepth());
+				return;
+			}
+		}
+		if (journal != null) {
+			try {
+				journal.close();
+			}
+			catch (IOException e) {
+				logger.error("Error closing ingestion journal", e);
+			}
+		}
+	}
+
+	private void work() {
+		while (true) {
+			Task task = take();
+			if (task == null) {
+				return;
+			}
+			try {
+				ingest(task);
+			}
+			finally {
+				release(key(task.ticket.getUserId()));
+			}
+		}
+	}
+
+	private void ingest(Task task) {
+		while (true) {
+			recordAttempt(task);
+			try {
+				memory.add(task.messages, task.ticket.getUserId(), task.metadata, task.infer, task.memoryType);
+				acknowledge(task);
+				task.ticket.complete();
+				return;
+			}
+			catch (RuntimeException e) {
+				// Memory#add has logged the cause
+				if (task.attempts < maxAttempts && backOff(task.attempts)) {
+					logger.warn("Retrying conversation {} for user {} after {} failed attempts", task.ticket.getId(),
+							task.ticket.getUserId(), task.attempts);
+					continue;
+				}
+				logger.debug("Conversation {} for user {} was not ingested", task.ticket.getId(),
+						task.ticket.getUserId());
+				deadLetter(task, e.getMessage());
+				task.ticket.fail(e);
+				return;
+			}
+		}
+	}
+
+	// Wait before the next attempt; false if interrupted
+	private boolean backOff(int failedAttempts) {
+		long nanos = retryBackoffNanos << Math.min(failedAttempts - 1, 16);
+		if (nanos <= 0) {
+			return true;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	// Queue what a previous run left unacknowledged, ahead of any new submission
+	private void recover(IngestionJournal journal) {
+		List<IngestionJournal.Entry> entries;
+		try {
+			entries = journal.recover();
+		}
+		catch (IOException e) {
+			logger.error("Error recovering ingestion journal", e);
+			throw new RuntimeException("Failed to recover ingestion journal", e);
+		}
+		List<Task> tasks = new ArrayList<>();
+		for (IngestionJournal.Entry entry : entries) {
+			Task task = new Task(new IngestionTicket(entry.getId(), entry.getUserId()), entry.getMessages(),
+					entry.getMetadata(), entry.isInfer(), entry.getMemoryType(), entry);
+			task.attempts = entry.getAttempts();
+			if (task.attempts >= maxAttempts) {
+				// Attempted as often as allowed, each time without completing
+				deadLetter(task, "Not completed in " + task.attempts + " attempts");
+			}
+			else {
+				tasks.add(task);
+			}
+		}
+		lock.lock();
+		try {
+			tasks.forEach(this::enqueue);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private IngestionJournal.Entry journalEntry(List<Message> messages, String userId, Map<String, Object> metadata,
+			boolean infer, MemoryType memoryType) {
+		try {
+			return journal.append(messages, userId, metadata, infer, memoryType);
+		}
+		catch (IOException e) {
+			logger.error("Error journaling conversation for user {}", userId, e);
+			throw new RuntimeException("Failed to journal conversation", e);
+		}
+	}
+
+	private void recordAttempt(Task task) {
+		task.attempts++;
+		if (task.entry != null) {
+			try {
+				journal.recordAttempt(task.entry);
+			}
+			catch (IOException e) {
+				logger.error("Error journaling attempt of conversation {}", task.ticket.getId(), e);
+			}
+		}
+	}
+
+	private void acknowledge(Task task) {
+		if (task.entry != null) {
+			try {
+				journal.acknowledge(task.entry);
+			}
+			catch (IOException e) {
+				// The conversation is added again after a restart
+				logger.error("Error acknowledging conversation {} in the ingestion journal", task.ticket.getId(), e);
+			}
+		}
+	}
+
+	private void deadLetter(Task task, String reason) {
+		if (task.entry != null) {
+			try {
+				journal.deadLetter(task.entry, reason);
+			}
+			catch (IOException e) {
+				logger.error("Error dead-lettering conversation {} in the ingestion journal", task.ticket.getId(), e);
+			}
+		}
+	}
+
+	// Next conversation of the longest-ready user, or null once closed and drained
+	private Task take() {
+		lock.lock();
+		try {
+			while (ready.isEmpty()) {
+				if (closed && queued.isEmpty()) {
+					return null;
+				}
+				readyNotEmpty.awaitUninterruptibly();
+			}
+			String key = ready.poll();
+			Task task = waiting.get(key).poll();
+			queued.remove(task.ticket.getId());
+			running.add(key);
+			notSaturated.signalAll();
+			return task;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(String key) {
+		lock.lock();
+		try {
+			running.remove(key);
+			ArrayDeque<Task> pending = waiting.get(key);
+			if (pending.isEmpty()) {
+				waiting.remove(key);
+			}
+			else {
+				ready.add(key);
+				readyNotEmpty.signal();
+			}
+			if (queued.isEmpty() && running.isEmpty()) {
+				idle.signalAll();
+				// Workers waiting to exit after close
+				readyNotEmpty.signalAll();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	// Called with lock held
+	private void enqueue(Task task) {
+		String key = key(task.ticket.getUserId());
+		queued.put(task.ticket.getId(), task);
+		ArrayDeque<Task> pending = waiting.computeIfAbsent(key, k -> new ArrayDeque<>());
+		pending.add(task);
+		if (pending.size() == 1 && !running.contains(key)) {
+			ready.add(key);
+			readyNotEmpty.signal();
+		}
+	}
+
+	// Called with lock held
+	private Task removeOldest() {
+		Iterator<Task> oldest = queued.values().iterator();
+		Task task = oldest.next();
+		oldest.remove();
+		String key = key(task.ticket.getUserId());
+		ArrayDeque<Task> pending = waiting.get(key);
+		pending.remove(task);
+		if (pending.isEmpty() && !running.contains(key)) {
+			waiting.remove(key);
+			ready.remove(key);
+		}
+		if (queued.isEmpty() && running.isEmpty()) {
+			idle.signalAll();
+		}
+		return task;
+	}
+
+	// Called with lock held
+	private boolean isSaturated() {
+		return queued.size() >= capacity || maxLagNanos > 0 && lagNanos() > maxLagNanos;
+	}
+
+	// Called with lock held
+	private long lagNanos() {
+		if (queued.isEmpty()) {
+			return 0;
+		}
+		return System.nanoTime() - queued.values().iterator().next().queuedAt;
+	}
+
+	// Called with lock held; a saturated queue only drains as workers take conversations
+	private boolean awaitRoom() {
+		try {
+			notSaturated.await();
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static String key(String userId) {
+		return Objects.toString(userId, "");
+	}
+
+	private static int setting(MemoryConfigurable config, Function<MemoryConfigurable.Ingestion, Integer> getter,
+			int defaultValue) {
+		MemoryConfigurable.Ingestion ingestion = config.getIngestion();
+		Integer value = ingestion != null ? getter.apply(ingestion) : null;
+		return value != null ? value : defaultValue;
+	}
+
+	private static IngestionJournal openJournal(MemoryConfigurable config) {
+		MemoryConfigurable.Ingestion ingestion = config.getIngestion();
+		String directory = ingestion != null ? ingestion.getJournalDirectory() : null;
+		if (directory == null || directory.isBlank()) {
+			return null;
+		}
+		try {
+			return new IngestionJournal(Path.of(directory),
+					Duration.ofMillis(setting(config, MemoryConfigurable.Ingestion::getJournalSyncIntervalMs, 10)));
+		}
+		catch (IOException e) {
+			logger.error("Error opening ingestion journal in {}", directory, e);
+			throw new RuntimeException("Failed to open ingestion journal", e);
+		}
+	}
+
+	private static final class Task {
+
+		private final IngestionTicket ticket;
+
+		private final List<Message> messages;
+
+		private final Map<String, Object> metadata;
+
+		private final boolean infer;
+
+		private final MemoryType memoryType;
+
+		// null without a journal
+		private final IngestionJournal.Entry entry;
+
+		private final long queuedAt = System.nanoTime();
+
+		private int attempts;
+
+		Task(IngestionTicket ticket, List<Message> messages, Map<String, Object> metadata, boolean infer,
+				MemoryType memoryType, IngestionJournal.Entry entry) {
+			this.ticket = ticket;
+			this.messages = messages;
+			this.metadata = metadata;
+			this.infer = infer;
+			this.memoryType = memoryType;
+			this.entry = entry;
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.ingestion;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Receipt for a conversation handed to an {@link IngestionQueue}, completed once its
+ * memories are stored
+ */
+public final class IngestionTicket {
+
+	private final long id;
+
+	private final String userId;
+
+	private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+	IngestionTicket(long id, String userId) {
+		this.id = id;
+		this.userId = userId;
+	}
+
+	/**
+	 * Sequence number of the submission, increasing in submission order
+	 */
+	public long getId() {
+		return id;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	/**
+	 * Completes when the memories are stored, or fails with the exception of
+	 * {@link io.github.mem4j.memory.Memory#add} or the rejection that dropped the
+	 * conversation
+	 */
+	public CompletableFuture<Void> toCompletableFuture() {
+		return completion.copy();
+	}
+
+	/**
+	 * Wait for the conversation to be ingested or to fail
+	 * @return false if it is still queued or running after the timeout
+	 */
+	public boolean await(Duration timeout) throws InterruptedException {
+		try {
+			completion.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		}
+		catch (ExecutionException e) {
+			// Failed, which is done as well
+		}
+		catch (TimeoutException e) {
+			return false;
+		}
+		return true;
+	}
+
+	void complete() {
+		completion.complete(null);
+	}
+
+	void fail(Throwable e) {
+		completion.completeExceptionally(e);
+	}
+
+	@Override
+	public String toString() {
+		return "IngestionTicket{id=" + id + ", userId='" + userId + "', done=" + isDone() + "}";
+	}
+
+}
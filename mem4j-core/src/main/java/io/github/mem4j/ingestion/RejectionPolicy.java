@@ -0,0 +1,54 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.ingestion;
+
+/**
+ * What {@link IngestionQueue#submit} does when the queue is full or lagging too far
+ * behind
+ */
+public enum RejectionPolicy {
+
+	/**
+	 * The caller waits until the workers make room
+	 */
+	BLOCK,
+
+	/**
+	 * The submission fails with a {@link java.util.concurrent.RejectedExecutionException}
+	 */
+	REJECT,
+
+	/**
+	 * The oldest waiting conversation is dropped, and its ticket fails with a
+	 * {@link java.util.concurrent.RejectedExecutionException}
+	 */
+	DROP_OLDEST;
+
+	/**
+	 * Policy for a configuration value: "block", "reject" or "drop-oldest"
+	 */
+	public static RejectionPolicy named(String name) {
+		String normalized = name != null ? name.trim().toLowerCase() : "block";
+		return switch (normalized) {
+			case "block" -> BLOCK;
+			case "reject" -> REJECT;
+			case "drop-oldest" -> DROP_OLDEST;
+			default -> throw new IllegalArgumentException("Unsupported rejection policy: " + name);
+		};
+	}
+
+}
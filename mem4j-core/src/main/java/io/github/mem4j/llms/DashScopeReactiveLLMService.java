@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.llms;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.memory.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * DashScope implementation of ReactiveLLMService using a non-blocking WebClient
+ */
+public class DashScopeReactiveLLMService implements ReactiveLLMService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DashScopeReactiveLLMService.class);
+
+	private static final String DASHSCOPE_API_URL = "https://dashscope.aliyuncs.com/api/v1/services/aigc/text-generation/generation";
+
+	private final WebClient webClient;
+
+	private final ObjectMapper objectMapper;
+
+	private final String model;
+
+	public DashScopeReactiveLLMService(MemoryConfigurable config) {
+		this(config, WebClient.builder().clientConnector(new JdkClientHttpConnector()));
+	}
+
+	public DashScopeReactiveLLMService(MemoryConfigurable config, WebClient.Builder webClientBuilder) {
+		this.webClient = webClientBuilder.baseUrl(DASHSCOPE_API_URL)
+			.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + config.getLlm().getApiKey())
+			.build();
+		this.objectMapper = new ObjectMapper();
+		this.model = config.getLlm().getModel();
+	}
+
+	@Override
+	public Mono<String> generate(String prompt) {
+		return request(List.of(Map.of("role", "user", "content", prompt))).onErrorMap(e -> {
+			logger.error("Error generating response from DashScope", e);
+			return new RuntimeException("Failed to generate response", e);
+		});
+	}
+
+	@Override
+	public Mono<String> generate(List<Message> messages) {
+		List<Map<String, String>> apiMessages = messages.stream()
+			.map(msg -> Map.of("role", msg.getRole(), "content", msg.getContent()))
+			.collect(Collectors.toList());
+
+		return request(apiMessages).onErrorMap(e -> {
+			logger.error("Error generating response from messages", e);
+			return new RuntimeException("Failed to generate response", e);
+		});
+	}
+
+	@Override
+	public Mono<String> generateStructured(String prompt, String schema) {
+		String structuredPrompt = String.format("""
+				%s
+
+				Please respond in the following JSON format:
+				%s
+				""", prompt, schema);
+
+		return request(List.of(Map.of("role", "user", "content", structuredPrompt))).onErrorMap(e -> {
+			logger.error("Error generating structured response", e);
+			return new RuntimeException("Failed to generate structured response", e);
+		});
+	}
+
+	private Mono<String> request(List<Map<String, String>> messages) {
+		Map<String, Object> requestBody = new HashMap<>();
+		requestBody.put("model", model);
+
+		Map<String, Object> input = new HashMap<>();
+		input.put("messages", messages);
+		requestBody.put("input", input);
+
+		return webClient.post()
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(requestBody)
+			.retrieve()
+			.bodyToMono(String.class)
+			.map(body -> {
+				try {
+					return objectMapper.readTree(body).path("output").path("text").asText();
+				}
+				catch (Exception e) {
+					throw new RuntimeException("Invalid generation response", e);
+				}
+			});
+	}
+
+}
@@ -19,6 +19,8 @@ package io.github.mem4j.llms;
 import io.github.mem4j.memory.Message;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Interface for LLM operations
@@ -45,6 +47,29 @@ public interface LLMService {
 	 */
 	String generateStructured(String prompt, String schema);
 
+	/**
+	 * Generate text response from a prompt without blocking the caller. The default runs
+	 * {@link #generate(String)} on the executor; implementations with a non-blocking
+	 * client may ignore it.
+	 */
+	default CompletableFuture<String> generateAsync(String prompt, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> generate(prompt), executor);
+	}
+
+	/**
+	 * Generate response from a list of messages without blocking the caller
+	 */
+	default CompletableFuture<String> generateAsync(List<Message> messages, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> generate(messages), executor);
+	}
+
+	/**
+	 * Generate structured response (JSON) without blocking the caller
+	 */
+	default CompletableFuture<String> generateStructuredAsync(String prompt, String schema, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> generateStructured(prompt, schema), executor);
+	}
+
 	/**
 	 * Check if the service is available
 	 */
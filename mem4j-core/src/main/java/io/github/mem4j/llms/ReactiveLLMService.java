@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.llms;
+
+import io.github.mem4j.memory.Message;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Interface for LLM operations on a non-blocking client
+ * <p>
+ * Nothing happens until the returned {@link Mono} is subscribed, and no thread waits for
+ * the response.
+ */
+public interface ReactiveLLMService {
+
+	/**
+	 * Generate text response from a prompt
+	 */
+	Mono<String> generate(String prompt);
+
+	/**
+	 * Generate response from a list of messages
+	 */
+	Mono<String> generate(List<Message> messages);
+
+	/**
+	 * Generate structured response (JSON)
+	 */
+	Mono<String> generateStructured(String prompt, String schema);
+
+	/**
+	 * Adapt a blocking LLM service, whose calls run on the given executor
+	 */
+	static ReactiveLLMService from(LLMService llmService, Executor executor) {
+		return new ReactiveLLMService() {
+
+			@Override
+			public Mono<String> generate(String prompt) {
+				return Mono.fromFuture(() -> llmService.generateAsync(prompt, executor));
+			}
+
+			@Override
+			public Mono<String> generate(List<Message> messages) {
+				return Mono.fromFuture(() -> llmService.generateAsync(messages, executor));
+			}
+
+			@Override
+			public Mono<String> generateStructured(String prompt, String schema) {
+				return Mono.fromFuture(() -> llmService.generateStructuredAsync(prompt, schema, executor));
+			}
+		};
+	}
+
+}
@@ -16,22 +16,36 @@
 
 package io.github.mem4j.memory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.mem4j.config.MemoryConfigurable;
 import io.github.mem4j.embeddings.EmbeddingService;
 import io.github.mem4j.llms.LLMService;
+import io.github.mem4j.util.AsyncExecutors;
 import io.github.mem4j.vectorstores.VectorStoreService;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.similarity.Similarity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Core memory management class for Java Mem4j
  */
 @Service
-public class Memory {
+public class Memory implements AutoCloseable {
 
 	private static final Logger logger = LoggerFactory.getLogger(Memory.class);
 
@@ -43,12 +57,59 @@ public class Memory {
 
 	private final EmbeddingService embeddingService;
 
-	public Memory(MemoryConfigurable config, VectorStoreService vectorStoreService, LLMService llmService, EmbeddingService embeddingService) {
+	/**
+	 * Marker executor: run every step on the calling thread through the blocking service
+	 * methods
+	 */
+	private static final Executor CALLER = Runnable::run;
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	// Executor of the asynchronous operations
+	private final Executor executor;
+
+	// Executor created by this instance and shut down by close(), null when supplied by
+	// the caller
+	private final ExecutorService ownedExecutor;
+
+	/**
+	 * Creates a Memory with its own async executor, shut down by {@link #close()}
+	 */
+	public Memory(MemoryConfigurable config, VectorStoreService vectorStoreService, LLMService llmService,
+			EmbeddingService embeddingService) {
+		this(config, vectorStoreService, llmService, embeddingService, AsyncExecutors.create(config.getAsyncThreads()),
+				true);
+	}
+
+	/**
+	 * Creates a Memory running its asynchronous operations on the given executor, which
+	 * stays owned by the caller
+	 */
+	public Memory(MemoryConfigurable config, VectorStoreService vectorStoreService, LLMService llmService,
+			EmbeddingService embeddingService, Executor executor) {
+		this(config, vectorStoreService, llmService, embeddingService, executor, false);
+	}
+
+	private Memory(MemoryConfigurable config, VectorStoreService vectorStoreService, LLMService llmService,
+			EmbeddingService embeddingService, Executor executor, boolean ownsExecutor) {
 
 		this.config = config;
 		this.vectorStoreService = vectorStoreService;
 		this.llmService = llmService;
 		this.embeddingService = embeddingService;
+		this.executor = executor;
+		this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+	}
+
+	/**
+	 * Shut down the async executor if this instance created it; an executor passed to the
+	 * constructor is left to its owner
+	 */
+	@Override
+	public void close() {
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
 	}
 
 	/**
@@ -61,79 +122,432 @@ public class Memory {
 	/**
 	 * Add memories with custom parameters
 	 */
-	public void add(List<Message> messages, String userId, Map<String, Object> metadata, boolean infer, MemoryType memoryType) {
+	public void add(List<Message> messages, String userId, Map<String, Object> metadata, boolean infer,
+			MemoryType memoryType) {
 
 		try {
+			join(addMemories(messages, userId, metadata, infer, memoryType, CALLER));
+		}
+		catch (Exception e) {
+			logger.error("Error adding memories for user {}", userId, e);
+			throw new RuntimeException("Failed to add memories", e);
+		}
+	}
 
-			// Extract memories from conversation using LLM
-			List<String> extractedMemories = extractMemories(messages, infer);
+	/**
+	 * Add memories from a conversation without blocking the caller
+	 */
+	public CompletableFuture<Void> addAsync(List<Message> messages, String userId) {
+		return addAsync(messages, userId, null, true, MemoryType.FACTUAL);
+	}
+
+	/**
+	 * Add memories with custom parameters without blocking the caller. The embedding, LLM
+	 * and vector store calls are composed on the async executor; the future fails with
+	 * the same exception {@link #add(List, String, Map, boolean, MemoryType)} would
+	 * throw.
+	 */
+	public CompletableFuture<Void> addAsync(List<Message> messages, String userId, Map<String, Object> metadata,
+			boolean infer, MemoryType memoryType) {
+		return failWith(addMemories(messages, userId, metadata, infer, memoryType, executor), "Failed to add memories",
+				"Error adding memories for user {}", userId);
+	}
+
+	/**
+	 * Extract, decide and persist the memories of a conversation. With the
+	 * {@link #CALLER} executor every step runs on the calling thread through the blocking
+	 * service methods, so the returned future is already complete.
+	 */
+	private CompletableFuture<Void> addMemories(List<Message> messages, String userId, Map<String, Object> metadata,
+			boolean infer, MemoryType memoryType, Executor executor) {
+
+		// Extract memories from conversation using LLM
+		return extractMemories(messages, infer, executor).thenCompose(extractedMemories -> {
 
 			// Create memory items
-			List<MemoryItem> memoryItems = extractedMemories.stream().map(memory -> createMemoryItem(memory, userId, metadata, memoryType)).collect(Collectors.toList());
-
-			// Process each memory intelligently
-			int insertCount = 0;
-			int updateCount = 0;
-			int deleteCount = 0;
-			int skipCount = 0;
-
-			for (MemoryItem item : memoryItems) {
-				Double[] embedding = embeddingService.embed(item.getContent());
-				item.setEmbedding(embedding);
-
-				// Search for similar existing memories with moderate threshold
-				List<MemoryItem> similarMemories = vectorStoreService.search(embedding, buildSearchFilters(userId, null), 5, 0.7);
-
-				// Make intelligent decision about what to do with this memory
-				MemoryDecision decision = decideMemoryAction(item, similarMemories);
-
-				// Execute the decision
-				switch (decision.getAction()) {
-					case INSERT:
-						vectorStoreService.add(item);
-						insertCount++;
-						logger.debug("Inserting new memory: '{}' - Reason: {}", item.getContent(), decision.getReason());
-						break;
-
-					case UPDATE:
-						MemoryItem existingItem = decision.getExistingMemory();
-						existingItem.setContent(decision.getNewContent());
-						existingItem.setEmbedding(embeddingService.embed(decision.getNewContent()));
-						existingItem.setUpdatedAt(java.time.Instant.now());
-						vectorStoreService.update(existingItem);
-						updateCount++;
-						logger.debug("Updating existing memory '{}' -> '{}' - Reason: {}", existingItem.getContent(), decision.getNewContent(), decision.getReason());
-						break;
-
-					case DELETE:
-						vectorStoreService.delete(decision.getExistingMemory().getId());
-						deleteCount++;
-						logger.debug("Deleting obsolete memory: '{}' - Reason: {}", decision.getExistingMemory().getContent(), decision.getReason());
-						break;
-
-					case SKIP:
-						skipCount++;
-						logger.debug("Skipping memory: '{}' - Reason: {}", item.getContent(), decision.getReason());
-						break;
+			List<MemoryItem> memoryItems = extractedMemories.stream()
+				.map(memory -> createMemoryItem(memory, userId, metadata, memoryType))
+				.collect(Collectors.toList());
+			if (memoryItems.isEmpty()) {
+				logger.info("No memories extracted for user {}", userId);
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+
+			// Embed every extracted memory with one request
+			return embedAll(memoryItems, executor).thenCompose(ignored -> {
+
+				// Look up similar memories and decide on every memory concurrently, then
+				// apply the decisions in extraction order so later memories see the
+				// decisions taken for earlier ones
+				AddOperations operations = new AddOperations();
+				CompletableFuture<Void> processed = proposeDecisions(memoryItems, userId, executor)
+					.thenCompose(proposals -> {
+						CompletableFuture<Void> applied = CompletableFuture.completedFuture(null);
+						for (int i = 0; i < memoryItems.size(); i++) {
+							MemoryItem item = memoryItems.get(i);
+							Proposal proposal = proposals.get(i);
+							applied = applied
+								.thenCompose(previous -> applyDecision(item, proposal, operations, executor));
+						}
+						return applied;
+					});
+
+				// Merged contents are re-embedded together, then persisted with the
+				// inserts
+				return processed
+					.thenCompose(previous -> operations.updatedItems.isEmpty()
+							? CompletableFuture.<Void>completedFuture(null)
+							: embedAll(operations.updatedItems, executor))
+					.thenCompose(previous -> persistUpdates(operations, executor))
+					.thenCompose(previous -> {
+						// Inserts are persisted together once every memory has been
+						// decided
+						if (operations.pendingInserts.isEmpty()) {
+							return CompletableFuture.<Void>completedFuture(null);
+						}
+						operations.pendingInserts.forEach(pending -> pending.setScore(null));
+						return run(executor, () -> vectorStoreService.addAll(operations.pendingInserts),
+								async -> vectorStoreService.addAllAsync(operations.pendingInserts, async));
+					})
+					.thenCompose(previous -> {
+						// Obsolete memories are removed with one batch delete
+						if (operations.obsoleteIds.isEmpty()) {
+							return CompletableFuture.<Void>completedFuture(null);
+						}
+						return run(executor, () -> vectorStoreService.deleteByIds(operations.obsoleteIds),
+								async -> vectorStoreService.deleteByIdsAsync(operations.obsoleteIds, async));
+					})
+					.thenRun(() -> logger.info(
+							"Memory operations for user {}: {} inserted, {} updated, {} deleted, {} skipped (total extracted: {})",
+							userId, operations.insertCount, operations.updateCount, operations.deleteCount,
+							operations.skipCount, memoryItems.size()));
+			});
+		});
+	}
+
+	/**
+	 * Embed the contents of the items with one request and attach the embeddings
+	 */
+	private CompletableFuture<Void> embedAll(List<MemoryItem> items, Executor executor) {
+		String[] texts = items.stream().map(MemoryItem::getContent).toArray(String[]::new);
+		return call(executor, () -> embeddingService.embed(texts), async -> embeddingService.embedAsync(texts, async))
+			.thenAccept(embeddings -> {
+				if (embeddings == null || embeddings.length != texts.length) {
+					throw new RuntimeException("Expected " + texts.length + " embeddings but got "
+							+ (embeddings == null ? 0 : embeddings.length));
+				}
+				for (int i = 0; i < texts.length; i++) {
+					items.get(i).setEmbedding(embeddings[i]);
 				}
+			});
+	}
+
+	/**
+	 * Store the updated memories that already exist; updated pending inserts are stored
+	 * with the inserts
+	 */
+	private CompletableFuture<Void> persistUpdates(AddOperations operations, Executor executor) {
+		CompletableFuture<Void> persisted = CompletableFuture.completedFuture(null);
+		for (MemoryItem updated : operations.updatedItems) {
+			if (!isPending(updated, operations.pendingInserts)) {
+				persisted = persisted.thenCompose(previous -> run(executor, () -> vectorStoreService.update(updated),
+						async -> vectorStoreService.updateAsync(updated, async)));
 			}
+		}
+		return persisted;
+	}
 
-			logger.info("Memory operations for user {}: {} inserted, {} updated, {} deleted, {} skipped (total extracted: {})", userId, insertCount, updateCount, deleteCount, skipCount, memoryItems.size());
-		} catch (Exception e) {
-			logger.error("Error adding memories for user {}", userId, e);
-			throw new RuntimeException("Failed to add memories", e);
+	/**
+	 * Decide on every memory against the store, running at most
+	 * {@code decision-concurrency} lookups at a time. The blocking pipeline hands its
+	 * lookups to the async executor so they overlap as well. In batch mode the lookups
+	 * only search, and the ambiguous memories are reconciled by one LLM call.
+	 */
+	private CompletableFuture<List<Proposal>> proposeDecisions(List<MemoryItem> memoryItems, String userId,
+			Executor executor) {
+		if (Boolean.TRUE.equals(config.getBatchDecisions())) {
+			return forEachBounded(memoryItems, item -> findSimilar(item, userId, executor), executor)
+				.thenCompose(similar -> decideInBatch(memoryItems, similar, executor));
 		}
+		return forEachBounded(memoryItems,
+				item -> findSimilar(item, userId, executor)
+					.thenCompose(similarMemories -> decideMemoryAction(item, similarMemories, executor)
+						.thenApply(decision -> new Proposal(similarMemories, decision))),
+				executor);
+	}
+
+	/**
+	 * Run a step for every memory with at most {@code decision-concurrency} in flight,
+	 * keeping the results in memory order
+	 */
+	private <T> CompletableFuture<List<T>> forEachBounded(List<MemoryItem> memoryItems,
+			Function<MemoryItem, CompletableFuture<T>> step, Executor executor) {
+		Integer configured = config.getDecisionConcurrency();
+		int concurrency = Math.min(memoryItems.size(), configured != null && configured > 0 ? configured : 4);
+		Function<MemoryItem, CompletableFuture<T>> bounded = executor == CALLER && concurrency > 1
+				? item -> CompletableFuture.supplyAsync(() -> join(step.apply(item)), this.executor) : step;
+
+		AtomicReferenceArray<T> results = new AtomicReferenceArray<>(memoryItems.size());
+		AtomicInteger next = new AtomicInteger();
+		CompletableFuture<?>[] workers = new CompletableFuture<?>[concurrency];
+		for (int w = 0; w < concurrency; w++) {
+			workers[w] = runNext(memoryItems, results, next, bounded);
+		}
+		return CompletableFuture.allOf(workers).thenApply(ignored -> {
+			List<T> ordered = new ArrayList<>(memoryItems.size());
+			for (int i = 0; i < memoryItems.size(); i++) {
+				ordered.add(results.get(i));
+			}
+			return ordered;
+		});
+	}
+
+	// Each worker takes the next memory until none is left
+	private static <T> CompletableFuture<Void> runNext(List<MemoryItem> memoryItems, AtomicReferenceArray<T> results,
+			AtomicInteger next, Function<MemoryItem, CompletableFuture<T>> step) {
+		int index = next.getAndIncrement();
+		if (index >= memoryItems.size()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return step.apply(memoryItems.get(index)).thenCompose(result -> {
+			results.set(index, result);
+			return runNext(memoryItems, results, next, step);
+		});
+	}
+
+	private CompletableFuture<List<MemoryItem>> findSimilar(MemoryItem item, String userId, Executor executor) {
+		Double[] embedding = item.getEmbedding();
+
+		// Search for similar existing memories with moderate threshold
+		Map<String, Object> filters = buildSearchFilters(userId, null);
+		return call(executor, () -> vectorStoreService.search(embedding, filters, 5, 0.7),
+				async -> vectorStoreService.searchAsync(embedding, Filter.from(filters), 5, 0.7, async));
+	}
+
+	/**
+	 * Decide on every memory with at most one LLM call for all memories whose most
+	 * similar memory falls in the ambiguous band
+	 */
+	private CompletableFuture<List<Proposal>> decideInBatch(List<MemoryItem> memoryItems,
+			List<List<MemoryItem>> similar, Executor executor) {
+		List<Integer> ambiguous = new ArrayList<>();
+		for (int i = 0; i < memoryItems.size(); i++) {
+			if (needsLLMDecision(similar.get(i))) {
+				ambiguous.add(i);
+			}
+		}
+
+		CompletableFuture<Map<Integer, String>> llmDecisions;
+		if (ambiguous.isEmpty()) {
+			llmDecisions = CompletableFuture.completedFuture(Map.of());
+		}
+		else if (ambiguous.size() == 1) {
+			int index = ambiguous.get(0);
+			llmDecisions = getLLMMemoryDecision(memoryItems.get(index).getContent(),
+					similar.get(index).get(0).getContent(), executor)
+				.thenApply(decision -> Map.of(index, decision));
+		}
+		else {
+			llmDecisions = getLLMMemoryDecisions(memoryItems, similar, ambiguous, executor);
+		}
+
+		return llmDecisions.thenApply(decisions -> {
+			List<Proposal> proposals = new ArrayList<>(memoryItems.size());
+			for (int i = 0; i < memoryItems.size(); i++) {
+				proposals.add(new Proposal(similar.get(i),
+						decideMemoryAction(memoryItems.get(i), similar.get(i), decisions.get(i))));
+			}
+			return proposals;
+		});
+	}
+
+	/**
+	 * Apply a proposed decision, or decide again when an earlier memory of the
+	 * conversation changed what it was based on: its most similar memory was updated or
+	 * deleted, or a memory pending insertion is now more similar
+	 */
+	private CompletableFuture<Void> applyDecision(MemoryItem item, Proposal proposal, AddOperations operations,
+			Executor executor) {
+		List<MemoryItem> current = new ArrayList<>();
+		for (MemoryItem similar : proposal.similarMemories) {
+			if (similar.getId() != null && operations.deletedIds.contains(similar.getId())) {
+				continue;
+			}
+			MemoryItem updated = similar.getId() == null ? null
+					: operations.updatedItems.stream()
+						.filter(candidate -> similar.getId().equals(candidate.getId()))
+						.findFirst()
+						.orElse(null);
+			if (updated != null) {
+				updated.setScore(similar.getScore());
+				current.add(updated);
+			}
+			else {
+				current.add(similar);
+			}
+		}
+		current = withPendingInserts(current, item.getEmbedding(), operations.pendingInserts);
+
+		MemoryItem proposedTop = proposal.similarMemories.isEmpty() ? null : proposal.similarMemories.get(0);
+		MemoryItem currentTop = current.isEmpty() ? null : current.get(0);
+		if (currentTop == proposedTop) {
+			return executeDecision(item, proposal.decision, operations, executor);
+		}
+		logger.debug("Deciding again on memory '{}' after earlier decisions of the conversation", item.getContent());
+		return decideMemoryAction(item, current, executor)
+			.thenCompose(decision -> executeDecision(item, decision, operations, executor));
+	}
+
+	/**
+	 * Execute a decision; inserts, updates and deletes are only collected
+	 */
+	private CompletableFuture<Void> executeDecision(MemoryItem item, MemoryDecision decision, AddOperations operations,
+			Executor executor) {
+		List<MemoryItem> pendingInserts = operations.pendingInserts;
+		switch (decision.getAction()) {
+			case INSERT:
+				pendingInserts.add(item);
+				operations.insertCount++;
+				logger.debug("Inserting new memory: '{}' - Reason: {}", item.getContent(), decision.getReason());
+				return CompletableFuture.completedFuture(null);
+
+			case UPDATE:
+				MemoryItem existingItem = decision.getExistingMemory();
+				existingItem.setContent(decision.getNewContent());
+				existingItem.setUpdatedAt(java.time.Instant.now());
+				if (operations.updatedItems.stream().noneMatch(updated -> updated == existingItem)) {
+					operations.updatedItems.add(existingItem);
+				}
+				operations.updateCount++;
+				logger.debug("Updating existing memory '{}' -> '{}' - Reason: {}", existingItem.getContent(),
+						decision.getNewContent(), decision.getReason());
+				return CompletableFuture.completedFuture(null);
+
+			case DELETE:
+				MemoryItem obsolete = decision.getExistingMemory();
+				operations.deleteCount++;
+				logger.debug("Deleting obsolete memory: '{}' - Reason: {}", obsolete.getContent(),
+						decision.getReason());
+				operations.updatedItems.removeIf(updated -> updated == obsolete);
+				if (obsolete.getId() != null) {
+					operations.deletedIds.add(obsolete.getId());
+				}
+				if (isPending(obsolete, pendingInserts)) {
+					pendingInserts.removeIf(pending -> pending == obsolete);
+				}
+				else if (obsolete.getId() != null) {
+					operations.obsoleteIds.add(obsolete.getId());
+				}
+				return CompletableFuture.completedFuture(null);
+
+			default:
+				operations.skipCount++;
+				logger.debug("Skipping memory: '{}' - Reason: {}", item.getContent(), decision.getReason());
+				return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	/**
+	 * Decision on one memory against the store alone, with the similar memories it was
+	 * based on
+	 */
+	private static final class Proposal {
+
+		final List<MemoryItem> similarMemories;
+
+		final MemoryDecision decision;
+
+		Proposal(List<MemoryItem> similarMemories, MemoryDecision decision) {
+			this.similarMemories = similarMemories;
+			this.decision = decision;
+		}
+
+	}
+
+	/**
+	 * Decisions and counters of one {@link #add} call; its steps run one after the other
+	 */
+	private static final class AddOperations {
+
+		final List<MemoryItem> pendingInserts = new ArrayList<>();
+
+		// Memories whose content was merged, re-embedded once every memory is decided
+		final List<MemoryItem> updatedItems = new ArrayList<>();
+
+		final Set<String> deletedIds = new HashSet<>();
+
+		// Stored memories decided obsolete, deleted once inserts and updates are
+		// persisted
+		final List<String> obsoleteIds = new ArrayList<>();
+
+		int insertCount;
+
+		int updateCount;
+
+		int deleteCount;
+
+		int skipCount;
+
+	}
+
+	/**
+	 * Merge memories decided for insertion earlier in the same conversation into the
+	 * similar memories found in the store, so duplicates within a conversation are still
+	 * caught before anything is persisted
+	 */
+	private List<MemoryItem> withPendingInserts(List<MemoryItem> similarMemories, Double[] embedding,
+			List<MemoryItem> pendingInserts) {
+		if (pendingInserts.isEmpty()) {
+			return similarMemories;
+		}
+		float[] query = Similarity.toFloatArray(embedding);
+		List<MemoryItem> merged = new ArrayList<>(similarMemories);
+		for (MemoryItem pending : pendingInserts) {
+			double score = Similarity.cosine(query, Similarity.toFloatArray(pending.getEmbedding()));
+			if (score >= 0.7) {
+				pending.setScore(score);
+				merged.add(pending);
+			}
+		}
+		merged.sort(Comparator.comparing(MemoryItem::getScore, Comparator.nullsLast(Comparator.reverseOrder())));
+		return merged.size() > 5 ? new ArrayList<>(merged.subList(0, 5)) : merged;
+	}
+
+	private boolean isPending(MemoryItem memory, List<MemoryItem> pendingInserts) {
+		return pendingInserts.stream().anyMatch(pending -> pending == memory);
 	}
 
 	/**
 	 * Intelligently decide what action to take on a memory by comparing with similar
 	 * existing memories Uses LLM to make nuanced decisions about insert/update/delete
 	 */
-	private MemoryDecision decideMemoryAction(MemoryItem newMemory, List<MemoryItem> similarMemories) {
+	private CompletableFuture<MemoryDecision> decideMemoryAction(MemoryItem newMemory, List<MemoryItem> similarMemories,
+			Executor executor) {
+
+		// If similarity is high (0.85-0.95), use LLM to decide if update is needed
+		if (needsLLMDecision(similarMemories)) {
+			return getLLMMemoryDecision(newMemory.getContent(), similarMemories.get(0).getContent(), executor)
+				.thenApply(llmDecision -> decideMemoryAction(newMemory, similarMemories, llmDecision));
+		}
+		return CompletableFuture.completedFuture(decideMemoryAction(newMemory, similarMemories, (String) null));
+	}
+
+	private static boolean needsLLMDecision(List<MemoryItem> similarMemories) {
+		return !similarMemories.isEmpty() && similarMemories.get(0).getScore() > 0.85
+				&& similarMemories.get(0).getScore() <= 0.95;
+	}
+
+	/**
+	 * Decide on a memory given the LLM's verdict, which is only consulted for high
+	 * similarity
+	 */
+	private MemoryDecision decideMemoryAction(MemoryItem newMemory, List<MemoryItem> similarMemories,
+			String llmDecision) {
 
 		// If no similar memories exist, insert the new memory
 		if (similarMemories.isEmpty()) {
-			return new MemoryDecision(MemoryAction.INSERT, newMemory.getContent(), null, "No similar memories found, inserting new memory");
+			return new MemoryDecision(MemoryAction.INSERT, newMemory.getContent(), null,
+					"No similar memories found, inserting new memory");
 		}
 
 		// Find the most similar memory
@@ -142,73 +556,149 @@ public class Memory {
 
 		// If similarity is very high (>0.95), consider it a duplicate and skip
 		if (highestScore > 0.95) {
-			return new MemoryDecision(MemoryAction.SKIP, null, mostSimilar, "Memory is nearly identical to existing memory (score: " + String.format("%.2f", highestScore) + ")");
+			return new MemoryDecision(MemoryAction.SKIP, null, mostSimilar,
+					"Memory is nearly identical to existing memory (score: " + String.format("%.2f", highestScore)
+							+ ")");
 		}
 
 		// If similarity is high (0.85-0.95), use LLM to decide if update is needed
-		if (highestScore > 0.85) {
-			String llmDecision = getLLMMemoryDecision(newMemory.getContent(), mostSimilar.getContent());
-
+		if (highestScore > 0.85 && llmDecision != null) {
 			if (llmDecision.contains("UPDATE")) {
 				// Extract merged content from LLM response
 				String mergedContent = extractMergedContent(llmDecision);
 				if (mergedContent != null && !mergedContent.isEmpty()) {
-					return new MemoryDecision(MemoryAction.UPDATE, mergedContent, mostSimilar, "LLM decided to merge memories with updated information");
+					return new MemoryDecision(MemoryAction.UPDATE, mergedContent, mostSimilar,
+							"LLM decided to merge memories with updated information");
 				}
-			} else if (llmDecision.contains("DELETE")) {
-				return new MemoryDecision(MemoryAction.DELETE, null, mostSimilar, "LLM decided old memory is obsolete or contradicted");
-			} else if (llmDecision.contains("SKIP")) {
+			}
+			else if (llmDecision.contains("DELETE")) {
+				return new MemoryDecision(MemoryAction.DELETE, null, mostSimilar,
+						"LLM decided old memory is obsolete or contradicted");
+			}
+			else if (llmDecision.contains("SKIP")) {
 				return new MemoryDecision(MemoryAction.SKIP, null, mostSimilar, "LLM decided new memory adds no value");
 			}
 		}
 
 		// If similarity is moderate (0.7-0.85), insert as separate memory
 		if (highestScore > 0.7) {
-			return new MemoryDecision(MemoryAction.INSERT, newMemory.getContent(), null, "Memory is related but sufficiently different to keep separate (score: " + String.format("%.2f", highestScore) + ")");
+			return new MemoryDecision(MemoryAction.INSERT, newMemory.getContent(), null,
+					"Memory is related but sufficiently different to keep separate (score: "
+							+ String.format("%.2f", highestScore) + ")");
 		}
 
 		// Default: insert as new memory
-		return new MemoryDecision(MemoryAction.INSERT, newMemory.getContent(), null, "Memory is distinct enough to insert separately");
+		return new MemoryDecision(MemoryAction.INSERT, newMemory.getContent(), null,
+				"Memory is distinct enough to insert separately");
 	}
 
 	/**
 	 * Use LLM to decide whether to update, delete, or skip a memory
 	 */
-	private String getLLMMemoryDecision(String newMemory, String existingMemory) {
+	private CompletableFuture<String> getLLMMemoryDecision(String newMemory, String existingMemory, Executor executor) {
 
-		String prompt = String.format("""
-			You are a memory management system. Compare these two memories and decide what action to take:
-			
-			EXISTING MEMORY: %s
-			NEW MEMORY: %s
-			
-			Analyze and decide:
-			1. If the new memory contains UPDATED information that contradicts or improves the existing memory, respond with:
-			   UPDATE: [merged content combining both memories with the most accurate/recent information]
-			
-			2. If the new memory makes the existing memory OBSOLETE or CONTRADICTS it completely, respond with:
-			   DELETE
-			
-			3. If the new memory adds NO NEW value (it's essentially the same), respond with:
-			   SKIP
-			
-			4. If they are COMPLEMENTARY but distinct enough to keep separate, respond with:
-			   INSERT
-			
-			Consider:
-			- Temporal context (newer information may supersede older)
-			- Specificity (more specific information may update general information)
-			- Contradictions (direct contradictions should trigger DELETE of old + INSERT of new)
-			- Redundancy (avoid storing the same information twice)
-			
-			Respond with ONLY one of: UPDATE: [content], DELETE, SKIP, or INSERT
-			""", existingMemory, newMemory);
+		String prompt = String.format(
+				"""
+						You are a memory management system. Compare these two memories and decide what action to take:
 
-		try {
-			return llmService.generate(prompt);
-		} catch (Exception e) {
-			logger.warn("Error getting LLM decision for memory action, defaulting to INSERT", e);
+						EXISTING MEMORY: %s
+						NEW MEMORY: %s
+
+						Analyze and decide:
+						1. If the new memory contains UPDATED information that contradicts or improves the existing memory, respond with:
+						   UPDATE: [merged content combining both memories with the most accurate/recent information]
+
+						2. If the new memory makes the existing memory OBSOLETE or CONTRADICTS it completely, respond with:
+						   DELETE
+
+						3. If the new memory adds NO NEW value (it's essentially the same), respond with:
+						   SKIP
+
+						4. If they are COMPLEMENTARY but distinct enough to keep separate, respond with:
+						   INSERT
+
+						Consider:
+						- Temporal context (newer information may supersede older)
+						- Specificity (more specific information may update general information)
+						- Contradictions (direct contradictions should trigger DELETE of old + INSERT of new)
+						- Redundancy (avoid storing the same information twice)
+
+						Respond with ONLY one of: UPDATE: [content], DELETE, SKIP, or INSERT
+						""",
+				existingMemory, newMemory);
+
+		return generate(prompt, executor).exceptionally(e -> {
+			logger.warn("Error getting LLM decision for memory action, defaulting to INSERT", unwrap(e));
 			return "INSERT";
+		});
+	}
+
+	/**
+	 * Use one structured LLM call to decide on several memories, each compared with its
+	 * most similar existing memory. Returns the verdicts in the format of
+	 * {@link #getLLMMemoryDecision}, keyed by memory index; memories the LLM leaves out
+	 * or a failed call default to INSERT.
+	 */
+	private CompletableFuture<Map<Integer, String>> getLLMMemoryDecisions(List<MemoryItem> memoryItems,
+			List<List<MemoryItem>> similar, List<Integer> indexes, Executor executor) {
+
+		StringBuilder pairs = new StringBuilder();
+		for (int index : indexes) {
+			pairs.append("PAIR ").append(index).append('\n');
+			pairs.append("EXISTING MEMORY: ").append(similar.get(index).get(0).getContent()).append('\n');
+			pairs.append("NEW MEMORY: ").append(memoryItems.get(index).getContent()).append("\n\n");
+		}
+
+		String prompt = String.format(
+				"""
+						You are a memory management system. For each numbered pair below, compare the new memory with the existing memory and decide what action to take:
+
+						1. UPDATE if the new memory contains UPDATED information that contradicts or improves the existing memory; give the merged content combining both memories with the most accurate/recent information
+						2. DELETE if the new memory makes the existing memory OBSOLETE or CONTRADICTS it completely
+						3. SKIP if the new memory adds NO NEW value (it's essentially the same)
+						4. INSERT if they are COMPLEMENTARY but distinct enough to keep separate
+
+						Consider:
+						- Temporal context (newer information may supersede older)
+						- Specificity (more specific information may update general information)
+						- Contradictions (direct contradictions should trigger DELETE of old + INSERT of new)
+						- Redundancy (avoid storing the same information twice)
+
+						%s
+						Respond with one entry per pair and nothing else.""",
+				pairs);
+		String schema = "[{\"pair\": <pair number>, \"action\": \"UPDATE\" | \"DELETE\" | \"SKIP\" | \"INSERT\", \"content\": \"<merged content, for UPDATE only>\"}]";
+
+		CompletableFuture<String> response = call(executor, () -> llmService.generateStructured(prompt, schema),
+				async -> llmService.generateStructuredAsync(prompt, schema, async));
+		return response.thenApply(this::parseLLMMemoryDecisions).exceptionally(e -> {
+			logger.warn("Error getting batched LLM decision for {} memories, defaulting to INSERT", indexes.size(),
+					unwrap(e));
+			return Map.of();
+		});
+	}
+
+	/**
+	 * Parse the JSON array of a batched decision into per-memory verdicts
+	 */
+	private Map<Integer, String> parseLLMMemoryDecisions(String response) {
+		int start = response.indexOf('[');
+		int end = response.lastIndexOf(']');
+		if (start < 0 || end < start) {
+			throw new IllegalArgumentException("No JSON array in batched decision: " + response);
+		}
+		try {
+			JsonNode entries = OBJECT_MAPPER.readTree(response.substring(start, end + 1));
+			Map<Integer, String> decisions = new HashMap<>();
+			for (JsonNode entry : entries) {
+				String action = entry.path("action").asText("").trim().toUpperCase(Locale.ROOT);
+				String content = entry.path("content").asText("").trim();
+				decisions.put(entry.path("pair").asInt(-1), "UPDATE".equals(action) ? "UPDATE: " + content : action);
+			}
+			return decisions;
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Invalid batched decision: " + response, e);
 		}
 	}
 
@@ -234,53 +724,155 @@ public class Memory {
 	/**
 	 * Search with custom parameters
 	 */
-	public List<MemoryItem> search(String query, String userId, Map<String, Object> filters, int limit, Double threshold) {
+	public List<MemoryItem> search(String query, String userId, Map<String, Object> filters, int limit,
+			Double threshold) {
 
 		try {
-			// Generate embedding for query
-			Double[] queryEmbedding = embeddingService.embed(query);
-			logger.debug("Generated query embedding with {} dimensions for query: '{}'", queryEmbedding.length, query);
+			return join(searchMemories(query, userId, filters, limit, threshold, CALLER));
+		}
+		catch (Exception e) {
 
-			// Build search filters
-			Map<String, Object> searchFilters = buildSearchFilters(userId, filters);
-			logger.debug("Search filters: {}", searchFilters);
+			logger.error("Error searching memories for query: {}", query, e);
+			throw new RuntimeException("Failed to search memories", e);
+		}
+	}
+
+	/**
+	 * Search for relevant memories without blocking the caller
+	 */
+	public CompletableFuture<List<MemoryItem>> searchAsync(String query, String userId) {
+		return searchAsync(query, userId, null, 10, null);
+	}
+
+	/**
+	 * Search with custom parameters without blocking the caller
+	 */
+	public CompletableFuture<List<MemoryItem>> searchAsync(String query, String userId, Map<String, Object> filters,
+			int limit, Double threshold) {
+		return failWith(searchMemories(query, userId, filters, limit, threshold, executor), "Failed to search memories",
+				"Error searching memories for query: {}", query);
+	}
+
+	private CompletableFuture<List<MemoryItem>> searchMemories(String query, String userId, Map<String, Object> filters,
+			int limit, Double threshold, Executor executor) {
 
-			// Determine appropriate threshold based on query type
-			Double actualThreshold = determineThreshold(query, threshold);
-			logger.debug("Using similarity threshold: {} for query type", actualThreshold);
+		// Build search filters
+		Map<String, Object> searchFilters = buildSearchFilters(userId, filters);
+		logger.debug("Search filters: {}", searchFilters);
+
+		// Determine appropriate threshold based on query type
+		Double actualThreshold = determineThreshold(query, threshold);
+		logger.debug("Using similarity threshold: {} for query type", actualThreshold);
+
+		// Generate embedding for query
+		return embed(query, executor).thenCompose(queryEmbedding -> {
+			logger.debug("Generated query embedding with {} dimensions for query: '{}'", queryEmbedding.length, query);
 
 			// Search vector store
-			List<MemoryItem> results = vectorStoreService.search(queryEmbedding, searchFilters, limit, actualThreshold);
+			return call(executor,
+					() -> vectorStoreService.search(queryEmbedding, searchFilters, limit, actualThreshold),
+					async -> vectorStoreService.searchAsync(queryEmbedding, Filter.from(searchFilters), limit,
+							actualThreshold, async))
+				.thenCompose(results -> {
+
+					// If no results found and threshold > 0.3, try with lower threshold
+					if (results.isEmpty() && actualThreshold > 0.3) {
+						logger.debug("No results with threshold {}, retrying with 0.3", actualThreshold);
+						return call(executor,
+								() -> vectorStoreService.search(queryEmbedding, searchFilters, limit, 0.3),
+								async -> vectorStoreService.searchAsync(queryEmbedding, Filter.from(searchFilters),
+										limit, 0.3, async))
+							.thenApply(retried -> relevantResults(query, userId, retried, 0.3));
+					}
+					return CompletableFuture.completedFuture(relevantResults(query, userId, results, actualThreshold));
+				});
+		});
+	}
+
+	private List<MemoryItem> relevantResults(String query, String userId, List<MemoryItem> results,
+			double actualThreshold) {
+
+		logger.info("Found {} memories for query: '{}' with threshold: {}", results.size(), query, actualThreshold);
+
+		// Filter results by semantic relevance
+		List<MemoryItem> filteredResults = filterBySemanticRelevance(query, results);
 
-			// If no results found and threshold > 0.3, try with lower threshold
-			if (results.isEmpty() && actualThreshold > 0.3) {
-				logger.debug("No results with threshold {}, retrying with 0.3", actualThreshold);
-				results = vectorStoreService.search(queryEmbedding, searchFilters, limit, 0.3);
-				actualThreshold = 0.3; // Update for logging
+		// Log found results for debugging
+		if (!filteredResults.isEmpty()) {
+			for (MemoryItem item : filteredResults) {
+				logger.debug("Found relevant memory: '{}' with score: {}", item.getContent(), item.getScore());
 			}
+		}
+		else {
+			logger.warn("No relevant memories found for query: '{}' with user_id: '{}' and threshold: {}", query,
+					userId, actualThreshold);
+		}
 
-			logger.info("Found {} memories for query: '{}' with threshold: {}", results.size(), query, actualThreshold);
+		return filteredResults;
+	}
 
-			// Filter results by semantic relevance
-			List<MemoryItem> filteredResults = filterBySemanticRelevance(query, results);
+	/**
+	 * Search for relevant memories for several queries at once, such as a message and its
+	 * rewrites, with one result list per query in query order
+	 */
+	public List<List<MemoryItem>> searchBatch(List<String> queries, String userId) {
+		return searchBatch(queries, userId, null, 10, null);
+	}
 
-			// Log found results for debugging
-			if (!filteredResults.isEmpty()) {
-				for (MemoryItem item : filteredResults) {
-					logger.debug("Found relevant memory: '{}' with score: {}", item.getContent(), item.getScore());
-				}
-			} else {
-				logger.warn("No relevant memories found for query: '{}' with user_id: '{}' and threshold: {}", query, userId, actualThreshold);
+	/**
+	 * Search for several queries with custom parameters. All queries are embedded in one
+	 * request and answered by a single vector store search; thresholds and the
+	 * low-threshold retry are applied per query as in
+	 * {@link #search(String, String, Map, int, Double)}.
+	 */
+	public List<List<MemoryItem>> searchBatch(List<String> queries, String userId, Map<String, Object> filters,
+			int limit, Double threshold) {
+
+		try {
+			float[][] queryEmbeddings = new float[queries.size()][];
+			double[] thresholds = new double[queries.size()];
+			// Search once at the lowest threshold any query may fall back to
+			double batchThreshold = 0.3;
+			Double[][] embeddings = embeddingService.embed(queries.toArray(new String[0]));
+			for (int i = 0; i < queries.size(); i++) {
+				queryEmbeddings[i] = Similarity.toFloatArray(embeddings[i]);
+				thresholds[i] = determineThreshold(queries.get(i), threshold);
+				batchThreshold = Math.min(batchThreshold, thresholds[i]);
 			}
 
-			return filteredResults;
-		} catch (Exception e) {
+			Map<String, Object> searchFilters = buildSearchFilters(userId, filters);
+			List<List<MemoryItem>> candidates = vectorStoreService.searchBatch(queryEmbeddings, searchFilters, limit,
+					batchThreshold);
+
+			List<List<MemoryItem>> results = new ArrayList<>(queries.size());
+			for (int i = 0; i < queries.size(); i++) {
+				double actualThreshold = thresholds[i];
+				List<MemoryItem> queryResults = aboveThreshold(candidates.get(i), actualThreshold);
+				// If no results found and threshold > 0.3, fall back to the lower
+				// threshold
+				if (queryResults.isEmpty() && actualThreshold > 0.3) {
+					queryResults = aboveThreshold(candidates.get(i), 0.3);
+					actualThreshold = 0.3;
+				}
+				logger.info("Found {} memories for query: '{}' with threshold: {}", queryResults.size(), queries.get(i),
+						actualThreshold);
+				results.add(filterBySemanticRelevance(queries.get(i), queryResults));
+			}
+			return results;
+		}
+		catch (Exception e) {
 
-			logger.error("Error searching memories for query: {}", query, e);
+			logger.error("Error searching memories for queries: {}", queries, e);
 			throw new RuntimeException("Failed to search memories", e);
 		}
 	}
 
+	private List<MemoryItem> aboveThreshold(List<MemoryItem> results, double threshold) {
+		return results.stream()
+			.filter(item -> item.getScore() != null && item.getScore() >= threshold)
+			.collect(Collectors.toList());
+	}
+
 	/**
 	 * Get all memories for a user
 	 */
@@ -289,7 +881,8 @@ public class Memory {
 		try {
 			Map<String, Object> searchFilters = buildSearchFilters(userId, filters);
 			return vectorStoreService.getAll(searchFilters, limit);
-		} catch (Exception e) {
+		}
+		catch (Exception e) {
 			logger.error("Error getting all memories for user {}", userId, e);
 			throw new RuntimeException("Failed to get memories", e);
 		}
@@ -318,7 +911,8 @@ public class Memory {
 				vectorStoreService.update(item);
 				logger.info("Updated memory: {}", memoryId);
 			}
-		} catch (Exception e) {
+		}
+		catch (Exception e) {
 			logger.error("Error updating memory: {}", memoryId, e);
 			throw new RuntimeException("Failed to update memory", e);
 		}
@@ -332,7 +926,8 @@ public class Memory {
 		try {
 			vectorStoreService.delete(memoryId);
 			logger.info("Deleted memory: {}", memoryId);
-		} catch (Exception e) {
+		}
+		catch (Exception e) {
 			logger.error("Error deleting memory: {}", memoryId, e);
 			throw new RuntimeException("Failed to delete memory", e);
 		}
@@ -347,7 +942,8 @@ public class Memory {
 			Map<String, Object> filters = Map.of("user_id", userId);
 			vectorStoreService.deleteAll(filters);
 			logger.info("Deleted all memories for user: {}", userId);
-		} catch (Exception e) {
+		}
+		catch (Exception e) {
 			logger.error("Error deleting all memories for user {}", userId, e);
 			throw new RuntimeException("Failed to delete memories", e);
 		}
@@ -356,46 +952,56 @@ public class Memory {
 	/**
 	 * Extract memories from conversation using LLM
 	 */
-	private List<String> extractMemories(List<Message> messages, boolean infer) {
+	private CompletableFuture<List<String>> extractMemories(List<Message> messages, boolean infer, Executor executor) {
 
 		if (!infer) {
 			// Return raw conversation as single memory
-			String conversation = messages.stream().map(msg -> msg.getRole() + ": " + msg.getContent()).collect(Collectors.joining("\n"));
-			return List.of(conversation);
+			String conversation = messages.stream()
+				.map(msg -> msg.getRole() + ": " + msg.getContent())
+				.collect(Collectors.joining("\n"));
+			return CompletableFuture.completedFuture(List.of(conversation));
 		}
 
 		// Use LLM to extract meaningful memories
-		String conversation = messages.stream().map(msg -> msg.getRole() + ": " + msg.getContent()).collect(Collectors.joining("\n"));
+		String conversation = messages.stream()
+			.map(msg -> msg.getRole() + ": " + msg.getContent())
+			.collect(Collectors.joining("\n"));
 
 		String prompt = String.format("""
-			Extract key memories from this conversation. Focus ONLY on:
-			- Important facts about the user (name, age, profession, etc.)
-			- User preferences and behaviors (likes, dislikes, habits)
-			- Significant events or experiences mentioned by the user
-			- Useful information for future personalized interactions
-			
-			DO NOT extract:
-			- Generic system messages or responses
-			- Conversation metadata or status messages
-			- General greetings or pleasantries
-			- Assistant responses unless they contain user-specific information
-			
-			Only extract memories that have real value for understanding the user.
-			
-			Conversation:
-			%s
-			
-			Return each memory as a separate line, starting with "- ".
-			If no valuable memories exist, return nothing.
-			""", conversation);
-
-		String response = llmService.generate(prompt);
-
-		// Parse response into individual memories and filter out system-like content
-		List<String> memories = Arrays.stream(response.split("\n")).map(String::trim).filter(line -> line.startsWith("- ")).map(this::cleanMemoryContent).filter(line -> !line.isEmpty()).filter(this::isValidMemory).collect(Collectors.toList());
-
-		logger.debug("Extracted {} valid memories from conversation", memories.size());
-		return memories;
+				Extract key memories from this conversation. Focus ONLY on:
+				- Important facts about the user (name, age, profession, etc.)
+				- User preferences and behaviors (likes, dislikes, habits)
+				- Significant events or experiences mentioned by the user
+				- Useful information for future personalized interactions
+
+				DO NOT extract:
+				- Generic system messages or responses
+				- Conversation metadata or status messages
+				- General greetings or pleasantries
+				- Assistant responses unless they contain user-specific information
+
+				Only extract memories that have real value for understanding the user.
+
+				Conversation:
+				%s
+
+				Return each memory as a separate line, starting with "- ".
+				If no valuable memories exist, return nothing.
+				""", conversation);
+
+		return generate(prompt, executor).thenApply(response -> {
+			// Parse response into individual memories and filter out system-like content
+			List<String> memories = Arrays.stream(response.split("\n"))
+				.map(String::trim)
+				.filter(line -> line.startsWith("- "))
+				.map(this::cleanMemoryContent)
+				.filter(line -> !line.isEmpty())
+				.filter(this::isValidMemory)
+				.collect(Collectors.toList());
+
+			logger.debug("Extracted {} valid memories from conversation", memories.size());
+			return memories;
+		});
 	}
 
 	/**
@@ -419,7 +1025,10 @@ public class Memory {
 		String lowerContent = content.toLowerCase().trim();
 
 		// Filter out generic system messages
-		String[] invalidPatterns = {"this is the user's first conversation", "this is the first conversation", "hello! this is my first time", "how can i help", "i'm here to help", "what can i do for you", "nice to meet you", "the user is asking", "the assistant responded", "conversation started", "session began", "first interaction"};
+		String[] invalidPatterns = { "this is the user's first conversation", "this is the first conversation",
+				"hello! this is my first time", "how can i help", "i'm here to help", "what can i do for you",
+				"nice to meet you", "the user is asking", "the assistant responded", "conversation started",
+				"session began", "first interaction" };
 
 		for (String pattern : invalidPatterns) {
 			if (lowerContent.contains(pattern)) {
@@ -446,7 +1055,8 @@ public class Memory {
 	/**
 	 * Create a memory item from content
 	 */
-	private MemoryItem createMemoryItem(String content, String userId, Map<String, Object> metadata, MemoryType memoryType) {
+	private MemoryItem createMemoryItem(String content, String userId, Map<String, Object> metadata,
+			MemoryType memoryType) {
 		MemoryItem item = new MemoryItem(content, memoryType.getValue());
 		item.setUserId(userId);
 		// Extract fields from metadata and set them to corresponding MemoryItem fields
@@ -458,7 +1068,8 @@ public class Memory {
 				Object agentIdValue = metadata.get("agentId");
 				if (agentIdValue != null) {
 					item.setAgentId(agentIdValue.toString());
-					filteredMetadata.remove("agentId"); // Remove from metadata to avoid duplicate storage
+					filteredMetadata.remove("agentId"); // Remove from metadata to avoid
+														// duplicate storage
 				}
 			}
 			// Extract and set runId
@@ -466,7 +1077,8 @@ public class Memory {
 				Object runIdValue = metadata.get("runId");
 				if (runIdValue != null) {
 					item.setRunId(runIdValue.toString());
-					filteredMetadata.remove("runId"); // Remove from metadata to avoid duplicate storage
+					filteredMetadata.remove("runId"); // Remove from metadata to avoid
+														// duplicate storage
 				}
 			}
 			// Extract and set actorId
@@ -474,7 +1086,8 @@ public class Memory {
 				Object actorIdValue = metadata.get("actorId");
 				if (actorIdValue != null) {
 					item.setActorId(actorIdValue.toString());
-					filteredMetadata.remove("actorId"); // Remove from metadata to avoid duplicate storage
+					filteredMetadata.remove("actorId"); // Remove from metadata to avoid
+														// duplicate storage
 				}
 			}
 			// Set filtered metadata (excluding extracted fields)
@@ -486,7 +1099,7 @@ public class Memory {
 	/**
 	 * Build search filters
 	 */
-	private Map<String, Object> buildSearchFilters(String userId, Map<String, Object> additionalFilters) {
+	static Map<String, Object> buildSearchFilters(String userId, Map<String, Object> additionalFilters) {
 
 		Map<String, Object> filters = new HashMap<>();
 		filters.put("user_id", userId);
@@ -505,7 +1118,8 @@ public class Memory {
 
 		try {
 			return vectorStoreService.get(memoryId);
-		} catch (Exception e) {
+		}
+		catch (Exception e) {
 			logger.error("Error getting memory: {}", memoryId, e);
 			throw new RuntimeException("Failed to get memory", e);
 		}
@@ -519,7 +1133,8 @@ public class Memory {
 		try {
 			vectorStoreService.reset();
 			logger.info("Reset all memories");
-		} catch (Exception e) {
+		}
+		catch (Exception e) {
 			logger.error("Error resetting memories", e);
 			throw new RuntimeException("Failed to reset memories", e);
 		}
@@ -541,11 +1156,13 @@ public class Memory {
 		String lowerQuery = query.toLowerCase();
 
 		// For comprehensive queries (introduce, tell me about), return all results
-		String[] comprehensiveQueries = {"介绍", "告诉我", "关于我", "我的信息", "我是谁", "说说我", "讲讲我", "describe me", "tell me about", "introduce me", "about me", "who am i", "my information"};
+		String[] comprehensiveQueries = { "介绍", "告诉我", "关于我", "我的信息", "我是谁", "说说我", "讲讲我", "describe me",
+				"tell me about", "introduce me", "about me", "who am i", "my information" };
 
 		for (String pattern : comprehensiveQueries) {
 			if (lowerQuery.contains(pattern)) {
-				logger.debug("Comprehensive query detected, skipping semantic filtering to return all related" + " memories");
+				logger.debug("Comprehensive query detected, skipping semantic filtering to return all related"
+						+ " memories");
 				return results;
 			}
 		}
@@ -571,10 +1188,12 @@ public class Memory {
 			boolean isHighSimilarity = item.getScore() > 0.4;
 
 			// More precise filtering - keep if semantic match found OR high similarity
-			boolean isRelevant = hasRelevantKeywords || hasCrossLanguageMatch || isHighSimilarity || item.getScore() > 0.35;
+			boolean isRelevant = hasRelevantKeywords || hasCrossLanguageMatch || isHighSimilarity
+					|| item.getScore() > 0.35;
 
 			if (!isRelevant) {
-				logger.debug("Filtered out irrelevant memory: '{}' (score: {}, keywords: {})", item.getContent(), item.getScore(), queryKeywords);
+				logger.debug("Filtered out irrelevant memory: '{}' (score: {}, keywords: {})", item.getContent(),
+						item.getScore(), queryKeywords);
 			}
 
 			return isRelevant;
@@ -608,7 +1227,10 @@ public class Memory {
 	 */
 	private boolean isCommonWord(String word) {
 		// Chinese and English common words
-		String[] commonWords = {"我", "你", "他", "她", "它", "的", "是", "在", "有", "和", "与", "了", "吗", "呢", "吧", "啊", "什么", "怎么", "为什么", "哪里", "谁", "when", "where", "what", "how", "why", "who", "i", "you", "he", "she", "it", "is", "are", "was", "were", "am", "be", "been", "being", "a", "an", "the", "and", "or", "but", "if", "then", "that", "this", "these", "those"};
+		String[] commonWords = { "我", "你", "他", "她", "它", "的", "是", "在", "有", "和", "与", "了", "吗", "呢", "吧", "啊", "什么",
+				"怎么", "为什么", "哪里", "谁", "when", "where", "what", "how", "why", "who", "i", "you", "he", "she", "it",
+				"is", "are", "was", "were", "am", "be", "been", "being", "a", "an", "the", "and", "or", "but", "if",
+				"then", "that", "this", "these", "those" };
 
 		for (String common : commonWords) {
 			if (word.equals(common)) {
@@ -631,7 +1253,8 @@ public class Memory {
 
 		// For comprehensive queries (like "introduce me", "tell me about myself"),
 		// use a lower threshold to capture more related information
-		String[] comprehensiveQueries = {"介绍", "告诉我", "关于我", "我的信息", "我是谁", "说说我", "讲讲我", "describe me", "tell me about", "introduce me", "about me", "who am i", "my information"};
+		String[] comprehensiveQueries = { "介绍", "告诉我", "关于我", "我的信息", "我是谁", "说说我", "讲讲我", "describe me",
+				"tell me about", "introduce me", "about me", "who am i", "my information" };
 
 		for (String pattern : comprehensiveQueries) {
 			if (lowerQuery.contains(pattern)) {
@@ -641,7 +1264,9 @@ public class Memory {
 		}
 
 		// For specific queries, use medium threshold to balance precision and recall
-		String[] specificQueries = {"喜欢喝", "喜欢吃", "喜欢玩", "喜欢看", "爱好", "什么食物", "什么运动", "什么饮料", "like to", "love to", "enjoy", "favorite", "what food", "what sport", "what drink", "my favorite", "i like", "i love", "i enjoy"};
+		String[] specificQueries = { "喜欢喝", "喜欢吃", "喜欢玩", "喜欢看", "爱好", "什么食物", "什么运动", "什么饮料", "like to", "love to",
+				"enjoy", "favorite", "what food", "what sport", "what drink", "my favorite", "i like", "i love",
+				"i enjoy" };
 
 		for (String pattern : specificQueries) {
 			if (lowerQuery.contains(pattern)) {
@@ -666,18 +1291,18 @@ public class Memory {
 		Map<String, String[]> semanticMappings = new HashMap<>();
 
 		// Food-related mappings
-		semanticMappings.put("food", new String[]{"食物", "吃", "喜欢吃", "爱吃"});
-		semanticMappings.put("favorite", new String[]{"喜欢", "最爱", "偏爱", "钟爱"});
-		semanticMappings.put("drink", new String[]{"喝", "饮料", "喜欢喝", "爱喝"});
-		semanticMappings.put("sport", new String[]{"运动", "体育", "喜欢玩", "锻炼"});
-		semanticMappings.put("hobby", new String[]{"爱好", "兴趣", "喜欢"});
+		semanticMappings.put("food", new String[] { "食物", "吃", "喜欢吃", "爱吃" });
+		semanticMappings.put("favorite", new String[] { "喜欢", "最爱", "偏爱", "钟爱" });
+		semanticMappings.put("drink", new String[] { "喝", "饮料", "喜欢喝", "爱喝" });
+		semanticMappings.put("sport", new String[] { "运动", "体育", "喜欢玩", "锻炼" });
+		semanticMappings.put("hobby", new String[] { "爱好", "兴趣", "喜欢" });
 
 		// Reverse mappings (Chinese to English)
-		semanticMappings.put("食物", new String[]{"food", "eat", "favorite food"});
-		semanticMappings.put("喜欢吃", new String[]{"like to eat", "love eating", "favorite food"});
-		semanticMappings.put("喜欢喝", new String[]{"like to drink", "love drinking", "favorite drink"});
-		semanticMappings.put("运动", new String[]{"sport", "exercise", "activity"});
-		semanticMappings.put("爱好", new String[]{"hobby", "interest", "favorite"});
+		semanticMappings.put("食物", new String[] { "food", "eat", "favorite food" });
+		semanticMappings.put("喜欢吃", new String[] { "like to eat", "love eating", "favorite food" });
+		semanticMappings.put("喜欢喝", new String[] { "like to drink", "love drinking", "favorite drink" });
+		semanticMappings.put("运动", new String[] { "sport", "exercise", "activity" });
+		semanticMappings.put("爱好", new String[] { "hobby", "interest", "favorite" });
 
 		// Check if query contains concepts that map to memory content
 		// Use more precise matching - require both concept and mapping to be present
@@ -690,7 +1315,9 @@ public class Memory {
 					if (lowerMemory.contains(mapping)) {
 						// Additional check: ensure the match is contextually relevant
 						if (isContextuallyRelevant(concept, mapping, lowerQuery, lowerMemory)) {
-							logger.debug("Cross-language match found: query '{}' contains '{}', memory '{}' contains '{}'", query, concept, memoryContent, mapping);
+							logger.debug(
+									"Cross-language match found: query '{}' contains '{}', memory '{}' contains '{}'",
+									query, concept, memoryContent, mapping);
 							return true;
 						}
 					}
@@ -709,17 +1336,20 @@ public class Memory {
 		if ((concept.equals("food") || concept.equals("食物")) && (mapping.contains("吃") || mapping.contains("食物"))) {
 			// Query should contain food-related terms and memory should contain
 			// eating-related terms
-			return (query.contains("food") || query.contains("favorite")) && (memory.contains("吃") || memory.contains("食物"));
+			return (query.contains("food") || query.contains("favorite"))
+					&& (memory.contains("吃") || memory.contains("食物"));
 		}
 
 		// For drink-related queries
 		if ((concept.equals("drink") || concept.equals("饮料")) && (mapping.contains("喝") || mapping.contains("饮料"))) {
-			return (query.contains("drink") || query.contains("favorite")) && (memory.contains("喝") || memory.contains("饮料"));
+			return (query.contains("drink") || query.contains("favorite"))
+					&& (memory.contains("喝") || memory.contains("饮料"));
 		}
 
 		// For sport-related queries
 		if ((concept.equals("sport") || concept.equals("运动")) && (mapping.contains("运动") || mapping.contains("打"))) {
-			return (query.contains("sport") || query.contains("exercise")) && (memory.contains("运动") || memory.contains("打") || memory.contains("球"));
+			return (query.contains("sport") || query.contains("exercise"))
+					&& (memory.contains("运动") || memory.contains("打") || memory.contains("球"));
 		}
 
 		// For general favorite queries, be more permissive but still contextual
@@ -731,4 +1361,69 @@ public class Memory {
 		return true;
 	}
 
+	private CompletableFuture<Double[]> embed(String text, Executor executor) {
+		return call(executor, () -> embeddingService.embed(text), async -> embeddingService.embedAsync(text, async));
+	}
+
+	private CompletableFuture<String> generate(String prompt, Executor executor) {
+		return call(executor, () -> llmService.generate(prompt), async -> llmService.generateAsync(prompt, async));
+	}
+
+	/**
+	 * Run a step: blocking on the calling thread for {@link #CALLER}, otherwise through
+	 * the asynchronous service method
+	 */
+	private static <T> CompletableFuture<T> call(Executor executor, Supplier<T> blocking,
+			Function<Executor, CompletableFuture<T>> async) {
+		if (executor != CALLER) {
+			return async.apply(executor);
+		}
+		try {
+			return CompletableFuture.completedFuture(blocking.get());
+		}
+		catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private static CompletableFuture<Void> run(Executor executor, Runnable blocking,
+			Function<Executor, CompletableFuture<Void>> async) {
+		return call(executor, () -> {
+			blocking.run();
+			return null;
+		}, async);
+	}
+
+	/**
+	 * Log a failure and replace it with the exception the blocking method would throw
+	 */
+	private static <T> CompletableFuture<T> failWith(CompletableFuture<T> future, String message, String logMessage,
+			Object logArgument) {
+		return future.handle((result, e) -> {
+			if (e == null) {
+				return result;
+			}
+			Throwable cause = unwrap(e);
+			logger.error(logMessage, logArgument, cause);
+			throw new RuntimeException(message, cause);
+		});
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = unwrap(e);
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+	}
+
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.memory;
+
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.embeddings.EmbeddingService;
+import io.github.mem4j.embeddings.ReactiveEmbeddingService;
+import io.github.mem4j.llms.LLMService;
+import io.github.mem4j.llms.ReactiveLLMService;
+import io.github.mem4j.vectorstores.ReactiveVectorStoreService;
+import io.github.mem4j.vectorstores.VectorStoreService;
+import io.github.mem4j.vectorstores.filter.Filter;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Reactive facade of {@link Memory} for WebFlux applications
+ * <p>
+ * Adding and searching run the same pipeline as {@link Memory#addAsync} and
+ * {@link Memory#searchAsync}, with every step continuing on the thread that completed the
+ * previous one: the HTTP client's for embeddings and LLM calls, the store's scheduler for
+ * vector store calls. No event-loop thread waits for a response.
+ */
+public class ReactiveMemory {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveMemory.class);
+
+	// Continue each step on the thread completing the previous one
+	private static final Executor SAME_THREAD = Runnable::run;
+
+	private final Memory memory;
+
+	private final ReactiveVectorStoreService vectorStoreService;
+
+	public ReactiveMemory(MemoryConfigurable config, ReactiveVectorStoreService vectorStoreService,
+			ReactiveLLMService llmService, ReactiveEmbeddingService embeddingService) {
+		this.vectorStoreService = vectorStoreService;
+		this.memory = new Memory(config, new BridgedVectorStoreService(vectorStoreService),
+				new BridgedLLMService(llmService), new BridgedEmbeddingService(embeddingService), SAME_THREAD);
+	}
+
+	/**
+	 * Add memories from a conversation
+	 */
+	public Mono<Void> add(List<Message> messages, String userId) {
+		return Mono.fromFuture(() -> memory.addAsync(messages, userId));
+	}
+
+	/**
+	 * Add memories with custom parameters
+	 */
+	public Mono<Void> add(List<Message> messages, String userId, Map<String, Object> metadata, boolean infer,
+			MemoryType memoryType) {
+		return Mono.fromFuture(() -> memory.addAsync(messages, userId, metadata, infer, memoryType));
+	}
+
+	/**
+	 * Add memories from a stream of conversations, requesting the next conversation only
+	 * while fewer than {@code concurrency} are being added
+	 */
+	public Mono<Void> addAll(Publisher<List<Message>> conversations, String userId, int concurrency) {
+		return Flux.from(conversations).flatMap(messages -> add(messages, userId), concurrency).then();
+	}
+
+	/**
+	 * Search for relevant memories
+	 */
+	public Flux<MemoryItem> search(String query, String userId) {
+		return search(query, userId, null, 10, null);
+	}
+
+	/**
+	 * Search with custom parameters
+	 */
+	public Flux<MemoryItem> search(String query, String userId, Map<String, Object> filters, int limit,
+			Double threshold) {
+		return Mono.fromFuture(() -> memory.searchAsync(query, userId, filters, limit, threshold))
+			.flatMapIterable(Function.identity());
+	}
+
+	/**
+	 * Get all memories for a user
+	 */
+	public Flux<MemoryItem> getAll(String userId, Map<String, Object> filters, int limit) {
+		return Flux
+			.defer(() -> vectorStoreService.getAll(Filter.from(Memory.buildSearchFilters(userId, filters)), limit))
+			.onErrorMap(e -> {
+				logger.error("Error getting all memories for user {}", userId, e);
+				return new RuntimeException("Failed to get memories", e);
+			});
+	}
+
+	/**
+	 * Get memory by ID
+	 */
+	public Mono<MemoryItem> get(String memoryId) {
+		return vectorStoreService.get(memoryId).onErrorMap(e -> {
+			logger.error("Error getting memory: {}", memoryId, e);
+			return new RuntimeException("Failed to get memory", e);
+		});
+	}
+
+	/**
+	 * Delete a memory item
+	 */
+	public Mono<Void> delete(String memoryId) {
+		return vectorStoreService.delete(memoryId)
+			.doOnSuccess(ignored -> logger.info("Deleted memory: {}", memoryId))
+			.onErrorMap(e -> {
+				logger.error("Error deleting memory: {}", memoryId, e);
+				return new RuntimeException("Failed to delete memory", e);
+			});
+	}
+
+	/**
+	 * Delete all memories for a user
+	 */
+	public Mono<Void> deleteAll(String userId) {
+		return vectorStoreService.deleteAll(Filter.eq("user_id", userId))
+			.doOnSuccess(ignored -> logger.info("Deleted all memories for user: {}", userId))
+			.onErrorMap(e -> {
+				logger.error("Error deleting all memories for user {}", userId, e);
+				return new RuntimeException("Failed to delete memories", e);
+			});
+	}
+
+	/**
+	 * Reset all memories
+	 */
+	public Mono<Void> reset() {
+		return vectorStoreService.reset().doOnSuccess(ignored -> logger.info("Reset all memories")).onErrorMap(e -> {
+			logger.error("Error resetting memories", e);
+			return new RuntimeException("Failed to reset memories", e);
+		});
+	}
+
+	/**
+	 * Presents a reactive embedding service to {@link Memory}, whose asynchronous
+	 * pipeline only uses the non-blocking methods
+	 */
+	private static class BridgedEmbeddingService implements EmbeddingService {
+
+		private final ReactiveEmbeddingService delegate;
+
+		BridgedEmbeddingService(ReactiveEmbeddingService delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Double[] embed(String text) {
+			return delegate.embed(text).block();
+		}
+
+		@Override
+		public Double[][] embed(String[] texts) {
+			return delegate.embed(texts).block();
+		}
+
+		@Override
+		public CompletableFuture<Double[]> embedAsync(String text, Executor executor) {
+			return delegate.embed(text).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<Double[][]> embedAsync(String[] texts, Executor executor) {
+			return delegate.embed(texts).toFuture();
+		}
+
+		@Override
+		public Integer getDimension() {
+			return delegate.getDimension();
+		}
+
+		@Override
+		public Boolean isAvailable() {
+			return true;
+		}
+
+	}
+
+	private static class BridgedLLMService implements LLMService {
+
+		private final ReactiveLLMService delegate;
+
+		BridgedLLMService(ReactiveLLMService delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public String generate(String prompt) {
+			return delegate.generate(prompt).block();
+		}
+
+		@Override
+		public String generate(List<Message> messages) {
+			return delegate.generate(messages).block();
+		}
+
+		@Override
+		public String generate(String systemPrompt, String userMessage) {
+			return delegate.generate(List.of(new Message("system", systemPrompt), new Message("user", userMessage)))
+				.block();
+		}
+
+		@Override
+		public String generateStructured(String prompt, String schema) {
+			return delegate.generateStructured(prompt, schema).block();
+		}
+
+		@Override
+		public CompletableFuture<String> generateAsync(String prompt, Executor executor) {
+			return delegate.generate(prompt).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<String> generateAsync(List<Message> messages, Executor executor) {
+			return delegate.generate(messages).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<String> generateStructuredAsync(String prompt, String schema, Executor executor) {
+			return delegate.generateStructured(prompt, schema).toFuture();
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+	}
+
+	private static class BridgedVectorStoreService implements VectorStoreService {
+
+		private final ReactiveVectorStoreService delegate;
+
+		BridgedVectorStoreService(ReactiveVectorStoreService delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void add(MemoryItem item) {
+			delegate.add(item).block();
+		}
+
+		@Override
+		public void addAll(List<MemoryItem> items) {
+			delegate.addAll(items).block();
+		}
+
+		@Override
+		public List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
+			return delegate.search(queryEmbedding, filter, limit, threshold).collectList().block();
+		}
+
+		@Override
+		public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
+				Double threshold) {
+			return search(queryEmbedding, Filter.from(filters), limit, threshold);
+		}
+
+		@Override
+		public List<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+			return delegate.searchBatch(queries, filter, limit, threshold).collectList().block();
+		}
+
+		@Override
+		public List<MemoryItem> getAll(Filter filter, Integer limit) {
+			return delegate.getAll(filter, limit).collectList().block();
+		}
+
+		@Override
+		public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+			return getAll(Filter.from(filters), limit);
+		}
+
+		@Override
+		public MemoryItem get(String memoryId) {
+			return delegate.get(memoryId).block();
+		}
+
+		@Override
+		public void update(MemoryItem item) {
+			delegate.update(item).block();
+		}
+
+		@Override
+		public void delete(String memoryId) {
+			delegate.delete(memoryId).block();
+		}
+
+		@Override
+		public void deleteAll(Filter filter) {
+			delegate.deleteAll(filter).block();
+		}
+
+		@Override
+		public void deleteAll(Map<String, Object> filters) {
+			deleteAll(Filter.from(filters));
+		}
+
+		@Override
+		public void reset() {
+			delegate.reset().block();
+		}
+
+		@Override
+		public CompletableFuture<Void> addAsync(MemoryItem item, Executor executor) {
+			return delegate.add(item).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<Void> addAllAsync(List<MemoryItem> items, Executor executor) {
+			return delegate.addAll(items).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<List<MemoryItem>> searchAsync(Double[] queryEmbedding, Filter filter, Integer limit,
+				Double threshold, Executor executor) {
+			return delegate.search(queryEmbedding, filter, limit, threshold).collectList().toFuture();
+		}
+
+		@Override
+		public CompletableFuture<List<List<MemoryItem>>> searchBatchAsync(float[][] queries, Filter filter,
+				Integer limit, Double threshold, Executor executor) {
+			return delegate.searchBatch(queries, filter, limit, threshold).collectList().toFuture();
+		}
+
+		@Override
+		public CompletableFuture<List<MemoryItem>> getAllAsync(Filter filter, Integer limit, Executor executor) {
+			return delegate.getAll(filter, limit).collectList().toFuture();
+		}
+
+		@Override
+		public CompletableFuture<Void> updateAsync(MemoryItem item, Executor executor) {
+			return delegate.update(item).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<Void> deleteAsync(String memoryId, Executor executor) {
+			return delegate.delete(memoryId).toFuture();
+		}
+
+		@Override
+		public CompletableFuture<Void> deleteByIdsAsync(Collection<String> memoryIds, Executor executor) {
+			return Flux.fromIterable(memoryIds).concatMap(delegate::delete).then().toFuture();
+		}
+
+	}
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable append-only log of opaque records, split into numbered generation files.
+ * <p>
+ * Each record is framed as {@code [length][crc32][payload]}. Appends only write to the
+ * current generation; {@link #sync(long)} makes them durable with group commit, so
+ * concurrent writers waiting on the same fsync share it. A torn or corrupt tail, left
+ * behind by a crash in the middle of an append, ends replay of its generation and is cut
+ * off.
+ * <p>
+ * Typical lifecycle: {@link #replay} the existing generations, {@link #open()} a new one,
+ * append and sync, and {@link #rotate()} when a checkpoint makes older generations
+ * obsolete, then {@link #deleteBefore(long)} them.
+ */
+public final class AppendLog implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(AppendLog.class);
+
+	private static final String SUFFIX = ".log";
+
+	private static final int HEADER_BYTES = 8;
+
+	private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * Callback receiving replayed records in append order.
+	 */
+	@FunctionalInterface
+	public interface RecordHandler {
+
+		void accept(long generation, byte[] payload) throws IOException;
+
+	}
+
+	private final Path directory;
+
+	private final String prefix;
+
+	private final boolean fsync;
+
+	private final ReentrantLock syncLock = new ReentrantLock();
+
+	private FileChannel channel;
+
+	private long generation;
+
+	private long appended;
+
+	private volatile long durable;
+
+	/**
+	 * @param directory directory holding the generation files, created if missing
+	 * @param prefix file name prefix, so that several logs can share a directory
+	 * @param fsync whether {@link #sync(long)} forces records to disk
+	 */
+	public AppendLog(Path directory, String prefix, boolean fsync) throws IOException {
+		this.directory = directory;
+		this.prefix = prefix;
+		this.fsync = fsync;
+		Files.createDirectories(directory);
+	}
+
+	/**
+	 * Existing generation numbers in ascending order.
+	 */
+	public List<Long> generations() throws IOException {
+		List<Long> generations = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.map(file -> file.getFileName().toString())
+				.filter(name -> name.startsWith(prefix) && name.endsWith(SUFFIX))
+				.forEach(name -> {
+					try {
+						generations
+							.add(Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length())));
+					}
+					catch (NumberFormatException e) {
+						logger.warn("Ignoring unexpected file in log directory: {}", name);
+					}
+				});
+		}
+		generations.sort(null);
+		return generations;
+	}
+
+	/**
+	 * Feed every record of the generations at or after {@code fromGeneration} to the
+	 * handler, oldest first. Must be called before {@link #open()}.
+	 * @return number of records replayed
+	 */
+	public long replay(long fromGeneration, RecordHandler handler) throws IOException {
+		long count = 0;
+		for (long existing : generations()) {
+			if (existing >= fromGeneration) {
+				count += replayGeneration(existing, handler);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Start appending to a fresh generation numbered after every existing one.
+	 * @return the new generation number
+	 */
+	public synchronized long open() throws IOException {
+		if (channel != null) {
+			throw new IllegalStateException("Log is already open");
+		}
+		List<Long> generations = generations();
+		long next = generations.isEmpty() ? 1 : generations.get(generations.size() - 1) + 1;
+		openGeneration(next);
+		return next;
+	}
+
+	/**
+	 * Append one record to the current generation. The record is not durable until
+	 * {@link #sync(long)} returns for the returned sequence number.
+	 * @return sequence number of the record
+	 */
+	public synchronized long append(byte[] payload) throws IOException {
+		if (channel == null) {
+			throw new IOException("Log is not open");
+		}
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+		buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		return ++appended;
+	}
+
+	/**
+	 * Block until the record with the given sequence number, and every record before it,
+	 * is on disk. A single fsync covers all records appended while the previous one ran.
+	 */
+	public void sync(long sequence) throws IOException {
+		if (!fsync || durable >= sequence) {
+			return;
+		}
+		syncLock.lock();
+		try {
+			if (durable >= sequence) {
+				return;
+			}
+			long target;
+			FileChannel current;
+			synchronized (this) {
+				target = appended;
+				current = channel;
+			}
+			current.force(false);
+			durable = target;
+		}
+		finally {
+			syncLock.unlock();
+		}
+	}
+
+	/**
+	 * Seal the current generation, making everything appended so far durable, and
+	 * continue in a new one.
+	 * @return the new generation number; records in older generations precede it
+	 */
+	public long rotate() throws IOException {
+		syncLock.lock();
+		try {
+			synchronized (this) {
+				if (channel == null) {
+					throw new IOException("Log is not open");
+				}
+				channel.force(false);
+				channel.close();
+				durable = appended;
+				openGeneration(generation + 1);
+				return generation;
+			}
+		}
+		finally {
+			syncLock.unlock();
+		}
+	}
+
+	/**
+	 * Delete the generation files older than the given one.
+	 */
+	public void deleteBefore(long generation) throws IOException {
+		for (long existing : generations()) {
+			if (existing < generation) {
+				Files.deleteIfExists(file(existing));
+			}
+		}
+	}
+
+	/**
+	 * Sequence number of the last appended record.
+	 */
+	public synchronized long lastSequence() {
+		return appended;
+	}
+
+	@Override
+	public void close() throws IOException {
+		syncLock.lock();
+		try {
+			synchronized (this) {
+				if (channel != null) {
+					channel.force(false);
+					channel.close();
+					channel = null;
+					durable = appended;
+				}
+			}
+		}
+		finally {
+			syncLock.unlock();
+		}
+	}
+
+	private void openGeneration(long next) throws IOException {
+		channel = FileChannel.open(file(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		generation = next;
+		if (fsync) {
+			syncDirectory(directory);
+		}
+	}
+
+	private long replayGeneration(long existing, RecordHandler handler) throws IOException {
+		Path file = file(existing);
+		long valid = 0;
+		long count = 0;
+		boolean torn = false;
+		try (InputStream raw = Files.newInputStream(file);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 64 * 1024))) {
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				}
+				catch (EOFException e) {
+					break;
+				}
+				byte[] payload;
+				int checksum;
+				try {
+					checksum = in.readInt();
+					if (length < 0 || length > MAX_RECORD_BYTES) {
+						torn = true;
+						break;
+					}
+					payload = new byte[length];
+					in.readFully(payload);
+				}
+				catch (EOFException e) {
+					torn = true;
+					break;
+				}
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum) {
+					torn = true;
+					break;
+				}
+				handler.accept(existing, payload);
+				valid += HEADER_BYTES + length;
+				count++;
+			}
+		}
+		if (torn || valid < Files.size(file)) {
+			logger.warn("Truncating corrupt tail of {} at byte {}", file, valid);
+			try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				truncate.truncate(valid);
+				truncate.force(true);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Make file creations, renames and deletions in a directory durable, where the
+	 * platform supports it.
+	 */
+	public static void syncDirectory(Path directory) {
+		try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+			dir.force(true);
+		}
+		catch (IOException e) {
+			// Not every platform allows opening directories; file contents are still
+			// synced
+			logger.debug("Could not sync log directory {}: {}", directory, e.getMessage());
+		}
+	}
+
+	private Path file(long generation) {
+		return directory.resolve(String.format("%s%020d%s", prefix, generation, SUFFIX));
+	}
+
+}
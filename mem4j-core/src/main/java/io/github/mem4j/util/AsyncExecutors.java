@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the asynchronous memory operations.
+ * <p>
+ * Virtual threads are used when the JVM has them (Java 21+): a blocked embedding, LLM or
+ * vector store call then parks a virtual thread instead of a platform thread, so
+ * thousands of operations can be in flight. They are looked up reflectively so the
+ * library still runs on Java 17, where a bounded pool of daemon threads is used instead.
+ */
+public final class AsyncExecutors {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncExecutors.class);
+
+	private AsyncExecutors() {
+	}
+
+	/**
+	 * An executor with the given number of platform threads, or virtual threads when
+	 * {@code threads} is null or not positive and the JVM supports them.
+	 */
+	public static ExecutorService create(Integer threads) {
+		if (threads == null || threads <= 0) {
+			ExecutorService virtual = virtualThreadPerTask();
+			if (virtual != null) {
+				return virtual;
+			}
+			threads = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+		}
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), daemonThreads("mem4j-async-"));
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	private static ExecutorService virtualThreadPerTask() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			logger.warn("Virtual threads unavailable, using a platform thread pool", e);
+			return null;
+		}
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
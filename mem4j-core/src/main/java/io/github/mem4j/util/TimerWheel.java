@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel: schedules values for a deadline and hands them back once the
+ * wheel has been advanced past it, in O(1) per timer and without scanning pending timers.
+ * <p>
+ * Time is divided into ticks. Level 0 has one slot per tick for the next 64 ticks, and
+ * every further level covers 64 times the span of the one below with slots of 64 times
+ * the width. A timer goes into the lowest level whose span reaches its deadline; when the
+ * lower wheel wraps around, the current slot of the level above is cascaded down, so
+ * every timer is moved at most once per level. Six levels cover 2^36 ticks, over two
+ * thousand years at one tick per second; later deadlines wait at the top level for as
+ * many rotations as they need.
+ * <p>
+ * Deadlines have tick granularity: a timer fires on the first advance that reaches the
+ * tick containing its deadline. The wheel is thread-safe.
+ */
+public final class TimerWheel<T> {
+
+	private static final int SLOT_BITS = 6;
+
+	private static final int SLOTS = 1 << SLOT_BITS;
+
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	private static final int LEVELS = 6;
+
+	private static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+	private final long tickMillis;
+
+	private final long startMillis;
+
+	private final List<List<Timer<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+
+	// Next tick to process
+	private long currentTick;
+
+	private int size;
+
+	/**
+	 * @param tickMillis width of a tick
+	 * @param startMillis time of tick 0, in the same clock as the deadlines
+	 */
+	public TimerWheel(long tickMillis, long startMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+		}
+		this.tickMillis = tickMillis;
+		this.startMillis = startMillis;
+		for (int i = 0; i < LEVELS * SLOTS; i++) {
+			slots.add(new ArrayList<>());
+		}
+	}
+
+	/**
+	 * Schedule a value to fire once the wheel is advanced to {@code deadlineMillis}; past
+	 * deadlines fire on the next advance.
+	 */
+	public synchronized void schedule(T value, long deadlineMillis) {
+		long deadlineTick = Math.floorDiv(deadlineMillis - startMillis, tickMillis);
+		place(new Timer<>(value, Math.max(deadlineTick, currentTick)));
+		size++;
+	}
+
+	/**
+	 * Process every tick up to the one containing {@code nowMillis}.
+	 * @return the values whose deadline has been reached, in deadline order
+	 */
+	public synchronized List<T> advance(long nowMillis) {
+		long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+		List<T> expired = new ArrayList<>();
+		while (currentTick <= targetTick) {
+			if (size == 0) {
+				// Nothing to cascade or fire, so the empty ticks can be skipped
+				currentTick = targetTick + 1;
+				break;
+			}
+			cascade();
+			List<Timer<T>> due = slot(0, currentTick);
+			for (Timer<T> timer : due) {
+				expired.add(timer.value);
+			}
+			size -= due.size();
+			due.clear();
+			currentTick++;
+		}
+		return expired;
+	}
+
+	/**
+	 * Number of scheduled timers that have not fired yet.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Move the timers of the upper levels whose slot starts at the current tick down to
+	 * the levels below, highest level first.
+	 */
+	private void cascade() {
+		int level = 0;
+		while (level + 1 < LEVELS && (currentTick & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+			level++;
+		}
+		for (; level > 0; level--) {
+			List<Timer<T>> slot = slot(level, currentTick);
+			if (slot.isEmpty()) {
+				continue;
+			}
+			List<Timer<T>> moved = new ArrayList<>(slot);
+			slot.clear();
+			for (Timer<T> timer : moved) {
+				place(timer);
+			}
+		}
+	}
+
+	private void place(Timer<T> timer) {
+		// A clamped timer is cascaded again when its slot comes round, until it is in
+		// range
+		long delay = Math.min(timer.deadlineTick - currentTick, MAX_DELAY_TICKS);
+		int level = 0;
+		while (level + 1 < LEVELS && delay >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		slot(level, currentTick + delay).add(timer);
+	}
+
+	private List<Timer<T>> slot(int level, long tick) {
+		int index = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+		return slots.get(level * SLOTS + index);
+	}
+
+	private static final class Timer<T> {
+
+		private final T value;
+
+		private final long deadlineTick;
+
+		private Timer(T value, long deadlineTick) {
+			this.value = value;
+			this.deadlineTick = deadlineTick;
+		}
+
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.capacity.CapacityTracker;
+import io.github.mem4j.vectorstores.capacity.EvictionPolicy;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.ItemPredicates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * VectorStoreService decorator enforcing {@code max-memories} per user and
+ * {@code max-total-memories} across all users
+ * <p>
+ * Every write that takes a user or the store over its limit evicts memories chosen by the
+ * configured {@link EvictionPolicy} from a random sample, through the decorated store's
+ * {@link VectorStoreService#delete(String)}. Searches and lookups by id count as
+ * retrievals for the LRU and LFU policies; listing memories does not.
+ * <p>
+ * Memories already stored when the decorator is created are loaded on the first write
+ * that needs them, if the decorated store can list them: a user's memories before that
+ * user's first write, or all memories before the first write when
+ * {@code max-total-memories} is set. They are listed in pages; if the store fails to list
+ * them, only memories written afterwards are counted.
+ */
+public class CapacityLimitedVectorStoreService implements VectorStoreService, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(CapacityLimitedVectorStoreService.class);
+
+	private final VectorStoreService delegate;
+
+	private final CapacityTracker tracker;
+
+	// Users whose existing memories have been loaded into the tracker
+	private final Map<String, Boolean> loadedUsers = new ConcurrentHashMap<>();
+
+	private volatile boolean loadedAll;
+
+	private volatile boolean listingFailed;
+
+	public CapacityLimitedVectorStoreService(VectorStoreService delegate, MemoryConfigurable config) {
+		this(delegate, new CapacityTracker(limit(config.getMaxMemories()), limit(config.getMaxTotalMemories()),
+				EvictionPolicy.named(config.getEvictionPolicy())));
+	}
+
+	public CapacityLimitedVectorStoreService(VectorStoreService delegate, CapacityTracker tracker) {
+		this.delegate = delegate;
+		this.tracker = tracker;
+	}
+
+	@Override
+	public void add(MemoryItem item) {
+		loadExisting(item.getUserId());
+		delegate.add(item);
+		tracker.track(item);
+		evict(tracker.evictionVictims(item.getUserId()));
+	}
+
+	@Override
+	public void addAll(List<MemoryItem> items) {
+		items.forEach(item -> loadExisting(item.getUserId()));
+		delegate.addAll(items);
+		trackAll(items);
+	}
+
+	@Override
+	public List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
+		List<MemoryItem> results = delegate.search(queryEmbedding, filter, limit, threshold);
+		for (MemoryItem result : results) {
+			tracker.touch(result.getId());
+		}
+		return results;
+	}
+
+	@Override
+	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
+			Double threshold) {
+		return search(queryEmbedding, Filter.from(filters), limit, threshold);
+	}
+
+	@Override
+	public List<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+		List<List<MemoryItem>> results = delegate.searchBatch(queries, filter, limit, threshold);
+		for (List<MemoryItem> queryResults : results) {
+			for (MemoryItem result : queryResults) {
+				tracker.touch(result.getId());
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Filter filter, Integer limit) {
+		return delegate.getAll(filter, limit);
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+		return getAll(Filter.from(filters), limit);
+	}
+
+	@Override
+	public MemoryItem get(String memoryId) {
+		MemoryItem result = delegate.get(memoryId);
+		if (result != null) {
+			tracker.touch(memoryId);
+		}
+		return result;
+	}
+
+	@Override
+	public void update(MemoryItem item) {
+		loadExisting(item.getUserId());
+		delegate.update(item);
+		tracker.track(item);
+		evict(tracker.evictionVictims(item.getUserId()));
+	}
+
+	@Override
+	public void updateAll(List<MemoryItem> items) {
+		items.forEach(item -> loadExisting(item.getUserId()));
+		delegate.updateAll(items);
+		trackAll(items);
+	}
+
+	@Override
+	public void delete(String memoryId) {
+		delegate.delete(memoryId);
+		tracker.untrack(memoryId);
+	}
+
+	@Override
+	public void deleteByIds(Collection<String> memoryIds) {
+		delegate.deleteByIds(memoryIds);
+		for (String memoryId : memoryIds) {
+			tracker.untrack(memoryId);
+		}
+	}
+
+	@Override
+	public void deleteAll(Filter filter) {
+		delegate.deleteAll(filter);
+		tracker.untrackMatching(ItemPredicates.compile(filter));
+	}
+
+	@Override
+	public void deleteAll(Map<String, Object> filters) {
+		deleteAll(Filter.from(filters));
+	}
+
+	@Override
+	public void reset() {
+		delegate.reset();
+		tracker.clear();
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (delegate instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	/**
+	 * The decorated store
+	 */
+	public VectorStoreService getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Track a written batch, then evict once for every user it touched
+	 */
+	private void trackAll(List<MemoryItem> items) {
+		Set<String> userIds = new LinkedHashSet<>();
+		for (MemoryItem item : items) {
+			tracker.track(item);
+			userIds.add(item.getUserId());
+		}
+		List<String> victims = new ArrayList<>();
+		for (String userId : userIds) {
+			victims.addAll(tracker.evictionVictims(userId));
+		}
+		evict(victims);
+	}
+
+	private void evict(List<String> victims) {
+		if (victims.isEmpty()) {
+			return;
+		}
+		delegate.deleteByIds(victims);
+		logger.debug("Evicted memories {} to stay within capacity", victims);
+	}
+
+	/**
+	 * Track the stored memories a write for the user is counted against, once
+	 */
+	private void loadExisting(String userId) {
+		if (tracker.limitsTotal()) {
+			if (!loadedAll) {
+				synchronized (this) {
+					if (!loadedAll) {
+						load(Filter.all());
+						loadedAll = true;
+					}
+				}
+			}
+		}
+		else if (tracker.limitsUsers() && userId != null) {
+			loadedUsers.computeIfAbsent(userId, user -> load(Filter.eq("user_id", user)));
+		}
+	}
+
+	private Boolean load(Filter filter) {
+		if (listingFailed) {
+			return Boolean.TRUE;
+		}
+		try {
+			StoreListing.forEach(delegate, filter, tracker::track);
+		}
+		catch (Exception e) {
+			// The store cannot list memories; stop asking for every further user
+			listingFailed = true;
+			logger.warn("Could not list existing memories, only memories written from now on count towards capacity",
+					e);
+		}
+		return Boolean.TRUE;
+	}
+
+	private static int limit(Integer value) {
+		return value != null && value > 0 ? value : 0;
+	}
+
+}
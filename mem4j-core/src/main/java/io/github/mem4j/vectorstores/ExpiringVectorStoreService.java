@@ -0,0 +1,349 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.util.TimerWheel;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.FilterValues;
+import io.github.mem4j.vectorstores.filter.ItemPredicates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * VectorStoreService decorator expiring memories after the TTL configured for their
+ * memory type under {@code memory-types.<type>.ttl}
+ * <p>
+ * A memory expires its TTL after its last update. Each write schedules the memory on a
+ * {@link TimerWheel}, which a background thread advances once per tick to delete the
+ * memories that are due, so expiry never scans the stored memories. Reads exclude
+ * memories past their TTL in the filter passed to the decorated store, so expired
+ * memories neither appear nor take result slots before the wheel reaches them.
+ * <p>
+ * Existing memories of the types with a TTL are scheduled on the background thread when
+ * the decorator is created.
+ */
+public class ExpiringVectorStoreService implements VectorStoreService, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExpiringVectorStoreService.class);
+
+	private static final long DEFAULT_TICK_MILLIS = 1000;
+
+	private final VectorStoreService delegate;
+
+	private final Map<String, Duration> ttls;
+
+	private final LongSupplier clock;
+
+	private final TimerWheel<String> wheel;
+
+	private final long tickMillis;
+
+	// Current deadline per scheduled memory; wheel entries for older deadlines are stale
+	private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService reaper;
+
+	public ExpiringVectorStoreService(VectorStoreService delegate, MemoryConfigurable config) {
+		this(delegate, config.getMemoryTypeTtls(), DEFAULT_TICK_MILLIS, System::currentTimeMillis, true);
+	}
+
+	/**
+	 * @param ttls time to live per memory type; types without one never expire
+	 * @param tickMillis resolution of expiry and interval of the background thread
+	 * @param clock current time in epoch milliseconds
+	 * @param background whether a background thread deletes expired memories; otherwise
+	 * {@link #expireDue()} must be called
+	 */
+	ExpiringVectorStoreService(VectorStoreService delegate, Map<String, Duration> ttls, long tickMillis,
+			LongSupplier clock, boolean background) {
+		this.delegate = delegate;
+		this.ttls = Map.copyOf(ttls);
+		this.clock = clock;
+		this.tickMillis = tickMillis;
+		this.wheel = new TimerWheel<>(tickMillis, clock.getAsLong());
+		this.reaper = background ? startReaper(tickMillis) : null;
+		if (reaper != null) {
+			// Reads hide expired memories until the existing ones are scheduled
+			reaper.execute(this::scheduleExisting);
+		}
+		else {
+			scheduleExisting();
+		}
+	}
+
+	@Override
+	public void add(MemoryItem item) {
+		delegate.add(item);
+		schedule(item);
+	}
+
+	@Override
+	public void addAll(List<MemoryItem> items) {
+		delegate.addAll(items);
+		items.forEach(this::schedule);
+	}
+
+	@Override
+	public List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
+		return live(delegate.search(queryEmbedding, unexpired(filter), limit, threshold));
+	}
+
+	@Override
+	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
+			Double threshold) {
+		return search(queryEmbedding, Filter.from(filters), limit, threshold);
+	}
+
+	@Override
+	public List<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+		List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+		for (List<MemoryItem> queryResults : delegate.searchBatch(queries, unexpired(filter), limit, threshold)) {
+			results.add(live(queryResults));
+		}
+		return results;
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Filter filter, Integer limit) {
+		return live(delegate.getAll(unexpired(filter), limit));
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+		return getAll(Filter.from(filters), limit);
+	}
+
+	@Override
+	public MemoryItem get(String memoryId) {
+		MemoryItem item = delegate.get(memoryId);
+		return item != null && !isExpired(item, clock.getAsLong()) ? item : null;
+	}
+
+	@Override
+	public void update(MemoryItem item) {
+		delegate.update(item);
+		schedule(item);
+	}
+
+	@Override
+	public void updateAll(List<MemoryItem> items) {
+		delegate.updateAll(items);
+		items.forEach(this::schedule);
+	}
+
+	@Override
+	public void delete(String memoryId) {
+		delegate.delete(memoryId);
+		deadlines.remove(memoryId);
+	}
+
+	@Override
+	public void deleteByIds(Collection<String> memoryIds) {
+		delegate.deleteByIds(memoryIds);
+		memoryIds.forEach(deadlines::remove);
+	}
+
+	@Override
+	public void deleteAll(Filter filter) {
+		delegate.deleteAll(filter);
+		Predicate<MemoryItem> deleted = ItemPredicates.compile(filter);
+		deadlines.values().removeIf(scheduled -> deleted.test(scheduled.attributes()));
+	}
+
+	@Override
+	public void deleteAll(Map<String, Object> filters) {
+		deleteAll(Filter.from(filters));
+	}
+
+	@Override
+	public void reset() {
+		delegate.reset();
+		deadlines.clear();
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (reaper != null) {
+			reaper.shutdownNow();
+		}
+		if (delegate instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	/**
+	 * The decorated store
+	 */
+	public VectorStoreService getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Delete the memories whose deadline has passed
+	 * @return the number of memories deleted
+	 */
+	int expireDue() {
+		long now = clock.getAsLong();
+		int expired = 0;
+		for (String memoryId : wheel.advance(now)) {
+			Deadline deadline = deadlines.get(memoryId);
+			if (deadline == null || deadline.at() > now || !deadlines.remove(memoryId, deadline)) {
+				continue;
+			}
+			try {
+				// Re-read the memory, which a concurrent update may have just renewed
+				MemoryItem current = delegate.get(memoryId);
+				if (current != null && isExpired(current, now)) {
+					delegate.delete(memoryId);
+					expired++;
+				}
+			}
+			catch (Exception e) {
+				logger.warn("Failed to delete expired memory {}, retrying on the next tick", memoryId, e);
+				deadlines.putIfAbsent(memoryId, deadline);
+				wheel.schedule(memoryId, now);
+			}
+		}
+		if (expired > 0) {
+			logger.debug("Expired {} memories", expired);
+		}
+		return expired;
+	}
+
+	private void schedule(MemoryItem item) {
+		if (item.getId() == null) {
+			return;
+		}
+		Long deadline = deadline(item);
+		if (deadline == null) {
+			deadlines.remove(item.getId());
+			return;
+		}
+		deadlines.put(item.getId(), new Deadline(deadline, ItemPredicates.attributesOf(item)));
+		wheel.schedule(item.getId(), deadline);
+	}
+
+	/**
+	 * Expiry time of a memory in epoch milliseconds, or null when its type has no TTL
+	 */
+	private Long deadline(MemoryItem item) {
+		Duration ttl = item.getMemoryType() != null ? ttls.get(item.getMemoryType()) : null;
+		if (ttl == null) {
+			return null;
+		}
+		Instant since = item.getUpdatedAt() != null ? item.getUpdatedAt() : item.getCreatedAt();
+		long base = since != null ? since.toEpochMilli() : clock.getAsLong();
+		return base + ttl.toMillis();
+	}
+
+	private boolean isExpired(MemoryItem item, long now) {
+		Long deadline = deadline(item);
+		return deadline != null && deadline <= now;
+	}
+
+	/**
+	 * The filter ANDed with the exclusion of every memory type's expired memories. The
+	 * cutoff is rounded down to the tick so stores can reuse the compiled filter;
+	 * memories expiring within the tick, or without an update time, are dropped by
+	 * {@link #live}.
+	 */
+	private Filter unexpired(Filter filter) {
+		if (ttls.isEmpty()) {
+			return filter;
+		}
+		long now = clock.getAsLong() / tickMillis * tickMillis;
+		List<Filter> filters = new ArrayList<>(ttls.size() + 1);
+		filters.add(filter != null ? filter : Filter.all());
+		ttls.forEach((type, ttl) -> filters.add(Filter.not(Filter.and(Filter.eq("memory_type", type),
+				Filter.lte(FilterValues.UPDATED_AT, now - ttl.toMillis())))));
+		return new Filter.And(filters);
+	}
+
+	private List<MemoryItem> live(List<MemoryItem> items) {
+		long now = clock.getAsLong();
+		List<MemoryItem> live = new ArrayList<>(items.size());
+		for (MemoryItem item : items) {
+			if (!isExpired(item, now)) {
+				live.add(item);
+			}
+		}
+		return live;
+	}
+
+	private void scheduleExisting() {
+		if (ttls.isEmpty()) {
+			return;
+		}
+		try {
+			AtomicInteger scheduled = new AtomicInteger();
+			StoreListing.forEach(delegate, Filter.in("memory_type", ttls.keySet()), item -> {
+				Long deadline = deadline(item);
+				// Writes since the decorator was created have scheduled a later deadline
+				if (item.getId() != null && deadline != null && deadlines.putIfAbsent(item.getId(),
+						new Deadline(deadline, ItemPredicates.attributesOf(item))) == null) {
+					wheel.schedule(item.getId(), deadline);
+					scheduled.incrementAndGet();
+				}
+			});
+			logger.debug("Scheduled expiry of {} existing memories", scheduled.get());
+		}
+		catch (Exception e) {
+			logger.warn("Could not list existing memories, only memories written from now on expire", e);
+		}
+	}
+
+	/**
+	 * Scheduled expiry of a memory, with the attributes {@link #deleteAll} matches
+	 */
+	private record Deadline(long at, MemoryItem attributes) {
+	}
+
+	private ScheduledExecutorService startReaper(long tickMillis) {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "mem4j-memory-expiry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(() -> {
+			try {
+				expireDue();
+			}
+			catch (Exception e) {
+				// Keep the schedule alive; expired memories stay hidden from reads
+				logger.warn("Failed to delete expired memories", e);
+			}
+		}, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+		return executor;
+	}
+
+}
@@ -16,38 +16,253 @@
 
 package io.github.mem4j.vectorstores;
 
+import io.github.mem4j.config.MemoryConfigurable;
 import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.FilterCache;
+import io.github.mem4j.vectorstores.inmemory.BatchTopK;
+import io.github.mem4j.vectorstores.inmemory.BitmapFilter;
+import io.github.mem4j.vectorstores.inmemory.BitmapIndex;
+import io.github.mem4j.vectorstores.inmemory.CompressedBitmap;
+import io.github.mem4j.vectorstores.inmemory.HnswIndex;
+import io.github.mem4j.vectorstores.inmemory.InMemoryStoreOptions;
+import io.github.mem4j.vectorstores.inmemory.MappedSegment;
+import io.github.mem4j.vectorstores.inmemory.NeighborQueue;
+import io.github.mem4j.vectorstores.inmemory.QuantizedSlab;
+import io.github.mem4j.vectorstores.inmemory.SealedSegment;
+import io.github.mem4j.vectorstores.inmemory.StorePersistence;
+import io.github.mem4j.vectorstores.inmemory.VectorSlab;
+import io.github.mem4j.vectorstores.similarity.Similarity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
 /**
  * In-memory implementation of VectorStoreService for testing and development
+ * <p>
+ * Embeddings are packed into a {@link VectorSlab} of primitive floats and addressed by a
+ * dense ordinal, so a search is a linear scan over contiguous memory. Vectors are stored
+ * L2-normalized next to their original norm, and queries are normalized once per search,
+ * so cosine similarity is a single dot product. Deleted ordinals are tombstoned and
+ * reclaimed by compacting the slab once they outnumber live ones.
+ * <p>
+ * Every built-in field and metadata value is indexed in a {@link BitmapIndex}, so
+ * {@link Filter}s, compiled once into a {@link BitmapFilter} plan and cached, are
+ * resolved to a compressed bitmap of matching ordinals before any vector is scored; a
+ * filtered query only visits those ordinals.
+ * <p>
+ * With {@code index-type: hnsw} searches go through an {@link HnswIndex} instead of the
+ * exact scan, trading a little recall (tunable through {@code hnsw-ef-search}) for
+ * sub-linear latency. With {@code quantization: int8} the exact scan runs over int8 codes
+ * and only the best {@code limit * rescore-factor} candidates are rescored against the
+ * full-precision vectors.
+ * <p>
+ * With a {@code persistence-directory} every write is appended to a write-ahead log and
+ * acknowledged once fsynced, with concurrent writers sharing fsyncs. The store is then
+ * organized like a log-structured merge tree: the heap structures above are only a write
+ * buffer, flushed into an immutable {@link SealedSegment} every
+ * {@code snapshot-interval-seconds}, once it holds {@code segment-flush-size} entries,
+ * and on {@link #close()}. A flush truncates the log, and a new instance maps the sealed
+ * segments and replays the log written after them.
+ * <p>
+ * Deleting or replacing a sealed entry only sets its tombstone bit. A background thread
+ * merges segments whose share of tombstones reaches {@code merge-dead-ratio}, as well as
+ * the smallest ones when there are too many, into a single segment of their live entries.
+ * Each sealed segment gets its own HNSW graph or int8 codes, built by the background
+ * thread after a flush, a merge or a restart; until then it is searched by exact scan.
+ * Sealed segments are searched without holding the store lock, so searches over them
+ * proceed while writes continue; their results are checked against the writes made
+ * meanwhile before they are returned.
  */
 
-public class InMemoryVectorStoreService implements VectorStoreService {
+public class InMemoryVectorStoreService implements VectorStoreService, AutoCloseable {
 
 	private static final Logger logger = LoggerFactory.getLogger(InMemoryVectorStoreService.class);
 
-	private final Map<String, MemoryItem> memoryStore = new ConcurrentHashMap<>();
+	/**
+	 * Largest partition searched by exact scan when an HNSW index is available; a
+	 * filtered graph walk over a small partition would visit most of the graph anyway.
+	 */
+	private static final int EXACT_SCAN_MAX_CANDIDATES = 4096;
 
-	private final Map<String, Double[]> embeddings = new ConcurrentHashMap<>();
+	/**
+	 * Smallest number of candidates worth handing to a separate ForkJoin segment.
+	 */
+	private static final int MIN_SEGMENT_SIZE = 4096;
+
+	/**
+	 * Minimum number of tombstones before a compaction is considered.
+	 */
+	private static final int COMPACTION_MIN_DEAD = 1024;
+
+	/**
+	 * Number of sealed segments above which the smallest ones are merged.
+	 */
+	private static final int MAX_SEALED_SEGMENTS = 8;
+
+	/**
+	 * Unlocked scans of the sealed segments tried before a search holds the read lock
+	 * throughout.
+	 */
+	private static final int OPTIMISTIC_SEARCH_ATTEMPTS = 3;
+
+	private final InMemoryStoreOptions options;
+
+	private final ForkJoinPool scanPool;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Write-ahead log and sealed segments, only when a persistence directory is
+	// configured
+	private final StorePersistence persistence;
+
+	// Single thread running flushes and merges of a persistent store
+	private final ScheduledExecutorService maintenance;
+
+	// Serializes flushes and merges, the only changes to the segment list besides resets
+	private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+	// Serializes writers with flushes and merges, which read the state without blocking
+	// readers; always taken after the maintenance lock and before the write lock
+	private final ReentrantLock mutationLock = new ReentrantLock();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+
+	private final AtomicBoolean indexingScheduled = new AtomicBoolean();
+
+	// Sealed segments, oldest first; replaced as a whole so searches can scan them
+	// unlocked
+	private volatile List<SealedSegment> sealed = List.of();
+
+	// Dimension of the stored vectors, 0 until the first one is stored
+	private volatile int dimension;
+
+	private final Map<String, Integer> ordinals = new HashMap<>();
+
+	// Stored items without their embedding, indexed by ordinal; null marks a tombstone
+	private MemoryItem[] items = new MemoryItem[16];
+
+	// Norms of the stored embeddings before normalization, indexed by ordinal
+	private float[] norms = new float[16];
+
+	// Ordinals whose item carried an embedding
+	private final BitSet withVector = new BitSet();
+
+	// Bitmaps per filterable value of the live entries
+	private final BitmapIndex bitmaps = new BitmapIndex();
+
+	// Bitmap plans of recently used filters
+	private final FilterCache<BitmapFilter> compiledFilters = new FilterCache<>(BitmapFilter::compile);
+
+	// Filter source over the write buffer, valid under the read lock
+	private final BitmapFilter.Source bufferSource = new BitmapFilter.Source() {
+		@Override
+		public CompressedBitmap postings(String field, String value) {
+			return bitmaps.get(field, value);
+		}
+
+		@Override
+		public CompressedBitmap matching(String field, Predicate<String> accept) {
+			return bitmaps.matching(field, accept);
+		}
+
+		@Override
+		public CompressedBitmap all() {
+			return CompressedBitmap.range(0, size);
+		}
+
+		@Override
+		public long timestamp(String field, int ordinal) {
+			MemoryItem item = items[ordinal];
+			Instant instant = item == null ? null : switch (field) {
+				case BitmapFilter.CREATED_AT -> item.getCreatedAt();
+				case BitmapFilter.UPDATED_AT -> item.getUpdatedAt();
+				default -> null;
+			};
+			return instant != null ? instant.toEpochMilli() : BitmapFilter.NO_TIMESTAMP;
+		}
+	};
+
+	private VectorSlab vectors;
+
+	// Int8 codes of the vectors, only kept when quantization is enabled
+	private QuantizedSlab codes;
+
+	private HnswIndex index;
+
+	private int size;
+
+	private int deadCount;
+
+	public InMemoryVectorStoreService() {
+		this(InMemoryStoreOptions.defaults());
+	}
+
+	public InMemoryVectorStoreService(MemoryConfigurable config) {
+		this(InMemoryStoreOptions.from(config));
+	}
+
+	public InMemoryVectorStoreService(InMemoryStoreOptions options) {
+		this(options, ForkJoinPool.commonPool());
+	}
+
+	InMemoryVectorStoreService(InMemoryStoreOptions options, ForkJoinPool scanPool) {
+		this.options = options;
+		this.scanPool = scanPool;
+		if (options.isHnsw()) {
+			logger.info("Using HNSW index for in-memory vector store (M={}, efConstruction={}, efSearch={})",
+					options.getHnswM(), options.getHnswEfConstruction(), options.getHnswEfSearch());
+		}
+		if (options.isQuantized() && options.isHnsw()) {
+			logger.warn("Int8 quantization only applies to the flat index and is ignored with HNSW");
+		}
+		else if (options.isQuantized()) {
+			logger.info("Using int8 quantized scan for in-memory vector store (rescore factor {})",
+					options.getRescoreFactor());
+		}
+		this.persistence = options.isPersistent() ? recover(options) : null;
+		this.maintenance = persistence != null ? startMaintenance(options.getSnapshotIntervalSeconds()) : null;
+	}
 
 	@Override
 	public void add(MemoryItem item) {
 
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
 		try {
 			String id = item.getId() != null ? item.getId() : UUID.randomUUID().toString();
 			item.setId(id);
-			memoryStore.put(id, item);
-			if (item.getEmbedding() != null) {
-				embeddings.put(id, item.getEmbedding());
+			put(item);
+			if (persistence != null) {
+				sequence = logPut(id);
+				scheduleFlushIfFull();
 			}
 			logger.debug("Added memory item: {}", id);
 		}
@@ -55,189 +270,1669 @@ public class InMemoryVectorStoreService implements VectorStoreService {
 			logger.error("Error adding memory item", e);
 			throw new RuntimeException("Failed to add memory item", e);
 		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	/**
+	 * Add the items under a single lock acquisition; with persistence their log records
+	 * share one fsync.
+	 */
+	@Override
+	public void addAll(List<MemoryItem> items) {
+
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
+		try {
+			for (MemoryItem item : items) {
+				String id = item.getId() != null ? item.getId() : UUID.randomUUID().toString();
+				item.setId(id);
+				put(item);
+				if (persistence != null) {
+					sequence = logPut(id);
+				}
+			}
+			if (persistence != null) {
+				scheduleFlushIfFull();
+			}
+			logger.debug("Added {} memory items", items.size());
+		}
+		catch (Exception e) {
+			logger.error("Error adding memory items", e);
+			throw new RuntimeException("Failed to add memory items", e);
+		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public List<MemoryItem> search(Double[] queryEmbedding, Filter filters, Integer limit, Double threshold) {
+
+		try {
+			int dimension = this.dimension;
+			if (dimension == 0 || limit != null && limit <= 0) {
+				return new ArrayList<>();
+			}
+			if (queryEmbedding.length != dimension) {
+				logger.warn("Query dimension {} does not match stored dimension {}", queryEmbedding.length, dimension);
+				return new ArrayList<>();
+			}
+
+			BitmapFilter filter = compiledFilters.get(filters);
+			float[] query = Similarity.toFloatArray(queryEmbedding);
+			Similarity.normalize(query);
+			double minScore = threshold != null ? threshold : Double.NEGATIVE_INFINITY;
+			int k = limit != null ? limit : Integer.MAX_VALUE;
+			// Scan the sealed segments unlocked, then keep the results if no flush, merge
+			// or
+			// write touched them in the meantime
+			for (int attempt = 0; attempt < OPTIMISTIC_SEARCH_ATTEMPTS; attempt++) {
+				List<SealedSegment> view = sealed;
+				List<MemoryItem> fromSealed = searchSealed(view, query, filter, k, minScore);
+				lock.readLock().lock();
+				try {
+					if (view == sealed && isCurrent(fromSealed)) {
+						return merge(searchBuffer(query, filter, limit, minScore), fromSealed, k);
+					}
+				}
+				finally {
+					lock.readLock().unlock();
+				}
+			}
+			lock.readLock().lock();
+			try {
+				return merge(searchBuffer(query, filter, limit, minScore),
+						searchSealed(sealed, query, filter, k, minScore), k);
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		catch (Exception e) {
+			logger.error("Error searching memories", e);
+			throw new RuntimeException("Failed to search memories", e);
+		}
+
 	}
 
 	@Override
 	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
 			Double threshold) {
+		return search(queryEmbedding, Filter.from(filters), limit, threshold);
+	}
+
+	/**
+	 * Answer every query from one pass over the stored vectors: candidates are scored in
+	 * cache-sized blocks against all queries at once. Searches that go through an HNSW
+	 * index or int8 codes still run per query.
+	 */
+	@Override
+	public List<List<MemoryItem>> searchBatch(float[][] queries, Filter filters, Integer limit, Double threshold) {
 
 		try {
-			return memoryStore.values().stream().filter(item -> matchesFilters(item, filters)).map(item -> {
-				MemoryItem result = new MemoryItem(item.getContent(), item.getMemoryType());
-				result.setId(item.getId());
-				result.setUserId(item.getUserId());
-				result.setAgentId(item.getAgentId());
-				result.setRunId(item.getRunId());
-				result.setActorId(item.getActorId());
-				result.setMetadata(item.getMetadata());
-				result.setCreatedAt(item.getCreatedAt());
-				result.setUpdatedAt(item.getUpdatedAt());
-
-				// Calculate similarity score
-				Double[] itemEmbedding = embeddings.get(item.getId());
-				if (itemEmbedding != null) {
-					double similarity = cosineSimilarity(queryEmbedding, itemEmbedding);
-					result.setScore(similarity);
-					return similarity >= threshold ? result : null;
-				}
-				return null;
-			})
-				.filter(Objects::nonNull)
-				.sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
-				.limit(limit)
-				.collect(Collectors.toList());
+			List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+			for (int q = 0; q < queries.length; q++) {
+				results.add(new ArrayList<>());
+			}
+			int dimension = this.dimension;
+			if (dimension == 0 || limit != null && limit <= 0) {
+				return results;
+			}
+			// Queries of another dimension match nothing, like in search
+			int[] positions = new int[queries.length];
+			float[][] normalized = new float[queries.length][];
+			int count = 0;
+			for (int q = 0; q < queries.length; q++) {
+				if (queries[q].length != dimension) {
+					logger.warn("Query dimension {} does not match stored dimension {}", queries[q].length, dimension);
+					continue;
+				}
+				normalized[count] = queries[q].clone();
+				Similarity.normalize(normalized[count]);
+				positions[count++] = q;
+			}
+			if (count == 0) {
+				return results;
+			}
+			normalized = Arrays.copyOf(normalized, count);
+
+			BitmapFilter filter = compiledFilters.get(filters);
+			double minScore = threshold != null ? threshold : Double.NEGATIVE_INFINITY;
+			int k = limit != null ? limit : Integer.MAX_VALUE;
+			List<List<MemoryItem>> found = null;
+			for (int attempt = 0; attempt < OPTIMISTIC_SEARCH_ATTEMPTS && found == null; attempt++) {
+				List<SealedSegment> view = sealed;
+				List<List<MemoryItem>> fromSealed = searchSealedBatch(view, normalized, filter, k, minScore);
+				lock.readLock().lock();
+				try {
+					if (view == sealed && fromSealed.stream().allMatch(this::isCurrent)) {
+						found = mergeBatch(searchBufferBatch(normalized, filter, limit, minScore), fromSealed, k);
+					}
+				}
+				finally {
+					lock.readLock().unlock();
+				}
+			}
+			if (found == null) {
+				lock.readLock().lock();
+				try {
+					found = mergeBatch(searchBufferBatch(normalized, filter, limit, minScore),
+							searchSealedBatch(sealed, normalized, filter, k, minScore), k);
+				}
+				finally {
+					lock.readLock().unlock();
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				results.set(positions[i], found.get(i));
+			}
+			return results;
 		}
 		catch (Exception e) {
 			logger.error("Error searching memories", e);
 			throw new RuntimeException("Failed to search memories", e);
 		}
-
 	}
 
 	@Override
-	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+	public List<MemoryItem> getAll(Filter filters, Integer limit) {
 
+		lock.readLock().lock();
 		try {
-			return memoryStore.values()
-				.stream()
-				.filter(item -> matchesFilters(item, filters))
-				.limit(limit)
-				.collect(Collectors.toList());
+			BitmapFilter filter = compiledFilters.get(filters);
+			int max = limit != null ? limit : Integer.MAX_VALUE;
+			List<MemoryItem> results = new ArrayList<>();
+			for (SealedSegment segment : sealed) {
+				if (results.size() >= max) {
+					break;
+				}
+				forEachSealedMatch(segment, filter, ordinal -> {
+					results.add(sealedItem(segment.segment(), ordinal));
+					return results.size() < max;
+				});
+			}
+			if (results.size() < max) {
+				for (int ordinal : collectMatches(partition(filter), max - results.size())) {
+					results.add(bufferedItem(ordinal));
+				}
+			}
+			return results;
 		}
 		catch (Exception e) {
 			logger.error("Error getting all memories", e);
 			throw new RuntimeException("Failed to get memories", e);
 		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+		return getAll(Filter.from(filters), limit);
 	}
 
 	@Override
 	public MemoryItem get(String memoryId) {
 
+		lock.readLock().lock();
 		try {
-			return memoryStore.get(memoryId);
+			Integer ordinal = ordinals.get(memoryId);
+			if (ordinal == null) {
+				SealedEntry entry = locate(memoryId);
+				if (entry == null) {
+					return null;
+				}
+				return sealedItem(entry.segment().segment(), entry.ordinal());
+			}
+			return bufferedItem(ordinal);
 		}
 		catch (Exception e) {
 			logger.error("Error getting memory: {}", memoryId, e);
 			throw new RuntimeException("Failed to get memory", e);
 		}
+		finally {
+			lock.readLock().unlock();
+		}
+
+	}
+
+	/**
+	 * Copy of a write buffer item with its embedding restored from the slab
+	 */
+	private MemoryItem bufferedItem(int ordinal) {
+		MemoryItem result = copyOf(items[ordinal]);
+		if (withVector.get(ordinal)) {
+			result.setEmbedding(toDoubleArray(vectors.get(ordinal), norms[ordinal]));
+		}
+		return result;
+	}
 
+	/**
+	 * Item of a sealed segment with its embedding restored from the segment
+	 */
+	private static MemoryItem sealedItem(MappedSegment segment, int ordinal) {
+		MemoryItem result = segment.item(ordinal);
+		if (segment.hasVector(ordinal)) {
+			result.setEmbedding(toDoubleArray(segment.vector(ordinal), segment.norm(ordinal)));
+		}
+		return result;
 	}
 
 	@Override
 	public void update(MemoryItem item) {
 
+		boolean updated = false;
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
 		try {
-			if (item.getId() != null && memoryStore.containsKey(item.getId())) {
-				memoryStore.put(item.getId(), item);
-				if (item.getEmbedding() != null) {
-					embeddings.put(item.getId(), item.getEmbedding());
+			if (item.getId() != null && (ordinals.containsKey(item.getId()) || locate(item.getId()) != null)) {
+				put(item);
+				if (persistence != null) {
+					sequence = logPut(item.getId());
+					scheduleFlushIfFull();
 				}
+				updated = true;
 				logger.debug("Updated memory item: {}", item.getId());
 			}
-			else {
-				add(item);
-			}
 		}
 		catch (Exception e) {
 			logger.error("Error updating memory item", e);
 			throw new RuntimeException("Failed to update memory item", e);
 		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+
+		if (!updated) {
+			add(item);
+		}
+		else {
+			awaitDurable(sequence);
+		}
+	}
 
+	/**
+	 * Update the items under a single lock acquisition, adding those that do not exist.
+	 */
+	@Override
+	public void updateAll(List<MemoryItem> items) {
+
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
+		try {
+			for (MemoryItem item : items) {
+				if (item.getId() == null) {
+					item.setId(UUID.randomUUID().toString());
+				}
+				put(item);
+				if (persistence != null) {
+					sequence = logPut(item.getId());
+				}
+			}
+			if (persistence != null) {
+				scheduleFlushIfFull();
+			}
+			logger.debug("Updated {} memory items", items.size());
+		}
+		catch (Exception e) {
+			logger.error("Error updating memory items", e);
+			throw new RuntimeException("Failed to update memory items", e);
+		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
 	}
 
 	@Override
 	public void delete(String memoryId) {
 
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
 		try {
-			memoryStore.remove(memoryId);
-			embeddings.remove(memoryId);
+			if (remove(memoryId) && persistence != null) {
+				sequence = persistence.logDelete(memoryId);
+			}
 			logger.debug("Deleted memory: {}", memoryId);
 		}
 		catch (Exception e) {
 			logger.error("Error deleting memory: {}", memoryId, e);
 			throw new RuntimeException("Failed to delete memory", e);
 		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
 	}
 
 	@Override
-	public void deleteAll(Map<String, Object> filters) {
+	public void deleteByIds(Collection<String> memoryIds) {
 
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
 		try {
-			List<String> toDelete = memoryStore.values()
-				.stream()
-				.filter(item -> matchesFilters(item, filters))
-				.map(MemoryItem::getId)
-				.collect(Collectors.toList());
+			for (String memoryId : memoryIds) {
+				if (remove(memoryId) && persistence != null) {
+					sequence = persistence.logDelete(memoryId);
+				}
+			}
+			logger.debug("Deleted {} memories by ID", memoryIds.size());
+		}
+		catch (Exception e) {
+			logger.error("Error deleting memories: {}", memoryIds, e);
+			throw new RuntimeException("Failed to delete memories", e);
+		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
+	}
 
-			toDelete.forEach(id -> {
-				memoryStore.remove(id);
-				embeddings.remove(id);
-			});
+	@Override
+	public void deleteAll(Filter filters) {
 
-			logger.debug("Deleted {} memories with filters: {}", toDelete.size(), filters);
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
+		try {
+			int deleted = removeMatching(filters);
+			if (deleted > 0 && persistence != null) {
+				sequence = persistence.logDeleteAll(filters.toMap());
+			}
+
+			logger.debug("Deleted {} memories with filters: {}", deleted, filters);
 		}
 		catch (Exception e) {
 			logger.error("Error deleting memories with filters: {}", filters, e);
 			throw new RuntimeException("Failed to delete memories", e);
 		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public void deleteAll(Map<String, Object> filters) {
+		deleteAll(Filter.from(filters));
 	}
 
 	@Override
 	public void reset() {
 
+		long sequence = 0;
+		mutationLock.lock();
+		lock.writeLock().lock();
 		try {
-			memoryStore.clear();
-			embeddings.clear();
+			clear();
+			if (persistence != null) {
+				sequence = persistence.logReset();
+			}
 			logger.info("Reset in-memory vector store");
 		}
 		catch (Exception e) {
 			logger.error("Error resetting vector store", e);
 			throw new RuntimeException("Failed to reset vector store", e);
 		}
+		finally {
+			lock.writeLock().unlock();
+			mutationLock.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	/**
+	 * Seal the write buffer of a persistent store into a new segment and truncate its
+	 * write-ahead log. Searches proceed while the segment is written; writes wait for it.
+	 */
+	public void flush() {
+		if (persistence == null) {
+			throw new IllegalStateException("In-memory vector store has no persistence directory");
+		}
+		maintenanceLock.lock();
+		mutationLock.lock();
+		try {
+			// Holding the mutation lock keeps writers out, so the buffer can be read
+			// unlocked
+			List<SealedSegment> view = sealed;
+			SealedSegment segment = persistence.flush(view, dimension, ordinals.size(), sink -> {
+				for (int ordinal = 0; ordinal < size; ordinal++) {
+					if (items[ordinal] != null) {
+						boolean hasVector = withVector.get(ordinal);
+						sink.add(items[ordinal], hasVector ? vectors.get(ordinal) : null, norms[ordinal]);
+					}
+				}
+			});
+
+			lock.writeLock().lock();
+			try {
+				clearBuffer();
+				if (segment != null) {
+					List<SealedSegment> next = new ArrayList<>(view);
+					next.add(segment);
+					sealed = List.copyOf(next);
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+			if (segment != null) {
+				scheduleIndexing();
+			}
+			if (sealed.size() > MAX_SEALED_SEGMENTS) {
+				scheduleMerge();
+			}
+		}
+		catch (Exception e) {
+			logger.error("Error flushing in-memory vector store", e);
+			throw new RuntimeException("Failed to flush vector store", e);
+		}
+		finally {
+			mutationLock.unlock();
+			maintenanceLock.unlock();
+		}
+	}
+
+	/**
+	 * Stop background flushes and merges and, for a persistent store, flush the write
+	 * buffer and close the write-ahead log
+	 */
+	@Override
+	public void close() {
+		if (maintenance == null) {
+			return;
+		}
+		maintenance.shutdown();
+		try {
+			maintenance.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		maintenanceLock.lock();
+		mutationLock.lock();
+		try {
+			if (persistence.hasUnflushedChanges()) {
+				flush();
+			}
+			persistence.close();
+		}
+		catch (IOException e) {
+			logger.error("Error closing in-memory vector store persistence", e);
+			throw new RuntimeException("Failed to close vector store persistence", e);
+		}
+		finally {
+			mutationLock.unlock();
+			maintenanceLock.unlock();
+		}
+	}
+
+	/**
+	 * Number of live memories held by the store
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return liveCount();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Euclidean norm of a memory's embedding as it was stored, before normalization
+	 * @return the norm, or null when the memory does not exist or has no embedding
+	 */
+	public Double getEmbeddingNorm(String memoryId) {
+		lock.readLock().lock();
+		try {
+			Integer ordinal = ordinals.get(memoryId);
+			if (ordinal == null) {
+				SealedEntry entry = locate(memoryId);
+				if (entry == null || !entry.segment().segment().hasVector(entry.ordinal())) {
+					return null;
+				}
+				return (double) entry.segment().segment().norm(entry.ordinal());
+			}
+			return withVector.get(ordinal) ? (double) norms[ordinal] : null;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private StorePersistence recover(InMemoryStoreOptions options) {
+		try {
+			StorePersistence result = new StorePersistence(Path.of(options.getPersistenceDirectory()),
+					options.isWalFsync());
+			result.recover(new StorePersistence.Replay() {
+				@Override
+				public void open(List<SealedSegment> segments) {
+					sealed = List.copyOf(segments);
+					dimension = segments.stream().mapToInt(segment -> segment.segment().dimension()).max().orElse(0);
+				}
+
+				@Override
+				public void put(MemoryItem item, float[] vector, float norm) {
+					restore(item, vector, norm);
+				}
+
+				@Override
+				public void delete(String memoryId) {
+					remove(memoryId);
+				}
+
+				@Override
+				public void deleteAll(Map<String, Object> filters) {
+					removeMatching(Filter.from(filters));
+				}
+
+				@Override
+				public void reset() {
+					clear();
+				}
+			});
+			logger.info("Persisting in-memory vector store to {}", options.getPersistenceDirectory());
+			return result;
+		}
+		catch (Exception e) {
+			logger.error("Error recovering in-memory vector store from {}", options.getPersistenceDirectory(), e);
+			throw new RuntimeException("Failed to recover vector store", e);
+		}
+	}
+
+	private ScheduledExecutorService startMaintenance(int flushIntervalSeconds) {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "mem4j-inmemory-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (flushIntervalSeconds > 0) {
+			executor.scheduleWithFixedDelay(() -> runInBackground("flush", () -> {
+				if (persistence.hasUnflushedChanges()) {
+					flush();
+				}
+			}), flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+		}
+		// Segments left mostly dead by the previous instance are merged right away, then
+		// the mapped segments are indexed
+		executor.execute(() -> runInBackground("merge", this::mergeSegments));
+		executor.execute(() -> runInBackground("indexing", this::indexSegments));
+		return executor;
+	}
+
+	private void scheduleFlushIfFull() {
+		if (ordinals.size() >= options.getSegmentFlushSize()) {
+			schedule(flushScheduled, "flush", this::flush);
+		}
+	}
+
+	private void scheduleMerge() {
+		schedule(mergeScheduled, "merge", this::mergeSegments);
+	}
+
+	private void scheduleIndexing() {
+		if (options.isHnsw() || options.isQuantized()) {
+			schedule(indexingScheduled, "indexing", this::indexSegments);
+		}
+	}
+
+	/**
+	 * Queue a task on the maintenance thread unless the same one is already queued
+	 */
+	private void schedule(AtomicBoolean scheduled, String name, Runnable task) {
+		if (maintenance == null || !scheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			maintenance.execute(() -> {
+				scheduled.set(false);
+				runInBackground(name, task);
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// The store is closing and flushes on its own
+			scheduled.set(false);
+		}
+	}
+
+	private void runInBackground(String name, Runnable task) {
+		try {
+			task.run();
+		}
+		catch (Exception e) {
+			// Keep the maintenance thread alive; the log still holds every write
+			logger.warn("Background {} of in-memory vector store failed", name, e);
+		}
+	}
+
+	/**
+	 * Rewrite the sealed segments whose share of tombstones reached
+	 * {@code merge-dead-ratio}, together with the smallest ones while there are more than
+	 * {@link #MAX_SEALED_SEGMENTS}, into one segment of their live entries. The segment
+	 * is written without blocking reads or writes; entries deleted meanwhile are
+	 * tombstoned in it before it replaces its inputs.
+	 */
+	void mergeSegments() {
+		maintenanceLock.lock();
+		try {
+			List<SealedSegment> view = sealed;
+			List<SealedSegment> inputs = mergeInputs(view);
+			if (inputs.isEmpty()) {
+				return;
+			}
+			int[][] live = new int[inputs.size()][];
+			int count = 0;
+			int mergedDimension = 0;
+			for (int i = 0; i < inputs.size(); i++) {
+				live[i] = liveOrdinals(inputs.get(i));
+				count += live[i].length;
+				mergedDimension = Math.max(mergedDimension, inputs.get(i).segment().dimension());
+			}
+			SealedSegment merged = count == 0 ? null : persistence.writeSegment(mergedDimension, count, sink -> {
+				for (int i = 0; i < inputs.size(); i++) {
+					MappedSegment segment = inputs.get(i).segment();
+					for (int ordinal : live[i]) {
+						boolean hasVector = segment.hasVector(ordinal);
+						sink.add(segment.item(ordinal), hasVector ? segment.vector(ordinal) : null,
+								segment.norm(ordinal));
+					}
+				}
+			});
+
+			mutationLock.lock();
+			try {
+				if (sealed != view) {
+					// Reset meanwhile; the next commit deletes the orphaned segment file
+					return;
+				}
+				if (merged != null) {
+					int ordinal = 0;
+					for (int i = 0; i < inputs.size(); i++) {
+						for (int old : live[i]) {
+							if (inputs.get(i).isDeleted(old)) {
+								merged.delete(ordinal);
+							}
+							ordinal++;
+						}
+					}
+				}
+				List<SealedSegment> next = new ArrayList<>(view.size());
+				for (SealedSegment segment : view) {
+					if (!inputs.contains(segment)) {
+						next.add(segment);
+					}
+					else if (segment == inputs.get(0) && merged != null) {
+						next.add(merged);
+					}
+				}
+				lock.writeLock().lock();
+				try {
+					sealed = List.copyOf(next);
+				}
+				finally {
+					lock.writeLock().unlock();
+				}
+				persistence.commit(next);
+			}
+			finally {
+				mutationLock.unlock();
+			}
+			if (merged != null) {
+				scheduleIndexing();
+			}
+			logger.debug("Merged {} sealed segments into one of {} entries", inputs.size(), count);
+		}
+		catch (IOException e) {
+			logger.error("Error merging in-memory vector store segments", e);
+			throw new RuntimeException("Failed to merge vector store segments", e);
+		}
+		finally {
+			maintenanceLock.unlock();
+		}
 	}
 
-	private boolean matchesFilters(MemoryItem item, Map<String, Object> filters) {
+	private List<SealedSegment> mergeInputs(List<SealedSegment> view) {
+		List<SealedSegment> inputs = new ArrayList<>();
+		for (SealedSegment segment : view) {
+			if (segment.deadRatio() >= options.getMergeDeadRatio()) {
+				inputs.add(segment);
+			}
+		}
+		int needed = view.size() - MAX_SEALED_SEGMENTS + 1;
+		if (needed > 1 && inputs.size() < needed) {
+			// Every search visits every segment, so the smallest ones are folded together
+			view.stream()
+				.filter(segment -> !inputs.contains(segment))
+				.sorted(Comparator.comparingInt(SealedSegment::liveCount))
+				.limit(needed - inputs.size())
+				.forEach(inputs::add);
+			inputs.sort(Comparator.comparingInt(view::indexOf));
+		}
+		return inputs;
+	}
+
+	private static int[] liveOrdinals(SealedSegment segment) {
+		int[] live = new int[segment.liveCount()];
+		int count = 0;
+		for (int ordinal = 0; ordinal < segment.segment().count() && count < live.length; ordinal++) {
+			if (!segment.isDeleted(ordinal)) {
+				live[count++] = ordinal;
+			}
+		}
+		return count == live.length ? live : Arrays.copyOf(live, count);
+	}
 
-		if (filters == null || filters.isEmpty()) {
+	/**
+	 * Build the HNSW graph, or the int8 codes, of the sealed segments lacking them. Runs
+	 * on the maintenance thread; searches scan a segment exactly until its structure is
+	 * attached.
+	 */
+	void indexSegments() {
+		for (SealedSegment segment : sealed) {
+			MappedSegment mapped = segment.segment();
+			if (options.isHnsw() && segment.index() == null) {
+				HnswIndex segmentIndex = new HnswIndex(new HnswIndex.Scorer() {
+					@Override
+					public float[] vector(int ordinal) {
+						return mapped.vector(ordinal);
+					}
+
+					@Override
+					public float score(float[] query, int ordinal) {
+						return mapped.dot(query, ordinal);
+					}
+				}, options.getHnswM(), options.getHnswEfConstruction());
+				for (int ordinal = 0; ordinal < mapped.count(); ordinal++) {
+					if (mapped.hasVector(ordinal) && !segment.isDeleted(ordinal)) {
+						segmentIndex.insert(ordinal);
+					}
+				}
+				segment.setIndex(segmentIndex);
+				logger.debug("Built HNSW index of sealed segment {} ({} entries)", segment.id(), mapped.count());
+			}
+			else if (options.isQuantized() && !options.isHnsw() && segment.codes() == null) {
+				QuantizedSlab segmentCodes = new QuantizedSlab(mapped.dimension());
+				for (int ordinal = 0; ordinal < mapped.count(); ordinal++) {
+					if (mapped.hasVector(ordinal)) {
+						segmentCodes.set(ordinal, mapped.vector(ordinal));
+					}
+				}
+				segment.setCodes(segmentCodes);
+				logger.debug("Quantized sealed segment {} ({} entries)", segment.id(), mapped.count());
+			}
+		}
+	}
+
+	/**
+	 * Log an insert or replacement with the effective item and vector stored for it
+	 */
+	private long logPut(String memoryId) throws IOException {
+		int ordinal = ordinals.get(memoryId);
+		boolean hasVector = withVector.get(ordinal);
+		return persistence.logPut(items[ordinal], hasVector ? vectors.get(ordinal) : null, norms[ordinal]);
+	}
+
+	/**
+	 * Wait for a logged write to reach disk; 0 means nothing was logged
+	 */
+	private void awaitDurable(long sequence) {
+		if (sequence <= 0) {
+			return;
+		}
+		try {
+			persistence.sync(sequence);
+		}
+		catch (IOException e) {
+			logger.error("Error syncing in-memory vector store write-ahead log", e);
+			throw new RuntimeException("Failed to persist vector store write", e);
+		}
+	}
+
+	private boolean remove(String memoryId) {
+		Integer ordinal = ordinals.remove(memoryId);
+		if (ordinal == null) {
+			SealedEntry entry = locate(memoryId);
+			if (entry == null) {
+				return false;
+			}
+			deleteSealed(entry.segment(), entry.ordinal());
 			return true;
 		}
+		tombstone(ordinal);
+		compactIfNeeded();
+		return true;
+	}
 
-		return filters.entrySet().stream().allMatch(entry -> {
-			String key = entry.getKey();
-			Object value = entry.getValue();
+	private int removeMatching(Filter filters) {
+		BitmapFilter filter = compiledFilters.get(filters);
+		int before = liveCount();
+		for (SealedSegment segment : sealed) {
+			forEachSealedMatch(segment, filter, ordinal -> {
+				deleteSealed(segment, ordinal);
+				return true;
+			});
+		}
+		forEachMatch(partition(filter), ordinal -> {
+			ordinals.remove(items[ordinal].getId());
+			tombstone(ordinal);
+			return true;
+		});
+		compactIfNeeded();
+		return before - liveCount();
+	}
 
-			return switch (key) {
-				case "user_id" -> Objects.equals(item.getUserId(), value);
-				case "agent_id" -> Objects.equals(item.getAgentId(), value);
-				case "run_id" -> Objects.equals(item.getRunId(), value);
-				case "actor_id" -> Objects.equals(item.getActorId(), value);
-				case "memory_type" -> Objects.equals(item.getMemoryType(), value);
-				default -> true;
-			};
+	/**
+	 * Tombstone a sealed entry, scheduling a merge once enough of its segment is dead
+	 */
+	private void deleteSealed(SealedSegment segment, int ordinal) {
+		if (segment.delete(ordinal) && segment.deadRatio() >= options.getMergeDeadRatio()) {
+			scheduleMerge();
+		}
+	}
+
+	private int liveCount() {
+		int count = ordinals.size();
+		for (SealedSegment segment : sealed) {
+			count += segment.liveCount();
+		}
+		return count;
+	}
+
+	private void clear() {
+		clearBuffer();
+		sealed = List.of();
+		dimension = 0;
+	}
+
+	private void clearBuffer() {
+		ordinals.clear();
+		items = new MemoryItem[16];
+		norms = new float[16];
+		withVector.clear();
+		bitmaps.clear();
+		vectors = null;
+		codes = null;
+		index = null;
+		size = 0;
+		deadCount = 0;
+	}
+
+	/**
+	 * Insert or replace an item. A new embedding for an indexed item goes to a fresh
+	 * ordinal, since graph links must keep pointing at the vector they were built from.
+	 */
+	private void put(MemoryItem item) {
+		Integer existing = ordinals.get(item.getId());
+		SealedEntry entry = existing == null ? locate(item.getId()) : null;
+		if (entry != null) {
+			// Move the entry out of its immutable segment, keeping its vector if needed
+			MappedSegment segment = entry.segment().segment();
+			int ordinal = nextOrdinal();
+			if (item.getEmbedding() == null && segment.hasVector(entry.ordinal())) {
+				storeVector(ordinal, segment.vector(entry.ordinal()), segment.norm(entry.ordinal()));
+			}
+			store(ordinal, item);
+			ordinals.put(item.getId(), ordinal);
+			deleteSealed(entry.segment(), entry.ordinal());
+			compactIfNeeded();
+			return;
+		}
+		if (existing != null) {
+			if (index == null || item.getEmbedding() == null) {
+				store(existing, item);
+				return;
+			}
+			tombstone(existing);
+		}
+		ordinals.put(item.getId(), append(item));
+		compactIfNeeded();
+	}
+
+	/**
+	 * Replay a logged put: the item replaces any previous entry together with its vector
+	 */
+	private void restore(MemoryItem item, float[] vector, float norm) {
+		remove(item.getId());
+		int ordinal = nextOrdinal();
+		if (vector != null) {
+			storeVector(ordinal, vector, norm);
+		}
+		storeItem(ordinal, copyOf(item));
+		ordinals.put(item.getId(), ordinal);
+	}
+
+	/**
+	 * Search the heap-resident entries, through the HNSW index or int8 codes when enabled
+	 */
+	private List<MemoryItem> searchBuffer(float[] query, BitmapFilter filter, Integer limit, double minScore) {
+		if (vectors == null) {
+			return new ArrayList<>();
+		}
+		CompressedBitmap matching = filter.isEmpty() ? null : filter.evaluate(bufferSource);
+		if (index != null && (matching == null || matching.cardinality() > EXACT_SCAN_MAX_CANDIDATES)) {
+			return searchIndex(query, matching, limit != null ? limit : size, minScore);
+		}
+		int[] partition = matching != null ? matching.toArray() : null;
+		if (codes != null) {
+			return searchQuantized(query, partition, limit, minScore);
+		}
+
+		int k = limit != null ? limit : size;
+		return toResults(selectTopK(partition, k, minScore,
+				ordinal -> Similarity.dot(query, vectors.chunk(ordinal), vectors.offset(ordinal))));
+	}
+
+	/**
+	 * Batch counterpart of {@link #searchBuffer}; the exact scan scores all queries in
+	 * one pass
+	 */
+	private List<List<MemoryItem>> searchBufferBatch(float[][] queries, BitmapFilter filter, Integer limit,
+			double minScore) {
+		List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+		if (vectors == null) {
+			for (int q = 0; q < queries.length; q++) {
+				results.add(new ArrayList<>());
+			}
+			return results;
+		}
+		CompressedBitmap matching = filter.isEmpty() ? null : filter.evaluate(bufferSource);
+		if (index != null && (matching == null || matching.cardinality() > EXACT_SCAN_MAX_CANDIDATES)
+				|| codes != null) {
+			for (float[] query : queries) {
+				results.add(searchBuffer(query, filter, limit, minScore));
+			}
+			return results;
+		}
+		int[] partition = matching != null ? matching.toArray() : null;
+		int k = limit != null ? limit : size;
+		for (NeighborQueue top : selectTopKBatch(partition, queries, k, minScore)) {
+			results.add(toResults(top));
+		}
+		return results;
+	}
+
+	/**
+	 * Batch counterpart of
+	 * {@link #searchSealed(List, float[], BitmapFilter, int, double)}
+	 */
+	private List<List<MemoryItem>> searchSealedBatch(List<SealedSegment> view, float[][] queries, BitmapFilter filter,
+			int k, double minScore) {
+		List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+		for (int q = 0; q < queries.length; q++) {
+			results.add(new ArrayList<>());
+		}
+		for (SealedSegment segment : view) {
+			if (segment.liveCount() == 0 || segment.segment().dimension() != queries[0].length) {
+				continue;
+			}
+			if (segment.index() != null || segment.codes() != null) {
+				List<List<MemoryItem>> perQuery = new ArrayList<>(queries.length);
+				for (float[] query : queries) {
+					perQuery.add(searchSealed(segment, query, filter, k, minScore));
+				}
+				results = mergeBatch(results, perQuery, k);
+			}
+			else {
+				results = mergeBatch(results, searchSealedBatch(segment, queries, filter, k, minScore), k);
+			}
+		}
+		return results;
+	}
+
+	private List<List<MemoryItem>> searchSealedBatch(SealedSegment segment, float[][] queries, BitmapFilter filter,
+			int k, double minScore) {
+		int[] partition = sealedPartition(segment, filter);
+		int count = partition != null ? partition.length : segment.segment().count();
+		int segments = segmentCount(count);
+		NeighborQueue[] top;
+		if (segments <= 1) {
+			top = scoreSealedRangeBatch(segment, queries, partition, 0, count, k, minScore);
+		}
+		else {
+			List<ForkJoinTask<NeighborQueue[]>> tasks = new ArrayList<>(segments);
+			int step = (count + segments - 1) / segments;
+			for (int from = 0; from < count; from += step) {
+				int start = from;
+				int end = Math.min(count, from + step);
+				tasks.add(scanPool
+					.submit(() -> scoreSealedRangeBatch(segment, queries, partition, start, end, k, minScore)));
+			}
+			top = tasks.get(0).join();
+			for (int i = 1; i < tasks.size(); i++) {
+				BatchTopK.merge(top, tasks.get(i).join(), k);
+			}
+		}
+
+		List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+		for (NeighborQueue queue : top) {
+			MemoryItem[] ranked = new MemoryItem[queue.size()];
+			for (int i = ranked.length - 1; i >= 0; i--) {
+				double score = queue.topScore();
+				MemoryItem result = segment.segment().item(queue.pop());
+				result.setScore(score);
+				ranked[i] = result;
+			}
+			results.add(Arrays.asList(ranked));
+		}
+		return results;
+	}
+
+	private NeighborQueue[] scoreSealedRangeBatch(SealedSegment segment, float[][] queries, int[] partition, int from,
+			int to, int k, double minScore) {
+		MappedSegment mapped = segment.segment();
+		BatchTopK top = new BatchTopK(queries, k, minScore, to - from);
+		for (int i = from; i < to; i++) {
+			int ordinal = partition != null ? partition[i] : i;
+			if (mapped.hasVector(ordinal) && !segment.isDeleted(ordinal)) {
+				top.offer(ordinal, mapped::readVector);
+			}
+		}
+		return top.finish();
+	}
+
+	private static List<List<MemoryItem>> mergeBatch(List<List<MemoryItem>> a, List<List<MemoryItem>> b, int k) {
+		List<List<MemoryItem>> merged = new ArrayList<>(a.size());
+		for (int q = 0; q < a.size(); q++) {
+			merged.add(merge(a.get(q), b.get(q), k));
+		}
+		return merged;
+	}
+
+	/**
+	 * Top-k over the live entries of the sealed segments. Runs without the store lock:
+	 * segments are immutable and their tombstones and search structures may be read
+	 * concurrently.
+	 */
+	private List<MemoryItem> searchSealed(List<SealedSegment> view, float[] query, BitmapFilter filter, int k,
+			double minScore) {
+		List<MemoryItem> results = new ArrayList<>();
+		for (SealedSegment segment : view) {
+			if (segment.liveCount() > 0 && segment.segment().dimension() == query.length) {
+				results = merge(results, searchSealed(segment, query, filter, k, minScore), k);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Top-k over one sealed segment through its HNSW graph or int8 codes, or by exact
+	 * scan while the segment has neither
+	 */
+	private List<MemoryItem> searchSealed(SealedSegment segment, float[] query, BitmapFilter filter, int k,
+			double minScore) {
+		MappedSegment mapped = segment.segment();
+		CompressedBitmap matching = filter.isEmpty() ? null : filter.evaluate(mapped);
+		HnswIndex segmentIndex = segment.index();
+		QuantizedSlab segmentCodes = segment.codes();
+		NeighborQueue top;
+		if (segmentIndex != null && (matching == null || matching.cardinality() > EXACT_SCAN_MAX_CANDIDATES)) {
+			top = segmentIndex.search(query, Math.min(k, mapped.count()), options.getHnswEfSearch(),
+					ordinal -> !segment.isDeleted(ordinal) && (matching == null || matching.contains(ordinal)));
+			// Results come out worst first, so everything below the threshold is popped
+			// first
+			while (!top.isEmpty() && top.topScore() < minScore) {
+				top.pop();
+			}
+		}
+		else if (segmentCodes != null) {
+			int[] partition = matching != null ? matching.toArray() : null;
+			int candidates = (int) Math.min((long) k * options.getRescoreFactor(), mapped.count());
+			float querySum = QuantizedSlab.sum(query);
+			NeighborQueue approximate = selectSealedTopK(segment, partition, candidates, Double.NEGATIVE_INFINITY,
+					ordinal -> segmentCodes.dot(query, querySum, ordinal));
+			top = new NeighborQueue(Math.min(k, approximate.size()), false);
+			while (!approximate.isEmpty()) {
+				int ordinal = approximate.pop();
+				float similarity = mapped.dot(query, ordinal);
+				if (similarity >= minScore) {
+					top.insertWithOverflow(ordinal, similarity, k);
+				}
+			}
+		}
+		else {
+			int[] partition = matching != null ? matching.toArray() : null;
+			top = selectSealedTopK(segment, partition, k, minScore, ordinal -> mapped.dot(query, ordinal));
+		}
+
+		MemoryItem[] ranked = new MemoryItem[top.size()];
+		for (int i = ranked.length - 1; i >= 0; i--) {
+			double score = top.topScore();
+			MemoryItem result = mapped.item(top.pop());
+			result.setScore(score);
+			ranked[i] = result;
+		}
+		return Arrays.asList(ranked);
+	}
+
+	/**
+	 * Score the live entries of a sealed segment matching the partition, split across the
+	 * scan pool like the buffer scan
+	 */
+	private NeighborQueue selectSealedTopK(SealedSegment segment, int[] partition, int k, double minScore,
+			OrdinalScorer scorer) {
+		int count = partition != null ? partition.length : segment.segment().count();
+		int segments = segmentCount(count);
+		if (segments <= 1) {
+			return scoreSealedRange(segment, partition, 0, count, k, minScore, scorer);
+		}
+		List<ForkJoinTask<NeighborQueue>> tasks = new ArrayList<>(segments);
+		int step = (count + segments - 1) / segments;
+		for (int from = 0; from < count; from += step) {
+			int start = from;
+			int end = Math.min(count, from + step);
+			tasks.add(scanPool.submit(() -> scoreSealedRange(segment, partition, start, end, k, minScore, scorer)));
+		}
+		NeighborQueue top = new NeighborQueue(Math.min(k, count), false);
+		for (ForkJoinTask<NeighborQueue> task : tasks) {
+			NeighborQueue segmentTop = task.join();
+			while (!segmentTop.isEmpty()) {
+				top.insertWithOverflow(segmentTop.topNode(), segmentTop.topScore(), k);
+				segmentTop.pop();
+			}
+		}
+		return top;
+	}
+
+	private NeighborQueue scoreSealedRange(SealedSegment segment, int[] partition, int from, int to, int k,
+			double minScore, OrdinalScorer scorer) {
+		MappedSegment mapped = segment.segment();
+		NeighborQueue top = new NeighborQueue(Math.min(k, to - from), false);
+		for (int i = from; i < to; i++) {
+			int ordinal = partition != null ? partition[i] : i;
+			if (mapped.hasVector(ordinal) && !segment.isDeleted(ordinal)) {
+				float score = scorer.score(ordinal);
+				if (score >= minScore) {
+					top.insertWithOverflow(ordinal, score, k);
+				}
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Whether results read from sealed segments are still live and not shadowed by the
+	 * write buffer. Must be called under the read lock.
+	 */
+	private boolean isCurrent(List<MemoryItem> fromSealed) {
+		for (MemoryItem item : fromSealed) {
+			if (ordinals.containsKey(item.getId()) || locate(item.getId()) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Merge two result lists ranked best first into the best {@code k}
+	 */
+	private static List<MemoryItem> merge(List<MemoryItem> a, List<MemoryItem> b, int k) {
+		List<MemoryItem> merged = new ArrayList<>(Math.min(k, a.size() + b.size()));
+		int i = 0;
+		int j = 0;
+		while (merged.size() < k && (i < a.size() || j < b.size())) {
+			if (j >= b.size() || i < a.size() && a.get(i).getScore() >= b.get(j).getScore()) {
+				merged.add(a.get(i++));
+			}
+			else {
+				merged.add(b.get(j++));
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * The sealed segment holding a live entry for the id, or null
+	 */
+	private SealedEntry locate(String memoryId) {
+		for (SealedSegment segment : sealed) {
+			int ordinal = segment.liveOrdinal(memoryId);
+			if (ordinal >= 0) {
+				return new SealedEntry(segment, ordinal);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Segment ordinals matching the filter in ascending order, or null for an empty
+	 * filter
+	 */
+	private static int[] sealedPartition(SealedSegment segment, BitmapFilter filter) {
+		return filter.isEmpty() ? null : filter.evaluate(segment.segment()).toArray();
+	}
+
+	/**
+	 * Visit live segment ordinals matching the filter in ascending order until the action
+	 * returns false
+	 */
+	private static void forEachSealedMatch(SealedSegment segment, BitmapFilter filter, IntPredicate action) {
+		int[] partition = sealedPartition(segment, filter);
+		int count = partition != null ? partition.length : segment.segment().count();
+		for (int i = 0; i < count; i++) {
+			int ordinal = partition != null ? partition[i] : i;
+			if (!segment.isDeleted(ordinal) && !action.test(ordinal)) {
+				return;
+			}
+		}
+	}
+
+	private List<MemoryItem> searchIndex(float[] query, CompressedBitmap matching, int limit, double minScore) {
+		NeighborQueue top = index.search(query, limit, options.getHnswEfSearch(),
+				ordinal -> items[ordinal] != null && (matching == null || matching.contains(ordinal)));
+		// Results come out worst first, so everything below the threshold is popped first
+		while (!top.isEmpty() && top.topScore() < minScore) {
+			top.pop();
+		}
+		return toResults(top);
+	}
+
+	/**
+	 * Pick candidates by their approximate int8 score, then rank them by exact score
+	 */
+	private List<MemoryItem> searchQuantized(float[] query, int[] partition, Integer limit, double minScore) {
+		int candidates = limit != null ? (int) Math.min((long) limit * options.getRescoreFactor(), size) : size;
+		float querySum = QuantizedSlab.sum(query);
+		NeighborQueue top = selectTopK(partition, candidates, Double.NEGATIVE_INFINITY,
+				ordinal -> codes.dot(query, querySum, ordinal));
+
+		int k = limit != null ? limit : size;
+		NeighborQueue rescored = new NeighborQueue(Math.min(k, top.size()), false);
+		while (!top.isEmpty()) {
+			int ordinal = top.pop();
+			float similarity = Similarity.dot(query, vectors.chunk(ordinal), vectors.offset(ordinal));
+			if (similarity >= minScore) {
+				rescored.insertWithOverflow(ordinal, similarity, k);
+			}
+		}
+		return toResults(rescored);
+	}
+
+	/**
+	 * Drain a min-heap of (ordinal, score) into result copies, best first. Only the
+	 * winners are materialized as {@link MemoryItem}s.
+	 */
+	private List<MemoryItem> toResults(NeighborQueue top) {
+		MemoryItem[] ranked = new MemoryItem[top.size()];
+		for (int i = ranked.length - 1; i >= 0; i--) {
+			double score = top.topScore();
+			MemoryItem result = copyOf(items[top.pop()]);
+			result.setScore(score);
+			ranked[i] = result;
+		}
+		return new ArrayList<>(Arrays.asList(ranked));
+	}
+
+	/**
+	 * Buffer ordinals matching the filter in ascending order, or null for an empty filter
+	 */
+	private int[] partition(BitmapFilter filter) {
+		return filter.isEmpty() ? null : filter.evaluate(bufferSource).toArray();
+	}
+
+	/**
+	 * Score every matching ordinal with a vector and keep the best {@code k} scoring at
+	 * least {@code minScore}. Large scans are split into segments scored on the common
+	 * ForkJoinPool, each keeping its own top-k, and merged; workers only read state the
+	 * calling thread guards with the read lock it holds until they are joined.
+	 */
+	private NeighborQueue selectTopK(int[] partition, int k, double minScore, OrdinalScorer scorer) {
+		int count = partition != null ? partition.length : size;
+		int segments = segmentCount(count);
+		if (segments <= 1) {
+			return scoreSegment(partition, 0, count, k, minScore, scorer);
+		}
+
+		List<ForkJoinTask<NeighborQueue>> tasks = new ArrayList<>(segments);
+		int step = (count + segments - 1) / segments;
+		for (int from = 0; from < count; from += step) {
+			int start = from;
+			int end = Math.min(count, from + step);
+			tasks.add(scanPool.submit(() -> scoreSegment(partition, start, end, k, minScore, scorer)));
+		}
+		NeighborQueue merged = new NeighborQueue(Math.min(k, count), false);
+		for (ForkJoinTask<NeighborQueue> task : tasks) {
+			NeighborQueue segmentTop = task.join();
+			while (!segmentTop.isEmpty()) {
+				merged.insertWithOverflow(segmentTop.topNode(), segmentTop.topScore(), k);
+				segmentTop.pop();
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Like {@link #selectTopK}, scoring every matching ordinal against all queries in one
+	 * pass
+	 */
+	private NeighborQueue[] selectTopKBatch(int[] partition, float[][] queries, int k, double minScore) {
+		int count = partition != null ? partition.length : size;
+		int segments = segmentCount(count);
+		if (segments <= 1) {
+			return scoreSegmentBatch(partition, 0, count, queries, k, minScore);
+		}
+
+		List<ForkJoinTask<NeighborQueue[]>> tasks = new ArrayList<>(segments);
+		int step = (count + segments - 1) / segments;
+		for (int from = 0; from < count; from += step) {
+			int start = from;
+			int end = Math.min(count, from + step);
+			tasks.add(scanPool.submit(() -> scoreSegmentBatch(partition, start, end, queries, k, minScore)));
+		}
+		NeighborQueue[] merged = tasks.get(0).join();
+		for (int i = 1; i < tasks.size(); i++) {
+			BatchTopK.merge(merged, tasks.get(i).join(), k);
+		}
+		return merged;
+	}
+
+	private NeighborQueue[] scoreSegmentBatch(int[] partition, int from, int to, float[][] queries, int k,
+			double minScore) {
+		BatchTopK top = new BatchTopK(queries, k, minScore, to - from);
+		forEachMatch(partition, from, to, ordinal -> {
+			if (withVector.get(ordinal)) {
+				top.offer(ordinal, vectors.chunk(ordinal), vectors.offset(ordinal));
+			}
+			return true;
 		});
+		return top.finish();
 	}
 
-	private Double cosineSimilarity(Double[] a, Double[] b) {
+	private NeighborQueue scoreSegment(int[] partition, int from, int to, int k, double minScore,
+			OrdinalScorer scorer) {
+		NeighborQueue top = new NeighborQueue(Math.min(k, to - from), false);
+		forEachMatch(partition, from, to, ordinal -> {
+			if (withVector.get(ordinal)) {
+				float score = scorer.score(ordinal);
+				if (score >= minScore) {
+					top.insertWithOverflow(ordinal, score, k);
+				}
+			}
+			return true;
+		});
+		return top;
+	}
 
-		if (a.length != b.length) {
-			return 0.0;
+	/**
+	 * Ordinals of up to {@code max} matching items in ascending order, collected in
+	 * parallel segments for large scans
+	 */
+	private int[] collectMatches(int[] partition, int max) {
+		int count = partition != null ? partition.length : size;
+		int segments = segmentCount(count);
+		if (segments <= 1) {
+			return collectSegment(partition, 0, count, max);
 		}
 
-		double dotProduct = 0.0;
-		double normA = 0.0;
-		double normB = 0.0;
+		List<ForkJoinTask<int[]>> tasks = new ArrayList<>(segments);
+		int step = (count + segments - 1) / segments;
+		for (int from = 0; from < count; from += step) {
+			int start = from;
+			int end = Math.min(count, from + step);
+			tasks.add(scanPool.submit(() -> collectSegment(partition, start, end, max)));
+		}
+		int[] result = new int[0];
+		for (ForkJoinTask<int[]> task : tasks) {
+			int[] segment = task.join();
+			int take = Math.min(segment.length, max - result.length);
+			if (take > 0) {
+				int offset = result.length;
+				result = Arrays.copyOf(result, offset + take);
+				System.arraycopy(segment, 0, result, offset, take);
+			}
+		}
+		return result;
+	}
+
+	private int[] collectSegment(int[] partition, int from, int to, int max) {
+		int[] matches = new int[Math.min(16, to - from)];
+		int count = 0;
+		for (int i = from; i < to && count < max; i++) {
+			int ordinal = partition != null ? partition[i] : i;
+			if (items[ordinal] != null) {
+				if (count == matches.length) {
+					matches = Arrays.copyOf(matches, Math.max(16, count * 2));
+				}
+				matches[count++] = ordinal;
+			}
+		}
+		return Arrays.copyOf(matches, count);
+	}
+
+	/**
+	 * Number of parallel segments for a scan over {@code count} candidates; 1 keeps the
+	 * scan on the calling thread
+	 */
+	private int segmentCount(int count) {
+		int threshold = options.getParallelScanThreshold();
+		if (threshold <= 0 || count < threshold) {
+			return 1;
+		}
+		return Math.min(scanPool.getParallelism(), Math.max(2, count / MIN_SEGMENT_SIZE));
+	}
+
+	/**
+	 * Visit live ordinals in ascending order, restricted to the partition when given,
+	 * until the action returns false
+	 */
+	private void forEachMatch(int[] partition, IntPredicate action) {
+		forEachMatch(partition, 0, partition != null ? partition.length : size, action);
+	}
+
+	/**
+	 * Like {@link #forEachMatch(int[], IntPredicate)}, restricted to positions
+	 * {@code [from, to)} of the partition or of the ordinal range
+	 */
+	private void forEachMatch(int[] partition, int from, int to, IntPredicate action) {
+		for (int i = from; i < to; i++) {
+			int ordinal = partition != null ? partition[i] : i;
+			if (items[ordinal] != null && !action.test(ordinal)) {
+				return;
+			}
+		}
+	}
+
+	private int append(MemoryItem item) {
+		int ordinal = nextOrdinal();
+		store(ordinal, item);
+		return ordinal;
+	}
+
+	private int nextOrdinal() {
+		int ordinal = size++;
+		if (ordinal == items.length) {
+			items = Arrays.copyOf(items, items.length * 2);
+			norms = Arrays.copyOf(norms, items.length);
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Store an item at the given ordinal, keeping the previous embedding when the item
+	 * does not carry one
+	 */
+	private void store(int ordinal, MemoryItem item) {
+		Double[] embedding = item.getEmbedding();
+		if (embedding != null) {
+			float[] vector = Similarity.toFloatArray(embedding);
+			float norm = Similarity.normalize(vector);
+			storeVector(ordinal, vector, norm);
+		}
+		storeItem(ordinal, copyOf(item));
+	}
+
+	/**
+	 * Store a normalized vector and its original norm at the given ordinal
+	 */
+	private void storeVector(int ordinal, float[] vector, float norm) {
+		if (dimension != 0 && vector.length != dimension) {
+			throw new IllegalArgumentException(
+					"Vector dimension " + vector.length + " does not match stored dimension " + dimension);
+		}
+		dimension = vector.length;
+		if (vectors == null) {
+			vectors = new VectorSlab(vector.length);
+			codes = options.isQuantized() && !options.isHnsw() ? new QuantizedSlab(vector.length) : null;
+			index = createIndex();
+		}
+		norms[ordinal] = norm;
+		vectors.set(ordinal, vector);
+		if (codes != null) {
+			codes.set(ordinal, vector);
+		}
+		withVector.set(ordinal);
+		if (index != null && !index.contains(ordinal)) {
+			index.insert(ordinal);
+		}
+	}
+
+	private void storeItem(int ordinal, MemoryItem stored) {
+		if (items[ordinal] != null) {
+			bitmaps.remove(items[ordinal], ordinal);
+		}
+		items[ordinal] = stored;
+		bitmaps.add(stored, ordinal);
+	}
+
+	private void tombstone(int ordinal) {
+		bitmaps.remove(items[ordinal], ordinal);
+		items[ordinal] = null;
+		withVector.clear(ordinal);
+		if (index != null) {
+			index.markDeleted(ordinal);
+		}
+		deadCount++;
+	}
+
+	private HnswIndex createIndex() {
+		if (!options.isHnsw()) {
+			return null;
+		}
+		return new HnswIndex(new HnswIndex.Scorer() {
+			@Override
+			public float[] vector(int ordinal) {
+				return vectors.get(ordinal);
+			}
+
+			@Override
+			public float score(float[] query, int ordinal) {
+				return Similarity.dot(query, vectors.chunk(ordinal), vectors.offset(ordinal));
+			}
+		}, options.getHnswM(), options.getHnswEfConstruction());
+	}
+
+	/**
+	 * Rewrite the slab densely once tombstones outnumber live entries
+	 */
+	private void compactIfNeeded() {
+		if (deadCount < COMPACTION_MIN_DEAD || deadCount <= size - deadCount) {
+			return;
+		}
 
-		for (int i = 0; i < a.length; i++) {
-			dotProduct += a[i] * b[i];
-			normA += a[i] * a[i];
-			normB += b[i] * b[i];
+		MemoryItem[] oldItems = items;
+		VectorSlab oldVectors = vectors;
+		BitSet oldWithVector = (BitSet) withVector.clone();
+		int oldSize = size;
+
+		float[] oldNorms = norms;
+		items = new MemoryItem[Math.max(16, oldSize - deadCount)];
+		norms = new float[items.length];
+		vectors = oldVectors != null ? new VectorSlab(oldVectors.dimension()) : null;
+		codes = codes != null ? new QuantizedSlab(codes.dimension()) : null;
+		withVector.clear();
+		bitmaps.clear();
+		ordinals.clear();
+		size = 0;
+		deadCount = 0;
+
+		for (int ordinal = 0; ordinal < oldSize; ordinal++) {
+			MemoryItem item = oldItems[ordinal];
+			if (item == null) {
+				continue;
+			}
+			int newOrdinal = size++;
+			items[newOrdinal] = item;
+			ordinals.put(item.getId(), newOrdinal);
+			bitmaps.add(item, newOrdinal);
+			if (oldWithVector.get(ordinal)) {
+				float[] vector = oldVectors.get(ordinal);
+				vectors.set(newOrdinal, vector);
+				norms[newOrdinal] = oldNorms[ordinal];
+				if (codes != null) {
+					codes.set(newOrdinal, vector);
+				}
+				withVector.set(newOrdinal);
+			}
+		}
+		if (index != null) {
+			// Graph links refer to old ordinals, so the graph is rebuilt from scratch
+			index = createIndex();
+			for (int ordinal = withVector.nextSetBit(0); ordinal >= 0; ordinal = withVector.nextSetBit(ordinal + 1)) {
+				index.insert(ordinal);
+			}
 		}
+		logger.debug("Compacted in-memory vector store from {} to {} entries", oldSize, size);
+	}
 
-		if (normA == 0.0 || normB == 0.0) {
-			return 0.0;
+	/**
+	 * Copy an item without its embedding, so the store never retains boxed vectors
+	 */
+	private static MemoryItem copyOf(MemoryItem item) {
+		MemoryItem copy = new MemoryItem(item.getContent(), item.getMemoryType());
+		copy.setId(item.getId());
+		copy.setUserId(item.getUserId());
+		copy.setAgentId(item.getAgentId());
+		copy.setRunId(item.getRunId());
+		copy.setActorId(item.getActorId());
+		copy.setMetadata(item.getMetadata() != null ? new HashMap<>(item.getMetadata()) : null);
+		copy.setCreatedAt(item.getCreatedAt());
+		copy.setUpdatedAt(item.getUpdatedAt());
+		return copy;
+	}
+
+	/**
+	 * Box a normalized vector, scaling it back to its original norm
+	 */
+	private static Double[] toDoubleArray(float[] vector, float norm) {
+		Double[] result = new Double[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			result[i] = (double) (vector[i] * norm);
 		}
+		return result;
+	}
+
+	/**
+	 * Live entry of a sealed segment
+	 */
+	private record SealedEntry(SealedSegment segment, int ordinal) {
+	}
+
+	/**
+	 * Score of the stored vector at an ordinal against the current query
+	 */
+	@FunctionalInterface
+	private interface OrdinalScorer {
+
+		float score(int ordinal);
 
-		return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
 	}
 
 }
@@ -18,6 +18,10 @@ package io.github.mem4j.vectorstores;
 
 import io.github.mem4j.config.MemoryConfigurable;
 import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.FilterCache;
+import io.github.mem4j.vectorstores.filter.FilterValues;
+import io.github.mem4j.vectorstores.similarity.Similarity;
 import io.milvus.client.MilvusClient;
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.grpc.*;
@@ -73,6 +77,17 @@ public class MilvusVectorStoreService implements VectorStoreService {
 
 	private static final String DEFAULT_ACTOR_ID = "default_actor";
 
+	// 恒真/恒假表达式，id 从不为空
+	private static final String MATCH_ALL = "id != \"\"";
+
+	private static final String MATCH_NONE = "id == \"\"";
+
+	// 单次 insert 调用的最大行数
+	private static final int INSERT_BATCH_SIZE = 1000;
+
+	// 已编译过滤表达式缓存
+	private final FilterCache<String> compiledFilters = new FilterCache<>(this::compileExpression);
+
 	/**
 	 * Constructor for MilvusVectorStoreService
 	 *
@@ -202,57 +217,99 @@ public class MilvusVectorStoreService implements VectorStoreService {
 	@Override
 	public void add(MemoryItem item) {
 		try {
+			insertRows(Collections.singletonList(item));
+			logger.debug("Added memory item to Milvus: {}", item.getId());
+		} catch (Exception e) {
+			logger.error("Error adding memory item", e);
+			throw new RuntimeException("Failed to add memory item", e);
+		}
+	}
+
+	@Override
+	public void addAll(List<MemoryItem> items) {
+		try {
+			// 按列批量插入，每批一次网络往返
+			for (int from = 0; from < items.size(); from += INSERT_BATCH_SIZE) {
+				insertRows(items.subList(from, Math.min(items.size(), from + INSERT_BATCH_SIZE)));
+			}
+			logger.debug("Added {} memory items to Milvus", items.size());
+		} catch (Exception e) {
+			logger.error("Error adding memory items", e);
+			throw new RuntimeException("Failed to add memory items", e);
+		}
+	}
+
+	/**
+	 * 以列式格式插入多行：每个字段一个列表，一次 insert 调用
+	 */
+	private void insertRows(List<MemoryItem> items) {
+		if (items.isEmpty()) {
+			return;
+		}
+		int rows = items.size();
+		List<String> ids = new ArrayList<>(rows);
+		List<List<Float>> vectors = new ArrayList<>(rows);
+		List<String> contents = new ArrayList<>(rows);
+		List<String> memoryTypes = new ArrayList<>(rows);
+		List<String> userIds = new ArrayList<>(rows);
+		List<String> agentIds = new ArrayList<>(rows);
+		List<String> runIds = new ArrayList<>(rows);
+		List<String> actorIds = new ArrayList<>(rows);
+		List<Long> createdAts = new ArrayList<>(rows);
+		List<Long> updatedAts = new ArrayList<>(rows);
+		long now = Instant.now().toEpochMilli();
+		for (MemoryItem item : items) {
 			String pointId = item.getId() != null ? item.getId() : UUID.randomUUID().toString();
 			item.setId(pointId);
+			ids.add(pointId);
 			// Create vector from embedding
-			List<Float> vectorList = Arrays.stream(item.getEmbedding()).map(Double::floatValue).collect(Collectors.toList());
-			// Build insert parameters
-			List<InsertParam.Field> fields = new ArrayList<>();
-			fields.add(new InsertParam.Field("id", Collections.singletonList(pointId)));
-			fields.add(new InsertParam.Field("vector", Collections.singletonList(vectorList)));
-			String content = item.getContent() != null ? item.getContent() : DEFAULT_CONTENT;
-			fields.add(new InsertParam.Field("content", Collections.singletonList(content)));
-			String memoryType = item.getMemoryType() != null ? item.getMemoryType() : DEFAULT_MEMORY_TYPE;
-			fields.add(new InsertParam.Field("memory_type", Collections.singletonList(memoryType)));
-			String userId = item.getUserId() != null ? item.getUserId() : DEFAULT_USER_ID;
-			fields.add(new InsertParam.Field("user_id", Collections.singletonList(userId)));
-			String agentId = item.getAgentId() != null ? item.getAgentId() : DEFAULT_AGENT_ID;
+			vectors.add(Arrays.stream(item.getEmbedding()).map(Double::floatValue).collect(Collectors.toList()));
+			contents.add(item.getContent() != null ? item.getContent() : DEFAULT_CONTENT);
+			memoryTypes.add(item.getMemoryType() != null ? item.getMemoryType() : DEFAULT_MEMORY_TYPE);
+			userIds.add(item.getUserId() != null ? item.getUserId() : DEFAULT_USER_ID);
 			if (item.getAgentId() == null) {
 				logger.debug("Using default agent_id: {} for memory item: {}", DEFAULT_AGENT_ID, pointId);
 			}
-			fields.add(new InsertParam.Field("agent_id", Collections.singletonList(agentId)));
-			String runId = item.getRunId() != null ? item.getRunId() : DEFAULT_RUN_ID;
+			agentIds.add(item.getAgentId() != null ? item.getAgentId() : DEFAULT_AGENT_ID);
 			if (item.getRunId() == null) {
 				logger.debug("Using default run_id: {} for memory item: {}", DEFAULT_RUN_ID, pointId);
 			}
-			fields.add(new InsertParam.Field("run_id", Collections.singletonList(runId)));
-			String actorId = item.getActorId() != null ? item.getActorId() : DEFAULT_ACTOR_ID;
+			runIds.add(item.getRunId() != null ? item.getRunId() : DEFAULT_RUN_ID);
 			if (item.getActorId() == null) {
 				logger.debug("Using default actor_id: {} for memory item: {}", DEFAULT_ACTOR_ID, pointId);
 			}
-			fields.add(new InsertParam.Field("actor_id", Collections.singletonList(actorId)));
-			long createdAt = item.getCreatedAt() != null ? item.getCreatedAt().toEpochMilli() : Instant.now().toEpochMilli();
-			fields.add(new InsertParam.Field("created_at", Collections.singletonList(createdAt)));
-			long updatedAt = item.getUpdatedAt() != null ? item.getUpdatedAt().toEpochMilli() : Instant.now().toEpochMilli();
-			fields.add(new InsertParam.Field("updated_at", Collections.singletonList(updatedAt)));
-			InsertParam insertParam = InsertParam.newBuilder().withCollectionName(collectionName).withFields(fields).build();
-			client.insert(insertParam);
-			logger.debug("Added memory item to Milvus: {}", pointId);
-		} catch (Exception e) {
-			logger.error("Error adding memory item", e);
-			throw new RuntimeException("Failed to add memory item", e);
+			actorIds.add(item.getActorId() != null ? item.getActorId() : DEFAULT_ACTOR_ID);
+			createdAts.add(item.getCreatedAt() != null ? item.getCreatedAt().toEpochMilli() : now);
+			updatedAts.add(item.getUpdatedAt() != null ? item.getUpdatedAt().toEpochMilli() : now);
+		}
+		// Build insert parameters
+		List<InsertParam.Field> fields = new ArrayList<>();
+		fields.add(new InsertParam.Field("id", ids));
+		fields.add(new InsertParam.Field("vector", vectors));
+		fields.add(new InsertParam.Field("content", contents));
+		fields.add(new InsertParam.Field("memory_type", memoryTypes));
+		fields.add(new InsertParam.Field("user_id", userIds));
+		fields.add(new InsertParam.Field("agent_id", agentIds));
+		fields.add(new InsertParam.Field("run_id", runIds));
+		fields.add(new InsertParam.Field("actor_id", actorIds));
+		fields.add(new InsertParam.Field("created_at", createdAts));
+		fields.add(new InsertParam.Field("updated_at", updatedAts));
+		InsertParam insertParam = InsertParam.newBuilder().withCollectionName(collectionName).withFields(fields).build();
+		R<MutationResult> response = client.insert(insertParam);
+		if (response.getStatus() != R.Status.Success.getCode()) {
+			throw new RuntimeException("Insert failed: " + response.getMessage());
 		}
 	}
 
 	@Override
-	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit, Double threshold) {
+	public List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
 		try {
 			// 确保集合已加载
 			ensureCollectionLoaded();
 			// 构建搜索表达式
-			String searchExpr = buildSearchExpression(filters);
+			String searchExpr = compiledFilters.get(filter);
 			logger.debug("Milvus search expression: '{}'", searchExpr);
-			logger.debug("Search filters: {}", filters);
+			logger.debug("Search filter: {}", filter);
 			logger.debug("Search threshold: {}, limit: {}", threshold, limit);
 			// 转换查询向量为Float类型
 			List<Float> queryVector = Arrays.stream(queryEmbedding).map(Double::floatValue).toList();
@@ -274,27 +331,7 @@ public class MilvusVectorStoreService implements VectorStoreService {
 
 				if (!fieldsData.isEmpty()) {
 					// 创建字段映射
-					Map<String, List<Object>> fieldMap = new HashMap<>();
-
-					for (FieldData fieldData : fieldsData) {
-						String fieldName = fieldData.getFieldName();
-						List<Object> values = new ArrayList<>();
-						if (fieldData.getType() == DataType.VarChar) {
-							// 字符串字段
-							List<String> stringData = fieldData.getScalars().getStringData().getDataList();
-							values.addAll(stringData);
-						} else if (fieldData.getType() == DataType.Int64) {
-							// 长整型字段（时间戳）
-							List<Long> longData = fieldData.getScalars().getLongData().getDataList();
-							values.addAll(longData);
-						} else if (fieldData.getType() == DataType.FloatVector) {
-							// 向量字段
-							List<Float> vectorData = fieldData.getVectors().getFloatVector().getDataList();
-							values.addAll(vectorData);
-						}
-						fieldMap.put(fieldName, values);
-						logger.debug("Field '{}' has {} values", fieldName, values.size());
-					}
+					Map<String, List<Object>> fieldMap = toFieldMap(fieldsData);
 					// 获取结果数量
 					int resultCount = fieldMap.get("id") != null ? fieldMap.get("id").size() : 0;
 					logger.debug("Total result count from Milvus: {}", resultCount);
@@ -339,10 +376,75 @@ public class MilvusVectorStoreService implements VectorStoreService {
 	}
 
 	@Override
-	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit, Double threshold) {
+		return search(queryEmbedding, Filter.from(filters), limit, threshold);
+	}
+
+	@Override
+	public List<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+		List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+		if (queries.length == 0) {
+			return results;
+		}
+		try {
+			// 确保集合已加载
+			ensureCollectionLoaded();
+			String searchExpr = compiledFilters.get(filter);
+			// 所有查询向量放在同一个请求中（nq > 1），由 Milvus 一次完成检索
+			List<List<Float>> queryVectors = new ArrayList<>(queries.length);
+			List<Double[]> queryEmbeddings = new ArrayList<>(queries.length);
+			for (float[] query : queries) {
+				List<Float> queryVector = new ArrayList<>(query.length);
+				Double[] queryEmbedding = new Double[query.length];
+				for (int i = 0; i < query.length; i++) {
+					queryVector.add(query[i]);
+					queryEmbedding[i] = (double) query[i];
+				}
+				queryVectors.add(queryVector);
+				queryEmbeddings.add(queryEmbedding);
+			}
+			SearchParam searchParam = SearchParam.newBuilder().withCollectionName(collectionName).withMetricType(MetricType.COSINE).withOutFields(Arrays.asList("id", "content", "memory_type", "user_id", "agent_id", "run_id", "actor_id", "created_at", "updated_at", "vector")).withTopK(limit != null ? limit : 10).withVectors(queryVectors).withVectorFieldName("vector").withExpr(searchExpr).withParams("{\"nprobe\":10}").build();
+			R<SearchResults> response = client.search(searchParam);
+			if (response.getStatus() != R.Status.Success.getCode()) {
+				throw new RuntimeException("Search failed: " + response.getMessage());
+			}
+			SearchResults searchResults = response.getData();
+			// 各查询的结果按顺序拼接在一起，topks 给出每个查询的结果数量
+			Map<String, List<Object>> fieldMap = searchResults != null && searchResults.getResults() != null ? toFieldMap(searchResults.getResults().getFieldsDataList()) : Collections.emptyMap();
+			List<Long> topks = searchResults != null && searchResults.getResults() != null ? searchResults.getResults().getTopksList() : Collections.emptyList();
+			int resultCount = fieldMap.get("id") != null ? fieldMap.get("id").size() : 0;
+			int index = 0;
+			for (int q = 0; q < queries.length; q++) {
+				List<MemoryItem> queryResults = new ArrayList<>();
+				long topk = q < topks.size() ? topks.get(q) : 0;
+				for (long n = 0; n < topk && index < resultCount; n++, index++) {
+					MemoryItem item = buildMemoryItemFromFieldMap(fieldMap, index, resultCount);
+					if (item.getEmbedding() == null) {
+						logger.warn("Item has no embedding: '{}'", item.getContent());
+						continue;
+					}
+					double similarity = cosineSimilarity(queryEmbeddings.get(q), item.getEmbedding());
+					item.setScore(similarity);
+					if (threshold == null || similarity >= threshold) {
+						queryResults.add(item);
+					}
+				}
+				queryResults.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+				results.add(queryResults);
+			}
+			logger.debug("Found similar memories for {} queries in one search", queries.length);
+			return results;
+		} catch (Exception e) {
+			logger.error("Error searching memories", e);
+			throw new RuntimeException("Failed to search memories", e);
+		}
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Filter filter, Integer limit) {
 		try {
 			// 构建查询表达式
-			String queryExpr = buildSearchExpression(filters);
+			String queryExpr = compiledFilters.get(filter);
 			// 构建查询参数
 			QueryParam queryParam = QueryParam.newBuilder().withCollectionName(collectionName).withExpr(queryExpr).withOutFields(Arrays.asList("id", "content", "memory_type", "user_id", "agent_id", "run_id", "actor_id", "created_at", "updated_at")).withLimit(limit != null ? Long.valueOf(limit) : 100L).build();
 			// 执行查询
@@ -388,6 +490,11 @@ public class MilvusVectorStoreService implements VectorStoreService {
 		}
 	}
 
+	@Override
+	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+		return getAll(Filter.from(filters), limit);
+	}
+
 	@Override
 	public MemoryItem get(String memoryId) {
 		try {
@@ -474,10 +581,55 @@ public class MilvusVectorStoreService implements VectorStoreService {
 	}
 
 	@Override
-	public void deleteAll(Map<String, Object> filters) {
+	public void updateAll(List<MemoryItem> items) {
+		// 对于Milvus，批量更新等同于按 ID 批量删除后批量插入
 		try {
-			// 构建删除表达式
-			String deleteExpr = buildSearchExpression(filters);
+			List<String> ids = new ArrayList<>(items.size());
+			for (MemoryItem item : items) {
+				if (item.getId() != null) {
+					ids.add(item.getId());
+				}
+			}
+			deleteByIds(ids);
+			addAll(items);
+			logger.debug("Updated {} memory items", items.size());
+		} catch (Exception e) {
+			logger.error("Error updating memory items", e);
+			throw new RuntimeException("Failed to update memory items", e);
+		}
+	}
+
+	@Override
+	public void deleteByIds(Collection<String> memoryIds) {
+		if (memoryIds.isEmpty()) {
+			return;
+		}
+		try {
+			// 构建批量删除表达式 id in [...]
+			StringJoiner deleteExpr = new StringJoiner(", ", "id in [", "]");
+			for (String memoryId : memoryIds) {
+				deleteExpr.add(quote(memoryId));
+			}
+			DeleteParam deleteParam = DeleteParam.newBuilder().withCollectionName(collectionName).withExpr(deleteExpr.toString()).build();
+			R<MutationResult> response = client.delete(deleteParam);
+			if (response.getStatus() != R.Status.Success.getCode()) {
+				throw new RuntimeException("Delete failed: " + response.getMessage());
+			}
+			logger.debug("Deleted {} memories by ID", memoryIds.size());
+		} catch (Exception e) {
+			logger.error("Error deleting memories: {}", memoryIds, e);
+			throw new RuntimeException("Failed to delete memories", e);
+		}
+	}
+
+	@Override
+	public void deleteAll(Filter filter) {
+		try {
+			// 构建删除表达式，空表达式时删除全部
+			String deleteExpr = compiledFilters.get(filter);
+			if (deleteExpr.isEmpty()) {
+				deleteExpr = MATCH_ALL;
+			}
 			// 构建删除参数
 			DeleteParam deleteParam = DeleteParam.newBuilder().withCollectionName(collectionName).withExpr(deleteExpr).build();
 			// 执行删除
@@ -485,13 +637,18 @@ public class MilvusVectorStoreService implements VectorStoreService {
 			if (response.getStatus() != R.Status.Success.getCode()) {
 				throw new RuntimeException("Delete failed: " + response.getMessage());
 			}
-			logger.debug("Deleted memories with filters: {}", filters);
+			logger.debug("Deleted memories with filter: {}", filter);
 		} catch (Exception e) {
-			logger.error("Error deleting memories with filters: {}", filters, e);
+			logger.error("Error deleting memories with filter: {}", filter, e);
 			throw new RuntimeException("Failed to delete memories", e);
 		}
 	}
 
+	@Override
+	public void deleteAll(Map<String, Object> filters) {
+		deleteAll(Filter.from(filters));
+	}
+
 	@Override
 	public void reset() {
 		try {
@@ -507,50 +664,84 @@ public class MilvusVectorStoreService implements VectorStoreService {
 	}
 
 	/**
-	 * 构建搜索表达式
+	 * 将过滤条件编译为 Milvus 布尔表达式，结果按过滤条件缓存。匹配全部时返回空串。
+	 * 集合中没有 metadata 字段，因此只支持内置字段、content（精确匹配）以及 created_at/updated_at。
 	 */
-	private String buildSearchExpression(Map<String, Object> filters) {
-		if (filters == null || filters.isEmpty()) {
+	private String compileExpression(Filter filter) {
+		if (filter instanceof Filter.And and && and.filters().isEmpty()) {
 			return "";
 		}
-		// 定义有效的集合字段
-		Set<String> validFields = new HashSet<>(Arrays.asList("user_id", "agent_id", "run_id", "actor_id", "memory_type", "created_at", "updated_at", "content"));
-		List<String> conditions = new ArrayList<>();
-		for (Map.Entry<String, Object> filter : filters.entrySet()) {
-			String key = filter.getKey();
-			String value = filter.getValue().toString();
-			// 只处理有效的集合字段，忽略其他参数如query、limit、threshold等
-			if (!validFields.contains(key)) {
-				logger.debug("Skipping invalid field in search expression: {}", key);
-				continue;
-			}
-			// 根据字段类型构建不同的表达式
-			switch (key) {
-				case "user_id":
-				case "agent_id":
-				case "run_id":
-				case "actor_id":
-				case "memory_type":
-					conditions.add(key + " == \"" + value + "\"");
-					break;
-				case "created_at":
-				case "updated_at":
-					// 时间字段可以支持范围查询，这里简化为精确匹配
-					if (value.matches("\\d+")) {
-						conditions.add(key + " == " + value);
-					}
-					break;
-				case "content":
-					// 内容字段使用模糊匹配
-					conditions.add(key + " like \"%" + value + "%\"");
-					break;
-				default:
-					// 其他有效字段使用模糊匹配
-					conditions.add(key + " like \"%" + value + "%\"");
-					break;
-			}
-		}
-		return String.join(" && ", conditions);
+		return expression(filter);
+	}
+
+	private String expression(Filter filter) {
+		if (filter instanceof Filter.Eq eq) {
+			return eq.key() + " == " + literal(eq.key(), eq.value());
+		}
+		if (filter instanceof Filter.In in) {
+			if (in.values().isEmpty()) {
+				return MATCH_NONE;
+			}
+			StringBuilder expr = new StringBuilder(in.key()).append(" in [");
+			for (int i = 0; i < in.values().size(); i++) {
+				expr.append(i > 0 ? ", " : "").append(literal(in.key(), in.values().get(i)));
+			}
+			return expr.append(']').toString();
+		}
+		if (filter instanceof Filter.Range range) {
+			if (!FilterValues.isTimestamp(range.key())) {
+				throw new IllegalArgumentException("Range filters are only supported on created_at and updated_at in Milvus, not on " + range.key());
+			}
+			List<String> bounds = new ArrayList<>(2);
+			if (range.lower() != null) {
+				bounds.add(range.key() + (range.lowerInclusive() ? " >= " : " > ") + literal(range.key(), range.lower()));
+			}
+			if (range.upper() != null) {
+				bounds.add(range.key() + (range.upperInclusive() ? " <= " : " < ") + literal(range.key(), range.upper()));
+			}
+			return String.join(" && ", bounds);
+		}
+		if (filter instanceof Filter.And and) {
+			return and.filters().isEmpty() ? MATCH_ALL : join(and.filters(), " && ");
+		}
+		if (filter instanceof Filter.Or or) {
+			return or.filters().isEmpty() ? MATCH_NONE : join(or.filters(), " || ");
+		}
+		return "not (" + expression(((Filter.Not) filter).filter()) + ")";
+	}
+
+	private String join(List<Filter> filters, String operator) {
+		StringBuilder expr = new StringBuilder();
+		for (Filter child : filters) {
+			expr.append(expr.length() > 0 ? operator : "").append('(').append(expression(child)).append(')');
+		}
+		return expr.toString();
+	}
+
+	/**
+	 * 字段值字面量；写入时空字段以默认值存储，因此 null 匹配默认值
+	 */
+	private String literal(String key, Object value) {
+		switch (key) {
+			case "created_at", "updated_at" -> {
+				if (value == null) {
+					throw new IllegalArgumentException("Milvus stores a timestamp for every memory, cannot match a missing " + key);
+				}
+				return Long.toString(FilterValues.timestamp(key, value));
+			}
+			case "user_id" -> value = value != null ? value : DEFAULT_USER_ID;
+			case "agent_id" -> value = value != null ? value : DEFAULT_AGENT_ID;
+			case "run_id" -> value = value != null ? value : DEFAULT_RUN_ID;
+			case "actor_id" -> value = value != null ? value : DEFAULT_ACTOR_ID;
+			case "memory_type" -> value = value != null ? value : DEFAULT_MEMORY_TYPE;
+			case "content" -> value = value != null ? value : DEFAULT_CONTENT;
+			default -> throw new IllegalArgumentException("Milvus collection has no field for filter key: " + key);
+		}
+		return quote(FilterValues.canonical(value));
+	}
+
+	private static String quote(String text) {
+		return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
 	}
 
 	/**
@@ -572,23 +763,46 @@ public class MilvusVectorStoreService implements VectorStoreService {
 			logger.error("存储向量前5个值: {}", Arrays.toString(Arrays.copyOf(b, Math.min(5, b.length))));
 			return 0.0;
 		}
-		double dotProduct = 0.0;
-		double normA = 0.0;
-		double normB = 0.0;
-		for (int i = 0; i < a.length; i++) {
-			dotProduct += a[i] * b[i];
-			normA += a[i] * a[i];
-			normB += b[i] * b[i];
-		}
-		if (normA == 0.0 || normB == 0.0) {
+		float[] x = Similarity.toFloatArray(a);
+		float[] y = Similarity.toFloatArray(b);
+		float normA = Similarity.norm(x);
+		float normB = Similarity.norm(y);
+		if (normA == 0.0f || normB == 0.0f) {
 			logger.warn("向量范数为0 - normA: {}, normB: {}", normA, normB);
 			return 0.0;
 		}
-		double similarity = dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+		double similarity = Similarity.dot(x, y) / ((double) normA * normB);
 		logger.debug("余弦相似度计算结果: {}", similarity);
 		return similarity;
 	}
 
+	/**
+	 * 将返回的列式字段数据转换为 字段名 -> 值列表 的映射
+	 */
+	private Map<String, List<Object>> toFieldMap(List<FieldData> fieldsData) {
+		Map<String, List<Object>> fieldMap = new HashMap<>();
+		for (FieldData fieldData : fieldsData) {
+			String fieldName = fieldData.getFieldName();
+			List<Object> values = new ArrayList<>();
+			if (fieldData.getType() == DataType.VarChar) {
+				// 字符串字段
+				List<String> stringData = fieldData.getScalars().getStringData().getDataList();
+				values.addAll(stringData);
+			} else if (fieldData.getType() == DataType.Int64) {
+				// 长整型字段（时间戳）
+				List<Long> longData = fieldData.getScalars().getLongData().getDataList();
+				values.addAll(longData);
+			} else if (fieldData.getType() == DataType.FloatVector) {
+				// 向量字段
+				List<Float> vectorData = fieldData.getVectors().getFloatVector().getDataList();
+				values.addAll(vectorData);
+			}
+			fieldMap.put(fieldName, values);
+			logger.debug("Field '{}' has {} values", fieldName, values.size());
+		}
+		return fieldMap;
+	}
+
 	/**
 	 * 从字段映射构建MemoryItem对象
 	 *
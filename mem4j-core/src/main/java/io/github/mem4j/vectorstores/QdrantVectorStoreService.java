@@ -18,11 +18,17 @@ package io.github.mem4j.vectorstores;
 
 import io.github.mem4j.config.MemoryConfigurable;
 import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.FilterCache;
+import io.github.mem4j.vectorstores.filter.ItemPredicates;
+import io.github.mem4j.vectorstores.inmemory.NeighborQueue;
+import io.github.mem4j.vectorstores.similarity.Similarity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -51,6 +57,9 @@ public class QdrantVectorStoreService implements VectorStoreService {
 	// In-memory storage for development/testing - replace with actual Qdrant client
 	private final Map<String, MemoryItem> memoryStore = new HashMap<>();
 
+	// Payload predicates of recently used filters
+	private final FilterCache<Predicate<MemoryItem>> compiledFilters = new FilterCache<>(ItemPredicates::compile);
+
 	/**
 	 * Constructor for QdrantVectorStoreService
 	 * @param config Memory configuration containing vector store settings
@@ -110,24 +119,33 @@ public class QdrantVectorStoreService implements VectorStoreService {
 	}
 
 	@Override
-	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
-			Double threshold) {
+	public List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
 		try {
-			// Simple similarity search using in-memory storage
-			List<MemoryItem> results = memoryStore.values()
-				.stream()
-				.filter(item -> matchesFilters(item, filters))
-				.map(item -> {
-					// Calculate simple cosine similarity
-					Double similarity = calculateCosineSimilarity(queryEmbedding, item.getEmbedding());
-					// Store similarity for sorting
-					return new AbstractMap.SimpleEntry<>(similarity, item);
-				})
-				.filter(entry -> entry.getKey() >= threshold)
-				.sorted((e1, e2) -> Double.compare(e2.getKey(), e1.getKey()))
-				.limit(limit)
-				.map(AbstractMap.SimpleEntry::getValue)
-				.collect(Collectors.toList());
+			Predicate<MemoryItem> matches = compiledFilters.get(filter);
+			// Simple similarity search using in-memory storage, keeping only the best
+			// (position, score) pairs in a bounded heap
+			MemoryItem[] candidates = memoryStore.values().toArray(new MemoryItem[0]);
+			float[] query = Similarity.toFloatArray(queryEmbedding);
+			int k = limit != null ? limit : candidates.length;
+			double minScore = threshold != null ? threshold : Double.NEGATIVE_INFINITY;
+			NeighborQueue top = new NeighborQueue(Math.min(k, candidates.length), false);
+			for (int i = 0; i < candidates.length && k > 0; i++) {
+				MemoryItem item = candidates[i];
+				if (item.getEmbedding() == null || !matches.test(item)) {
+					continue;
+				}
+				float similarity = calculateCosineSimilarity(query, item.getEmbedding());
+				if (similarity >= minScore) {
+					top.insertWithOverflow(i, similarity, k);
+				}
+			}
+
+			MemoryItem[] ranked = new MemoryItem[top.size()];
+			for (int i = ranked.length - 1; i >= 0; i--) {
+				float score = top.topScore();
+				ranked[i] = scored(candidates[top.pop()], score);
+			}
+			List<MemoryItem> results = new ArrayList<>(Arrays.asList(ranked));
 
 			logger.debug("Found {} similar memories", results.size());
 			return results;
@@ -157,11 +175,63 @@ public class QdrantVectorStoreService implements VectorStoreService {
 	}
 
 	@Override
-	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+	public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
+			Double threshold) {
+		return search(queryEmbedding, Filter.from(filters), limit, threshold);
+	}
+
+	@Override
+	public List<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+		try {
+			Predicate<MemoryItem> matches = compiledFilters.get(filter);
+			// One pass over the stored items: each matching item is converted once and
+			// scored against every query
+			MemoryItem[] candidates = memoryStore.values().toArray(new MemoryItem[0]);
+			int k = limit != null ? limit : candidates.length;
+			double minScore = threshold != null ? threshold : Double.NEGATIVE_INFINITY;
+			NeighborQueue[] top = new NeighborQueue[queries.length];
+			for (int q = 0; q < queries.length; q++) {
+				top[q] = new NeighborQueue(Math.min(k, candidates.length), false);
+			}
+			for (int i = 0; i < candidates.length && k > 0; i++) {
+				MemoryItem item = candidates[i];
+				if (item.getEmbedding() == null || !matches.test(item)) {
+					continue;
+				}
+				float[] embedding = Similarity.toFloatArray(item.getEmbedding());
+				for (int q = 0; q < queries.length; q++) {
+					float similarity = queries[q].length == embedding.length ? Similarity.cosine(queries[q], embedding)
+							: 0.0f;
+					if (similarity >= minScore) {
+						top[q].insertWithOverflow(i, similarity, k);
+					}
+				}
+			}
+
+			List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+			for (NeighborQueue queue : top) {
+				MemoryItem[] ranked = new MemoryItem[queue.size()];
+				for (int i = ranked.length - 1; i >= 0; i--) {
+					float score = queue.topScore();
+					ranked[i] = scored(candidates[queue.pop()], score);
+				}
+				results.add(new ArrayList<>(Arrays.asList(ranked)));
+			}
+			logger.debug("Searched similar memories for {} queries", queries.length);
+			return results;
+		}
+		catch (Exception e) {
+			logger.error("Error searching memories", e);
+			throw new RuntimeException("Failed to search memories", e);
+		}
+	}
+
+	@Override
+	public List<MemoryItem> getAll(Filter filter, Integer limit) {
 		try {
 			List<MemoryItem> results = memoryStore.values()
 				.stream()
-				.filter(item -> matchesFilters(item, filters))
+				.filter(compiledFilters.get(filter))
 				.limit(limit)
 				.collect(Collectors.toList());
 
@@ -188,6 +258,11 @@ public class QdrantVectorStoreService implements VectorStoreService {
 		}
 	}
 
+	@Override
+	public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+		return getAll(Filter.from(filters), limit);
+	}
+
 	@Override
 	public MemoryItem get(String memoryId) {
 		try {
@@ -244,16 +319,16 @@ public class QdrantVectorStoreService implements VectorStoreService {
 	}
 
 	@Override
-	public void deleteAll(Map<String, Object> filters) {
+	public void deleteAll(Filter filter) {
 		try {
 			List<String> toDelete = memoryStore.values()
 				.stream()
-				.filter(item -> matchesFilters(item, filters))
+				.filter(compiledFilters.get(filter))
 				.map(MemoryItem::getId)
 				.collect(Collectors.toList());
 
 			toDelete.forEach(memoryStore::remove);
-			logger.debug("Deleted {} memories with filters: {}", toDelete.size(), filters);
+			logger.debug("Deleted {} memories with filter: {}", toDelete.size(), filter);
 
 			// TODO: Replace with actual Qdrant implementation
 			/*
@@ -268,11 +343,16 @@ public class QdrantVectorStoreService implements VectorStoreService {
 			 */
 		}
 		catch (Exception e) {
-			logger.error("Error deleting memories with filters: {}", filters, e);
+			logger.error("Error deleting memories with filter: {}", filter, e);
 			throw new RuntimeException("Failed to delete memories", e);
 		}
 	}
 
+	@Override
+	public void deleteAll(Map<String, Object> filters) {
+		deleteAll(Filter.from(filters));
+	}
+
 	@Override
 	public void reset() {
 		try {
@@ -294,61 +374,30 @@ public class QdrantVectorStoreService implements VectorStoreService {
 	/**
 	 * Calculate cosine similarity between two vectors
 	 */
-	private Double calculateCosineSimilarity(Double[] vec1, Double[] vec2) {
-		if (vec1.length != vec2.length) {
-			return 0.0;
+	private float calculateCosineSimilarity(float[] query, Double[] embedding) {
+		if (query.length != embedding.length) {
+			return 0.0f;
 		}
-
-		double dotProduct = 0.0;
-		double norm1 = 0.0;
-		double norm2 = 0.0;
-
-		for (int i = 0; i < vec1.length; i++) {
-			dotProduct += vec1[i] * vec2[i];
-			norm1 += vec1[i] * vec1[i];
-			norm2 += vec2[i] * vec2[i];
-		}
-
-		return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+		return Similarity.cosine(query, Similarity.toFloatArray(embedding));
 	}
 
 	/**
-	 * Check if a memory item matches the given filters
+	 * Copy a stored item with its similarity score, as Qdrant returns scored points
+	 * rather than the stored payload
 	 */
-	private boolean matchesFilters(MemoryItem item, Map<String, Object> filters) {
-		if (filters == null || filters.isEmpty()) {
-			return true;
-		}
-
-		for (Map.Entry<String, Object> filter : filters.entrySet()) {
-			String key = filter.getKey();
-			String value = filter.getValue().toString();
-
-			switch (key) {
-				case "user_id" -> {
-					if (!value.equals(item.getUserId()))
-						return false;
-				}
-				case "agent_id" -> {
-					if (!value.equals(item.getAgentId()))
-						return false;
-				}
-				case "run_id" -> {
-					if (!value.equals(item.getRunId()))
-						return false;
-				}
-				case "actor_id" -> {
-					if (!value.equals(item.getActorId()))
-						return false;
-				}
-				case "memory_type" -> {
-					if (!value.equals(item.getMemoryType()))
-						return false;
-				}
-			}
-		}
-
-		return true;
+	private static MemoryItem scored(MemoryItem item, float score) {
+		MemoryItem copy = new MemoryItem(item.getContent(), item.getMemoryType());
+		copy.setId(item.getId());
+		copy.setUserId(item.getUserId());
+		copy.setAgentId(item.getAgentId());
+		copy.setRunId(item.getRunId());
+		copy.setActorId(item.getActorId());
+		copy.setMetadata(item.getMetadata() != null ? new HashMap<>(item.getMetadata()) : null);
+		copy.setCreatedAt(item.getCreatedAt());
+		copy.setUpdatedAt(item.getUpdatedAt());
+		copy.setEmbedding(item.getEmbedding());
+		copy.setScore((double) score);
+		return copy;
 	}
 
 	/*
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Interface for vector store operations returning {@link Mono} and {@link Flux}
+ * <p>
+ * Results are emitted on demand, so a slow subscriber never forces a store to read ahead
+ * of it.
+ */
+public interface ReactiveVectorStoreService {
+
+	/**
+	 * Add a memory item to the vector store
+	 */
+	Mono<Void> add(MemoryItem item);
+
+	/**
+	 * Add memory items to the vector store in one batch
+	 */
+	Mono<Void> addAll(List<MemoryItem> items);
+
+	/**
+	 * Search for similar memories using vector similarity
+	 */
+	Flux<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold);
+
+	/**
+	 * Search for the memories most similar to each query, with one result list per query
+	 */
+	Flux<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold);
+
+	/**
+	 * Get all memories matching the filter
+	 */
+	Flux<MemoryItem> getAll(Filter filter, Integer limit);
+
+	/**
+	 * Get a specific memory by ID, empty when it does not exist
+	 */
+	Mono<MemoryItem> get(String memoryId);
+
+	/**
+	 * Update an existing memory item
+	 */
+	Mono<Void> update(MemoryItem item);
+
+	/**
+	 * Delete a memory by ID
+	 */
+	Mono<Void> delete(String memoryId);
+
+	/**
+	 * Delete all memories matching the filter
+	 */
+	Mono<Void> deleteAll(Filter filter);
+
+	/**
+	 * Reset the vector store (delete all memories)
+	 */
+	Mono<Void> reset();
+
+	/**
+	 * Adapt a blocking vector store whose calls run on
+	 * {@link Schedulers#boundedElastic()}
+	 */
+	static ReactiveVectorStoreService from(VectorStoreService vectorStoreService) {
+		return from(vectorStoreService, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Adapt a blocking vector store whose calls run on the given scheduler
+	 */
+	static ReactiveVectorStoreService from(VectorStoreService vectorStoreService, Scheduler scheduler) {
+		return new SchedulingVectorStoreService(vectorStoreService, scheduler);
+	}
+
+}
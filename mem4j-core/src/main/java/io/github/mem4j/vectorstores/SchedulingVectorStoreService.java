@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs the calls of a blocking {@link VectorStoreService} on a Reactor scheduler
+ */
+class SchedulingVectorStoreService implements ReactiveVectorStoreService {
+
+	private final VectorStoreService delegate;
+
+	private final Scheduler scheduler;
+
+	SchedulingVectorStoreService(VectorStoreService delegate, Scheduler scheduler) {
+		this.delegate = delegate;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<Void> add(MemoryItem item) {
+		return write(() -> delegate.add(item));
+	}
+
+	@Override
+	public Mono<Void> addAll(List<MemoryItem> items) {
+		return write(() -> delegate.addAll(items));
+	}
+
+	@Override
+	public Flux<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
+		return Mono.fromCallable(() -> delegate.search(queryEmbedding, filter, limit, threshold))
+			.subscribeOn(scheduler)
+			.flatMapIterable(Function.identity());
+	}
+
+	@Override
+	public Flux<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+		return Mono.fromCallable(() -> delegate.searchBatch(queries, filter, limit, threshold))
+			.subscribeOn(scheduler)
+			.flatMapIterable(Function.identity());
+	}
+
+	@Override
+	public Flux<MemoryItem> getAll(Filter filter, Integer limit) {
+		return Mono.fromCallable(() -> delegate.getAll(filter, limit))
+			.subscribeOn(scheduler)
+			.flatMapIterable(Function.identity());
+	}
+
+	@Override
+	public Mono<MemoryItem> get(String memoryId) {
+		return Mono.fromCallable(() -> delegate.get(memoryId)).subscribeOn(scheduler);
+	}
+
+	@Override
+	public Mono<Void> update(MemoryItem item) {
+		return write(() -> delegate.update(item));
+	}
+
+	@Override
+	public Mono<Void> delete(String memoryId) {
+		return write(() -> delegate.delete(memoryId));
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Filter filter) {
+		return write(() -> delegate.deleteAll(filter));
+	}
+
+	@Override
+	public Mono<Void> reset() {
+		return write(delegate::reset);
+	}
+
+	private Mono<Void> write(Runnable operation) {
+		return Mono.fromRunnable(operation).subscribeOn(scheduler).then();
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.FilterValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lists every memory matching a filter through {@link VectorStoreService#getAll} in pages
+ * the stores accept.
+ * <p>
+ * {@code getAll} has no offset, so a full page is split into halves of its
+ * {@code created_at} range until each range fits in a page. Memories without a creation
+ * time are only listed when all matches fit in the first page.
+ */
+final class StoreListing {
+
+	private static final Logger logger = LoggerFactory.getLogger(StoreListing.class);
+
+	// Below the largest query limit Milvus accepts (16384)
+	static final int PAGE_SIZE = 10_000;
+
+	private StoreListing() {
+	}
+
+	/**
+	 * Pass every memory matching the filter to the action
+	 * @throws RuntimeException when the store fails to list memories
+	 */
+	static void forEach(VectorStoreService store, Filter filter, Consumer<MemoryItem> action) {
+		forEach(store, filter, PAGE_SIZE, action);
+	}
+
+	static void forEach(VectorStoreService store, Filter filter, int pageSize, Consumer<MemoryItem> action) {
+		List<MemoryItem> page = store.getAll(filter, pageSize);
+		if (page.size() < pageSize) {
+			page.forEach(action);
+			return;
+		}
+		long now = System.currentTimeMillis();
+		Deque<long[]> ranges = new ArrayDeque<>();
+		ranges.push(new long[] { now + 1, Long.MAX_VALUE });
+		ranges.push(new long[] { 0, now + 1 });
+		while (!ranges.isEmpty()) {
+			long[] range = ranges.pop();
+			page = store.getAll(
+					Filter.and(filter, new Filter.Range(FilterValues.CREATED_AT, range[0], true, range[1], false)),
+					pageSize);
+			if (page.size() < pageSize || range[1] - range[0] <= 1) {
+				if (page.size() >= pageSize) {
+					logger.warn("More than {} memories created at {}, listing only {}", pageSize, range[0], pageSize);
+				}
+				page.forEach(action);
+				continue;
+			}
+			long middle = range[0] + (range[1] - range[0]) / 2;
+			ranges.push(new long[] { middle, range[1] });
+			ranges.push(new long[] { range[0], middle });
+		}
+	}
+
+}
@@ -17,12 +17,25 @@
 package io.github.mem4j.vectorstores;
 
 import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Interface for vector store operations
+ * <p>
+ * Filters are typed {@link Filter} expressions, which each store compiles once into its
+ * native form, or the map syntax of {@link Filter#from(Map)}. The map-based methods are
+ * the ones a store must implement; the {@link Filter} overloads default to them through
+ * {@link Filter#toMap()}, and stores that compile filters override both.
+ * <p>
+ * The {@code *Async} variants never block the caller. By default they run the blocking
+ * method on the given executor; stores with a non-blocking client may ignore it.
  */
 public interface VectorStoreService {
 
@@ -31,11 +44,58 @@ public interface VectorStoreService {
 	 */
 	void add(MemoryItem item);
 
+	/**
+	 * Add memory items to the vector store in one batch
+	 */
+	default void addAll(List<MemoryItem> items) {
+		for (MemoryItem item : items) {
+			add(item);
+		}
+	}
+
+	/**
+	 * Search for similar memories using vector similarity
+	 */
+	default List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
+		return search(queryEmbedding, filter.toMap(), limit, threshold);
+	}
+
 	/**
 	 * Search for similar memories using vector similarity
 	 */
 	List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit, Double threshold);
 
+	/**
+	 * Search for the memories most similar to each query, with one result list per query
+	 * in query order. Stores answer all queries from a single scan where they can.
+	 */
+	default List<List<MemoryItem>> searchBatch(float[][] queries, Filter filter, Integer limit, Double threshold) {
+		List<List<MemoryItem>> results = new ArrayList<>(queries.length);
+		for (float[] query : queries) {
+			Double[] embedding = new Double[query.length];
+			for (int i = 0; i < query.length; i++) {
+				embedding[i] = (double) query[i];
+			}
+			results.add(search(embedding, filter, limit, threshold));
+		}
+		return results;
+	}
+
+	/**
+	 * Search for the memories most similar to each query, with one result list per query
+	 */
+	default List<List<MemoryItem>> searchBatch(float[][] queries, Map<String, Object> filters, Integer limit,
+			Double threshold) {
+		return searchBatch(queries, Filter.from(filters), limit, threshold);
+	}
+
+	/**
+	 * Get all memories matching the filter
+	 */
+	default List<MemoryItem> getAll(Filter filter, Integer limit) {
+		return getAll(filter.toMap(), limit);
+	}
+
 	/**
 	 * Get all memories matching filters
 	 */
@@ -51,11 +111,36 @@ public interface VectorStoreService {
 	 */
 	void update(MemoryItem item);
 
+	/**
+	 * Update existing memory items in one batch
+	 */
+	default void updateAll(List<MemoryItem> items) {
+		for (MemoryItem item : items) {
+			update(item);
+		}
+	}
+
 	/**
 	 * Delete a memory by ID
 	 */
 	void delete(String memoryId);
 
+	/**
+	 * Delete memories by ID in one batch
+	 */
+	default void deleteByIds(Collection<String> memoryIds) {
+		for (String memoryId : memoryIds) {
+			delete(memoryId);
+		}
+	}
+
+	/**
+	 * Delete all memories matching the filter
+	 */
+	default void deleteAll(Filter filter) {
+		deleteAll(filter.toMap());
+	}
+
 	/**
 	 * Delete all memories matching filters
 	 */
@@ -66,4 +151,38 @@ public interface VectorStoreService {
 	 */
 	void reset();
 
+	default CompletableFuture<Void> addAsync(MemoryItem item, Executor executor) {
+		return CompletableFuture.runAsync(() -> add(item), executor);
+	}
+
+	default CompletableFuture<Void> addAllAsync(List<MemoryItem> items, Executor executor) {
+		return CompletableFuture.runAsync(() -> addAll(items), executor);
+	}
+
+	default CompletableFuture<List<MemoryItem>> searchAsync(Double[] queryEmbedding, Filter filter, Integer limit,
+			Double threshold, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> search(queryEmbedding, filter, limit, threshold), executor);
+	}
+
+	default CompletableFuture<List<List<MemoryItem>>> searchBatchAsync(float[][] queries, Filter filter, Integer limit,
+			Double threshold, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> searchBatch(queries, filter, limit, threshold), executor);
+	}
+
+	default CompletableFuture<List<MemoryItem>> getAllAsync(Filter filter, Integer limit, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> getAll(filter, limit), executor);
+	}
+
+	default CompletableFuture<Void> updateAsync(MemoryItem item, Executor executor) {
+		return CompletableFuture.runAsync(() -> update(item), executor);
+	}
+
+	default CompletableFuture<Void> deleteAsync(String memoryId, Executor executor) {
+		return CompletableFuture.runAsync(() -> delete(memoryId), executor);
+	}
+
+	default CompletableFuture<Void> deleteByIdsAsync(Collection<String> memoryIds, Executor executor) {
+		return CompletableFuture.runAsync(() -> deleteByIds(memoryIds), executor);
+	}
+
 }
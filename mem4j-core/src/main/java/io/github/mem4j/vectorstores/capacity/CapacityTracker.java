@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.capacity;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.ItemPredicates;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Counts stored memories per user and in total, and picks the memories to evict once a
+ * limit is exceeded.
+ * <p>
+ * Victims are chosen by sampling: a few random candidates are drawn from the over-full
+ * user, or from all memories, and the one the {@link EvictionPolicy} ranks lowest is
+ * evicted. Eviction therefore costs the same however many memories a tenant has
+ * accumulated. Retrievals are recorded without taking the tracker's lock.
+ */
+public final class CapacityTracker {
+
+	public static final int DEFAULT_SAMPLE_SIZE = 16;
+
+	private static final String IMPORTANCE_KEY = "importance";
+
+	// Importance of memories that do not carry one, between unimportant (0) and vital (1)
+	private static final double DEFAULT_IMPORTANCE = 0.5;
+
+	private final int maxPerUser;
+
+	private final int maxTotal;
+
+	private final EvictionPolicy policy;
+
+	private final int sampleSize;
+
+	private final IntSupplier clock;
+
+	private final Random random = new Random();
+
+	private final Map<String, TrackedMemory> memories = new ConcurrentHashMap<>();
+
+	// Guarded by this, like every structural change to memories
+	private final Map<String, SampledSet> byUser = new HashMap<>();
+
+	private final SampledSet all = new SampledSet();
+
+	/**
+	 * @param maxPerUser memories kept per user; 0 for no limit
+	 * @param maxTotal memories kept in total; 0 for no limit
+	 */
+	public CapacityTracker(int maxPerUser, int maxTotal, EvictionPolicy policy) {
+		this(maxPerUser, maxTotal, policy, DEFAULT_SAMPLE_SIZE, secondsClock());
+	}
+
+	/**
+	 * @param sampleSize candidates compared per eviction
+	 * @param clock current time in ticks of the access clock
+	 */
+	public CapacityTracker(int maxPerUser, int maxTotal, EvictionPolicy policy, int sampleSize, IntSupplier clock) {
+		this.maxPerUser = maxPerUser;
+		this.maxTotal = maxTotal;
+		this.policy = policy;
+		this.sampleSize = sampleSize;
+		this.clock = clock;
+	}
+
+	/**
+	 * Start tracking a stored memory, or refresh the attributes of a tracked one.
+	 */
+	public synchronized void track(MemoryItem item) {
+		String id = item.getId();
+		if (id == null) {
+			return;
+		}
+		long updatedAt = item.getUpdatedAt() != null ? item.getUpdatedAt().toEpochMilli()
+				: item.getCreatedAt() != null ? item.getCreatedAt().toEpochMilli() : System.currentTimeMillis();
+		double importance = importance(item);
+		MemoryItem attributes = ItemPredicates.attributesOf(item);
+		TrackedMemory previous = memories.get(id);
+		if (previous == null) {
+			memories.put(id, new TrackedMemory(attributes, updatedAt, importance, clock.getAsInt()));
+			all.add(id);
+		}
+		else {
+			if (!Objects.equals(previous.userId(), item.getUserId())) {
+				removeFromUser(previous.userId(), id);
+			}
+			memories.put(id, previous.updated(attributes, updatedAt, importance));
+		}
+		if (item.getUserId() != null) {
+			byUser.computeIfAbsent(item.getUserId(), user -> new SampledSet()).add(id);
+		}
+	}
+
+	public synchronized void untrack(String id) {
+		TrackedMemory removed = memories.remove(id);
+		if (removed != null) {
+			all.remove(id);
+			removeFromUser(removed.userId(), id);
+		}
+	}
+
+	/**
+	 * Stop tracking every memory whose attributes match.
+	 * @return the number of memories no longer tracked
+	 */
+	public synchronized int untrackMatching(Predicate<MemoryItem> matches) {
+		List<String> matching = new ArrayList<>();
+		for (TrackedMemory memory : memories.values()) {
+			if (matches.test(memory.attributes())) {
+				matching.add(memory.id());
+			}
+		}
+		matching.forEach(this::untrack);
+		return matching.size();
+	}
+
+	/**
+	 * Record a retrieval of the memory, if it is tracked.
+	 */
+	public void touch(String id) {
+		TrackedMemory memory = memories.get(id);
+		if (memory != null) {
+			memory.touch(clock.getAsInt(), ThreadLocalRandom.current().nextDouble());
+		}
+	}
+
+	/**
+	 * Pick and stop tracking the memories to evict so that the given user and the store
+	 * as a whole are back within their limits. The caller deletes them from the store.
+	 */
+	public synchronized List<String> evictionVictims(String userId) {
+		List<String> victims = new ArrayList<>();
+		SampledSet owned = userId != null ? byUser.get(userId) : null;
+		while (maxPerUser > 0 && owned != null && owned.size() > maxPerUser) {
+			victims.add(evictFrom(owned));
+		}
+		while (maxTotal > 0 && all.size() > maxTotal) {
+			victims.add(evictFrom(all));
+		}
+		return victims;
+	}
+
+	public boolean limitsUsers() {
+		return maxPerUser > 0;
+	}
+
+	public boolean limitsTotal() {
+		return maxTotal > 0;
+	}
+
+	public synchronized int size() {
+		return all.size();
+	}
+
+	public synchronized int size(String userId) {
+		SampledSet owned = byUser.get(userId);
+		return owned != null ? owned.size() : 0;
+	}
+
+	public synchronized void clear() {
+		memories.clear();
+		byUser.clear();
+		all.clear();
+	}
+
+	private String evictFrom(SampledSet candidates) {
+		int now = clock.getAsInt();
+		String victim = null;
+		double lowest = Double.POSITIVE_INFINITY;
+		for (String id : candidates.sample(sampleSize, random)) {
+			double retention = policy.retention(memories.get(id), now);
+			if (victim == null || retention < lowest) {
+				victim = id;
+				lowest = retention;
+			}
+		}
+		untrack(victim);
+		return victim;
+	}
+
+	private void removeFromUser(String userId, String id) {
+		SampledSet owned = userId != null ? byUser.get(userId) : null;
+		if (owned != null) {
+			owned.remove(id);
+			if (owned.size() == 0) {
+				byUser.remove(userId);
+			}
+		}
+	}
+
+	private static double importance(MemoryItem item) {
+		Object value = item.getMetadata() != null ? item.getMetadata().get(IMPORTANCE_KEY) : null;
+		if (value instanceof Number number) {
+			return number.doubleValue();
+		}
+		if (value instanceof String text) {
+			try {
+				return Double.parseDouble(text.trim());
+			}
+			catch (NumberFormatException e) {
+				return DEFAULT_IMPORTANCE;
+			}
+		}
+		return DEFAULT_IMPORTANCE;
+	}
+
+	private static IntSupplier secondsClock() {
+		long start = System.nanoTime();
+		return () -> (int) ((System.nanoTime() - start) / 1_000_000_000L);
+	}
+
+}
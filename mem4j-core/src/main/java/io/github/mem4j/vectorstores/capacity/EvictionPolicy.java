@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.capacity;
+
+/**
+ * Ranks stored memories once a capacity limit is exceeded: among the sampled candidates,
+ * the one with the lowest retention score is evicted first.
+ */
+@FunctionalInterface
+public interface EvictionPolicy {
+
+	String LRU = "lru";
+
+	String LFU = "lfu";
+
+	String OLDEST = "oldest";
+
+	String IMPORTANCE = "importance";
+
+	/**
+	 * Retention score of a memory at the given clock tick; lower scores are evicted
+	 * first.
+	 */
+	double retention(TrackedMemory memory, int now);
+
+	/**
+	 * Evict the memory retrieved least recently.
+	 */
+	static EvictionPolicy leastRecentlyUsed() {
+		return (memory, now) -> memory.lastAccess();
+	}
+
+	/**
+	 * Evict the memory retrieved least often, with older retrievals counting less.
+	 */
+	static EvictionPolicy leastFrequentlyUsed() {
+		return (memory, now) -> memory.frequency(now);
+	}
+
+	/**
+	 * Evict the memory updated longest ago.
+	 */
+	static EvictionPolicy oldestUpdate() {
+		return (memory, now) -> memory.updatedAt();
+	}
+
+	/**
+	 * Evict the memory with the lowest {@code importance} metadata value; memories
+	 * without one rank as 0.5.
+	 */
+	static EvictionPolicy lowestImportance() {
+		return (memory, now) -> memory.importance();
+	}
+
+	/**
+	 * Policy for a configuration value: "lru", "lfu", "oldest" or "importance"
+	 */
+	static EvictionPolicy named(String name) {
+		String normalized = name != null ? name.trim().toLowerCase() : LRU;
+		return switch (normalized) {
+			case LRU -> leastRecentlyUsed();
+			case LFU -> leastFrequentlyUsed();
+			case OLDEST -> oldestUpdate();
+			case IMPORTANCE -> lowestImportance();
+			default -> throw new IllegalArgumentException("Unsupported eviction policy: " + name);
+		};
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.capacity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Set of memory ids supporting O(1) insertion, removal and uniform random sampling.
+ * Removal moves the last element into the freed slot. Not thread-safe.
+ */
+final class SampledSet {
+
+	private final List<String> ids = new ArrayList<>();
+
+	private final Map<String, Integer> positions = new HashMap<>();
+
+	int size() {
+		return ids.size();
+	}
+
+	void add(String id) {
+		if (positions.putIfAbsent(id, ids.size()) == null) {
+			ids.add(id);
+		}
+	}
+
+	void remove(String id) {
+		Integer position = positions.remove(id);
+		if (position == null) {
+			return;
+		}
+		String last = ids.remove(ids.size() - 1);
+		if (position < ids.size()) {
+			ids.set(position, last);
+			positions.put(last, position);
+		}
+	}
+
+	void clear() {
+		ids.clear();
+		positions.clear();
+	}
+
+	/**
+	 * Up to {@code count} ids drawn at random with replacement; every id when the set is
+	 * not larger than {@code count}.
+	 */
+	List<String> sample(int count, Random random) {
+		if (ids.size() <= count) {
+			return new ArrayList<>(ids);
+		}
+		List<String> sample = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			sample.add(ids.get(random.nextInt(ids.size())));
+		}
+		return sample;
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.capacity;
+
+import io.github.mem4j.memory.MemoryItem;
+
+/**
+ * Bookkeeping of one stored memory for capacity enforcement: the attributes eviction
+ * policies rank it by, and an approximate record of how it has been retrieved.
+ * <p>
+ * Access tracking is deliberately lossy, like the approximated LRU and LFU of Redis: the
+ * clock ticks once per second, and the access frequency is a logarithmic counter that is
+ * incremented with decreasing probability and loses one step per minute without access.
+ * Both are plain volatile fields, so recording an access costs two writes and no lock.
+ */
+public final class TrackedMemory {
+
+	private static final int COUNTER_MAX = 255;
+
+	// New entries start above zero so they are not evicted before their first retrieval
+	private static final int COUNTER_INITIAL = 5;
+
+	private static final int LOG_FACTOR = 10;
+
+	private static final int DECAY_TICKS = 60;
+
+	private final MemoryItem attributes;
+
+	private final long updatedAt;
+
+	private final double importance;
+
+	private volatile int lastAccess;
+
+	private volatile int counter;
+
+	/**
+	 * @param attributes the memory without its content and embedding
+	 */
+	public TrackedMemory(MemoryItem attributes, long updatedAt, double importance, int now) {
+		this(attributes, updatedAt, importance, now, COUNTER_INITIAL);
+	}
+
+	private TrackedMemory(MemoryItem attributes, long updatedAt, double importance, int lastAccess, int counter) {
+		this.attributes = attributes;
+		this.updatedAt = updatedAt;
+		this.importance = importance;
+		this.lastAccess = lastAccess;
+		this.counter = counter;
+	}
+
+	public String id() {
+		return attributes.getId();
+	}
+
+	/**
+	 * Owner of the memory, or null for memories without one.
+	 */
+	public String userId() {
+		return attributes.getUserId();
+	}
+
+	/**
+	 * The memory without its content and embedding, for matching filters.
+	 */
+	public MemoryItem attributes() {
+		return attributes;
+	}
+
+	/**
+	 * Last update in epoch milliseconds.
+	 */
+	public long updatedAt() {
+		return updatedAt;
+	}
+
+	public double importance() {
+		return importance;
+	}
+
+	/**
+	 * Clock tick of the last retrieval, or of the insertion when never retrieved.
+	 */
+	public int lastAccess() {
+		return lastAccess;
+	}
+
+	/**
+	 * Logarithmic access frequency, decayed by the time since the last access.
+	 */
+	public int frequency(int now) {
+		int decay = (now - lastAccess) / DECAY_TICKS;
+		return Math.max(0, counter - decay);
+	}
+
+	/**
+	 * Record a retrieval at the given clock tick. Concurrent calls may lose increments,
+	 * which only makes the estimate slightly more approximate.
+	 */
+	public void touch(int now, double random) {
+		int current = frequency(now);
+		if (current < COUNTER_MAX) {
+			int base = Math.max(0, current - COUNTER_INITIAL);
+			if (random < 1.0 / (base * LOG_FACTOR + 1)) {
+				current++;
+			}
+		}
+		counter = current;
+		lastAccess = now;
+	}
+
+	/**
+	 * Copy describing a new version of the memory, keeping its access history.
+	 */
+	public TrackedMemory updated(MemoryItem attributes, long updatedAt, double importance) {
+		return new TrackedMemory(attributes, updatedAt, importance, lastAccess, counter);
+	}
+
+}
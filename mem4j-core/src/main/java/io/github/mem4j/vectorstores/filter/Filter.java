@@ -0,0 +1,246 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Typed filter expression over memory items, built from the static factories or parsed
+ * from the map syntax with {@link #from(Map)}.
+ * <p>
+ * Filters are immutable values with structural equality, so stores compile each distinct
+ * filter once into their native form and reuse it. Keys are interpreted as described in
+ * {@link FilterValues}. Values are scalars; numbers match regardless of their type.
+ */
+public sealed interface Filter permits Filter.Eq, Filter.In, Filter.Range, Filter.And, Filter.Or, Filter.Not {
+
+	String AND = "AND";
+
+	String OR = "OR";
+
+	String NOT = "NOT";
+
+	/**
+	 * Map syntax of this filter, parsed back into an equal filter by {@link #from(Map)}.
+	 */
+	Map<String, Object> toMap();
+
+	/**
+	 * Items whose key holds the value; a null value matches items without the key.
+	 */
+	record Eq(String key, Object value) implements Filter {
+
+		public Eq {
+			Objects.requireNonNull(key, "key");
+			requireScalar(key, value);
+		}
+
+		@Override
+		public Map<String, Object> toMap() {
+			return operators(key, "eq", value);
+		}
+
+	}
+
+	/**
+	 * Items whose key holds any of the values.
+	 */
+	record In(String key, List<Object> values) implements Filter {
+
+		public In {
+			Objects.requireNonNull(key, "key");
+			for (Object value : values) {
+				requireScalar(key, value);
+			}
+			values = Collections.unmodifiableList(new ArrayList<>(values));
+		}
+
+		@Override
+		public Map<String, Object> toMap() {
+			return operators(key, "in", values);
+		}
+
+	}
+
+	/**
+	 * Items whose key holds a value between the bounds; a null bound is unbounded.
+	 */
+	record Range(String key, Object lower, boolean lowerInclusive, Object upper,
+			boolean upperInclusive) implements Filter {
+
+		public Range {
+			Objects.requireNonNull(key, "key");
+			if (lower == null && upper == null) {
+				throw new IllegalArgumentException("Range filter on " + key + " needs a bound");
+			}
+			requireScalar(key, lower);
+			requireScalar(key, upper);
+		}
+
+		@Override
+		public Map<String, Object> toMap() {
+			Map<String, Object> operators = new LinkedHashMap<>();
+			if (lower != null) {
+				operators.put(lowerInclusive ? "gte" : "gt", lower);
+			}
+			if (upper != null) {
+				operators.put(upperInclusive ? "lte" : "lt", upper);
+			}
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put(key, operators);
+			return map;
+		}
+
+	}
+
+	/**
+	 * Items matching every filter; matches everything when empty.
+	 */
+	record And(List<Filter> filters) implements Filter {
+
+		public And {
+			filters = List.copyOf(filters);
+		}
+
+		@Override
+		public Map<String, Object> toMap() {
+			return Map.of(AND, filters.stream().map(Filter::toMap).toList());
+		}
+
+	}
+
+	/**
+	 * Items matching any of the filters; matches nothing when empty.
+	 */
+	record Or(List<Filter> filters) implements Filter {
+
+		public Or {
+			filters = List.copyOf(filters);
+		}
+
+		@Override
+		public Map<String, Object> toMap() {
+			return Map.of(OR, filters.stream().map(Filter::toMap).toList());
+		}
+
+	}
+
+	/**
+	 * Items not matching the filter.
+	 */
+	record Not(Filter filter) implements Filter {
+
+		public Not {
+			Objects.requireNonNull(filter, "filter");
+		}
+
+		@Override
+		public Map<String, Object> toMap() {
+			return Map.of(NOT, filter.toMap());
+		}
+
+	}
+
+	/**
+	 * Filter matching every item.
+	 */
+	static Filter all() {
+		return new And(List.of());
+	}
+
+	static Filter eq(String key, Object value) {
+		return new Eq(key, value);
+	}
+
+	static Filter in(String key, Collection<?> values) {
+		return new In(key, new ArrayList<>(values));
+	}
+
+	static Filter in(String key, Object... values) {
+		return new In(key, Arrays.asList(values));
+	}
+
+	static Filter ne(String key, Object value) {
+		return new Not(new Eq(key, value));
+	}
+
+	static Filter nin(String key, Collection<?> values) {
+		return new Not(in(key, values));
+	}
+
+	static Filter gt(String key, Object value) {
+		return new Range(key, value, false, null, false);
+	}
+
+	static Filter gte(String key, Object value) {
+		return new Range(key, value, true, null, false);
+	}
+
+	static Filter lt(String key, Object value) {
+		return new Range(key, null, false, value, false);
+	}
+
+	static Filter lte(String key, Object value) {
+		return new Range(key, null, false, value, true);
+	}
+
+	static Filter and(Filter... filters) {
+		return new And(Arrays.asList(filters));
+	}
+
+	static Filter or(Filter... filters) {
+		return new Or(Arrays.asList(filters));
+	}
+
+	static Filter not(Filter filter) {
+		return new Not(filter);
+	}
+
+	/**
+	 * Parse the map syntax: every entry must hold. A scalar value is an {@link Eq}, a
+	 * collection an {@link In}, and a map applies the operators {@code eq}, {@code ne},
+	 * {@code in}, {@code nin}, {@code gt}, {@code gte}, {@code lt} and {@code lte}. The
+	 * keys {@value #AND} and {@value #OR} take a list of maps, {@value #NOT} a map. Null
+	 * or empty maps match everything.
+	 * @throws IllegalArgumentException for malformed filters
+	 */
+	static Filter from(Map<String, Object> filters) {
+		return FilterParser.parse(filters);
+	}
+
+	private static void requireScalar(String key, Object value) {
+		if (value instanceof Map || value instanceof Collection || (value != null && value.getClass().isArray())) {
+			throw new IllegalArgumentException("Nested filter values are not supported on " + key);
+		}
+	}
+
+	private static Map<String, Object> operators(String key, String operator, Object value) {
+		Map<String, Object> operators = new LinkedHashMap<>();
+		operators.put(operator, value);
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put(key, operators);
+		return map;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of compiled filters, keyed by filter value so that equal filters built
+ * separately share one compiled form. The cache is emptied once it is full; it is
+ * thread-safe.
+ */
+public final class FilterCache<T> {
+
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private final Function<Filter, T> compiler;
+
+	private final int capacity;
+
+	private final Map<Filter, T> compiled = new ConcurrentHashMap<>();
+
+	public FilterCache(Function<Filter, T> compiler) {
+		this(compiler, DEFAULT_CAPACITY);
+	}
+
+	public FilterCache(Function<Filter, T> compiler, int capacity) {
+		this.compiler = compiler;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Compiled form of the filter, compiling it on first use.
+	 * @throws IllegalArgumentException when the filter cannot be compiled
+	 */
+	public T get(Filter filter) {
+		T result = compiled.get(filter);
+		if (result != null) {
+			return result;
+		}
+		result = compiler.apply(filter);
+		if (compiled.size() >= capacity) {
+			compiled.clear();
+		}
+		compiled.put(filter, result);
+		return result;
+	}
+
+	public int size() {
+		return compiled.size();
+	}
+
+}
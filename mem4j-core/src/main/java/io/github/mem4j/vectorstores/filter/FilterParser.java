@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser of the map syntax of {@link Filter#from(Map)}.
+ */
+final class FilterParser {
+
+	private FilterParser() {
+	}
+
+	static Filter parse(Map<?, ?> filters) {
+		if (filters == null || filters.isEmpty()) {
+			return Filter.all();
+		}
+		List<Filter> clauses = new ArrayList<>();
+		for (Map.Entry<?, ?> entry : filters.entrySet()) {
+			String key = String.valueOf(entry.getKey());
+			Object value = entry.getValue();
+			switch (key) {
+				case Filter.AND -> clauses.add(new Filter.And(parseAll(key, value)));
+				case Filter.OR -> clauses.add(new Filter.Or(parseAll(key, value)));
+				case Filter.NOT -> {
+					if (!(value instanceof Map<?, ?> negated)) {
+						throw new IllegalArgumentException(Filter.NOT + " takes a filter map");
+					}
+					clauses.add(new Filter.Not(parse(negated)));
+				}
+				default -> parseKey(key, value, clauses);
+			}
+		}
+		return clauses.size() == 1 ? clauses.get(0) : new Filter.And(clauses);
+	}
+
+	private static List<Filter> parseAll(String operator, Object value) {
+		if (!(value instanceof Collection<?> elements)) {
+			throw new IllegalArgumentException(operator + " takes a list of filter maps");
+		}
+		List<Filter> filters = new ArrayList<>(elements.size());
+		for (Object element : elements) {
+			if (!(element instanceof Map<?, ?> map)) {
+				throw new IllegalArgumentException(operator + " takes a list of filter maps");
+			}
+			filters.add(parse(map));
+		}
+		return filters;
+	}
+
+	private static void parseKey(String key, Object value, List<Filter> clauses) {
+		if (!(value instanceof Map<?, ?> operators)) {
+			clauses.add(value instanceof Collection<?> values ? Filter.in(key, values) : Filter.eq(key, value));
+			return;
+		}
+		Object lower = null;
+		Object upper = null;
+		boolean lowerInclusive = false;
+		boolean upperInclusive = false;
+		for (Map.Entry<?, ?> operator : operators.entrySet()) {
+			String name = String.valueOf(operator.getKey());
+			Object operand = operator.getValue();
+			switch (name) {
+				case "eq" -> clauses.add(Filter.eq(key, operand));
+				case "ne" -> clauses.add(Filter.ne(key, operand));
+				case "in" -> clauses.add(Filter.in(key, values(operand)));
+				case "nin" -> clauses.add(Filter.nin(key, values(operand)));
+				case "gt", "gte" -> {
+					lower = operand;
+					lowerInclusive = "gte".equals(name);
+				}
+				case "lt", "lte" -> {
+					upper = operand;
+					upperInclusive = "lte".equals(name);
+				}
+				default -> throw new IllegalArgumentException("Unsupported filter operator '" + name + "' on " + key);
+			}
+		}
+		if (lower != null || upper != null) {
+			clauses.add(new Filter.Range(key, lower, lowerInclusive, upper, upperInclusive));
+		}
+	}
+
+	private static Collection<?> values(Object operand) {
+		return operand instanceof Collection<?> values ? values : Collections.singletonList(operand);
+	}
+
+}
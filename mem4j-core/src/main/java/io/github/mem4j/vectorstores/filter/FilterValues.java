@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.filter;
+
+import io.github.mem4j.memory.MemoryItem;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Keys and value conversions shared by every {@link Filter} compiler, so that all stores
+ * agree on what a filter matches.
+ * <p>
+ * Keys are the built-in fields ({@code user_id}, {@code agent_id}, {@code run_id},
+ * {@code actor_id}, {@code memory_type}), the timestamps {@code created_at} and
+ * {@code updated_at}, or metadata keys, optionally written as {@code metadata.<key>}.
+ */
+public final class FilterValues {
+
+	public static final String CREATED_AT = "created_at";
+
+	public static final String UPDATED_AT = "updated_at";
+
+	public static final String METADATA_PREFIX = "metadata.";
+
+	private static final String[] BUILT_IN_FIELDS = { "user_id", "agent_id", "run_id", "actor_id", "memory_type" };
+
+	private FilterValues() {
+	}
+
+	/**
+	 * The built-in fields, in a fresh array.
+	 */
+	public static String[] builtInFields() {
+		return BUILT_IN_FIELDS.clone();
+	}
+
+	public static boolean isBuiltIn(String key) {
+		return Arrays.asList(BUILT_IN_FIELDS).contains(key);
+	}
+
+	public static boolean isTimestamp(String key) {
+		return CREATED_AT.equals(key) || UPDATED_AT.equals(key);
+	}
+
+	/**
+	 * Metadata key a filter key refers to, or null for built-in fields and timestamps.
+	 */
+	public static String metadataKey(String key) {
+		if (key.startsWith(METADATA_PREFIX)) {
+			return key.substring(METADATA_PREFIX.length());
+		}
+		return isBuiltIn(key) || isTimestamp(key) ? null : key;
+	}
+
+	/**
+	 * Value of a built-in field of the item, or null.
+	 */
+	public static String fieldValue(MemoryItem item, String field) {
+		return switch (field) {
+			case "user_id" -> item.getUserId();
+			case "agent_id" -> item.getAgentId();
+			case "run_id" -> item.getRunId();
+			case "actor_id" -> item.getActorId();
+			case "memory_type" -> item.getMemoryType();
+			default -> null;
+		};
+	}
+
+	/**
+	 * Timestamp of the item in epoch milliseconds, or null when it has none.
+	 */
+	public static Long timestamp(MemoryItem item, String field) {
+		Instant instant = CREATED_AT.equals(field) ? item.getCreatedAt() : item.getUpdatedAt();
+		return instant != null ? instant.toEpochMilli() : null;
+	}
+
+	/**
+	 * Text form under which a scalar is matched, or null for values that are not matched.
+	 * Numbers are written without trailing zeros, so {@code 1}, {@code 1L}, {@code 1.0}
+	 * and {@code "1"} all match each other.
+	 */
+	public static String canonical(Object value) {
+		if (value == null || value instanceof Map || value instanceof Collection || value.getClass().isArray()) {
+			return null;
+		}
+		if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			return Double.isFinite(number) ? canonical(BigDecimal.valueOf(number)) : Double.toString(number);
+		}
+		if (value instanceof BigDecimal decimal) {
+			return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Numeric value of a canonical text, or null when it is not a finite number.
+	 */
+	public static BigDecimal number(String canonical) {
+		if (canonical == null || canonical.isEmpty()) {
+			return null;
+		}
+		char first = canonical.charAt(0);
+		if (first != '-' && first != '+' && first != '.' && !Character.isDigit(first)) {
+			return null;
+		}
+		try {
+			return new BigDecimal(canonical);
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Numeric range bound.
+	 * @throws IllegalArgumentException when the bound is not a number
+	 */
+	public static BigDecimal bound(String key, Object value) {
+		BigDecimal number = value instanceof Number ? number(canonical(value))
+				: value instanceof String text ? number(text.trim()) : null;
+		if (number == null) {
+			throw new IllegalArgumentException("Invalid numeric bound for " + key + ": " + value);
+		}
+		return number;
+	}
+
+	/**
+	 * Epoch milliseconds of an {@link Instant}, {@link Date}, epoch milliseconds or
+	 * ISO-8601 string.
+	 * @throws IllegalArgumentException for anything else
+	 */
+	public static long timestamp(String key, Object value) {
+		if (value instanceof Number number) {
+			return number.longValue();
+		}
+		if (value instanceof Date date) {
+			return date.getTime();
+		}
+		if (value instanceof TemporalAccessor temporal) {
+			return Instant.from(temporal).toEpochMilli();
+		}
+		if (value instanceof String text) {
+			try {
+				return text.chars().allMatch(Character::isDigit) && !text.isEmpty() ? Long.parseLong(text)
+						: Instant.parse(text).toEpochMilli();
+			}
+			catch (RuntimeException e) {
+				throw new IllegalArgumentException("Invalid timestamp for " + key + ": " + text, e);
+			}
+		}
+		throw new IllegalArgumentException("Invalid timestamp for " + key + ": " + value);
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.filter;
+
+import io.github.mem4j.memory.MemoryItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Compiles {@link Filter}s into predicates over {@link MemoryItem}s, for stores that test
+ * items one by one. Values are compared in their {@link FilterValues#canonical canonical}
+ * form; elements of list metadata values match on their own, and range filters on
+ * metadata compare numeric values only.
+ */
+public final class ItemPredicates {
+
+	private ItemPredicates() {
+	}
+
+	/**
+	 * @throws IllegalArgumentException for range filters on built-in fields
+	 */
+	public static Predicate<MemoryItem> compile(Filter filter) {
+		if (filter instanceof Filter.Eq eq) {
+			return values(eq.key(), Collections.singletonList(eq.value()));
+		}
+		if (filter instanceof Filter.In in) {
+			return values(in.key(), in.values());
+		}
+		if (filter instanceof Filter.Range range) {
+			return range(range);
+		}
+		if (filter instanceof Filter.And and) {
+			List<Predicate<MemoryItem>> predicates = and.filters().stream().map(ItemPredicates::compile).toList();
+			return item -> {
+				for (Predicate<MemoryItem> predicate : predicates) {
+					if (!predicate.test(item)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		}
+		if (filter instanceof Filter.Or or) {
+			List<Predicate<MemoryItem>> predicates = or.filters().stream().map(ItemPredicates::compile).toList();
+			return item -> {
+				for (Predicate<MemoryItem> predicate : predicates) {
+					if (predicate.test(item)) {
+						return true;
+					}
+				}
+				return false;
+			};
+		}
+		return compile(((Filter.Not) filter).filter()).negate();
+	}
+
+	/**
+	 * Copy of the fields of an item that filters match, without its content and
+	 * embedding, for tracking many items compactly.
+	 */
+	public static MemoryItem attributesOf(MemoryItem item) {
+		MemoryItem attributes = new MemoryItem(null, item.getMemoryType());
+		attributes.setId(item.getId());
+		attributes.setUserId(item.getUserId());
+		attributes.setAgentId(item.getAgentId());
+		attributes.setRunId(item.getRunId());
+		attributes.setActorId(item.getActorId());
+		attributes.setMetadata(item.getMetadata() != null ? new HashMap<>(item.getMetadata()) : null);
+		attributes.setCreatedAt(item.getCreatedAt());
+		attributes.setUpdatedAt(item.getUpdatedAt());
+		return attributes;
+	}
+
+	private static Predicate<MemoryItem> values(String key, List<Object> values) {
+		boolean matchesMissing = values.stream().anyMatch(Objects::isNull);
+		if (FilterValues.isTimestamp(key)) {
+			Set<Long> timestamps = new HashSet<>();
+			for (Object value : values) {
+				if (value != null) {
+					timestamps.add(FilterValues.timestamp(key, value));
+				}
+			}
+			return item -> {
+				Long timestamp = FilterValues.timestamp(item, key);
+				return timestamp == null ? matchesMissing : timestamps.contains(timestamp);
+			};
+		}
+		Set<String> canonical = new HashSet<>();
+		for (Object value : values) {
+			if (value != null) {
+				canonical.add(FilterValues.canonical(value));
+			}
+		}
+		String metadataKey = FilterValues.metadataKey(key);
+		if (metadataKey == null) {
+			return item -> {
+				String value = FilterValues.fieldValue(item, key);
+				return value == null ? matchesMissing : canonical.contains(value);
+			};
+		}
+		return item -> {
+			List<String> held = metadataValues(item, metadataKey);
+			if (held.isEmpty()) {
+				return matchesMissing;
+			}
+			for (String value : held) {
+				if (canonical.contains(value)) {
+					return true;
+				}
+			}
+			return false;
+		};
+	}
+
+	private static Predicate<MemoryItem> range(Filter.Range range) {
+		String key = range.key();
+		if (FilterValues.isTimestamp(key)) {
+			long min = range.lower() == null ? Long.MIN_VALUE : FilterValues.timestamp(key, range.lower());
+			long max = range.upper() == null ? Long.MAX_VALUE : FilterValues.timestamp(key, range.upper());
+			boolean lowerInclusive = range.lower() == null || range.lowerInclusive();
+			boolean upperInclusive = range.upper() == null || range.upperInclusive();
+			return item -> {
+				Long timestamp = FilterValues.timestamp(item, key);
+				return timestamp != null && (lowerInclusive ? timestamp >= min : timestamp > min)
+						&& (upperInclusive ? timestamp <= max : timestamp < max);
+			};
+		}
+		String metadataKey = FilterValues.metadataKey(key);
+		if (metadataKey == null) {
+			throw new IllegalArgumentException("Range filters are not supported on " + key);
+		}
+		Predicate<BigDecimal> within = numericRange(range);
+		return item -> {
+			for (String value : metadataValues(item, metadataKey)) {
+				BigDecimal number = FilterValues.number(value);
+				if (number != null && within.test(number)) {
+					return true;
+				}
+			}
+			return false;
+		};
+	}
+
+	/**
+	 * Test of numbers against the bounds of a range on a non-timestamp key.
+	 * @throws IllegalArgumentException when a bound is not a number
+	 */
+	public static Predicate<BigDecimal> numericRange(Filter.Range range) {
+		BigDecimal lower = range.lower() != null ? FilterValues.bound(range.key(), range.lower()) : null;
+		BigDecimal upper = range.upper() != null ? FilterValues.bound(range.key(), range.upper()) : null;
+		boolean lowerInclusive = range.lowerInclusive();
+		boolean upperInclusive = range.upperInclusive();
+		return number -> {
+			if (lower != null) {
+				int compared = number.compareTo(lower);
+				if (compared < 0 || (compared == 0 && !lowerInclusive)) {
+					return false;
+				}
+			}
+			if (upper != null) {
+				int compared = number.compareTo(upper);
+				return compared < 0 || (compared == 0 && upperInclusive);
+			}
+			return true;
+		};
+	}
+
+	/**
+	 * Canonical values held under a metadata key, one per list element.
+	 */
+	private static List<String> metadataValues(MemoryItem item, String key) {
+		Object value = item.getMetadata() != null ? item.getMetadata().get(key) : null;
+		if (!(value instanceof Collection<?> elements)) {
+			String canonical = FilterValues.canonical(value);
+			return canonical != null ? List.of(canonical) : List.of();
+		}
+		List<String> values = new ArrayList<>(elements.size());
+		for (Object element : elements) {
+			String canonical = FilterValues.canonical(element);
+			if (canonical != null) {
+				values.add(canonical);
+			}
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.vectorstores.similarity.Similarity;
+
+/**
+ * Top-k collector for several normalized queries over one pass of the stored vectors.
+ * <p>
+ * Candidates are buffered into blocks sized to stay in cache, and every query is scored
+ * against a block before the next one is read, so the scan is a blocked matrix multiply
+ * of the queries with the stored vectors: each vector is loaded once however many queries
+ * there are. Vectors that cannot be scored in place, like those of a
+ * {@link MappedSegment}, are copied into the block once. This class is not thread-safe;
+ * parallel scans use one collector per range and {@link #merge} them.
+ */
+public final class BatchTopK {
+
+	/**
+	 * Budget for the vectors of one block, in floats (128 KB).
+	 */
+	private static final int BLOCK_FLOATS = 1 << 15;
+
+	private static final int MAX_BLOCK_VECTORS = 64;
+
+	/**
+	 * Copies the vector of an ordinal into a target array.
+	 */
+	public interface VectorReader {
+
+		void read(int ordinal, float[] target, int offset);
+
+	}
+
+	private final float[][] queries;
+
+	private final int k;
+
+	private final double minScore;
+
+	private final NeighborQueue[] top;
+
+	private final int[] ordinals;
+
+	private final float[][] chunks;
+
+	private final int[] offsets;
+
+	private float[] staging;
+
+	private int count;
+
+	public BatchTopK(float[][] queries, int k, double minScore, int expected) {
+		int dimension = queries.length > 0 ? queries[0].length : 1;
+		int blockSize = Math.max(1, Math.min(MAX_BLOCK_VECTORS, BLOCK_FLOATS / Math.max(1, dimension)));
+		this.queries = queries;
+		this.k = k;
+		this.minScore = minScore;
+		this.top = new NeighborQueue[queries.length];
+		for (int q = 0; q < queries.length; q++) {
+			top[q] = new NeighborQueue(Math.min(k, expected), false);
+		}
+		this.ordinals = new int[blockSize];
+		this.chunks = new float[blockSize][];
+		this.offsets = new int[blockSize];
+	}
+
+	/**
+	 * Add a candidate whose vector is stored at {@code offset} in a packed chunk.
+	 */
+	public void offer(int ordinal, float[] chunk, int offset) {
+		ordinals[count] = ordinal;
+		chunks[count] = chunk;
+		offsets[count] = offset;
+		if (++count == ordinals.length) {
+			flush();
+		}
+	}
+
+	/**
+	 * Add a candidate whose vector is copied into the block by the reader.
+	 */
+	public void offer(int ordinal, VectorReader reader) {
+		int dimension = queries[0].length;
+		if (staging == null) {
+			staging = new float[ordinals.length * dimension];
+		}
+		reader.read(ordinal, staging, count * dimension);
+		offer(ordinal, staging, count * dimension);
+	}
+
+	/**
+	 * Score the buffered block and return the best {@code k} per query, as min-heaps in
+	 * query order.
+	 */
+	public NeighborQueue[] finish() {
+		flush();
+		return top;
+	}
+
+	/**
+	 * Merge the per-query heaps of a collector over another range into these.
+	 */
+	public static void merge(NeighborQueue[] into, NeighborQueue[] from, int k) {
+		for (int q = 0; q < into.length; q++) {
+			NeighborQueue source = from[q];
+			while (!source.isEmpty()) {
+				into[q].insertWithOverflow(source.topNode(), source.topScore(), k);
+				source.pop();
+			}
+		}
+	}
+
+	private void flush() {
+		for (int q = 0; q < queries.length; q++) {
+			float[] query = queries[q];
+			NeighborQueue queue = top[q];
+			for (int i = 0; i < count; i++) {
+				float score = Similarity.dot(query, chunks[i], offsets[i]);
+				if (score >= minScore) {
+					queue.insertWithOverflow(ordinals[i], score, k);
+				}
+			}
+		}
+		count = 0;
+	}
+
+}
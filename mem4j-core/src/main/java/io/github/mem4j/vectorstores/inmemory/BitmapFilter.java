@@ -0,0 +1,319 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.filter.FilterValues;
+import io.github.mem4j.vectorstores.filter.ItemPredicates;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Filter} compiled into set operations over {@link CompressedBitmap}s, so that
+ * the matching ordinals are known before any vector is scored.
+ * <p>
+ * Equality and membership clauses are answered from the postings of the
+ * {@link BitmapIndex}, numeric ranges on metadata from the postings of the values within
+ * the range, and timestamp ranges by checking only the ordinals left by the other
+ * clauses. Conjunctions evaluate their cheapest clauses first and pass the narrowed
+ * candidates on, so later clauses only touch what is left. Timestamps are compared with
+ * millisecond precision.
+ */
+public final class BitmapFilter {
+
+	public static final String CREATED_AT = FilterValues.CREATED_AT;
+
+	public static final String UPDATED_AT = FilterValues.UPDATED_AT;
+
+	/**
+	 * Timestamp of entries that have none; never within a range.
+	 */
+	public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	/**
+	 * Ordinal sets and timestamps a filter is evaluated against.
+	 */
+	public interface Source {
+
+		/**
+		 * Ordinals holding the canonical value for the indexed field.
+		 */
+		CompressedBitmap postings(String field, String value);
+
+		/**
+		 * Ordinals holding any canonical value for the indexed field that the predicate
+		 * accepts.
+		 */
+		CompressedBitmap matching(String field, Predicate<String> accept);
+
+		/**
+		 * Every ordinal that may hold an entry.
+		 */
+		CompressedBitmap all();
+
+		/**
+		 * Epoch milliseconds of {@link #CREATED_AT} or {@link #UPDATED_AT}, or
+		 * {@link #NO_TIMESTAMP}.
+		 */
+		long timestamp(String field, int ordinal);
+
+	}
+
+	/**
+	 * Compiled clause; narrows the candidates, or every ordinal when they are null.
+	 */
+	private interface Node {
+
+		CompressedBitmap evaluate(Source source, CompressedBitmap candidates);
+
+		/**
+		 * Relative evaluation cost; conjunctions run cheap clauses first.
+		 */
+		int cost();
+
+	}
+
+	/**
+	 * Entries whose field holds one of the values, a null value standing for no value.
+	 */
+	private record ValuesNode(String field, List<String> values) implements Node {
+
+		@Override
+		public CompressedBitmap evaluate(Source source, CompressedBitmap candidates) {
+			CompressedBitmap result = new CompressedBitmap();
+			for (String value : values) {
+				result = result.or(value != null ? source.postings(field, value)
+						: source.all().andNot(source.matching(field, any -> true)));
+			}
+			return candidates != null ? result.and(candidates) : result;
+		}
+
+		@Override
+		public int cost() {
+			return 0;
+		}
+
+	}
+
+	/**
+	 * Entries holding a numeric value within the range.
+	 */
+	private record NumericRangeNode(String field, Predicate<BigDecimal> within) implements Node {
+
+		@Override
+		public CompressedBitmap evaluate(Source source, CompressedBitmap candidates) {
+			CompressedBitmap result = source.matching(field, value -> {
+				BigDecimal number = FilterValues.number(value);
+				return number != null && within.test(number);
+			});
+			return candidates != null ? result.and(candidates) : result;
+		}
+
+		@Override
+		public int cost() {
+			return 1;
+		}
+
+	}
+
+	/**
+	 * Entries whose timestamp lies within {@code [min, max]}, or whose timestamp is
+	 * missing when {@code missing} is set.
+	 */
+	private record TimestampNode(String field, long min, long max, boolean missing) implements Node {
+
+		@Override
+		public CompressedBitmap evaluate(Source source, CompressedBitmap candidates) {
+			CompressedBitmap base = candidates != null ? candidates : source.all();
+			return base.filter(ordinal -> {
+				long timestamp = source.timestamp(field, ordinal);
+				return timestamp == NO_TIMESTAMP ? missing : timestamp >= min && timestamp <= max;
+			});
+		}
+
+		@Override
+		public int cost() {
+			return 2;
+		}
+
+	}
+
+	private record AndNode(List<Node> nodes) implements Node {
+
+		@Override
+		public CompressedBitmap evaluate(Source source, CompressedBitmap candidates) {
+			CompressedBitmap result = candidates;
+			for (Node node : nodes) {
+				result = node.evaluate(source, result);
+				if (result.isEmpty()) {
+					return result;
+				}
+			}
+			return result != null ? result : source.all();
+		}
+
+		@Override
+		public int cost() {
+			return nodes.stream().mapToInt(Node::cost).max().orElse(0);
+		}
+
+	}
+
+	private record OrNode(List<Node> nodes) implements Node {
+
+		@Override
+		public CompressedBitmap evaluate(Source source, CompressedBitmap candidates) {
+			CompressedBitmap result = new CompressedBitmap();
+			for (Node node : nodes) {
+				result = result.or(node.evaluate(source, candidates));
+			}
+			return result;
+		}
+
+		@Override
+		public int cost() {
+			return nodes.stream().mapToInt(Node::cost).max().orElse(0);
+		}
+
+	}
+
+	private record NotNode(Node node) implements Node {
+
+		@Override
+		public CompressedBitmap evaluate(Source source, CompressedBitmap candidates) {
+			CompressedBitmap base = candidates != null ? candidates : source.all();
+			return base.andNot(node.evaluate(source, base));
+		}
+
+		@Override
+		public int cost() {
+			return node.cost() + 1;
+		}
+
+	}
+
+	private final Node root;
+
+	private BitmapFilter(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Compile a filter; stores cache the result per distinct filter.
+	 * @throws IllegalArgumentException for range filters on built-in fields or with
+	 * invalid bounds
+	 */
+	public static BitmapFilter compile(Filter filter) {
+		return new BitmapFilter(node(filter));
+	}
+
+	/**
+	 * Whether the filter matches every entry.
+	 */
+	public boolean isEmpty() {
+		return root instanceof AndNode and && and.nodes().isEmpty();
+	}
+
+	/**
+	 * Ordinals of the source matching the filter. Deleted entries are not excluded unless
+	 * the source's postings omit them.
+	 */
+	public CompressedBitmap evaluate(Source source) {
+		return root.evaluate(source, null);
+	}
+
+	private static Node node(Filter filter) {
+		if (filter instanceof Filter.Eq eq) {
+			return values(eq.key(), Collections.singletonList(eq.value()));
+		}
+		if (filter instanceof Filter.In in) {
+			return values(in.key(), in.values());
+		}
+		if (filter instanceof Filter.Range range) {
+			return range(range);
+		}
+		if (filter instanceof Filter.And and) {
+			List<Node> nodes = new ArrayList<>();
+			for (Filter child : and.filters()) {
+				Node node = node(child);
+				if (node instanceof AndNode nested) {
+					nodes.addAll(nested.nodes());
+				}
+				else {
+					nodes.add(node);
+				}
+			}
+			nodes.sort(Comparator.comparingInt(Node::cost));
+			return new AndNode(List.copyOf(nodes));
+		}
+		if (filter instanceof Filter.Or or) {
+			return new OrNode(or.filters().stream().map(BitmapFilter::node).toList());
+		}
+		return new NotNode(node(((Filter.Not) filter).filter()));
+	}
+
+	private static Node values(String key, List<Object> values) {
+		if (FilterValues.isTimestamp(key)) {
+			List<Node> nodes = new ArrayList<>(values.size());
+			for (Object value : values) {
+				long timestamp = value != null ? FilterValues.timestamp(key, value) : NO_TIMESTAMP;
+				nodes.add(new TimestampNode(key, timestamp, timestamp, value == null));
+			}
+			return nodes.size() == 1 ? nodes.get(0) : new OrNode(List.copyOf(nodes));
+		}
+		List<String> canonical = new ArrayList<>(values.size());
+		for (Object value : values) {
+			canonical.add(FilterValues.canonical(value));
+		}
+		return new ValuesNode(field(key), canonical);
+	}
+
+	private static Node range(Filter.Range range) {
+		String key = range.key();
+		if (!FilterValues.isTimestamp(key)) {
+			if (FilterValues.metadataKey(key) == null) {
+				throw new IllegalArgumentException("Range filters are not supported on " + key);
+			}
+			return new NumericRangeNode(field(key), ItemPredicates.numericRange(range));
+		}
+		long min = Long.MIN_VALUE + 1;
+		long max = Long.MAX_VALUE;
+		if (range.lower() != null) {
+			long lower = FilterValues.timestamp(key, range.lower());
+			min = range.lowerInclusive() || lower == Long.MAX_VALUE ? lower : lower + 1;
+		}
+		if (range.upper() != null) {
+			long upper = FilterValues.timestamp(key, range.upper());
+			max = range.upperInclusive() || upper == Long.MIN_VALUE ? upper : upper - 1;
+		}
+		return new TimestampNode(key, min, max, false);
+	}
+
+	/**
+	 * Index field of a filter key.
+	 */
+	private static String field(String key) {
+		String metadataKey = FilterValues.metadataKey(key);
+		return metadataKey != null ? FilterValues.METADATA_PREFIX + metadataKey : key;
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.FilterValues;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index from (field, value) pairs to the {@link CompressedBitmap} of the
+ * ordinals holding that value.
+ * <p>
+ * The built-in fields such as {@code user_id} are indexed under their own name, and every
+ * metadata key under {@code metadata.<key>}. Elements of list values are indexed one by
+ * one; nested maps are not indexed. Values are indexed in their
+ * {@link FilterValues#canonical canonical} text form. This class is not thread-safe;
+ * callers guard it with their own lock.
+ */
+public final class BitmapIndex {
+
+	private static final String[] BUILT_IN_FIELDS = FilterValues.builtInFields();
+
+	private final Map<String, Map<String, CompressedBitmap>> fields = new HashMap<>();
+
+	/**
+	 * Index every filterable value of the item under the ordinal.
+	 */
+	public void add(MemoryItem item, int ordinal) {
+		forEachValue(item, (field, value) -> add(field, value, ordinal));
+	}
+
+	/**
+	 * Drop the ordinal from the bitmaps of the item's values, as indexed by
+	 * {@link #add(MemoryItem, int)}.
+	 */
+	public void remove(MemoryItem item, int ordinal) {
+		forEachValue(item, (field, value) -> {
+			Map<String, CompressedBitmap> values = fields.get(field);
+			CompressedBitmap bitmap = values != null ? values.get(value) : null;
+			if (bitmap == null) {
+				return;
+			}
+			bitmap.remove(ordinal);
+			if (bitmap.isEmpty()) {
+				values.remove(value);
+				if (values.isEmpty()) {
+					fields.remove(field);
+				}
+			}
+		});
+	}
+
+	public void add(String field, String value, int ordinal) {
+		fields.computeIfAbsent(field, f -> new HashMap<>())
+			.computeIfAbsent(value, v -> new CompressedBitmap())
+			.add(ordinal);
+	}
+
+	/**
+	 * Ordinals holding the value. The returned bitmap is only valid until the next
+	 * modification and must not be modified.
+	 */
+	public CompressedBitmap get(String field, String value) {
+		Map<String, CompressedBitmap> values = fields.get(field);
+		CompressedBitmap bitmap = values != null ? values.get(value) : null;
+		return bitmap != null ? bitmap : new CompressedBitmap();
+	}
+
+	/**
+	 * Ordinals holding any value of the field accepted by the predicate.
+	 */
+	public CompressedBitmap matching(String field, Predicate<String> accept) {
+		CompressedBitmap matching = new CompressedBitmap();
+		for (Map.Entry<String, CompressedBitmap> entry : values(field).entrySet()) {
+			if (accept.test(entry.getKey())) {
+				matching = matching.or(entry.getValue());
+			}
+		}
+		return matching;
+	}
+
+	public Set<String> fields() {
+		return Collections.unmodifiableSet(fields.keySet());
+	}
+
+	/**
+	 * Bitmaps of every indexed value of the field.
+	 */
+	public Map<String, CompressedBitmap> values(String field) {
+		Map<String, CompressedBitmap> values = fields.get(field);
+		return values != null ? Collections.unmodifiableMap(values) : Map.of();
+	}
+
+	/**
+	 * Number of distinct values indexed for the field.
+	 */
+	public int cardinality(String field) {
+		return values(field).size();
+	}
+
+	public void clear() {
+		fields.clear();
+	}
+
+	/**
+	 * Visit the (field, canonical value) pairs an item is indexed under.
+	 */
+	static void forEachValue(MemoryItem item, BiConsumer<String, String> action) {
+		for (String field : BUILT_IN_FIELDS) {
+			String value = FilterValues.fieldValue(item, field);
+			if (value != null) {
+				action.accept(field, value);
+			}
+		}
+		if (item.getMetadata() == null) {
+			return;
+		}
+		for (Map.Entry<String, Object> entry : item.getMetadata().entrySet()) {
+			String field = FilterValues.METADATA_PREFIX + entry.getKey();
+			if (entry.getValue() instanceof Collection<?> elements) {
+				for (Object element : elements) {
+					String value = FilterValues.canonical(element);
+					if (value != null) {
+						action.accept(field, value);
+					}
+				}
+			}
+			else {
+				String value = FilterValues.canonical(entry.getValue());
+				if (value != null) {
+					action.accept(field, value);
+				}
+			}
+		}
+	}
+
+}
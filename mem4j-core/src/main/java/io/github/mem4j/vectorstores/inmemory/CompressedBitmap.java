@@ -0,0 +1,613 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed set of non-negative ints, split into blocks of 65536 values by their high 16
+ * bits.
+ * <p>
+ * A block holding at most 4096 values is a sorted array of its low 16 bits, a denser one
+ * is a 8 KiB bitset, so a set never takes much more than two bytes per value and dense
+ * sets one bit per value. Intersections, unions and differences work block by block
+ * without decompressing. This is the container layout of Roaring bitmaps.
+ * <p>
+ * {@link #add(int)} and {@link #remove(int)} modify the set in place; set operations
+ * return new sets that share nothing with their operands. Not thread-safe for writers,
+ * but concurrent readers are fine.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.06549">Lemire et al., 2016</a>
+ */
+public final class CompressedBitmap {
+
+	/**
+	 * Largest block stored as an array; 4096 chars take the 8 KiB of a bitset block.
+	 */
+	private static final int ARRAY_MAX = 4096;
+
+	private static final int BITSET_WORDS = 1024;
+
+	private char[] keys = new char[4];
+
+	private Container[] containers = new Container[4];
+
+	private int blocks;
+
+	public CompressedBitmap() {
+	}
+
+	/**
+	 * Set of the values in {@code [from, to)}.
+	 */
+	public static CompressedBitmap range(int from, int to) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int start = from; start < to;) {
+			int high = start >>> 16;
+			int end = (int) Math.min(to, ((long) high + 1) << 16);
+			long[] words = new long[BITSET_WORDS];
+			for (int value = start & 0xFFFF, last = (end - 1) & 0xFFFF; value <= last;) {
+				int word = value >>> 6;
+				int bits = Math.min(64 - (value & 63), last - value + 1);
+				words[word] |= (bits == 64 ? -1L : (1L << bits) - 1) << (value & 63);
+				value += bits;
+			}
+			bitmap.append((char) high, new BitsetContainer(words, end - start).normalize());
+			start = end;
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Read a set written by {@link #serialize()}, starting at the buffer's position.
+	 */
+	public static CompressedBitmap deserialize(ByteBuffer buffer) {
+		ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		CompressedBitmap bitmap = new CompressedBitmap();
+		int count = in.getInt();
+		for (int i = 0; i < count; i++) {
+			char key = in.getChar();
+			int cardinality = in.getInt();
+			if (cardinality <= ARRAY_MAX) {
+				char[] values = new char[cardinality];
+				in.asCharBuffer().get(values);
+				in.position(in.position() + cardinality * Character.BYTES);
+				bitmap.append(key, new ArrayContainer(values, cardinality));
+			}
+			else {
+				long[] words = new long[BITSET_WORDS];
+				in.asLongBuffer().get(words);
+				in.position(in.position() + BITSET_WORDS * Long.BYTES);
+				bitmap.append(key, new BitsetContainer(words, cardinality));
+			}
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Little-endian encoding of the set: the block count, then per block its key, its
+	 * cardinality and either its sorted values or its bitset words.
+	 */
+	public byte[] serialize() {
+		int bytes = Integer.BYTES;
+		for (int i = 0; i < blocks; i++) {
+			int cardinality = containers[i].cardinality();
+			bytes += Character.BYTES + Integer.BYTES
+					+ (cardinality <= ARRAY_MAX ? cardinality * Character.BYTES : BITSET_WORDS * Long.BYTES);
+		}
+		ByteBuffer out = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(blocks);
+		for (int i = 0; i < blocks; i++) {
+			out.putChar(keys[i]);
+			out.putInt(containers[i].cardinality());
+			containers[i].writeTo(out);
+		}
+		return out.array();
+	}
+
+	public boolean contains(int value) {
+		int index = find((char) (value >>> 16));
+		return index >= 0 && containers[index].contains((char) value);
+	}
+
+	public void add(int value) {
+		checkValue(value);
+		char key = (char) (value >>> 16);
+		// Values are mostly added in increasing order
+		int index = blocks > 0 && keys[blocks - 1] == key ? blocks - 1 : find(key);
+		if (index >= 0) {
+			containers[index] = containers[index].add((char) value);
+			return;
+		}
+		insertAt(-index - 1, key, new ArrayContainer(new char[] { (char) value }, 1));
+	}
+
+	public void remove(int value) {
+		int index = find((char) (value >>> 16));
+		if (index < 0) {
+			return;
+		}
+		Container container = containers[index].remove((char) value);
+		if (container.cardinality() > 0) {
+			containers[index] = container;
+			return;
+		}
+		System.arraycopy(keys, index + 1, keys, index, blocks - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, blocks - index - 1);
+		containers[--blocks] = null;
+	}
+
+	public int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < blocks; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return blocks == 0;
+	}
+
+	/**
+	 * Values present in both sets.
+	 */
+	public CompressedBitmap and(CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < blocks && j < other.blocks) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			}
+			else if (keys[i] > other.keys[j]) {
+				j++;
+			}
+			else {
+				result.appendNonEmpty(keys[i], containers[i++].and(other.containers[j++]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Values present in either set.
+	 */
+	public CompressedBitmap or(CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < blocks || j < other.blocks) {
+			if (j >= other.blocks || i < blocks && keys[i] < other.keys[j]) {
+				result.append(keys[i], containers[i++].copy());
+			}
+			else if (i >= blocks || keys[i] > other.keys[j]) {
+				result.append(other.keys[j], other.containers[j++].copy());
+			}
+			else {
+				result.append(keys[i], containers[i++].or(other.containers[j++]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Values of this set that are not in the other.
+	 */
+	public CompressedBitmap andNot(CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		int j = 0;
+		for (int i = 0; i < blocks; i++) {
+			while (j < other.blocks && other.keys[j] < keys[i]) {
+				j++;
+			}
+			if (j < other.blocks && other.keys[j] == keys[i]) {
+				result.appendNonEmpty(keys[i], containers[i].andNot(other.containers[j]));
+			}
+			else {
+				result.append(keys[i], containers[i].copy());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Values of the set accepted by the predicate.
+	 */
+	public CompressedBitmap filter(IntPredicate predicate) {
+		CompressedBitmap result = new CompressedBitmap();
+		forEach(value -> {
+			if (predicate.test(value)) {
+				result.add(value);
+			}
+			return true;
+		});
+		return result;
+	}
+
+	/**
+	 * Visit the values in ascending order until the action returns false.
+	 */
+	public void forEach(IntPredicate action) {
+		for (int i = 0; i < blocks; i++) {
+			if (!containers[i].forEach(keys[i] << 16, action)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The values in ascending order.
+	 */
+	public int[] toArray() {
+		int[] values = new int[cardinality()];
+		int[] count = new int[1];
+		forEach(value -> {
+			values[count[0]++] = value;
+			return true;
+		});
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	private int find(char key) {
+		return Arrays.binarySearch(keys, 0, blocks, key);
+	}
+
+	private void append(char key, Container container) {
+		insertAt(blocks, key, container);
+	}
+
+	private void appendNonEmpty(char key, Container container) {
+		if (container.cardinality() > 0) {
+			append(key, container);
+		}
+	}
+
+	private void insertAt(int index, char key, Container container) {
+		if (blocks == keys.length) {
+			keys = Arrays.copyOf(keys, blocks * 2);
+			containers = Arrays.copyOf(containers, blocks * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, blocks - index);
+		System.arraycopy(containers, index, containers, index + 1, blocks - index);
+		keys[index] = key;
+		containers[index] = container;
+		blocks++;
+	}
+
+	private static void checkValue(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Bitmap values must not be negative: " + value);
+		}
+	}
+
+	/**
+	 * The low 16 bits of the values of one block.
+	 */
+	private abstract static sealed class Container permits ArrayContainer, BitsetContainer {
+
+		abstract int cardinality();
+
+		abstract boolean contains(char value);
+
+		/**
+		 * @return this container or, when it changed representation, its replacement
+		 */
+		abstract Container add(char value);
+
+		/**
+		 * @return this container or, when it changed representation, its replacement
+		 */
+		abstract Container remove(char value);
+
+		abstract boolean forEach(int high, IntPredicate action);
+
+		abstract Container copy();
+
+		abstract void writeTo(ByteBuffer out);
+
+		Container and(Container other) {
+			if (this instanceof BitsetContainer a && other instanceof BitsetContainer b) {
+				long[] words = new long[BITSET_WORDS];
+				for (int i = 0; i < BITSET_WORDS; i++) {
+					words[i] = a.words[i] & b.words[i];
+				}
+				return BitsetContainer.of(words);
+			}
+			// Probe the other container with each value of the smaller array
+			ArrayContainer array = this instanceof ArrayContainer a
+					&& (other instanceof BitsetContainer || a.size <= other.cardinality()) ? a : (ArrayContainer) other;
+			Container probe = array == this ? other : this;
+			char[] values = new char[array.size];
+			int size = 0;
+			for (int i = 0; i < array.size; i++) {
+				if (probe.contains(array.values[i])) {
+					values[size++] = array.values[i];
+				}
+			}
+			return new ArrayContainer(values, size);
+		}
+
+		Container or(Container other) {
+			if (this instanceof ArrayContainer a && other instanceof ArrayContainer b && a.size + b.size <= ARRAY_MAX) {
+				char[] values = new char[a.size + b.size];
+				int size = 0;
+				int i = 0;
+				int j = 0;
+				while (i < a.size && j < b.size) {
+					if (a.values[i] < b.values[j]) {
+						values[size++] = a.values[i++];
+					}
+					else if (a.values[i] > b.values[j]) {
+						values[size++] = b.values[j++];
+					}
+					else {
+						values[size++] = a.values[i++];
+						j++;
+					}
+				}
+				while (i < a.size) {
+					values[size++] = a.values[i++];
+				}
+				while (j < b.size) {
+					values[size++] = b.values[j++];
+				}
+				return new ArrayContainer(values, size);
+			}
+			long[] words = toWords();
+			other.orInto(words);
+			return BitsetContainer.of(words).normalize();
+		}
+
+		Container andNot(Container other) {
+			if (this instanceof ArrayContainer a) {
+				char[] values = new char[a.size];
+				int size = 0;
+				for (int i = 0; i < a.size; i++) {
+					if (!other.contains(a.values[i])) {
+						values[size++] = a.values[i];
+					}
+				}
+				return new ArrayContainer(values, size);
+			}
+			long[] words = toWords();
+			if (other instanceof BitsetContainer b) {
+				for (int i = 0; i < BITSET_WORDS; i++) {
+					words[i] &= ~b.words[i];
+				}
+			}
+			else {
+				ArrayContainer b = (ArrayContainer) other;
+				for (int i = 0; i < b.size; i++) {
+					words[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+				}
+			}
+			return BitsetContainer.of(words).normalize();
+		}
+
+		/**
+		 * Copy of the container as bitset words.
+		 */
+		abstract long[] toWords();
+
+		abstract void orInto(long[] words);
+
+	}
+
+	private static final class ArrayContainer extends Container {
+
+		private char[] values;
+
+		private int size;
+
+		ArrayContainer(char[] values, int size) {
+			this.values = values;
+			this.size = size;
+		}
+
+		@Override
+		int cardinality() {
+			return size;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(values, 0, size, value) >= 0;
+		}
+
+		@Override
+		Container add(char value) {
+			int index = size > 0 && values[size - 1] < value ? -size - 1 : Arrays.binarySearch(values, 0, size, value);
+			if (index >= 0) {
+				return this;
+			}
+			if (size == ARRAY_MAX) {
+				return BitsetContainer.of(toWords()).add(value);
+			}
+			index = -index - 1;
+			if (size == values.length) {
+				values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, size * 2)));
+			}
+			System.arraycopy(values, index, values, index + 1, size - index);
+			values[index] = value;
+			size++;
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			int index = Arrays.binarySearch(values, 0, size, value);
+			if (index >= 0) {
+				System.arraycopy(values, index + 1, values, index, size - index - 1);
+				size--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean forEach(int high, IntPredicate action) {
+			for (int i = 0; i < size; i++) {
+				if (!action.test(high | values[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(values, size), size);
+		}
+
+		@Override
+		void writeTo(ByteBuffer out) {
+			for (int i = 0; i < size; i++) {
+				out.putChar(values[i]);
+			}
+		}
+
+		@Override
+		long[] toWords() {
+			long[] words = new long[BITSET_WORDS];
+			orInto(words);
+			return words;
+		}
+
+		@Override
+		void orInto(long[] words) {
+			for (int i = 0; i < size; i++) {
+				words[values[i] >>> 6] |= 1L << values[i];
+			}
+		}
+
+	}
+
+	private static final class BitsetContainer extends Container {
+
+		private final long[] words;
+
+		private int cardinality;
+
+		BitsetContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		static BitsetContainer of(long[] words) {
+			int cardinality = 0;
+			for (long word : words) {
+				cardinality += Long.bitCount(word);
+			}
+			return new BitsetContainer(words, cardinality);
+		}
+
+		/**
+		 * This container, or an array container when it became sparse enough.
+		 */
+		Container normalize() {
+			if (cardinality > ARRAY_MAX) {
+				return this;
+			}
+			char[] values = new char[cardinality];
+			int[] size = new int[1];
+			forEach(0, value -> {
+				values[size[0]++] = (char) value;
+				return true;
+			});
+			return new ArrayContainer(values, cardinality);
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		Container add(char value) {
+			long bit = 1L << value;
+			if ((words[value >>> 6] & bit) == 0) {
+				words[value >>> 6] |= bit;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			long bit = 1L << value;
+			if ((words[value >>> 6] & bit) == 0) {
+				return this;
+			}
+			words[value >>> 6] &= ~bit;
+			cardinality--;
+			return normalize();
+		}
+
+		@Override
+		boolean forEach(int high, IntPredicate action) {
+			for (int i = 0; i < BITSET_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					if (!action.test(high | (i << 6) | Long.numberOfTrailingZeros(word))) {
+						return false;
+					}
+					word &= word - 1;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		Container copy() {
+			return new BitsetContainer(words.clone(), cardinality);
+		}
+
+		@Override
+		void writeTo(ByteBuffer out) {
+			for (long word : words) {
+				out.putLong(word);
+			}
+		}
+
+		@Override
+		long[] toWords() {
+			return words.clone();
+		}
+
+		@Override
+		void orInto(long[] target) {
+			for (int i = 0; i < BITSET_WORDS; i++) {
+				target[i] |= words[i];
+			}
+		}
+
+	}
+
+}
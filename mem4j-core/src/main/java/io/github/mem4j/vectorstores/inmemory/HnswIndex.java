@@ -0,0 +1,368 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph over vector ordinals.
+ * <p>
+ * Nodes are the ordinals of an external vector storage, reached through a {@link Scorer}.
+ * The graph supports incremental inserts and soft deletes: a deleted node keeps its links
+ * so it still routes searches, but it is never returned. Inserts must be serialized by
+ * the caller; searches may run concurrently with each other.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.09320">Malkov &amp; Yashunin, 2016</a>
+ */
+public final class HnswIndex {
+
+	private static final int MAX_LEVEL = 16;
+
+	/**
+	 * Access to the indexed vectors. Higher scores mean closer vectors.
+	 */
+	public interface Scorer {
+
+		float[] vector(int ordinal);
+
+		float score(float[] query, int ordinal);
+
+	}
+
+	private final Scorer scorer;
+
+	private final int m;
+
+	private final int maxConn0;
+
+	private final int efConstruction;
+
+	private final double levelMultiplier;
+
+	private final Random random = new Random(42);
+
+	private final BitSet deleted = new BitSet();
+
+	private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+	// links[node][level] = {count, neighbor...}; null for ordinals that are not indexed
+	private int[][][] links = new int[16][][];
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	private int size;
+
+	public HnswIndex(Scorer scorer, int m, int efConstruction) {
+		if (m < 2) {
+			throw new IllegalArgumentException("HNSW M must be at least 2: " + m);
+		}
+		this.scorer = scorer;
+		this.m = m;
+		this.maxConn0 = m * 2;
+		this.efConstruction = Math.max(efConstruction, m);
+		this.levelMultiplier = 1.0 / Math.log(m);
+	}
+
+	/**
+	 * Number of indexed nodes, including soft-deleted ones.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int deletedCount() {
+		return deleted.cardinality();
+	}
+
+	public boolean contains(int ordinal) {
+		return ordinal < links.length && links[ordinal] != null;
+	}
+
+	/**
+	 * Link the vector stored at the given ordinal into the graph.
+	 */
+	public void insert(int ordinal) {
+		if (contains(ordinal)) {
+			throw new IllegalArgumentException("Ordinal already indexed: " + ordinal);
+		}
+		float[] vector = scorer.vector(ordinal);
+		int level = randomLevel();
+		if (ordinal >= links.length) {
+			links = Arrays.copyOf(links, Math.max(ordinal + 1, links.length * 2));
+		}
+		int[][] nodeLinks = new int[level + 1][];
+		for (int l = 0; l <= level; l++) {
+			nodeLinks[l] = new int[maxConn(l) + 1];
+		}
+		links[ordinal] = nodeLinks;
+		size++;
+
+		if (entryPoint < 0) {
+			entryPoint = ordinal;
+			maxLevel = level;
+			return;
+		}
+
+		int entry = entryPoint;
+		float entryScore = scorer.score(vector, entry);
+		for (int l = maxLevel; l > level; l--) {
+			int next = greedyClosest(vector, entry, entryScore, l);
+			if (next != entry) {
+				entry = next;
+				entryScore = scorer.score(vector, entry);
+			}
+		}
+
+		VisitedSet seen = visited.get();
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			NeighborQueue candidates = searchLayer(vector, entry, efConstruction, l, null, seen);
+			int count = candidates.size();
+			int[] nodes = new int[count];
+			float[] scores = new float[count];
+			// Drain the min-heap so that index 0 holds the closest candidate
+			for (int i = count - 1; i >= 0; i--) {
+				scores[i] = candidates.topScore();
+				nodes[i] = candidates.pop();
+			}
+			int[] selected = selectNeighbors(nodes, scores, count, maxConn(l));
+			int[] own = nodeLinks[l];
+			for (int neighbor : selected) {
+				own[++own[0]] = neighbor;
+				link(neighbor, ordinal, l);
+			}
+			if (count > 0) {
+				entry = nodes[0];
+			}
+		}
+
+		if (level > maxLevel) {
+			maxLevel = level;
+			entryPoint = ordinal;
+		}
+	}
+
+	/**
+	 * Exclude a node from results while keeping it for navigation.
+	 */
+	public void markDeleted(int ordinal) {
+		if (contains(ordinal)) {
+			deleted.set(ordinal);
+		}
+	}
+
+	/**
+	 * Find approximately the {@code k} closest live nodes accepted by the filter.
+	 * @param ef candidate list size, raised to at least {@code k}
+	 * @param accept optional filter evaluated on candidate ordinals
+	 * @return min-heap of at most {@code k} results, worst first
+	 */
+	public NeighborQueue search(float[] query, int k, int ef, IntPredicate accept) {
+		NeighborQueue results = new NeighborQueue(k, false);
+		if (entryPoint < 0 || k <= 0) {
+			return results;
+		}
+
+		int entry = entryPoint;
+		float entryScore = scorer.score(query, entry);
+		for (int l = maxLevel; l > 0; l--) {
+			int next = greedyClosest(query, entry, entryScore, l);
+			if (next != entry) {
+				entry = next;
+				entryScore = scorer.score(query, entry);
+			}
+		}
+
+		IntPredicate live = ordinal -> !deleted.get(ordinal) && (accept == null || accept.test(ordinal));
+		NeighborQueue candidates = searchLayer(query, entry, Math.max(ef, k), 0, live, visited.get());
+		while (candidates.size() > k) {
+			candidates.pop();
+		}
+		return candidates;
+	}
+
+	private int maxConn(int level) {
+		return level == 0 ? maxConn0 : m;
+	}
+
+	private int randomLevel() {
+		double draw = -Math.log(1.0 - random.nextDouble()) * levelMultiplier;
+		return (int) Math.min(draw, MAX_LEVEL);
+	}
+
+	/**
+	 * Walk greedily towards the query on one layer, returning the closest node found.
+	 */
+	private int greedyClosest(float[] query, int entry, float entryScore, int level) {
+		int best = entry;
+		float bestScore = entryScore;
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int[] neighbors = links[best][level];
+			for (int i = 1; i <= neighbors[0]; i++) {
+				float score = scorer.score(query, neighbors[i]);
+				if (score > bestScore) {
+					bestScore = score;
+					best = neighbors[i];
+					improved = true;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Best-first search on one layer. Every reachable node routes the search, but only
+	 * nodes passing {@code accept} (all nodes when null) enter the result set.
+	 */
+	private NeighborQueue searchLayer(float[] query, int entry, int ef, int level, IntPredicate accept,
+			VisitedSet seen) {
+		NeighborQueue candidates = new NeighborQueue(ef, true);
+		NeighborQueue results = new NeighborQueue(ef, false);
+		seen.reset(links.length);
+		seen.add(entry);
+
+		float entryScore = scorer.score(query, entry);
+		candidates.add(entry, entryScore);
+		if (accept == null || accept.test(entry)) {
+			results.add(entry, entryScore);
+		}
+
+		while (!candidates.isEmpty()) {
+			if (results.size() >= ef && candidates.topScore() < results.topScore()) {
+				break;
+			}
+			int node = candidates.pop();
+			int[] neighbors = links[node][level];
+			for (int i = 1; i <= neighbors[0]; i++) {
+				int neighbor = neighbors[i];
+				if (!seen.add(neighbor)) {
+					continue;
+				}
+				float score = scorer.score(query, neighbor);
+				if (results.size() < ef || score > results.topScore()) {
+					candidates.add(neighbor, score);
+					if (accept == null || accept.test(neighbor)) {
+						results.insertWithOverflow(neighbor, score, ef);
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Neighbor selection heuristic: keep a candidate only if it is closer to the base
+	 * than to every neighbor already kept, then top up with the closest pruned ones.
+	 * Candidates must be ordered closest first.
+	 */
+	private int[] selectNeighbors(int[] nodes, float[] scores, int count, int maxConn) {
+		if (count <= maxConn) {
+			return Arrays.copyOf(nodes, count);
+		}
+		int[] selected = new int[maxConn];
+		boolean[] taken = new boolean[count];
+		int kept = 0;
+		for (int i = 0; i < count && kept < maxConn; i++) {
+			float[] candidate = scorer.vector(nodes[i]);
+			boolean diverse = true;
+			for (int j = 0; j < kept; j++) {
+				if (scorer.score(candidate, selected[j]) > scores[i]) {
+					diverse = false;
+					break;
+				}
+			}
+			if (diverse) {
+				selected[kept++] = nodes[i];
+				taken[i] = true;
+			}
+		}
+		for (int i = 0; i < count && kept < maxConn; i++) {
+			if (!taken[i]) {
+				selected[kept++] = nodes[i];
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Add a back link from {@code node} to {@code neighbor}, re-selecting the node's
+	 * neighbors when its list is full.
+	 */
+	private void link(int node, int neighbor, int level) {
+		int[] nodeLinks = links[node][level];
+		int maxConn = maxConn(level);
+		if (nodeLinks[0] < maxConn) {
+			nodeLinks[++nodeLinks[0]] = neighbor;
+			return;
+		}
+
+		float[] base = scorer.vector(node);
+		NeighborQueue ranked = new NeighborQueue(maxConn + 1, true);
+		for (int i = 1; i <= nodeLinks[0]; i++) {
+			ranked.add(nodeLinks[i], scorer.score(base, nodeLinks[i]));
+		}
+		ranked.add(neighbor, scorer.score(base, neighbor));
+
+		int count = ranked.size();
+		int[] nodes = new int[count];
+		float[] scores = new float[count];
+		for (int i = 0; i < count; i++) {
+			scores[i] = ranked.topScore();
+			nodes[i] = ranked.pop();
+		}
+		int[] selected = selectNeighbors(nodes, scores, count, maxConn);
+		nodeLinks[0] = selected.length;
+		System.arraycopy(selected, 0, nodeLinks, 1, selected.length);
+	}
+
+	/**
+	 * Per-thread visited marks, reset in O(1) by bumping a generation counter.
+	 */
+	private static final class VisitedSet {
+
+		private int[] marks = new int[0];
+
+		private int generation;
+
+		void reset(int capacity) {
+			if (marks.length < capacity) {
+				marks = new int[capacity];
+				generation = 0;
+			}
+			if (++generation == Integer.MAX_VALUE) {
+				Arrays.fill(marks, 0);
+				generation = 1;
+			}
+		}
+
+		boolean add(int ordinal) {
+			if (marks[ordinal] == generation) {
+				return false;
+			}
+			marks[ordinal] = generation;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.config.MemoryConfigurable;
+
+/**
+ * Resolved settings of the in-memory vector store, with defaults applied for anything the
+ * configuration leaves unset. Instances are immutable; the {@code with...} methods return
+ * modified copies.
+ */
+public final class InMemoryStoreOptions {
+
+	public static final String INDEX_FLAT = "flat";
+
+	public static final String INDEX_HNSW = "hnsw";
+
+	public static final String QUANTIZATION_NONE = "none";
+
+	public static final String QUANTIZATION_INT8 = "int8";
+
+	private static final int DEFAULT_HNSW_M = 16;
+
+	private static final int DEFAULT_HNSW_EF_CONSTRUCTION = 200;
+
+	private static final int DEFAULT_HNSW_EF_SEARCH = 64;
+
+	private static final int DEFAULT_RESCORE_FACTOR = 4;
+
+	private static final int DEFAULT_PARALLEL_SCAN_THRESHOLD = 50_000;
+
+	private static final int DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 300;
+
+	private static final int DEFAULT_SEGMENT_FLUSH_SIZE = 100_000;
+
+	private static final double DEFAULT_MERGE_DEAD_RATIO = 0.3;
+
+	private String indexType = INDEX_FLAT;
+
+	private int hnswM = DEFAULT_HNSW_M;
+
+	private int hnswEfConstruction = DEFAULT_HNSW_EF_CONSTRUCTION;
+
+	private int hnswEfSearch = DEFAULT_HNSW_EF_SEARCH;
+
+	private String quantization = QUANTIZATION_NONE;
+
+	private int rescoreFactor = DEFAULT_RESCORE_FACTOR;
+
+	private int parallelScanThreshold = DEFAULT_PARALLEL_SCAN_THRESHOLD;
+
+	private String persistenceDirectory;
+
+	private boolean walFsync = true;
+
+	private int snapshotIntervalSeconds = DEFAULT_SNAPSHOT_INTERVAL_SECONDS;
+
+	private int segmentFlushSize = DEFAULT_SEGMENT_FLUSH_SIZE;
+
+	private double mergeDeadRatio = DEFAULT_MERGE_DEAD_RATIO;
+
+	private InMemoryStoreOptions() {
+	}
+
+	public static InMemoryStoreOptions defaults() {
+		return new InMemoryStoreOptions();
+	}
+
+	public static InMemoryStoreOptions from(MemoryConfigurable config) {
+		MemoryConfigurable.VectorStoreOptions options = config != null && config.getVectorStore() != null
+				? config.getVectorStore().getOptions() : null;
+		if (options == null) {
+			return defaults();
+		}
+
+		InMemoryStoreOptions result = new InMemoryStoreOptions();
+		result.indexType = options.getIndexType() != null ? options.getIndexType().trim().toLowerCase() : INDEX_FLAT;
+		if (!INDEX_FLAT.equals(result.indexType) && !INDEX_HNSW.equals(result.indexType)) {
+			throw new IllegalArgumentException("Unsupported in-memory index type: " + options.getIndexType());
+		}
+		result.quantization = options.getQuantization() != null ? options.getQuantization().trim().toLowerCase()
+				: QUANTIZATION_NONE;
+		if (!QUANTIZATION_NONE.equals(result.quantization) && !QUANTIZATION_INT8.equals(result.quantization)) {
+			throw new IllegalArgumentException("Unsupported in-memory quantization: " + options.getQuantization());
+		}
+		result.hnswM = positive(options.getHnswM(), DEFAULT_HNSW_M);
+		result.hnswEfConstruction = positive(options.getHnswEfConstruction(), DEFAULT_HNSW_EF_CONSTRUCTION);
+		result.hnswEfSearch = positive(options.getHnswEfSearch(), DEFAULT_HNSW_EF_SEARCH);
+		result.rescoreFactor = positive(options.getRescoreFactor(), DEFAULT_RESCORE_FACTOR);
+		result.parallelScanThreshold = options.getParallelScanThreshold() != null
+				&& options.getParallelScanThreshold() >= 0 ? options.getParallelScanThreshold()
+						: DEFAULT_PARALLEL_SCAN_THRESHOLD;
+		result.persistenceDirectory = options.getPersistenceDirectory() != null
+				&& !options.getPersistenceDirectory().isBlank() ? options.getPersistenceDirectory() : null;
+		result.walFsync = options.getWalFsync() == null || options.getWalFsync();
+		result.snapshotIntervalSeconds = options.getSnapshotIntervalSeconds() != null
+				&& options.getSnapshotIntervalSeconds() >= 0 ? options.getSnapshotIntervalSeconds()
+						: DEFAULT_SNAPSHOT_INTERVAL_SECONDS;
+		result.segmentFlushSize = positive(options.getSegmentFlushSize(), DEFAULT_SEGMENT_FLUSH_SIZE);
+		result.mergeDeadRatio = options.getMergeDeadRatio() != null && options.getMergeDeadRatio() > 0
+				&& options.getMergeDeadRatio() <= 1 ? options.getMergeDeadRatio() : DEFAULT_MERGE_DEAD_RATIO;
+		return result;
+	}
+
+	/**
+	 * Copy of these options using an HNSW index with the given parameters.
+	 */
+	public InMemoryStoreOptions withHnsw(int m, int efConstruction, int efSearch) {
+		InMemoryStoreOptions copy = copy();
+		copy.indexType = INDEX_HNSW;
+		copy.hnswM = m;
+		copy.hnswEfConstruction = efConstruction;
+		copy.hnswEfSearch = efSearch;
+		return copy;
+	}
+
+	/**
+	 * Copy of these options scanning int8 codes and rescoring {@code rescoreFactor} times
+	 * the requested number of results at full precision.
+	 */
+	public InMemoryStoreOptions withInt8Quantization(int rescoreFactor) {
+		InMemoryStoreOptions copy = copy();
+		copy.quantization = QUANTIZATION_INT8;
+		copy.rescoreFactor = rescoreFactor;
+		return copy;
+	}
+
+	/**
+	 * Copy of these options splitting exact scans over at least {@code threshold}
+	 * candidates across the common ForkJoinPool; 0 disables parallel scans.
+	 */
+	public InMemoryStoreOptions withParallelScanThreshold(int threshold) {
+		InMemoryStoreOptions copy = copy();
+		copy.parallelScanThreshold = threshold;
+		return copy;
+	}
+
+	/**
+	 * Copy of these options persisting the store to a write-ahead log and sealed segments
+	 * in the given directory; an interval of 0 disables periodic flushes.
+	 */
+	public InMemoryStoreOptions withPersistence(String directory, boolean walFsync, int snapshotIntervalSeconds) {
+		InMemoryStoreOptions copy = copy();
+		copy.persistenceDirectory = directory;
+		copy.walFsync = walFsync;
+		copy.snapshotIntervalSeconds = snapshotIntervalSeconds;
+		return copy;
+	}
+
+	/**
+	 * Copy of these options flushing the write buffer once it holds {@code flushSize}
+	 * entries and merging sealed segments once {@code mergeDeadRatio} of their entries
+	 * are deleted.
+	 */
+	public InMemoryStoreOptions withSegments(int flushSize, double mergeDeadRatio) {
+		InMemoryStoreOptions copy = copy();
+		copy.segmentFlushSize = flushSize;
+		copy.mergeDeadRatio = mergeDeadRatio;
+		return copy;
+	}
+
+	public String getIndexType() {
+		return indexType;
+	}
+
+	public boolean isHnsw() {
+		return INDEX_HNSW.equals(indexType);
+	}
+
+	public int getHnswM() {
+		return hnswM;
+	}
+
+	public int getHnswEfConstruction() {
+		return hnswEfConstruction;
+	}
+
+	public int getHnswEfSearch() {
+		return hnswEfSearch;
+	}
+
+	public String getQuantization() {
+		return quantization;
+	}
+
+	public boolean isQuantized() {
+		return QUANTIZATION_INT8.equals(quantization);
+	}
+
+	public int getRescoreFactor() {
+		return rescoreFactor;
+	}
+
+	/**
+	 * Minimum number of candidates for an exact scan to run in parallel; 0 when disabled.
+	 */
+	public int getParallelScanThreshold() {
+		return parallelScanThreshold;
+	}
+
+	/**
+	 * Directory holding the write-ahead log and sealed segments, or null when the store
+	 * is not persisted.
+	 */
+	public String getPersistenceDirectory() {
+		return persistenceDirectory;
+	}
+
+	public boolean isPersistent() {
+		return persistenceDirectory != null;
+	}
+
+	public boolean isWalFsync() {
+		return walFsync;
+	}
+
+	/**
+	 * Seconds between flushes of the write buffer; 0 when periodic flushes are disabled.
+	 */
+	public int getSnapshotIntervalSeconds() {
+		return snapshotIntervalSeconds;
+	}
+
+	public int getSegmentFlushSize() {
+		return segmentFlushSize;
+	}
+
+	public double getMergeDeadRatio() {
+		return mergeDeadRatio;
+	}
+
+	private InMemoryStoreOptions copy() {
+		InMemoryStoreOptions copy = new InMemoryStoreOptions();
+		copy.indexType = indexType;
+		copy.hnswM = hnswM;
+		copy.hnswEfConstruction = hnswEfConstruction;
+		copy.hnswEfSearch = hnswEfSearch;
+		copy.quantization = quantization;
+		copy.rescoreFactor = rescoreFactor;
+		copy.parallelScanThreshold = parallelScanThreshold;
+		copy.persistenceDirectory = persistenceDirectory;
+		copy.walFsync = walFsync;
+		copy.snapshotIntervalSeconds = snapshotIntervalSeconds;
+		copy.segmentFlushSize = segmentFlushSize;
+		copy.mergeDeadRatio = mergeDeadRatio;
+		return copy;
+	}
+
+	private static int positive(Integer value, int defaultValue) {
+		return value != null && value > 0 ? value : defaultValue;
+	}
+
+}
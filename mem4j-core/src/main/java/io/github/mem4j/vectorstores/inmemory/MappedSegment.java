@@ -0,0 +1,592 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.similarity.Similarity;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Immutable segment file holding normalized vectors, their norms, an id table, the
+ * encoded items, their timestamps and the bitmaps of a {@link BitmapIndex}, read through
+ * memory mappings.
+ * <p>
+ * Opening a segment maps its regions and reads only the header and the bitmap dictionary,
+ * so the cost does not depend on the number of entries; pages are loaded on demand and
+ * stay in the OS page cache across restarts. Items are decoded only when they are
+ * returned, and {@link BitmapFilter}s are answered from the bitmaps and timestamps.
+ * <p>
+ * All numbers are little-endian. Regions larger than a mapping chunk are mapped in
+ * several buffers, and entries are padded so that none straddles two of them. A segment
+ * is safe for concurrent readers.
+ */
+public final class MappedSegment implements BitmapFilter.Source {
+
+	private static final int MAGIC = 0x4D344753;
+
+	private static final int VERSION = 2;
+
+	private static final int HEADER_BYTES = 128;
+
+	private static final long MAP_CHUNK_BYTES = 1L << 30;
+
+	/**
+	 * Receiver of the entries of a segment being written.
+	 */
+	public interface EntrySink {
+
+		/**
+		 * @param vector normalized vector, or null when the item has no embedding
+		 */
+		void add(MemoryItem item, float[] vector, float norm) throws IOException;
+
+	}
+
+	/**
+	 * Producer of the entries of a segment being written.
+	 */
+	@FunctionalInterface
+	public interface EntrySource {
+
+		void writeTo(EntrySink sink) throws IOException;
+
+	}
+
+	private final Path file;
+
+	private final int count;
+
+	private final int dimension;
+
+	private final int vectorsPerChunk;
+
+	private final FloatBuffer[] vectors;
+
+	private final FloatBuffer norms;
+
+	private final LongBuffer hasVector;
+
+	private final IntBuffer idTable;
+
+	private final LongBuffer itemOffsets;
+
+	private final ByteBuffer[] items;
+
+	private final ByteBuffer[] bitmaps;
+
+	// field -> value -> {relative offset, length} in the bitmaps region
+	private final Map<String, Map<String, long[]>> dictionary;
+
+	// Epoch milliseconds of creation, then of the last update, per ordinal
+	private final LongBuffer timestamps;
+
+	private final ThreadLocal<float[]> scratch;
+
+	private MappedSegment(Path file, FileChannel channel) throws IOException {
+		this.file = file;
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("Not a segment file: " + file);
+		}
+		this.dimension = header.getInt(8);
+		this.count = header.getInt(12);
+		int idCapacity = header.getInt(16);
+		long vectorsOffset = header.getLong(24);
+		long normsOffset = header.getLong(32);
+		long hasVectorOffset = header.getLong(40);
+		long idTableOffset = header.getLong(48);
+		long itemOffsetsOffset = header.getLong(56);
+		long itemsOffset = header.getLong(64);
+		long itemsLength = header.getLong(72);
+		long bitmapsOffset = header.getLong(80);
+		long bitmapsLength = header.getLong(88);
+		long dictionaryOffset = header.getLong(96);
+		long dictionaryLength = header.getLong(104);
+		long timestampsOffset = header.getLong(112);
+
+		this.vectorsPerChunk = vectorsPerChunk(dimension);
+		int vectorChunks = dimension == 0 ? 0 : (count + vectorsPerChunk - 1) / vectorsPerChunk;
+		this.vectors = new FloatBuffer[vectorChunks];
+		for (int chunk = 0; chunk < vectorChunks; chunk++) {
+			int first = chunk * vectorsPerChunk;
+			int inChunk = Math.min(vectorsPerChunk, count - first);
+			vectors[chunk] = map(channel, vectorsOffset + (long) first * dimension * Float.BYTES,
+					(long) inChunk * dimension * Float.BYTES)
+				.asFloatBuffer();
+		}
+		this.norms = map(channel, normsOffset, (long) count * Float.BYTES).asFloatBuffer();
+		this.hasVector = map(channel, hasVectorOffset, (long) words(count) * Long.BYTES).asLongBuffer();
+		this.idTable = map(channel, idTableOffset, (long) idCapacity * Integer.BYTES).asIntBuffer();
+		this.itemOffsets = map(channel, itemOffsetsOffset, (long) count * Long.BYTES).asLongBuffer();
+		this.items = mapChunks(channel, itemsOffset, itemsLength);
+		this.bitmaps = mapChunks(channel, bitmapsOffset, bitmapsLength);
+		this.dictionary = readDictionary(channel, dictionaryOffset, dictionaryLength);
+		this.timestamps = map(channel, timestampsOffset, 2L * count * Long.BYTES).asLongBuffer();
+		this.scratch = ThreadLocal.withInitial(() -> new float[dimension]);
+	}
+
+	/**
+	 * Map an existing segment file.
+	 */
+	public static MappedSegment open(Path file) throws IOException {
+		// Mappings stay valid after the channel is closed
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new MappedSegment(file, channel);
+		}
+	}
+
+	/**
+	 * Write a segment file with exactly {@code count} entries.
+	 */
+	public static void write(Path file, int dimension, int count, EntrySource source) throws IOException {
+		int idCapacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+		long vectorsOffset = HEADER_BYTES;
+		long normsOffset = align(vectorsOffset + (long) count * dimension * Float.BYTES);
+		long hasVectorOffset = align(normsOffset + (long) count * Float.BYTES);
+		long idTableOffset = align(hasVectorOffset + (long) words(count) * Long.BYTES);
+		long itemOffsetsOffset = align(idTableOffset + (long) idCapacity * Integer.BYTES);
+		long timestampsOffset = align(itemOffsetsOffset + (long) count * Long.BYTES);
+		long itemsOffset = align(timestampsOffset + 2L * count * Long.BYTES);
+
+		long[] hasVectorWords = new long[words(count)];
+		int[] idSlots = new int[idCapacity];
+		long[] offsets = new long[count];
+		long[] timestampValues = new long[2 * count];
+		BitmapIndex index = new BitmapIndex();
+		int[] added = new int[1];
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			RegionWriter vectorWriter = new RegionWriter(channel, vectorsOffset);
+			RegionWriter normWriter = new RegionWriter(channel, normsOffset);
+			RegionWriter itemWriter = new RegionWriter(channel, itemsOffset);
+			float[] zeros = new float[dimension];
+
+			source.writeTo((item, vector, norm) -> {
+				int ordinal = added[0]++;
+				if (ordinal >= count) {
+					throw new IllegalStateException("More segment entries than declared: " + count);
+				}
+				if (vector != null && vector.length != dimension) {
+					throw new IllegalArgumentException(
+							"Vector dimension " + vector.length + " does not match segment dimension " + dimension);
+				}
+				vectorWriter.putFloats(vector != null ? vector : zeros);
+				normWriter.putFloat(vector != null ? norm : 0f);
+				if (vector != null) {
+					hasVectorWords[ordinal >>> 6] |= 1L << ordinal;
+				}
+				byte[] encoded = MemoryItemCodec.encode(item);
+				offsets[ordinal] = itemWriter.beginEntry(Integer.BYTES + encoded.length);
+				itemWriter.putInt(encoded.length);
+				itemWriter.put(encoded);
+				int slot = slot(item.getId(), idCapacity);
+				while (idSlots[slot] != 0) {
+					slot = (slot + 1) & (idCapacity - 1);
+				}
+				idSlots[slot] = ordinal + 1;
+				timestampValues[ordinal] = millis(item.getCreatedAt());
+				timestampValues[count + ordinal] = millis(item.getUpdatedAt());
+				index.add(item, ordinal);
+			});
+			if (added[0] != count) {
+				throw new IllegalStateException("Expected " + count + " segment entries, got " + added[0]);
+			}
+			vectorWriter.flush();
+			normWriter.flush();
+			long itemsLength = itemWriter.flush();
+
+			RegionWriter tables = new RegionWriter(channel, hasVectorOffset);
+			tables.putLongs(hasVectorWords);
+			tables.flush();
+			tables = new RegionWriter(channel, idTableOffset);
+			tables.putInts(idSlots);
+			tables.flush();
+			tables = new RegionWriter(channel, itemOffsetsOffset);
+			tables.putLongs(offsets);
+			tables.flush();
+			tables = new RegionWriter(channel, timestampsOffset);
+			tables.putLongs(timestampValues);
+			tables.flush();
+
+			long bitmapsOffset = align(itemsOffset + itemsLength);
+			RegionWriter bitmapWriter = new RegionWriter(channel, bitmapsOffset);
+			ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+			DataOutputStream dictionary = new DataOutputStream(dictionaryBytes);
+			dictionary.writeInt(index.fields().size());
+			for (String field : index.fields()) {
+				Map<String, CompressedBitmap> values = index.values(field);
+				MemoryItemCodec.writeString(dictionary, field);
+				dictionary.writeInt(values.size());
+				for (Map.Entry<String, CompressedBitmap> entry : values.entrySet()) {
+					byte[] bitmap = entry.getValue().serialize();
+					long offset = bitmapWriter.beginEntry(bitmap.length);
+					bitmapWriter.put(bitmap);
+					MemoryItemCodec.writeString(dictionary, entry.getKey());
+					dictionary.writeLong(offset);
+					dictionary.writeInt(bitmap.length);
+				}
+			}
+			long bitmapsLength = bitmapWriter.flush();
+			long dictionaryOffset = align(bitmapsOffset + bitmapsLength);
+			byte[] dictionaryData = dictionaryBytes.toByteArray();
+			RegionWriter dictionaryWriter = new RegionWriter(channel, dictionaryOffset);
+			dictionaryWriter.put(dictionaryData);
+			dictionaryWriter.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC)
+				.putInt(VERSION)
+				.putInt(dimension)
+				.putInt(count)
+				.putInt(idCapacity)
+				.putInt(index.fields().size())
+				.putLong(vectorsOffset)
+				.putLong(normsOffset)
+				.putLong(hasVectorOffset)
+				.putLong(idTableOffset)
+				.putLong(itemOffsetsOffset)
+				.putLong(itemsOffset)
+				.putLong(itemsLength)
+				.putLong(bitmapsOffset)
+				.putLong(bitmapsLength)
+				.putLong(dictionaryOffset)
+				.putLong(dictionaryData.length)
+				.putLong(timestampsOffset);
+			header.rewind();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			channel.force(true);
+		}
+	}
+
+	public Path file() {
+		return file;
+	}
+
+	/**
+	 * Number of entries, addressed by ordinals {@code [0, count)}.
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Vector dimension; 0 when no entry has a vector.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	public boolean hasVector(int ordinal) {
+		return (hasVector.get(ordinal >>> 6) & (1L << ordinal)) != 0;
+	}
+
+	public float norm(int ordinal) {
+		return norms.get(ordinal);
+	}
+
+	/**
+	 * Copy of the normalized vector at the ordinal.
+	 */
+	public float[] vector(int ordinal) {
+		float[] vector = new float[dimension];
+		vectors[ordinal / vectorsPerChunk].get((ordinal % vectorsPerChunk) * dimension, vector);
+		return vector;
+	}
+
+	/**
+	 * Copy the normalized vector at the ordinal into the target at the offset.
+	 */
+	public void readVector(int ordinal, float[] target, int offset) {
+		vectors[ordinal / vectorsPerChunk].get((ordinal % vectorsPerChunk) * dimension, target, offset, dimension);
+	}
+
+	/**
+	 * Dot product of a normalized query with the vector at the ordinal.
+	 */
+	public float dot(float[] query, int ordinal) {
+		float[] vector = scratch.get();
+		vectors[ordinal / vectorsPerChunk].get((ordinal % vectorsPerChunk) * dimension, vector);
+		return Similarity.dot(query, vector, 0);
+	}
+
+	/**
+	 * Ordinal of the item with the given id, or -1.
+	 */
+	public int ordinal(String id) {
+		if (id == null || count == 0) {
+			return -1;
+		}
+		int mask = idTable.capacity() - 1;
+		for (int slot = slot(id, idTable.capacity());; slot = (slot + 1) & mask) {
+			int entry = idTable.get(slot);
+			if (entry == 0) {
+				return -1;
+			}
+			if (id.equals(id(entry - 1))) {
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Id of the item at the ordinal, read without decoding the rest of the item.
+	 */
+	public String id(int ordinal) {
+		ByteBuffer chunk = itemChunk(ordinal);
+		int position = itemPosition(ordinal) + Integer.BYTES;
+		// Item encoding is big-endian, as written by DataOutput
+		int length = chunk.order(ByteOrder.BIG_ENDIAN).getInt(position);
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		chunk.get(position + Integer.BYTES, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public MemoryItem item(int ordinal) {
+		ByteBuffer chunk = itemChunk(ordinal);
+		int position = itemPosition(ordinal);
+		byte[] bytes = new byte[chunk.order(ByteOrder.LITTLE_ENDIAN).getInt(position)];
+		chunk.get(position + Integer.BYTES, bytes);
+		return MemoryItemCodec.decode(bytes);
+	}
+
+	@Override
+	public CompressedBitmap postings(String field, String value) {
+		Map<String, long[]> values = dictionary.get(field);
+		long[] entry = values != null ? values.get(value) : null;
+		if (entry == null) {
+			return new CompressedBitmap();
+		}
+		ByteBuffer chunk = bitmaps[(int) (entry[0] / MAP_CHUNK_BYTES)];
+		return CompressedBitmap.deserialize(chunk.slice((int) (entry[0] % MAP_CHUNK_BYTES), (int) entry[1]));
+	}
+
+	@Override
+	public CompressedBitmap matching(String field, Predicate<String> accept) {
+		CompressedBitmap matching = new CompressedBitmap();
+		for (String value : dictionary.getOrDefault(field, Map.of()).keySet()) {
+			if (accept.test(value)) {
+				matching = matching.or(postings(field, value));
+			}
+		}
+		return matching;
+	}
+
+	@Override
+	public CompressedBitmap all() {
+		return CompressedBitmap.range(0, count);
+	}
+
+	@Override
+	public long timestamp(String field, int ordinal) {
+		return switch (field) {
+			case BitmapFilter.CREATED_AT -> timestamps.get(ordinal);
+			case BitmapFilter.UPDATED_AT -> timestamps.get(count + ordinal);
+			default -> BitmapFilter.NO_TIMESTAMP;
+		};
+	}
+
+	private ByteBuffer itemChunk(int ordinal) {
+		// Duplicate so that concurrent readers do not share byte order or position
+		return items[(int) (itemOffsets.get(ordinal) / MAP_CHUNK_BYTES)].duplicate();
+	}
+
+	private int itemPosition(int ordinal) {
+		return (int) (itemOffsets.get(ordinal) % MAP_CHUNK_BYTES);
+	}
+
+	private static long millis(Instant instant) {
+		return instant != null ? instant.toEpochMilli() : BitmapFilter.NO_TIMESTAMP;
+	}
+
+	private static int slot(String id, int capacity) {
+		int hash = id.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & (capacity - 1);
+	}
+
+	private static int vectorsPerChunk(int dimension) {
+		return dimension == 0 ? 1 : (int) Math.max(1, MAP_CHUNK_BYTES / ((long) dimension * Float.BYTES));
+	}
+
+	private static int words(int count) {
+		return (count + 63) >>> 6;
+	}
+
+	private static long align(long offset) {
+		return (offset + 63) & ~63L;
+	}
+
+	private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static ByteBuffer[] mapChunks(FileChannel channel, long offset, long length) throws IOException {
+		ByteBuffer[] chunks = new ByteBuffer[(int) ((length + MAP_CHUNK_BYTES - 1) / MAP_CHUNK_BYTES)];
+		for (int i = 0; i < chunks.length; i++) {
+			long start = i * MAP_CHUNK_BYTES;
+			chunks[i] = map(channel, offset + start, Math.min(MAP_CHUNK_BYTES, length - start));
+		}
+		return chunks;
+	}
+
+	private static Map<String, Map<String, long[]>> readDictionary(FileChannel channel, long offset, long length)
+			throws IOException {
+		Map<String, Map<String, long[]>> dictionary = new HashMap<>();
+		InputStream raw = Channels.newInputStream(channel.position(offset));
+		DataInputStream in = new DataInputStream(new BufferedInputStream(raw, (int) Math.min(length, 64 * 1024)));
+		int fields = in.readInt();
+		for (int f = 0; f < fields; f++) {
+			String field = MemoryItemCodec.readString(in);
+			int values = in.readInt();
+			Map<String, long[]> entries = new HashMap<>(values * 2);
+			for (int v = 0; v < values; v++) {
+				String value = MemoryItemCodec.readString(in);
+				entries.put(value, new long[] { in.readLong(), in.readInt() });
+			}
+			dictionary.put(field, entries);
+		}
+		return dictionary;
+	}
+
+	/**
+	 * Buffered little-endian writer for one region of the file, starting at a fixed
+	 * position.
+	 */
+	private static final class RegionWriter {
+
+		private final FileChannel channel;
+
+		private final long start;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+		private long position;
+
+		RegionWriter(FileChannel channel, long start) {
+			this.channel = channel;
+			this.start = start;
+			this.position = start;
+		}
+
+		/**
+		 * Pad to the next mapping chunk if an entry of the given size would straddle it.
+		 * @return offset of the entry relative to the region start
+		 */
+		long beginEntry(long bytes) throws IOException {
+			if (bytes > MAP_CHUNK_BYTES) {
+				throw new IOException("Segment entry too large: " + bytes + " bytes");
+			}
+			long relative = position + buffer.position() - start;
+			long inChunk = relative % MAP_CHUNK_BYTES;
+			if (inChunk + bytes > MAP_CHUNK_BYTES) {
+				long padding = MAP_CHUNK_BYTES - inChunk;
+				for (long i = 0; i < padding; i++) {
+					ensure(1);
+					buffer.put((byte) 0);
+				}
+				relative += padding;
+			}
+			return relative;
+		}
+
+		void putInt(int value) throws IOException {
+			ensure(Integer.BYTES);
+			buffer.putInt(value);
+		}
+
+		void putFloat(float value) throws IOException {
+			ensure(Float.BYTES);
+			buffer.putFloat(value);
+		}
+
+		void putFloats(float[] values) throws IOException {
+			for (float value : values) {
+				putFloat(value);
+			}
+		}
+
+		void putInts(int[] values) throws IOException {
+			for (int value : values) {
+				putInt(value);
+			}
+		}
+
+		void putLongs(long[] values) throws IOException {
+			for (long value : values) {
+				ensure(Long.BYTES);
+				buffer.putLong(value);
+			}
+		}
+
+		void put(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				ensure(1);
+				int length = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		/**
+		 * Write out buffered bytes.
+		 * @return number of bytes written to the region so far
+		 */
+		long flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+			return position - start;
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.mem4j.memory.MemoryItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Binary encoding of {@link MemoryItem}s without their embedding, shared by the
+ * write-ahead log and segment files. Metadata is stored as JSON.
+ */
+final class MemoryItemCodec {
+
+	// Dates are written as ISO-8601 text, which logged filters parse back as timestamps
+	private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+		.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+	};
+
+	private MemoryItemCodec() {
+	}
+
+	static byte[] encode(MemoryItem item) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			writeItem(out, item);
+			out.flush();
+			return bytes.toByteArray();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static MemoryItem decode(byte[] bytes) {
+		try {
+			return readItem(new DataInputStream(new ByteArrayInputStream(bytes)));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * The id is written first, so it can be read without decoding the rest of the item.
+	 */
+	static void writeItem(DataOutput out, MemoryItem item) throws IOException {
+		writeString(out, item.getId());
+		writeString(out, item.getContent());
+		writeString(out, item.getMemoryType());
+		writeString(out, item.getUserId());
+		writeString(out, item.getAgentId());
+		writeString(out, item.getRunId());
+		writeString(out, item.getActorId());
+		writeMap(out, item.getMetadata());
+		writeInstant(out, item.getCreatedAt());
+		writeInstant(out, item.getUpdatedAt());
+	}
+
+	static MemoryItem readItem(DataInput in) throws IOException {
+		MemoryItem item = new MemoryItem();
+		item.setId(readString(in));
+		item.setContent(readString(in));
+		item.setMemoryType(readString(in));
+		item.setUserId(readString(in));
+		item.setAgentId(readString(in));
+		item.setRunId(readString(in));
+		item.setActorId(readString(in));
+		item.setMetadata(readMap(in));
+		item.setCreatedAt(readInstant(in));
+		item.setUpdatedAt(readInstant(in));
+		return item;
+	}
+
+	static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeMap(DataOutput out, Map<String, Object> map) throws IOException {
+		writeString(out, map != null ? objectMapper.writeValueAsString(map) : null);
+	}
+
+	static Map<String, Object> readMap(DataInput in) throws IOException {
+		String json = readString(in);
+		return json != null ? objectMapper.readValue(json, MAP_TYPE) : null;
+	}
+
+	private static void writeInstant(DataOutput out, Instant instant) throws IOException {
+		out.writeBoolean(instant != null);
+		if (instant != null) {
+			out.writeLong(instant.getEpochSecond());
+			out.writeInt(instant.getNano());
+		}
+	}
+
+	private static Instant readInstant(DataInput in) throws IOException {
+		return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (ordinal, score) pairs kept in parallel primitive arrays.
+ * <p>
+ * A min-heap keeps the worst score on top, which is what a bounded top-k collector needs;
+ * a max-heap keeps the best score on top, which is what a best-first graph walk needs.
+ */
+public final class NeighborQueue {
+
+	private final boolean maxHeap;
+
+	private int[] nodes;
+
+	private float[] scores;
+
+	private int size;
+
+	public NeighborQueue(int initialCapacity, boolean maxHeap) {
+		int capacity = Math.max(1, initialCapacity);
+		this.maxHeap = maxHeap;
+		this.nodes = new int[capacity];
+		this.scores = new float[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void add(int node, float score) {
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, size * 2);
+			scores = Arrays.copyOf(scores, size * 2);
+		}
+		nodes[size] = node;
+		scores[size] = score;
+		siftUp(size++);
+	}
+
+	/**
+	 * Add the pair while the queue holds fewer than {@code capacity} entries, otherwise
+	 * replace the top entry if the new pair ranks below it in heap order (for a min-heap:
+	 * scores higher than the current minimum).
+	 * @return whether the pair was kept
+	 */
+	public boolean insertWithOverflow(int node, float score, int capacity) {
+		if (size < capacity) {
+			add(node, score);
+			return true;
+		}
+		if (size == 0 || !before(scores[0], score)) {
+			return false;
+		}
+		nodes[0] = node;
+		scores[0] = score;
+		siftDown(0);
+		return true;
+	}
+
+	public int topNode() {
+		return nodes[0];
+	}
+
+	public float topScore() {
+		return scores[0];
+	}
+
+	/**
+	 * Remove the top entry and return its node.
+	 */
+	public int pop() {
+		int node = nodes[0];
+		size--;
+		if (size > 0) {
+			nodes[0] = nodes[size];
+			scores[0] = scores[size];
+			siftDown(0);
+		}
+		return node;
+	}
+
+	/**
+	 * Whether a ranks strictly above b in heap order.
+	 */
+	private boolean before(float a, float b) {
+		return maxHeap ? a > b : a < b;
+	}
+
+	private void siftUp(int index) {
+		int node = nodes[index];
+		float score = scores[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (!before(score, scores[parent])) {
+				break;
+			}
+			nodes[index] = nodes[parent];
+			scores[index] = scores[parent];
+			index = parent;
+		}
+		nodes[index] = node;
+		scores[index] = score;
+	}
+
+	private void siftDown(int index) {
+		int node = nodes[index];
+		float score = scores[index];
+		int half = size >>> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			int right = child + 1;
+			if (right < size && before(scores[right], scores[child])) {
+				child = right;
+			}
+			if (!before(scores[child], score)) {
+				break;
+			}
+			nodes[index] = nodes[child];
+			scores[index] = scores[child];
+			index = child;
+		}
+		nodes[index] = node;
+		scores[index] = score;
+	}
+
+}
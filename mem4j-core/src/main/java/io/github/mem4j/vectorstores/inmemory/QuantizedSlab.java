@@ -0,0 +1,230 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Int8 scalar-quantized copy of a {@link VectorSlab}.
+ * <p>
+ * Each vector is encoded as one signed byte per component plus a per-vector scale and
+ * offset, so that {@code x[i] ~= offset + scale * code[i]}. Scanning the codes touches a
+ * quarter of the memory of the float vectors; the approximate scores are meant to pick
+ * candidates that are then rescored at full precision. The exact norm of every vector is
+ * kept so approximate cosine scores are not skewed by quantization of the norm. This
+ * class is not thread-safe; callers guard it with their own lock.
+ */
+public final class QuantizedSlab {
+
+	/**
+	 * Upper bound for the number of codes held by one chunk (1 MB).
+	 */
+	private static final int MAX_CHUNK_CODES = 1 << 20;
+
+	private static final int MIN_CHUNK_VECTORS = 16;
+
+	private final int dimension;
+
+	private final int chunkShift;
+
+	private final int chunkMask;
+
+	private byte[][] chunks = new byte[0][];
+
+	private float[] scales = new float[MIN_CHUNK_VECTORS];
+
+	private float[] offsets = new float[MIN_CHUNK_VECTORS];
+
+	private float[] norms = new float[MIN_CHUNK_VECTORS];
+
+	private int size;
+
+	public QuantizedSlab(int dimension) {
+		if (dimension <= 0) {
+			throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+		}
+		this.dimension = dimension;
+		int vectorsPerChunk = Integer.highestOneBit(Math.max(1, MAX_CHUNK_CODES / dimension));
+		this.chunkShift = Integer.numberOfTrailingZeros(vectorsPerChunk);
+		this.chunkMask = vectorsPerChunk - 1;
+	}
+
+	public int dimension() {
+		return dimension;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Quantize a vector and store it at the given ordinal, growing the slab if needed.
+	 */
+	public void set(int ordinal, float[] vector) {
+		if (vector.length != dimension) {
+			throw new IllegalArgumentException(
+					"Vector dimension mismatch: expected " + dimension + " but was " + vector.length);
+		}
+		ensureCapacity(ordinal + 1);
+
+		float min = Float.POSITIVE_INFINITY;
+		float max = Float.NEGATIVE_INFINITY;
+		float norm = 0f;
+		for (float value : vector) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			norm += value * value;
+		}
+
+		// Map [min, max] onto the 256 codes [-128, 127]
+		float scale = (max - min) / 255f;
+		float offset = min + 128f * scale;
+		byte[] chunk = chunks[ordinal >>> chunkShift];
+		int base = (ordinal & chunkMask) * dimension;
+		for (int i = 0; i < dimension; i++) {
+			int code = scale == 0f ? 0 : Math.round((vector[i] - offset) / scale);
+			chunk[base + i] = (byte) Math.max(-128, Math.min(127, code));
+		}
+		scales[ordinal] = scale;
+		offsets[ordinal] = offset;
+		norms[ordinal] = (float) Math.sqrt(norm);
+		size = Math.max(size, ordinal + 1);
+	}
+
+	/**
+	 * Approximate dot product between a full-precision query and the stored vector.
+	 * @param querySum sum of the query components, see {@link #sum(float[])}
+	 */
+	public float dot(float[] query, float querySum, int ordinal) {
+		checkOrdinal(ordinal);
+		byte[] chunk = chunks[ordinal >>> chunkShift];
+		int base = (ordinal & chunkMask) * dimension;
+		float acc = 0f;
+		for (int i = 0; i < dimension; i++) {
+			acc += query[i] * chunk[base + i];
+		}
+		return offsets[ordinal] * querySum + scales[ordinal] * acc;
+	}
+
+	/**
+	 * Approximate cosine similarity between a query and the stored vector.
+	 */
+	public float cosine(float[] query, float querySum, float queryNorm, int ordinal) {
+		float norm = norms[ordinal];
+		if (queryNorm == 0f || norm == 0f) {
+			return 0f;
+		}
+		return dot(query, querySum, ordinal) / (queryNorm * norm);
+	}
+
+	/**
+	 * Exact Euclidean norm of the vector that was quantized at the given ordinal.
+	 */
+	public float norm(int ordinal) {
+		checkOrdinal(ordinal);
+		return norms[ordinal];
+	}
+
+	/**
+	 * Decode the stored vector.
+	 */
+	public float[] get(int ordinal) {
+		checkOrdinal(ordinal);
+		byte[] chunk = chunks[ordinal >>> chunkShift];
+		int base = (ordinal & chunkMask) * dimension;
+		float[] vector = new float[dimension];
+		for (int i = 0; i < dimension; i++) {
+			vector[i] = offsets[ordinal] + scales[ordinal] * chunk[base + i];
+		}
+		return vector;
+	}
+
+	public void clear() {
+		chunks = new byte[0][];
+		scales = new float[MIN_CHUNK_VECTORS];
+		offsets = new float[MIN_CHUNK_VECTORS];
+		norms = new float[MIN_CHUNK_VECTORS];
+		size = 0;
+	}
+
+	/**
+	 * Heap held by the codes and per-vector parameters, in bytes.
+	 */
+	public long memoryBytes() {
+		long bytes = 3L * scales.length * Float.BYTES;
+		for (byte[] chunk : chunks) {
+			bytes += chunk.length;
+		}
+		return bytes;
+	}
+
+	public static float sum(float[] vector) {
+		float sum = 0f;
+		for (float value : vector) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	public static float norm(float[] vector) {
+		float sum = 0f;
+		for (float value : vector) {
+			sum += value * value;
+		}
+		return (float) Math.sqrt(sum);
+	}
+
+	private void ensureCapacity(int vectors) {
+		if (vectors > scales.length) {
+			int grown = Math.max(vectors, scales.length * 2);
+			scales = Arrays.copyOf(scales, grown);
+			offsets = Arrays.copyOf(offsets, grown);
+			norms = Arrays.copyOf(norms, grown);
+		}
+
+		int chunkCapacity = chunkMask + 1;
+		int lastChunk = (vectors - 1) >>> chunkShift;
+		if (lastChunk >= chunks.length) {
+			int oldLength = chunks.length;
+			chunks = Arrays.copyOf(chunks, lastChunk + 1);
+			if (oldLength > 0) {
+				chunks[oldLength - 1] = resize(chunks[oldLength - 1], chunkCapacity);
+			}
+			for (int i = oldLength; i < lastChunk; i++) {
+				chunks[i] = new byte[chunkCapacity * dimension];
+			}
+			chunks[lastChunk] = new byte[0];
+		}
+		int needed = ((vectors - 1) & chunkMask) + 1;
+		byte[] tail = chunks[lastChunk];
+		if (tail.length < needed * dimension) {
+			int grown = Math.max(needed, Math.max(MIN_CHUNK_VECTORS, tail.length / dimension * 2));
+			chunks[lastChunk] = resize(tail, Math.min(grown, chunkCapacity));
+		}
+	}
+
+	private byte[] resize(byte[] chunk, int vectors) {
+		return chunk.length == vectors * dimension ? chunk : Arrays.copyOf(chunk, vectors * dimension);
+	}
+
+	private void checkOrdinal(int ordinal) {
+		if (ordinal < 0 || ordinal >= size) {
+			throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of range [0, " + size + ")");
+		}
+	}
+
+}
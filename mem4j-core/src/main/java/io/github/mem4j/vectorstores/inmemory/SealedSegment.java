@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An immutable {@link MappedSegment} together with the tombstones of the entries deleted
+ * or replaced since it was sealed.
+ * <p>
+ * Tombstones are the only mutable part: a fixed-size bitset over the segment's ordinals
+ * that can be set while readers test it without locking. The search structures of the
+ * store's index type are attached once built, after the segment is published.
+ */
+public final class SealedSegment {
+
+	private final long id;
+
+	private final MappedSegment segment;
+
+	private final AtomicLongArray tombstones;
+
+	private final AtomicInteger deadCount = new AtomicInteger();
+
+	// Dead count last written to disk, so unchanged tombstones are not rewritten
+	private volatile int persistedDeadCount;
+
+	private volatile HnswIndex index;
+
+	private volatile QuantizedSlab codes;
+
+	public SealedSegment(long id, MappedSegment segment) {
+		this.id = id;
+		this.segment = segment;
+		this.tombstones = new AtomicLongArray((segment.count() + 63) >>> 6);
+	}
+
+	/**
+	 * Unique, increasing number of the segment within its store.
+	 */
+	public long id() {
+		return id;
+	}
+
+	public MappedSegment segment() {
+		return segment;
+	}
+
+	/**
+	 * HNSW graph over the segment's vectors, or null until built.
+	 */
+	public HnswIndex index() {
+		return index;
+	}
+
+	public void setIndex(HnswIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Int8 codes of the segment's vectors, or null until built.
+	 */
+	public QuantizedSlab codes() {
+		return codes;
+	}
+
+	public void setCodes(QuantizedSlab codes) {
+		this.codes = codes;
+	}
+
+	public boolean isDeleted(int ordinal) {
+		return (tombstones.get(ordinal >>> 6) & (1L << ordinal)) != 0;
+	}
+
+	/**
+	 * Tombstone an entry.
+	 * @return whether the entry was live
+	 */
+	public boolean delete(int ordinal) {
+		long bit = 1L << ordinal;
+		long previous = tombstones.getAndUpdate(ordinal >>> 6, word -> word | bit);
+		if ((previous & bit) != 0) {
+			return false;
+		}
+		deadCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Ordinal of the id if its entry is live, otherwise -1.
+	 */
+	public int liveOrdinal(String id) {
+		int ordinal = segment.ordinal(id);
+		return ordinal >= 0 && !isDeleted(ordinal) ? ordinal : -1;
+	}
+
+	public int deadCount() {
+		return deadCount.get();
+	}
+
+	public int liveCount() {
+		return segment.count() - deadCount.get();
+	}
+
+	/**
+	 * Fraction of the entries that are tombstoned.
+	 */
+	public double deadRatio() {
+		return segment.count() == 0 ? 1.0 : (double) deadCount.get() / segment.count();
+	}
+
+	/**
+	 * Copy of the tombstone words, bit {@code i % 64} of word {@code i / 64} marking
+	 * ordinal {@code i}.
+	 */
+	public long[] tombstoneWords() {
+		long[] words = new long[tombstones.length()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = tombstones.get(i);
+		}
+		return words;
+	}
+
+	/**
+	 * Restore tombstones read from disk.
+	 */
+	void loadTombstones(long[] words) {
+		int dead = 0;
+		for (int i = 0; i < Math.min(words.length, tombstones.length()); i++) {
+			tombstones.set(i, words[i]);
+			dead += Long.bitCount(words[i]);
+		}
+		deadCount.set(dead);
+		persistedDeadCount = dead;
+	}
+
+	boolean hasUnpersistedTombstones() {
+		return deadCount.get() != persistedDeadCount;
+	}
+
+	void markTombstonesPersisted(int deadCount) {
+		persistedDeadCount = deadCount;
+	}
+
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.util.AppendLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log, sealed segments and manifest of an in-memory vector store.
+ * <p>
+ * Every mutation is appended to an {@link AppendLog} before it is acknowledged. A flush
+ * rotates the log and writes the store's write buffer as a new {@link MappedSegment}; the
+ * manifest then records the live segments and the first log generation that is not
+ * covered by them, and older generations are deleted. Tombstones of sealed segments are
+ * kept in one file per segment, written when the manifest is committed. Recovery maps the
+ * listed segments, without reading their entries, and replays the log from the recorded
+ * generation.
+ * <p>
+ * Logged operations never depend on state they do not carry: a put records the item with
+ * its effective vector, so replaying the log over tombstones written after the flush is
+ * safe.
+ */
+public final class StorePersistence implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(StorePersistence.class);
+
+	private static final String LOG_PREFIX = "wal-";
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	private static final String TOMBSTONE_SUFFIX = ".del";
+
+	private static final String MANIFEST = "MANIFEST";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private static final int MANIFEST_MAGIC = 0x4D344A4D;
+
+	private static final byte OP_PUT = 1;
+
+	private static final byte OP_DELETE = 2;
+
+	private static final byte OP_DELETE_ALL = 3;
+
+	private static final byte OP_RESET = 4;
+
+	/**
+	 * Receiver of recovered state, applied without being logged again.
+	 */
+	public interface Replay {
+
+		/**
+		 * Take over the sealed segments listed in the manifest, before any log record is
+		 * replayed
+		 */
+		void open(List<SealedSegment> segments);
+
+		/**
+		 * Insert or replace an item with its normalized vector (null if it has none)
+		 */
+		void put(MemoryItem item, float[] vector, float norm);
+
+		void delete(String memoryId);
+
+		void deleteAll(Map<String, Object> filters);
+
+		void reset();
+
+	}
+
+	private final Path directory;
+
+	private final boolean fsync;
+
+	private final AppendLog log;
+
+	private final AtomicLong nextSegmentId = new AtomicLong(1);
+
+	private volatile long flushedSequence;
+
+	private long manifestGeneration;
+
+	public StorePersistence(Path directory, boolean fsync) throws IOException {
+		this.directory = directory;
+		this.fsync = fsync;
+		this.log = new AppendLog(directory, LOG_PREFIX, fsync);
+	}
+
+	/**
+	 * Map the segments listed in the manifest, replay the log written after them and open
+	 * a new log generation for appends.
+	 */
+	public void recover(Replay replay) throws IOException {
+		deleteFiles(name -> name.endsWith(TEMP_SUFFIX));
+		List<SealedSegment> segments = new ArrayList<>();
+		Path manifest = directory.resolve(MANIFEST);
+		if (Files.exists(manifest)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest)))) {
+				if (in.readInt() != MANIFEST_MAGIC) {
+					throw new IOException("Not a manifest: " + manifest);
+				}
+				manifestGeneration = in.readLong();
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					segments.add(openSegment(in.readLong()));
+				}
+			}
+		}
+		long maxId = segments.stream().mapToLong(SealedSegment::id).max().orElse(0);
+		nextSegmentId.set(Math.max(maxId, maxSegmentIdOnDisk()) + 1);
+		deleteUnreferenced(segments);
+
+		replay.open(segments);
+		long replayed = log.replay(manifestGeneration, (logGeneration, payload) -> apply(payload, replay));
+		log.open();
+		if (!segments.isEmpty() || replayed > 0) {
+			logger.info("Recovered in-memory vector store from {}: {} segments, {} log records", directory,
+					segments.size(), replayed);
+		}
+	}
+
+	/**
+	 * Log an insert or replacement with the item's effective vector.
+	 */
+	public long logPut(MemoryItem item, float[] vector, float norm) throws IOException {
+		return append(out -> {
+			out.writeByte(OP_PUT);
+			MemoryItemCodec.writeItem(out, item);
+			writeVector(out, vector);
+			out.writeFloat(norm);
+		});
+	}
+
+	public long logDelete(String memoryId) throws IOException {
+		return append(out -> {
+			out.writeByte(OP_DELETE);
+			MemoryItemCodec.writeString(out, memoryId);
+		});
+	}
+
+	public long logDeleteAll(Map<String, Object> filters) throws IOException {
+		return append(out -> {
+			out.writeByte(OP_DELETE_ALL);
+			MemoryItemCodec.writeMap(out, filters);
+		});
+	}
+
+	public long logReset() throws IOException {
+		return append(out -> out.writeByte(OP_RESET));
+	}
+
+	/**
+	 * Wait until the record with the given sequence number is durable; see
+	 * {@link AppendLog#sync(long)}.
+	 */
+	public void sync(long sequence) throws IOException {
+		log.sync(sequence);
+	}
+
+	/**
+	 * Whether anything was logged since the last flush.
+	 */
+	public boolean hasUnflushedChanges() {
+		return log.lastSequence() > flushedSequence;
+	}
+
+	/**
+	 * Seal the write buffer produced by {@code source} into a new segment, commit it
+	 * after the given segments and drop the log generations it covers. The caller must
+	 * keep mutations out until this returns.
+	 * @return the new segment, or null when the buffer was empty
+	 */
+	public SealedSegment flush(List<SealedSegment> segments, int dimension, int count, MappedSegment.EntrySource source)
+			throws IOException {
+		long generation = log.rotate();
+		long sequence = log.lastSequence();
+		SealedSegment sealed = count > 0 ? writeSegment(dimension, count, source) : null;
+		List<SealedSegment> committed = new ArrayList<>(segments);
+		if (sealed != null) {
+			committed.add(sealed);
+		}
+		manifestGeneration = generation;
+		commit(committed);
+		log.deleteBefore(generation);
+		flushedSequence = sequence;
+		return sealed;
+	}
+
+	/**
+	 * Write and map a segment that is not yet part of the store; {@link #commit(List)}
+	 * makes it so.
+	 */
+	public SealedSegment writeSegment(int dimension, int count, MappedSegment.EntrySource source) throws IOException {
+		long id = nextSegmentId.getAndIncrement();
+		Path target = segmentFile(id);
+		Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+		MappedSegment.write(temp, dimension, count, source);
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return new SealedSegment(id, MappedSegment.open(target));
+	}
+
+	/**
+	 * Persist changed tombstones and a manifest listing exactly the given segments, then
+	 * delete the files of segments that are no longer listed.
+	 */
+	public synchronized void commit(List<SealedSegment> segments) throws IOException {
+		for (SealedSegment segment : segments) {
+			if (segment.hasUnpersistedTombstones()) {
+				int dead = segment.deadCount();
+				long[] words = segment.tombstoneWords();
+				writeAtomically(tombstoneFile(segment.id()), out -> {
+					out.writeInt(words.length);
+					for (long word : words) {
+						out.writeLong(word);
+					}
+				});
+				segment.markTombstonesPersisted(dead);
+			}
+		}
+		writeAtomically(directory.resolve(MANIFEST), out -> {
+			out.writeInt(MANIFEST_MAGIC);
+			out.writeLong(manifestGeneration);
+			out.writeInt(segments.size());
+			for (SealedSegment segment : segments) {
+				out.writeLong(segment.id());
+			}
+		});
+		if (fsync) {
+			AppendLog.syncDirectory(directory);
+		}
+		deleteUnreferenced(segments);
+	}
+
+	@Override
+	public void close() throws IOException {
+		log.close();
+	}
+
+	private SealedSegment openSegment(long id) throws IOException {
+		SealedSegment segment = new SealedSegment(id, MappedSegment.open(segmentFile(id)));
+		Path tombstones = tombstoneFile(id);
+		if (Files.exists(tombstones)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(tombstones)))) {
+				long[] words = new long[in.readInt()];
+				for (int i = 0; i < words.length; i++) {
+					words[i] = in.readLong();
+				}
+				segment.loadTombstones(words);
+			}
+		}
+		return segment;
+	}
+
+	private void writeAtomically(Path target, RecordEncoder encoder) throws IOException {
+		Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+		try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+			encoder.encode(out);
+			out.flush();
+			if (fsync) {
+				file.getChannel().force(true);
+			}
+		}
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void deleteUnreferenced(List<SealedSegment> segments) throws IOException {
+		Set<String> referenced = new HashSet<>();
+		for (SealedSegment segment : segments) {
+			referenced.add(segmentFile(segment.id()).getFileName().toString());
+			referenced.add(tombstoneFile(segment.id()).getFileName().toString());
+		}
+		deleteFiles(
+				name -> name.startsWith(SEGMENT_PREFIX) && !name.endsWith(TEMP_SUFFIX) && !referenced.contains(name));
+	}
+
+	private void deleteFiles(Predicate<String> names) throws IOException {
+		List<Path> matches;
+		try (Stream<Path> files = Files.list(directory)) {
+			matches = files.filter(file -> names.test(file.getFileName().toString())).toList();
+		}
+		for (Path file : matches) {
+			try {
+				Files.deleteIfExists(file);
+			}
+			catch (IOException e) {
+				// Platforms that lock mapped files delete it on a later commit
+				logger.warn("Could not delete {}: {}", file, e.getMessage());
+			}
+		}
+	}
+
+	private long maxSegmentIdOnDisk() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString())
+				.filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+				.mapToLong(name -> Long
+					.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+				.max()
+				.orElse(0);
+		}
+	}
+
+	private long append(RecordEncoder encoder) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		encoder.encode(out);
+		out.flush();
+		return log.append(bytes.toByteArray());
+	}
+
+	private static void apply(byte[] payload, Replay replay) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte op = in.readByte();
+		switch (op) {
+			case OP_PUT -> {
+				MemoryItem item = MemoryItemCodec.readItem(in);
+				float[] vector = readVector(in);
+				replay.put(item, vector, in.readFloat());
+			}
+			case OP_DELETE -> replay.delete(MemoryItemCodec.readString(in));
+			case OP_DELETE_ALL -> replay.deleteAll(MemoryItemCodec.readMap(in));
+			case OP_RESET -> replay.reset();
+			default -> throw new IOException("Unknown write-ahead log operation: " + op);
+		}
+	}
+
+	private static void writeVector(DataOutput out, float[] vector) throws IOException {
+		if (vector == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(vector.length);
+		for (float value : vector) {
+			out.writeFloat(value);
+		}
+	}
+
+	private static float[] readVector(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		float[] vector = new float[length];
+		for (int i = 0; i < length; i++) {
+			vector[i] = in.readFloat();
+		}
+		return vector;
+	}
+
+	private Path segmentFile(long id) {
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+	}
+
+	private Path tombstoneFile(long id) {
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, TOMBSTONE_SUFFIX));
+	}
+
+	@FunctionalInterface
+	private interface RecordEncoder {
+
+		void encode(DataOutput out) throws IOException;
+
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Columnar storage for fixed-dimension float vectors.
+ * <p>
+ * Vectors are packed back to back into large primitive {@code float[]} chunks and
+ * addressed by a dense ordinal, so a scan walks memory linearly instead of following one
+ * boxed array per vector. The last chunk grows geometrically, which keeps small stores
+ * small. This class is not thread-safe; callers guard it with their own lock.
+ */
+public final class VectorSlab {
+
+	/**
+	 * Upper bound for the number of floats held by one chunk (4 MB).
+	 */
+	private static final int MAX_CHUNK_FLOATS = 1 << 20;
+
+	private static final int MIN_CHUNK_VECTORS = 16;
+
+	private final int dimension;
+
+	private final int chunkShift;
+
+	private final int chunkMask;
+
+	private float[][] chunks = new float[0][];
+
+	private int size;
+
+	public VectorSlab(int dimension) {
+		if (dimension <= 0) {
+			throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+		}
+		this.dimension = dimension;
+		int vectorsPerChunk = Integer.highestOneBit(Math.max(1, MAX_CHUNK_FLOATS / dimension));
+		this.chunkShift = Integer.numberOfTrailingZeros(vectorsPerChunk);
+		this.chunkMask = vectorsPerChunk - 1;
+	}
+
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Number of ordinals handed out so far, including ones whose owner was deleted.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of vectors held by every chunk but possibly the last one.
+	 */
+	public int chunkCapacity() {
+		return chunkMask + 1;
+	}
+
+	/**
+	 * Append a vector and return its ordinal.
+	 */
+	public int append(float[] vector) {
+		int ordinal = size;
+		set(ordinal, vector);
+		return ordinal;
+	}
+
+	/**
+	 * Store a vector at the given ordinal, growing the slab with zero vectors if needed.
+	 */
+	public void set(int ordinal, float[] vector) {
+		checkDimension(vector.length);
+		ensureCapacity(ordinal + 1);
+		System.arraycopy(vector, 0, chunks[ordinal >>> chunkShift], offset(ordinal), dimension);
+		size = Math.max(size, ordinal + 1);
+	}
+
+	/**
+	 * Copy the vector stored at the given ordinal.
+	 */
+	public float[] get(int ordinal) {
+		checkOrdinal(ordinal);
+		float[] chunk = chunks[ordinal >>> chunkShift];
+		int offset = offset(ordinal);
+		return Arrays.copyOfRange(chunk, offset, offset + dimension);
+	}
+
+	/**
+	 * The chunk holding the given ordinal. Together with {@link #offset(int)} this lets
+	 * callers score a stored vector in place without copying it.
+	 */
+	public float[] chunk(int ordinal) {
+		checkOrdinal(ordinal);
+		return chunks[ordinal >>> chunkShift];
+	}
+
+	/**
+	 * Offset of the given ordinal's first component inside its chunk.
+	 */
+	public int offset(int ordinal) {
+		return (ordinal & chunkMask) * dimension;
+	}
+
+	public void clear() {
+		chunks = new float[0][];
+		size = 0;
+	}
+
+	/**
+	 * Heap held by the vector chunks, in bytes.
+	 */
+	public long memoryBytes() {
+		long bytes = 0;
+		for (float[] chunk : chunks) {
+			bytes += (long) chunk.length * Float.BYTES;
+		}
+		return bytes;
+	}
+
+	private void ensureCapacity(int vectors) {
+		int lastChunk = (vectors - 1) >>> chunkShift;
+		if (lastChunk >= chunks.length) {
+			int oldLength = chunks.length;
+			chunks = Arrays.copyOf(chunks, lastChunk + 1);
+			// Earlier chunks are always full size, only the tail may be partial
+			if (oldLength > 0) {
+				chunks[oldLength - 1] = resize(chunks[oldLength - 1], chunkCapacity());
+			}
+			for (int i = oldLength; i < lastChunk; i++) {
+				chunks[i] = new float[chunkCapacity() * dimension];
+			}
+			chunks[lastChunk] = new float[0];
+		}
+		int needed = ((vectors - 1) & chunkMask) + 1;
+		float[] tail = chunks[lastChunk];
+		if (tail.length < needed * dimension) {
+			int grown = Math.max(needed, Math.max(MIN_CHUNK_VECTORS, tail.length / dimension * 2));
+			chunks[lastChunk] = resize(tail, Math.min(grown, chunkCapacity()));
+		}
+	}
+
+	private float[] resize(float[] chunk, int vectors) {
+		return chunk.length == vectors * dimension ? chunk : Arrays.copyOf(chunk, vectors * dimension);
+	}
+
+	private void checkDimension(int length) {
+		if (length != dimension) {
+			throw new IllegalArgumentException(
+					"Vector dimension mismatch: expected " + dimension + " but was " + length);
+		}
+	}
+
+	private void checkOrdinal(int ordinal) {
+		if (ordinal < 0 || ordinal >= size) {
+			throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of range [0, " + size + ")");
+		}
+	}
+
+}
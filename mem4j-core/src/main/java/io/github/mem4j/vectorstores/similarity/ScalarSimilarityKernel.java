@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.similarity;
+
+/**
+ * Portable kernel with four independent accumulators, which lets the JIT pipeline the
+ * multiply-adds even where it does not auto-vectorize the reduction.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+	static final ScalarSimilarityKernel INSTANCE = new ScalarSimilarityKernel();
+
+	private ScalarSimilarityKernel() {
+	}
+
+	@Override
+	public String name() {
+		return "scalar";
+	}
+
+	@Override
+	public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		float s0 = 0f;
+		float s1 = 0f;
+		float s2 = 0f;
+		float s3 = 0f;
+		int i = 0;
+		for (int bound = length & ~3; i < bound; i += 4) {
+			s0 += a[aOffset + i] * b[bOffset + i];
+			s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+			s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+			s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+		}
+		for (; i < length; i++) {
+			s0 += a[aOffset + i] * b[bOffset + i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	@Override
+	public float cosine(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		float dot0 = 0f;
+		float dot1 = 0f;
+		float normA0 = 0f;
+		float normA1 = 0f;
+		float normB0 = 0f;
+		float normB1 = 0f;
+		int i = 0;
+		for (int bound = length & ~1; i < bound; i += 2) {
+			float a0 = a[aOffset + i];
+			float a1 = a[aOffset + i + 1];
+			float b0 = b[bOffset + i];
+			float b1 = b[bOffset + i + 1];
+			dot0 += a0 * b0;
+			dot1 += a1 * b1;
+			normA0 += a0 * a0;
+			normA1 += a1 * a1;
+			normB0 += b0 * b0;
+			normB1 += b1 * b1;
+		}
+		for (; i < length; i++) {
+			float a0 = a[aOffset + i];
+			float b0 = b[bOffset + i];
+			dot0 += a0 * b0;
+			normA0 += a0 * a0;
+			normB0 += b0 * b0;
+		}
+		return Similarity.cosine(dot0 + dot1, normA0 + normA1, normB0 + normB1);
+	}
+
+	@Override
+	public float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		float s0 = 0f;
+		float s1 = 0f;
+		float s2 = 0f;
+		float s3 = 0f;
+		int i = 0;
+		for (int bound = length & ~3; i < bound; i += 4) {
+			float d0 = a[aOffset + i] - b[bOffset + i];
+			float d1 = a[aOffset + i + 1] - b[bOffset + i + 1];
+			float d2 = a[aOffset + i + 2] - b[bOffset + i + 2];
+			float d3 = a[aOffset + i + 3] - b[bOffset + i + 3];
+			s0 += d0 * d0;
+			s1 += d1 * d1;
+			s2 += d2 * d2;
+			s3 += d3 * d3;
+		}
+		for (; i < length; i++) {
+			float d = a[aOffset + i] - b[bOffset + i];
+			s0 += d * d;
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.similarity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point for vector similarity functions shared by the vector stores.
+ * <p>
+ * The kernel is chosen once at class initialization: the SIMD implementation when the
+ * {@code jdk.incubator.vector} module is resolved (start the JVM with
+ * {@code --add-modules jdk.incubator.vector}), the unrolled scalar one otherwise. Set the
+ * {@code mem4j.similarity.vector-api} system property to {@code false} to force the
+ * scalar kernel.
+ */
+public final class Similarity {
+
+	private static final Logger logger = LoggerFactory.getLogger(Similarity.class);
+
+	static final String VECTOR_API_MODULE = "jdk.incubator.vector";
+
+	static final String VECTOR_API_PROPERTY = "mem4j.similarity.vector-api";
+
+	private static final SimilarityKernel KERNEL = selectKernel();
+
+	private Similarity() {
+	}
+
+	/**
+	 * The kernel used by the static methods of this class.
+	 */
+	public static SimilarityKernel kernel() {
+		return KERNEL;
+	}
+
+	public static float dot(float[] a, float[] b) {
+		checkLength(a, b);
+		return KERNEL.dot(a, 0, b, 0, a.length);
+	}
+
+	/**
+	 * Dot product of a query with the vector stored at {@code offset} in a packed chunk.
+	 */
+	public static float dot(float[] query, float[] chunk, int offset) {
+		return KERNEL.dot(query, 0, chunk, offset, query.length);
+	}
+
+	public static float cosine(float[] a, float[] b) {
+		checkLength(a, b);
+		return KERNEL.cosine(a, 0, b, 0, a.length);
+	}
+
+	/**
+	 * Cosine similarity of a query with the vector stored at {@code offset} in a packed
+	 * chunk.
+	 */
+	public static float cosine(float[] query, float[] chunk, int offset) {
+		return KERNEL.cosine(query, 0, chunk, offset, query.length);
+	}
+
+	/**
+	 * Euclidean (L2) distance.
+	 */
+	public static float l2(float[] a, float[] b) {
+		checkLength(a, b);
+		return (float) Math.sqrt(KERNEL.squaredDistance(a, 0, b, 0, a.length));
+	}
+
+	public static float squaredL2(float[] query, float[] chunk, int offset) {
+		return KERNEL.squaredDistance(query, 0, chunk, offset, query.length);
+	}
+
+	public static float norm(float[] vector) {
+		return (float) Math.sqrt(KERNEL.dot(vector, 0, vector, 0, vector.length));
+	}
+
+	/**
+	 * Scale the vector to unit length in place, leaving zero vectors untouched.
+	 * @return the norm the vector had before scaling
+	 */
+	public static float normalize(float[] vector) {
+		float norm = norm(vector);
+		if (norm > 0f) {
+			float inverse = 1f / norm;
+			for (int i = 0; i < vector.length; i++) {
+				vector[i] *= inverse;
+			}
+		}
+		return norm;
+	}
+
+	/**
+	 * Narrow a boxed embedding to a primitive float vector.
+	 */
+	public static float[] toFloatArray(Double[] vector) {
+		float[] result = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			result[i] = vector[i].floatValue();
+		}
+		return result;
+	}
+
+	/**
+	 * Cosine from a dot product and the two squared norms.
+	 */
+	static float cosine(float dot, float squaredNormA, float squaredNormB) {
+		if (squaredNormA == 0f || squaredNormB == 0f) {
+			return 0f;
+		}
+		return (float) (dot / (Math.sqrt(squaredNormA) * Math.sqrt(squaredNormB)));
+	}
+
+	static SimilarityKernel selectKernel() {
+		if (!Boolean.parseBoolean(System.getProperty(VECTOR_API_PROPERTY, "true"))
+				|| ModuleLayer.boot().findModule(VECTOR_API_MODULE).isEmpty()) {
+			logger.debug("Using scalar similarity kernel");
+			return ScalarSimilarityKernel.INSTANCE;
+		}
+		try {
+			// Loaded reflectively so this class links without the incubator module
+			SimilarityKernel kernel = (SimilarityKernel) Class
+				.forName(Similarity.class.getPackageName() + ".VectorApiSimilarityKernel")
+				.getDeclaredConstructor()
+				.newInstance();
+			logger.info("Using {} similarity kernel", kernel.name());
+			return kernel;
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			logger.warn("Vector API unavailable, falling back to scalar similarity kernel", e);
+			return ScalarSimilarityKernel.INSTANCE;
+		}
+	}
+
+	private static void checkLength(float[] a, float[] b) {
+		if (a.length != b.length) {
+			throw new IllegalArgumentException("Vector dimension mismatch: " + a.length + " != " + b.length);
+		}
+	}
+
+}
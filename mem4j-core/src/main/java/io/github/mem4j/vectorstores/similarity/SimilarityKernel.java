@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.similarity;
+
+/**
+ * Low-level similarity primitives over ranges of {@code float[]} arrays.
+ * <p>
+ * Ranges are addressed by array, offset and length so that vectors packed into large
+ * chunks can be scored in place. Implementations are stateless and thread-safe.
+ */
+public interface SimilarityKernel {
+
+	/**
+	 * Name of the implementation, for diagnostics.
+	 */
+	String name();
+
+	float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+	/**
+	 * Cosine similarity, or 0 when either range has zero norm.
+	 */
+	float cosine(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+	/**
+	 * Squared Euclidean distance.
+	 */
+	float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+}
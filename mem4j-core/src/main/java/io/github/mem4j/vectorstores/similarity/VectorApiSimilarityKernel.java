@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.similarity;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel on top of the incubating JDK Vector API, using the widest lane shape the
+ * CPU supports. This class must only be loaded when {@code jdk.incubator.vector} is
+ * resolved; {@link Similarity} takes care of that.
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	@Override
+	public String name() {
+		return "vector-api(" + SPECIES.vectorBitSize() + "-bit)";
+	}
+
+	@Override
+	public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		FloatVector acc = FloatVector.zero(SPECIES);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+			FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+			acc = va.fma(vb, acc);
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			sum += a[aOffset + i] * b[bOffset + i];
+		}
+		return sum;
+	}
+
+	@Override
+	public float cosine(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		FloatVector dotAcc = FloatVector.zero(SPECIES);
+		FloatVector normAAcc = FloatVector.zero(SPECIES);
+		FloatVector normBAcc = FloatVector.zero(SPECIES);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+			FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+			dotAcc = va.fma(vb, dotAcc);
+			normAAcc = va.fma(va, normAAcc);
+			normBAcc = vb.fma(vb, normBAcc);
+		}
+		float dot = dotAcc.reduceLanes(VectorOperators.ADD);
+		float normA = normAAcc.reduceLanes(VectorOperators.ADD);
+		float normB = normBAcc.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			float x = a[aOffset + i];
+			float y = b[bOffset + i];
+			dot += x * y;
+			normA += x * x;
+			normB += y * y;
+		}
+		return Similarity.cosine(dot, normA, normB);
+	}
+
+	@Override
+	public float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		FloatVector acc = FloatVector.zero(SPECIES);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			FloatVector diff = FloatVector.fromArray(SPECIES, a, aOffset + i)
+				.sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+			acc = diff.fma(diff, acc);
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			float d = a[aOffset + i] - b[bOffset + i];
+			sum += d * d;
+		}
+		return sum;
+	}
+
+}
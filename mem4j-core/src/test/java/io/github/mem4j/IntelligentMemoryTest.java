@@ -28,12 +28,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -66,7 +70,14 @@ public class IntelligentMemoryTest {
 	void setUp() {
 		// Configure mock behavior
 		lenient().when(memoryConfig.getSimilarityThreshold()).thenReturn(0.7);
-		lenient().when(embeddingService.embed(anyString())).thenReturn(createMockEmbedding());
+		Double[] embedding = createMockEmbedding();
+		lenient().when(embeddingService.embed(anyString())).thenReturn(embedding);
+		lenient().when(embeddingService.embed(any(String[].class))).thenAnswer(invocation -> {
+			String[] texts = invocation.getArgument(0);
+			Double[][] embeddings = new Double[texts.length][];
+			Arrays.fill(embeddings, embedding);
+			return embeddings;
+		});
 		lenient().when(embeddingService.getDimension()).thenReturn(1536);
 		lenient().when(embeddingService.isAvailable()).thenReturn(true);
 		lenient().when(llmService.isAvailable()).thenReturn(true);
@@ -82,16 +93,16 @@ public class IntelligentMemoryTest {
 				new Message("assistant", "That's great!"));
 
 		when(llmService.generate(anyString())).thenReturn("- User loves hiking in the mountains");
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.emptyList());
 
 		// Act
 		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
 
 		// Assert
-		verify(vectorStoreService, times(1)).add(any(MemoryItem.class));
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
 		verify(vectorStoreService, never()).update(any(MemoryItem.class));
-		verify(vectorStoreService, never()).delete(anyString());
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
 	}
 
 	@Test
@@ -105,16 +116,16 @@ public class IntelligentMemoryTest {
 		// Create a very similar existing memory (score > 0.95)
 		MemoryItem existingMemory = createMockMemoryItem("existing-1", "User likes pizza");
 		existingMemory.setScore(0.96);
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.singletonList(existingMemory));
 
 		// Act
 		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
 
 		// Assert - should skip (not insert, update, or delete)
-		verify(vectorStoreService, never()).add(any(MemoryItem.class));
+		verify(vectorStoreService, never()).addAll(anyList());
 		verify(vectorStoreService, never()).update(any(MemoryItem.class));
-		verify(vectorStoreService, never()).delete(anyString());
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
 	}
 
 	@Test
@@ -128,7 +139,7 @@ public class IntelligentMemoryTest {
 		// Create existing memory with similarity 0.9 (should trigger LLM decision)
 		MemoryItem existingMemory = createMockMemoryItem("existing-1", "User likes coffee");
 		existingMemory.setScore(0.9);
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.singletonList(existingMemory));
 
 		// LLM decides to update with merged content
@@ -141,8 +152,8 @@ public class IntelligentMemoryTest {
 		// Assert
 		ArgumentCaptor<MemoryItem> captor = ArgumentCaptor.forClass(MemoryItem.class);
 		verify(vectorStoreService, times(1)).update(captor.capture());
-		verify(vectorStoreService, never()).add(any(MemoryItem.class));
-		verify(vectorStoreService, never()).delete(anyString());
+		verify(vectorStoreService, never()).addAll(anyList());
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
 
 		MemoryItem updatedItem = captor.getValue();
 		assertTrue(updatedItem.getContent().contains("prefers tea"));
@@ -159,7 +170,7 @@ public class IntelligentMemoryTest {
 		// Create existing memory with similarity 0.9
 		MemoryItem existingMemory = createMockMemoryItem("existing-1", "User is a software developer");
 		existingMemory.setScore(0.9);
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.singletonList(existingMemory));
 
 		// LLM decides to delete old memory
@@ -169,11 +180,37 @@ public class IntelligentMemoryTest {
 		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
 
 		// Assert
-		verify(vectorStoreService, times(1)).delete("existing-1");
-		verify(vectorStoreService, never()).add(any(MemoryItem.class));
+		verify(vectorStoreService, times(1)).deleteByIds(List.of("existing-1"));
+		verify(vectorStoreService, never()).delete(anyString());
+		verify(vectorStoreService, never()).addAll(anyList());
 		verify(vectorStoreService, never()).update(any(MemoryItem.class));
 	}
 
+	@Test
+	void testIntelligentAdd_DeletesAfterInserts() {
+		// Arrange
+		List<Message> messages = Arrays.asList(new Message("user", "I am not a developer anymore, I teach now"),
+				new Message("assistant", "Thanks for letting me know!"));
+
+		when(llmService.generate(contains("Extract key memories")))
+			.thenReturn("- User is no longer a developer\n- User is a teacher");
+
+		MemoryItem existingMemory = createMockMemoryItem("existing-1", "User is a software developer");
+		existingMemory.setScore(0.9);
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
+			.thenReturn(Collections.singletonList(existingMemory));
+		when(llmService.generate(contains("memory management system"))).thenReturn("DELETE");
+
+		// Act
+		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
+
+		// Assert - the obsolete memory goes in one batch once the new one is stored
+		InOrder inOrder = inOrder(vectorStoreService);
+		inOrder.verify(vectorStoreService).addAll(argThat(items -> items.size() == 1));
+		inOrder.verify(vectorStoreService).deleteByIds(List.of("existing-1"));
+		verify(vectorStoreService, never()).delete(anyString());
+	}
+
 	@Test
 	void testIntelligentAdd_InsertSeparate_WhenModerateSimilarity() {
 		// Arrange
@@ -185,16 +222,16 @@ public class IntelligentMemoryTest {
 		// Create existing memory with moderate similarity (0.75)
 		MemoryItem existingMemory = createMockMemoryItem("existing-1", "User loves hiking");
 		existingMemory.setScore(0.75);
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.singletonList(existingMemory));
 
 		// Act
 		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
 
 		// Assert - should insert as separate memory
-		verify(vectorStoreService, times(1)).add(any(MemoryItem.class));
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
 		verify(vectorStoreService, never()).update(any(MemoryItem.class));
-		verify(vectorStoreService, never()).delete(anyString());
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
 	}
 
 	@Test
@@ -216,9 +253,15 @@ public class IntelligentMemoryTest {
 		MemoryItem existingLocation = createMockMemoryItem("existing-2", "User lives in Boston");
 		existingLocation.setScore(0.9);
 
-		// Mock search to return different results for different embeddings
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
-			.thenReturn(Collections.singletonList(existingPizza))
+		// Mock search to return different results for different embeddings; the
+		// lookups run concurrently, so results are keyed by embedding
+		Double[] pizzaEmbedding = createBasisEmbedding(0);
+		Double[] locationEmbedding = createBasisEmbedding(1);
+		when(embeddingService.embed(any(String[].class))).thenReturn(
+				new Double[][] { pizzaEmbedding, locationEmbedding }, new Double[][] { createBasisEmbedding(2) });
+		when(vectorStoreService.search(same(pizzaEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenReturn(Collections.singletonList(existingPizza));
+		when(vectorStoreService.search(same(locationEmbedding), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.singletonList(existingLocation));
 
 		// LLM decides to update the location
@@ -231,8 +274,14 @@ public class IntelligentMemoryTest {
 		// Assert
 		verify(vectorStoreService, times(1)).update(any(MemoryItem.class)); // Location
 																			// updated
-		verify(vectorStoreService, never()).add(any(MemoryItem.class)); // Pizza skipped
-		verify(vectorStoreService, never()).delete(anyString()); // Nothing deleted
+		verify(vectorStoreService, never()).addAll(anyList()); // Pizza skipped
+		verify(vectorStoreService, never()).deleteByIds(anyCollection()); // Nothing
+																			// deleted
+		// One request for both extracted memories, one for the merged location
+		verify(embeddingService, times(1)).embed(argThat((String[] texts) -> texts.length == 2));
+		verify(embeddingService, times(1)).embed(argThat((String[] texts) -> texts.length == 1
+				&& texts[0].equals("User moved to New York (previously in Boston)")));
+		verify(embeddingService, never()).embed(anyString());
 	}
 
 	@Test
@@ -245,7 +294,7 @@ public class IntelligentMemoryTest {
 
 		MemoryItem existingMemory = createMockMemoryItem("existing-1", "User enjoys reading");
 		existingMemory.setScore(0.9);
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble()))
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
 			.thenReturn(Collections.singletonList(existingMemory));
 
 		// LLM throws error when making decision
@@ -256,9 +305,168 @@ public class IntelligentMemoryTest {
 		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
 
 		// Assert - should fall back to INSERT
-		verify(vectorStoreService, times(1)).add(any(MemoryItem.class));
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
 		verify(vectorStoreService, never()).update(any(MemoryItem.class));
-		verify(vectorStoreService, never()).delete(anyString());
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
+	}
+
+	@Test
+	void testIntelligentAdd_DuplicatesWithinConversation_InsertedOnceInOneBatch() {
+		// Arrange
+		List<Message> messages = Arrays.asList(new Message("user", "I like tea, I really like tea"),
+				new Message("assistant", "Noted!"));
+
+		// Both extracted memories get the same embedding from the mock
+		when(llmService.generate(anyString())).thenReturn("- User likes tea\n- User really likes tea");
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
+			.thenReturn(Collections.emptyList());
+
+		// Act
+		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
+
+		// Assert - the second memory is a duplicate of the pending first one
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
+		verify(vectorStoreService, never()).add(any(MemoryItem.class));
+		verify(vectorStoreService, never()).update(any(MemoryItem.class));
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
+	}
+
+	@Test
+	void testIntelligentAdd_SameExistingMemoryTargetedTwice_MergesBoth() {
+		// Arrange
+		List<Message> messages = Arrays.asList(new Message("user", "I moved to New York and work in Manhattan"),
+				new Message("assistant", "Congratulations!"));
+
+		when(llmService.generate(contains("Extract key memories")))
+			.thenReturn("- User moved to New York\n- User works in Manhattan");
+		when(embeddingService.embed(any(String[].class))).thenReturn(
+				new Double[][] { createBasisEmbedding(0), createBasisEmbedding(1) },
+				new Double[][] { createBasisEmbedding(2) });
+
+		// Both memories find the same stored memory, as separate copies like a real store
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-1", "User lives in Boston")));
+
+		// The LLM merges each new memory into the existing content it is shown
+		when(llmService.generate(contains("memory management system"))).thenAnswer(invocation -> {
+			String prompt = invocation.getArgument(0);
+			if (!prompt.contains("NEW MEMORY: User works in Manhattan")) {
+				return "UPDATE: User lives in New York";
+			}
+			return prompt.contains("EXISTING MEMORY: User lives in New York")
+					? "UPDATE: User lives in New York and works in Manhattan"
+					: "UPDATE: User lives in Boston and works in Manhattan";
+		});
+
+		// Act
+		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
+
+		// Assert - the second merge is decided again on top of the first one
+		ArgumentCaptor<MemoryItem> captor = ArgumentCaptor.forClass(MemoryItem.class);
+		verify(vectorStoreService, times(1)).update(captor.capture());
+		assertEquals("existing-1", captor.getValue().getId());
+		assertEquals("User lives in New York and works in Manhattan", captor.getValue().getContent());
+		verify(llmService, times(3)).generate(contains("memory management system"));
+		verify(vectorStoreService, never()).addAll(anyList());
+	}
+
+	@Test
+	void testIntelligentAdd_DecisionsRunConcurrently() {
+		// Arrange
+		List<Message> messages = Arrays.asList(new Message("user", "I like tea and I play chess"),
+				new Message("assistant", "Nice!"));
+
+		when(llmService.generate(contains("Extract key memories"))).thenReturn("- User likes tea\n- User plays chess");
+		Double[] teaEmbedding = createBasisEmbedding(0);
+		Double[] chessEmbedding = createBasisEmbedding(1);
+		when(embeddingService.embed(any(String[].class))).thenReturn(new Double[][] { teaEmbedding, chessEmbedding });
+		when(vectorStoreService.search(same(teaEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-1", "User enjoys green tea")));
+		when(vectorStoreService.search(same(chessEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-2", "User enjoys board games")));
+
+		// Each LLM decision waits for the other one to start
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		AtomicInteger overlapping = new AtomicInteger();
+		when(llmService.generate(contains("memory management system"))).thenAnswer(invocation -> {
+			bothStarted.countDown();
+			if (bothStarted.await(5, TimeUnit.SECONDS)) {
+				overlapping.incrementAndGet();
+			}
+			return "SKIP";
+		});
+
+		// Act
+		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
+
+		// Assert
+		assertEquals(2, overlapping.get());
+		verify(vectorStoreService, never()).addAll(anyList());
+		verify(vectorStoreService, never()).update(any(MemoryItem.class));
+	}
+
+	@Test
+	void testIntelligentAdd_BatchDecisions_OneLLMCallForAllAmbiguousMemories() {
+		// Arrange
+		when(memoryConfig.getBatchDecisions()).thenReturn(true);
+		List<Message> messages = Arrays.asList(new Message("user", "I moved to New York and I like tea"),
+				new Message("assistant", "Nice!"));
+
+		when(llmService.generate(contains("Extract key memories")))
+			.thenReturn("- User moved to New York\n- User likes tea");
+		Double[] locationEmbedding = createBasisEmbedding(0);
+		Double[] teaEmbedding = createBasisEmbedding(1);
+		when(embeddingService.embed(any(String[].class))).thenReturn(
+				new Double[][] { locationEmbedding, teaEmbedding }, new Double[][] { createBasisEmbedding(2) });
+		when(vectorStoreService.search(same(locationEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-1", "User lives in Boston")));
+		when(vectorStoreService.search(same(teaEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-2", "User enjoys tea")));
+
+		when(llmService.generateStructured(contains("PAIR 1"), anyString())).thenReturn("""
+				```json
+				[{"pair": 0, "action": "UPDATE", "content": "User lives in New York"},
+				 {"pair": 1, "action": "SKIP"}]
+				```""");
+
+		// Act
+		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
+
+		// Assert
+		ArgumentCaptor<MemoryItem> captor = ArgumentCaptor.forClass(MemoryItem.class);
+		verify(vectorStoreService, times(1)).update(captor.capture());
+		assertEquals("existing-1", captor.getValue().getId());
+		assertEquals("User lives in New York", captor.getValue().getContent());
+		verify(llmService, times(1)).generateStructured(anyString(), anyString());
+		verify(llmService, never()).generate(contains("memory management system"));
+		verify(vectorStoreService, never()).addAll(anyList());
+	}
+
+	@Test
+	void testIntelligentAdd_BatchDecisions_MalformedResponse_FallsBackToInsert() {
+		// Arrange
+		when(memoryConfig.getBatchDecisions()).thenReturn(true);
+		List<Message> messages = Arrays.asList(new Message("user", "I like tea and I play chess"),
+				new Message("assistant", "Nice!"));
+
+		when(llmService.generate(contains("Extract key memories"))).thenReturn("- User likes tea\n- User plays chess");
+		Double[] teaEmbedding = createBasisEmbedding(0);
+		Double[] chessEmbedding = createBasisEmbedding(1);
+		when(embeddingService.embed(any(String[].class))).thenReturn(new Double[][] { teaEmbedding, chessEmbedding });
+		when(vectorStoreService.search(same(teaEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-1", "User enjoys green tea")));
+		when(vectorStoreService.search(same(chessEmbedding), anyMap(), anyInt(), anyDouble()))
+			.thenAnswer(invocation -> List.of(createMockMemoryItem("existing-2", "User enjoys board games")));
+
+		when(llmService.generateStructured(anyString(), anyString())).thenReturn("I cannot decide");
+
+		// Act
+		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
+
+		// Assert - both memories are kept
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 2));
+		verify(vectorStoreService, never()).update(any(MemoryItem.class));
+		verify(vectorStoreService, never()).deleteByIds(anyCollection());
 	}
 
 	// Helper methods
@@ -270,6 +478,13 @@ public class IntelligentMemoryTest {
 		return embedding;
 	}
 
+	private Double[] createBasisEmbedding(int axis) {
+		Double[] embedding = new Double[1536];
+		Arrays.fill(embedding, 0.0);
+		embedding[axis] = 1.0;
+		return embedding;
+	}
+
 	private MemoryItem createMockMemoryItem(String id, String content) {
 		MemoryItem item = new MemoryItem(content, MemoryType.FACTUAL.getValue());
 		item.setId(id);
@@ -24,6 +24,7 @@ import io.github.mem4j.memory.MemoryItem;
 import io.github.mem4j.memory.MemoryType;
 import io.github.mem4j.memory.Message;
 import io.github.mem4j.vectorstores.VectorStoreService;
+import io.github.mem4j.vectorstores.filter.Filter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,6 +34,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -67,6 +76,8 @@ public class MemoryUnitTest {
 		// Configure mock behavior with lenient stubbing
 		lenient().when(memoryConfig.getSimilarityThreshold()).thenReturn(0.7);
 		lenient().when(embeddingService.embed(anyString())).thenReturn(createMockEmbedding());
+		lenient().when(embeddingService.embed(any(String[].class)))
+			.thenAnswer(invocation -> createMockEmbeddings(invocation.getArgument(0)));
 		lenient().when(embeddingService.getDimension()).thenReturn(1536);
 		lenient().when(embeddingService.isAvailable()).thenReturn(true);
 		lenient().when(llmService.isAvailable()).thenReturn(true);
@@ -88,8 +99,8 @@ public class MemoryUnitTest {
 		memory.add(messages, testUserId);
 
 		// Assert
-		verify(embeddingService, times(1)).embed(anyString());
-		verify(vectorStoreService, times(1)).add(any(MemoryItem.class));
+		verify(embeddingService, times(1)).embed(any(String[].class));
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
 	}
 
 	@Test
@@ -103,8 +114,8 @@ public class MemoryUnitTest {
 
 		// Assert
 		verify(llmService, never()).generate(anyString()); // No LLM call when infer=false
-		verify(embeddingService, times(1)).embed(anyString());
-		verify(vectorStoreService, times(1)).add(any(MemoryItem.class));
+		verify(embeddingService, times(1)).embed(any(String[].class));
+		verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
 	}
 
 	@Test
@@ -113,7 +124,7 @@ public class MemoryUnitTest {
 		String query = "What do I like?";
 		List<MemoryItem> mockResults = createMockMemoryItems();
 
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble())).thenReturn(mockResults);
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble())).thenReturn(mockResults);
 
 		// Act
 		List<MemoryItem> results = memory.search(query, testUserId);
@@ -123,7 +134,7 @@ public class MemoryUnitTest {
 		assertFalse(results.isEmpty());
 		assertEquals(2, results.size());
 		verify(embeddingService, times(1)).embed(query);
-		verify(vectorStoreService, times(1)).search(any(Double[].class), any(), anyInt(), anyDouble());
+		verify(vectorStoreService, times(1)).search(any(Double[].class), anyMap(), anyInt(), anyDouble());
 	}
 
 	@Test
@@ -133,7 +144,7 @@ public class MemoryUnitTest {
 		Map<String, Object> filters = Map.of("agent_id", "test_agent");
 		List<MemoryItem> mockResults = createMockMemoryItems();
 
-		when(vectorStoreService.search(any(Double[].class), any(), anyInt(), anyDouble())).thenReturn(mockResults);
+		when(vectorStoreService.search(any(Double[].class), anyMap(), anyInt(), anyDouble())).thenReturn(mockResults);
 
 		// Act
 		List<MemoryItem> results = memory.search(query, testUserId, filters, 5, 0.8);
@@ -141,14 +152,130 @@ public class MemoryUnitTest {
 		// Assert
 		assertNotNull(results);
 		verify(embeddingService, times(1)).embed(query);
-		verify(vectorStoreService, times(1)).search(any(Double[].class), any(), eq(5), eq(0.8));
+		verify(vectorStoreService, times(1)).search(any(Double[].class), anyMap(), eq(5), eq(0.8));
+	}
+
+	@Test
+	void testSearchBatchUsesOneVectorStoreSearch() {
+		// Arrange
+		List<String> queries = List.of("What do I like?", "Where do I work?");
+		when(vectorStoreService.searchBatch(any(float[][].class), anyMap(), anyInt(), anyDouble()))
+			.thenReturn(List.of(createMockMemoryItems(), List.of()));
+
+		// Act
+		List<List<MemoryItem>> results = memory.searchBatch(queries, testUserId);
+
+		// Assert
+		assertEquals(2, results.size());
+		assertEquals(2, results.get(0).size());
+		assertTrue(results.get(1).isEmpty());
+		verify(embeddingService, times(1)).embed(any(String[].class));
+		verify(embeddingService, never()).embed(anyString());
+		verify(vectorStoreService, times(1)).searchBatch(any(float[][].class), anyMap(), eq(10), anyDouble());
+		verify(vectorStoreService, never()).search(any(Double[].class), anyMap(), anyInt(), anyDouble());
+	}
+
+	@Test
+	void testAddAsyncDoesNotBlockCaller() throws Exception {
+		// Arrange
+		List<Message> messages = Arrays.asList(new Message("user", "I like pizza"),
+				new Message("assistant", "I'll remember that you like pizza."));
+		CountDownLatch llmRelease = new CountDownLatch(1);
+		when(llmService.generate(anyString())).thenAnswer(invocation -> {
+			llmRelease.await();
+			return "- User likes pizza";
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Memory asyncMemory = new Memory(memoryConfig, vectorStoreService, llmService, embeddingService, executor);
+		callRealAsyncMethods();
+
+		try {
+			// Act
+			CompletableFuture<Void> added = asyncMemory.addAsync(messages, testUserId);
+
+			// Assert
+			assertFalse(added.isDone());
+			llmRelease.countDown();
+			added.get(5, TimeUnit.SECONDS);
+			verify(vectorStoreService, times(1)).addAll(argThat(items -> items.size() == 1));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testSearchAsyncMatchesSearch() throws Exception {
+		// Arrange
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Memory asyncMemory = new Memory(memoryConfig, vectorStoreService, llmService, embeddingService, executor);
+		callRealAsyncMethods();
+		when(vectorStoreService.search(any(Double[].class), any(Filter.class), anyInt(), anyDouble()))
+			.thenReturn(createMockMemoryItems());
+
+		try {
+			// Act
+			List<MemoryItem> results = asyncMemory.searchAsync("What do I like?", testUserId).get(5, TimeUnit.SECONDS);
+
+			// Assert
+			assertEquals(2, results.size());
+			verify(embeddingService, times(1)).embed("What do I like?");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testAddAsyncFailsLikeAdd() {
+		// Arrange
+		List<Message> messages = List.of(new Message("user", "I like pizza"));
+		when(embeddingService.embed(any(String[].class))).thenThrow(new IllegalStateException("embedding down"));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Memory asyncMemory = new Memory(memoryConfig, vectorStoreService, llmService, embeddingService, executor);
+		callRealAsyncMethods();
+
+		try {
+			// Act
+			CompletableFuture<Void> added = asyncMemory.addAsync(messages, testUserId, null, false, MemoryType.FACTUAL);
+
+			// Assert
+			ExecutionException failure = assertThrows(ExecutionException.class, () -> added.get(5, TimeUnit.SECONDS));
+			assertEquals("Failed to add memories", failure.getCause().getMessage());
+			assertInstanceOf(IllegalStateException.class, failure.getCause().getCause());
+			verify(vectorStoreService, never()).addAll(anyList());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testCloseShutsDownOnlyOwnedExecutor() {
+		// Arrange
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Memory sharedMemory = new Memory(memoryConfig, vectorStoreService, llmService, embeddingService, executor);
+		callRealAsyncMethods();
+
+		try {
+			// Act
+			sharedMemory.close();
+			memory.close();
+
+			// Assert
+			assertFalse(executor.isShutdown());
+			assertThrows(RejectedExecutionException.class, () -> memory.searchAsync("What do I like?", testUserId));
+		}
+		finally {
+			executor.shutdownNow();
+		}
 	}
 
 	@Test
 	void testGetAllMemories() {
 		// Arrange
 		List<MemoryItem> mockResults = createMockMemoryItems();
-		when(vectorStoreService.getAll(any(), anyInt())).thenReturn(mockResults);
+		when(vectorStoreService.getAll(anyMap(), anyInt())).thenReturn(mockResults);
 
 		// Act
 		List<MemoryItem> results = memory.getAll(testUserId, null, 100);
@@ -156,7 +283,7 @@ public class MemoryUnitTest {
 		// Assert
 		assertNotNull(results);
 		assertEquals(2, results.size());
-		verify(vectorStoreService, times(1)).getAll(any(), eq(100));
+		verify(vectorStoreService, times(1)).getAll(anyMap(), eq(100));
 	}
 
 	@Test
@@ -198,7 +325,7 @@ public class MemoryUnitTest {
 		memory.deleteAll(userId);
 
 		// Assert
-		verify(vectorStoreService, times(1)).deleteAll(any());
+		verify(vectorStoreService, times(1)).deleteAll(anyMap());
 	}
 
 	@Test
@@ -238,8 +365,9 @@ public class MemoryUnitTest {
 		memory.add(messages, testUserId, metadata, false, MemoryType.FACTUAL);
 
 		// Assert
-		verify(vectorStoreService, times(1)).add(argThat(memoryItem -> {
-			return memoryItem.getUserId().equals(testUserId)
+		verify(vectorStoreService, times(1)).addAll(argThat(memoryItems -> {
+			MemoryItem memoryItem = memoryItems.get(0);
+			return memoryItems.size() == 1 && memoryItem.getUserId().equals(testUserId)
 					&& memoryItem.getMemoryType().equals(MemoryType.FACTUAL.getValue())
 					&& memoryItem.getMetadata() != null
 					&& memoryItem.getMetadata().get("agent_id").equals("test_agent");
@@ -253,17 +381,33 @@ public class MemoryUnitTest {
 				new Message("assistant", "Nice to meet you John!"));
 
 		when(llmService.generate(anyString())).thenReturn("- User's name is John\n- User likes chocolate");
+		// Unrelated memories get unrelated embeddings
+		when(embeddingService.embed(any(String[].class)))
+			.thenReturn(new Double[][] { createBasisEmbedding(0), createBasisEmbedding(1) });
 
 		// Act
 		memory.add(messages, testUserId, null, true, MemoryType.FACTUAL);
 
 		// Assert
 		verify(llmService, times(1)).generate(anyString());
-		verify(embeddingService, times(2)).embed(anyString()); // Two memories extracted
-		verify(vectorStoreService, times(2)).add(any(MemoryItem.class));
+		// Both extracted memories embedded in one request
+		verify(embeddingService, times(1)).embed(argThat((String[] texts) -> texts.length == 2));
+		verify(embeddingService, never()).embed(anyString());
+		verify(vectorStoreService, times(1)).addAll(argThat(memoryItems -> memoryItems.size() == 2));
 	}
 
 	// Helper methods
+	private void callRealAsyncMethods() {
+		// The default async methods run the stubbed blocking ones on the executor
+		lenient().doCallRealMethod().when(embeddingService).embedAsync(anyString(), any(Executor.class));
+		lenient().doCallRealMethod().when(embeddingService).embedAsync(any(String[].class), any(Executor.class));
+		lenient().doCallRealMethod().when(llmService).generateAsync(anyString(), any(Executor.class));
+		lenient().doCallRealMethod()
+			.when(vectorStoreService)
+			.searchAsync(any(Double[].class), any(Filter.class), anyInt(), anyDouble(), any(Executor.class));
+		lenient().doCallRealMethod().when(vectorStoreService).addAllAsync(anyList(), any(Executor.class));
+	}
+
 	private Double[] createMockEmbedding() {
 		Double[] embedding = new Double[1536];
 		for (int i = 0; i < embedding.length; i++) {
@@ -272,6 +416,21 @@ public class MemoryUnitTest {
 		return embedding;
 	}
 
+	private Double[][] createMockEmbeddings(String[] texts) {
+		Double[][] embeddings = new Double[texts.length][];
+		for (int i = 0; i < texts.length; i++) {
+			embeddings[i] = createMockEmbedding();
+		}
+		return embeddings;
+	}
+
+	private Double[] createBasisEmbedding(int axis) {
+		Double[] embedding = new Double[1536];
+		Arrays.fill(embedding, 0.0);
+		embedding[axis] = 1.0;
+		return embedding;
+	}
+
 	private List<MemoryItem> createMockMemoryItems() {
 		MemoryItem item1 = createMockMemoryItem("1", "I like pizza");
 		MemoryItem item2 = createMockMemoryItem("2", "I work as a developer");
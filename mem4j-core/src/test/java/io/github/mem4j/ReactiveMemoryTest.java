@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j;
+
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.embeddings.ReactiveEmbeddingService;
+import io.github.mem4j.llms.ReactiveLLMService;
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.memory.Message;
+import io.github.mem4j.memory.ReactiveMemory;
+import io.github.mem4j.vectorstores.InMemoryVectorStoreService;
+import io.github.mem4j.vectorstores.ReactiveVectorStoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the reactive Memory facade over an in-memory vector store
+ */
+public class ReactiveMemoryTest {
+
+	private static final int DIMENSION = 8;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private InMemoryVectorStoreService store;
+
+	private ReactiveMemory memory;
+
+	@BeforeEach
+	void setUp() {
+		store = new InMemoryVectorStoreService();
+		memory = new ReactiveMemory(mock(MemoryConfigurable.class), ReactiveVectorStoreService.from(store),
+				new DelayedLLMService(), new TopicEmbeddingService());
+	}
+
+	@Test
+	void testAddThenSearch() {
+		memory.add(List.of(new Message("user", "I like pizza")), "user1").block(Duration.ofSeconds(5));
+
+		List<MemoryItem> results = memory.search("pizza", "user1").collectList().block(Duration.ofSeconds(5));
+
+		assertEquals(1, results.size());
+		assertEquals("User likes pizza", results.get(0).getContent());
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	void testAddWithoutInferenceStoresConversation() {
+		memory.add(List.of(new Message("user", "I work as a developer")), "user1", null, false, MemoryType.FACTUAL)
+			.block(Duration.ofSeconds(5));
+
+		List<MemoryItem> results = memory.getAll("user1", null, 10).collectList().block(Duration.ofSeconds(5));
+
+		assertEquals(1, results.size());
+		assertEquals("user: I work as a developer", results.get(0).getContent());
+		assertTrue(memory.getAll("user2", null, 10).collectList().block(Duration.ofSeconds(5)).isEmpty());
+	}
+
+	@Test
+	void testAddAllBoundsConversationsInFlight() {
+		Flux<List<Message>> conversations = Flux.range(0, 6).map(i -> List.of(new Message("user", "Fact number " + i)));
+
+		memory.addAll(conversations, "user1", 2).block(Duration.ofSeconds(5));
+
+		assertEquals(6, store.size());
+		assertTrue(maxInFlight.get() <= 2, "at most 2 conversations in flight, saw " + maxInFlight.get());
+	}
+
+	@Test
+	void testDeleteAll() {
+		memory.add(List.of(new Message("user", "I like pizza")), "user1").block(Duration.ofSeconds(5));
+
+		memory.deleteAll("user1").block(Duration.ofSeconds(5));
+
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	void testReset() {
+		memory.add(List.of(new Message("user", "I like pizza")), "user1").block(Duration.ofSeconds(5));
+		memory.add(List.of(new Message("user", "Fact number 1")), "user2").block(Duration.ofSeconds(5));
+
+		memory.reset().block(Duration.ofSeconds(5));
+
+		assertEquals(0, store.size());
+	}
+
+	/**
+	 * Answers extraction prompts after a delay, turning each user message into one memory
+	 */
+	private class DelayedLLMService implements ReactiveLLMService {
+
+		@Override
+		public Mono<String> generate(String prompt) {
+			String fact = prompt.contains("pizza") ? "- User likes pizza"
+					: "- " + prompt.substring(prompt.lastIndexOf("Fact number")).lines().findFirst().orElseThrow();
+			return Mono.delay(Duration.ofMillis(20)).map(ignored -> fact).doOnSubscribe(subscription -> {
+				int current = inFlight.incrementAndGet();
+				maxInFlight.accumulateAndGet(current, Math::max);
+			}).doFinally(signal -> inFlight.decrementAndGet());
+		}
+
+		@Override
+		public Mono<String> generate(List<Message> messages) {
+			return generate(messages.get(messages.size() - 1).getContent());
+		}
+
+		@Override
+		public Mono<String> generateStructured(String prompt, String schema) {
+			return generate(prompt);
+		}
+
+	}
+
+	/**
+	 * Embeds each text on its own axis, texts about pizza sharing one
+	 */
+	private static class TopicEmbeddingService implements ReactiveEmbeddingService {
+
+		@Override
+		public Mono<Double[]> embed(String text) {
+			Double[] embedding = new Double[DIMENSION];
+			Arrays.fill(embedding, 0.0);
+			embedding[text.contains("pizza") ? 0 : 1 + Math.floorMod(text.hashCode(), DIMENSION - 1)] = 1.0;
+			return Mono.delay(Duration.ofMillis(1)).thenReturn(embedding);
+		}
+
+		@Override
+		public Mono<Double[][]> embed(String[] texts) {
+			return Flux.fromArray(texts)
+				.concatMap(this::embed)
+				.collectList()
+				.map(list -> list.toArray(Double[][]::new));
+		}
+
+		@Override
+		public Integer getDimension() {
+			return DIMENSION;
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.embeddings;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingEmbeddingServiceTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final RecordingEmbeddingService delegate = new RecordingEmbeddingService();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testConcurrentCallersShareRequests() throws Exception {
+		try (CoalescingEmbeddingService service = new CoalescingEmbeddingService(delegate, 8, Duration.ofMillis(50),
+				executor)) {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Double[]>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				String text = "text-" + i;
+				results.add(executor.submit(() -> {
+					start.await();
+					return service.embed(text);
+				}));
+			}
+			start.countDown();
+
+			for (int i = 0; i < 32; i++) {
+				assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS)[0]);
+			}
+			assertTrue(delegate.batches.size() <= 8, "expected coalesced requests, got " + delegate.batches.size());
+			assertTrue(delegate.batches.stream().allMatch(batch -> batch.length <= 8));
+		}
+	}
+
+	@Test
+	void testLoneCallerIsSentAfterDelay() {
+		try (CoalescingEmbeddingService service = new CoalescingEmbeddingService(delegate, 8, Duration.ofMillis(10),
+				executor)) {
+			assertEquals(7.0, service.embed("text-7")[0]);
+			assertEquals(1, delegate.batches.size());
+		}
+	}
+
+	@Test
+	void testSameTextSharesOneSlot() throws Exception {
+		try (CoalescingEmbeddingService service = new CoalescingEmbeddingService(delegate, 8, Duration.ofMillis(20),
+				executor)) {
+			CompletableFuture<Double[]> first = service.embedAsync("text-3", executor);
+			CompletableFuture<Double[]> second = service.embedAsync("text-3", executor);
+
+			assertEquals(3.0, first.get(5, TimeUnit.SECONDS)[0]);
+			assertEquals(3.0, second.get(5, TimeUnit.SECONDS)[0]);
+			assertEquals(1, delegate.batches.size());
+			assertEquals(1, delegate.batches.get(0).length);
+		}
+	}
+
+	@Test
+	void testFailedRequestFailsEveryCaller() {
+		delegate.failure = new RuntimeException("Failed to generate embeddings");
+		try (CoalescingEmbeddingService service = new CoalescingEmbeddingService(delegate, 2, Duration.ofSeconds(5),
+				executor)) {
+			CompletableFuture<Double[]> first = service.embedAsync("text-1", executor);
+			RuntimeException error = assertThrows(RuntimeException.class, () -> service.embed("text-2"));
+
+			assertEquals("Failed to generate embeddings", error.getMessage());
+			assertTrue(first.isCompletedExceptionally());
+			assertEquals(1, delegate.batches.size());
+		}
+	}
+
+	/**
+	 * Embeds "text-N" as a vector starting with N and records every request
+	 */
+	private static class RecordingEmbeddingService implements EmbeddingService {
+
+		private final List<String[]> batches = new CopyOnWriteArrayList<>();
+
+		private volatile RuntimeException failure;
+
+		@Override
+		public Double[] embed(String text) {
+			return embed(new String[] { text })[0];
+		}
+
+		@Override
+		public Double[][] embed(String[] texts) {
+			batches.add(texts);
+			if (failure != null) {
+				throw failure;
+			}
+			Double[][] embeddings = new Double[texts.length][];
+			for (int i = 0; i < texts.length; i++) {
+				embeddings[i] = new Double[] { Double.parseDouble(texts[i].substring("text-".length())), 1.0 };
+			}
+			return embeddings;
+		}
+
+		@Override
+		public Integer getDimension() {
+			return 2;
+		}
+
+		@Override
+		public Boolean isAvailable() {
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.ingestion;
+
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.memory.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IngestionJournal
+ */
+class IngestionJournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testUnacknowledgedEntriesSurviveRestart() throws Exception {
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO)) {
+			assertTrue(journal.recover().isEmpty());
+			IngestionJournal.Entry first = journal.append(List.of(new Message("user", "I like tea")), "alice",
+					Map.of("source", "chat"), true, MemoryType.SEMANTIC);
+			IngestionJournal.Entry second = journal.append(List.of(new Message("user", "I play chess")), "bob", null,
+					false, MemoryType.FACTUAL);
+			journal.append(List.of(new Message("user", "I moved to Paris")), "alice", null, true, MemoryType.FACTUAL);
+			journal.recordAttempt(first);
+			journal.acknowledge(second);
+			assertEquals(2, journal.getPendingCount());
+		}
+
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ofMillis(5))) {
+			List<IngestionJournal.Entry> recovered = journal.recover();
+			assertEquals(2, recovered.size());
+
+			IngestionJournal.Entry first = recovered.get(0);
+			assertEquals(1, first.getId());
+			assertEquals("alice", first.getUserId());
+			assertEquals("I like tea", first.getMessages().get(0).getContent());
+			assertEquals("user", first.getMessages().get(0).getRole());
+			assertEquals(Map.of("source", "chat"), first.getMetadata());
+			assertTrue(first.isInfer());
+			assertEquals(MemoryType.SEMANTIC, first.getMemoryType());
+			assertEquals(1, first.getAttempts());
+
+			assertEquals(3, recovered.get(1).getId());
+			assertEquals("I moved to Paris", recovered.get(1).getMessages().get(0).getContent());
+			assertEquals(0, recovered.get(1).getAttempts());
+
+			assertEquals(4, journal.append(List.of(new Message("user", "hi")), "carol", null, true, MemoryType.FACTUAL)
+				.getId());
+		}
+	}
+
+	@Test
+	void testIdsKeepIncreasingOnceEverythingIsAcknowledged() throws Exception {
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO)) {
+			journal.recover();
+			for (int i = 0; i < 3; i++) {
+				journal.acknowledge(journal.append(List.of(new Message("user", "message " + i)), "alice", null, true,
+						MemoryType.FACTUAL));
+			}
+		}
+		for (int restart = 0; restart < 2; restart++) {
+			try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO)) {
+				assertTrue(journal.recover().isEmpty());
+				assertEquals(0, journal.getPendingCount());
+			}
+		}
+
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO)) {
+			journal.recover();
+			assertEquals(4,
+					journal.append(List.of(new Message("user", "again")), "alice", null, true, MemoryType.FACTUAL)
+						.getId());
+		}
+	}
+
+}
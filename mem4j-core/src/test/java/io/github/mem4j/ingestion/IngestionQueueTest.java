@@ -0,0 +1,212 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.ingestion;
+
+import io.github.mem4j.memory.Memory;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.memory.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IngestionQueueTest {
+
+	private final Memory memory = mock(Memory.class);
+
+	@Test
+	void testSubmitReturnsBeforeIngestion() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(memory)
+			.add(anyList(), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionQueue queue = new IngestionQueue(memory, 1, 10, Duration.ZERO, RejectionPolicy.BLOCK)) {
+			IngestionTicket ticket = queue.submit(conversation("I like tea"), "alice");
+			assertFalse(ticket.isDone());
+
+			release.countDown();
+			assertTrue(ticket.await(Duration.ofSeconds(5)));
+			ticket.toCompletableFuture().get();
+			verify(memory).add(saying("I like tea"), eq("alice"), isNull(), eq(true), eq(MemoryType.FACTUAL));
+		}
+	}
+
+	@Test
+	void testConversationsOfOneUserRunInSubmissionOrder() throws Exception {
+		Map<String, List<String>> ingested = new ConcurrentHashMap<>();
+		Map<String, AtomicBoolean> busy = new ConcurrentHashMap<>();
+		AtomicBoolean overlapped = new AtomicBoolean();
+		doAnswer(invocation -> {
+			List<Message> messages = invocation.getArgument(0);
+			String userId = invocation.getArgument(1);
+			if (!busy.computeIfAbsent(userId, k -> new AtomicBoolean()).compareAndSet(false, true)) {
+				overlapped.set(true);
+			}
+			Thread.sleep(1);
+			ingested.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(messages.get(0).getContent());
+			busy.get(userId).set(false);
+			return null;
+		}).when(memory).add(anyList(), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionQueue queue = new IngestionQueue(memory, 4, 100, Duration.ZERO, RejectionPolicy.BLOCK)) {
+			for (int i = 0; i < 20; i++) {
+				queue.submit(conversation("message " + i), i % 2 == 0 ? "alice" : "bob");
+			}
+			assertTrue(queue.flush(Duration.ofSeconds(5)));
+			assertEquals(0, queue.getDepth());
+		}
+
+		assertFalse(overlapped.get(), "conversations of one user ran concurrently");
+		for (String userId : List.of("alice", "bob")) {
+			List<String> messages = ingested.get(userId);
+			assertEquals(10, messages.size());
+			for (int i = 1; i < messages.size(); i++) {
+				assertTrue(number(messages.get(i - 1)) < number(messages.get(i)), "out of order: " + messages);
+			}
+		}
+	}
+
+	@Test
+	void testSaturatedQueueRejectsOrDropsOldest() throws Exception {
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			started.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		}).when(memory).add(anyList(), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionQueue rejecting = new IngestionQueue(memory, 1, 1, Duration.ZERO, RejectionPolicy.REJECT);
+				IngestionQueue dropping = new IngestionQueue(memory, 1, 1, Duration.ZERO,
+						RejectionPolicy.DROP_OLDEST)) {
+			// Both workers are busy before anything else is queued
+			rejecting.submit(conversation("running"), "alice");
+			dropping.submit(conversation("running"), "alice");
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			rejecting.submit(conversation("queued"), "alice");
+			assertThrows(RejectedExecutionException.class, () -> rejecting.submit(conversation("rejected"), "bob"));
+			assertEquals(1, rejecting.getDepth());
+			assertEquals(1, rejecting.getRejectedCount());
+
+			IngestionTicket oldest = dropping.submit(conversation("oldest"), "alice");
+			IngestionTicket newest = dropping.submit(conversation("newest"), "bob");
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> oldest.toCompletableFuture().get(5, TimeUnit.SECONDS));
+			assertInstanceOf(RejectedExecutionException.class, e.getCause());
+
+			release.countDown();
+			assertTrue(newest.await(Duration.ofSeconds(5)));
+			assertTrue(rejecting.flush(Duration.ofSeconds(5)));
+		}
+		verify(memory, never()).add(saying("oldest"), anyString(), any(), anyBoolean(), any());
+		verify(memory, never()).add(saying("rejected"), anyString(), any(), anyBoolean(), any());
+	}
+
+	@Test
+	void testFailedIngestionFailsOnlyItsTicket() throws Exception {
+		doThrow(new RuntimeException("Failed to add memories")).when(memory)
+			.add(saying("bad"), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionQueue queue = new IngestionQueue(memory, 1, 10, Duration.ZERO, RejectionPolicy.BLOCK)) {
+			IngestionTicket failed = queue.submit(conversation("bad"), "alice");
+			IngestionTicket next = queue.submit(conversation("good"), "alice");
+			assertTrue(queue.flush(Duration.ofSeconds(5)));
+
+			ExecutionException e = assertThrows(ExecutionException.class, () -> failed.toCompletableFuture().get());
+			assertEquals("Failed to add memories", e.getCause().getMessage());
+			assertNull(next.toCompletableFuture().get());
+		}
+	}
+
+	@Test
+	void testJournaledConversationsAreReplayedAfterRestart(@TempDir Path directory) throws Exception {
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO)) {
+			journal.recover();
+			journal.append(conversation("I like tea"), "alice", null, true, MemoryType.FACTUAL);
+			journal.append(conversation("I play chess"), "alice", null, true, MemoryType.FACTUAL);
+		}
+
+		List<String> ingested = new CopyOnWriteArrayList<>();
+		doAnswer(invocation -> {
+			List<Message> messages = invocation.getArgument(0);
+			ingested.add(messages.get(0).getContent());
+			return null;
+		}).when(memory).add(anyList(), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionQueue queue = new IngestionQueue(memory, 2, 10, Duration.ZERO, RejectionPolicy.BLOCK,
+				new IngestionJournal(directory, Duration.ZERO), 3, Duration.ZERO)) {
+			IngestionTicket ticket = queue.submit(conversation("I moved to Paris"), "alice");
+			assertEquals(3, ticket.getId());
+			assertTrue(queue.flush(Duration.ofSeconds(5)));
+		}
+		assertEquals(List.of("I like tea", "I play chess", "I moved to Paris"), ingested);
+
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO)) {
+			assertTrue(journal.recover().isEmpty());
+		}
+	}
+
+	@Test
+	void testFailingConversationIsRetriedThenDeadLettered(@TempDir Path directory) throws Exception {
+		doThrow(new RuntimeException("Failed to add memories")).when(memory)
+			.add(saying("bad"), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionQueue queue = new IngestionQueue(memory, 1, 10, Duration.ZERO, RejectionPolicy.BLOCK,
+				new IngestionJournal(directory, Duration.ZERO), 2, Duration.ofMillis(1))) {
+			IngestionTicket ticket = queue.submit(conversation("bad"), "alice");
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> ticket.toCompletableFuture().get(5, TimeUnit.SECONDS));
+			assertEquals("Failed to add memories", e.getCause().getMessage());
+		}
+		verify(memory, times(2)).add(saying("bad"), anyString(), any(), anyBoolean(), any());
+
+		try (IngestionJournal journal = new IngestionJournal(directory, Duration.ZERO);
+				Stream<Path> files = Files.list(directory)) {
+			assertTrue(journal.recover().isEmpty());
+			assertTrue(files.anyMatch(file -> file.getFileName().toString().startsWith("dead-letter-")));
+		}
+	}
+
+	private static List<Message> conversation(String content) {
+		return List.of(new Message("user", content));
+	}
+
+	// Matches the conversation built by conversation(content)
+	private static List<Message> saying(String content) {
+		return argThat(messages -> messages != null && content.equals(messages.get(0).getContent()));
+	}
+
+	private static int number(String content) {
+		return Integer.parseInt(content.substring(content.indexOf(' ') + 1));
+	}
+
+}
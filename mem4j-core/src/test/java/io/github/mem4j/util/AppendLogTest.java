@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AppendLog
+ */
+class AppendLogTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testReplaysRecordsAcrossGenerations() throws Exception {
+		try (AppendLog log = new AppendLog(directory, "test-", true)) {
+			log.open();
+			log.sync(log.append(bytes("one")));
+			long rotated = log.rotate();
+			log.sync(log.append(bytes("two")));
+			assertEquals(2, rotated);
+		}
+
+		List<String> replayed = new ArrayList<>();
+		AppendLog reopened = new AppendLog(directory, "test-", true);
+		assertEquals(2, reopened.replay(0, (generation, payload) -> replayed.add(string(payload))));
+		assertEquals(List.of("one", "two"), replayed);
+
+		replayed.clear();
+		reopened.replay(2, (generation, payload) -> replayed.add(string(payload)));
+		assertEquals(List.of("two"), replayed);
+		assertEquals(3, reopened.open());
+		reopened.close();
+	}
+
+	@Test
+	void testTruncatesTornTail() throws Exception {
+		try (AppendLog log = new AppendLog(directory, "test-", false)) {
+			log.open();
+			log.append(bytes("kept"));
+			log.append(bytes("torn"));
+		}
+		Path file;
+		try (var files = Files.list(directory)) {
+			file = files.findFirst().orElseThrow();
+		}
+		long size = Files.size(file);
+		try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(size - 2);
+		}
+
+		List<String> replayed = new ArrayList<>();
+		AppendLog reopened = new AppendLog(directory, "test-", false);
+		reopened.replay(0, (generation, payload) -> replayed.add(string(payload)));
+
+		assertEquals(List.of("kept"), replayed);
+		assertEquals(8 + 4, Files.size(file));
+	}
+
+	@Test
+	void testDeleteBeforeDropsOldGenerations() throws Exception {
+		try (AppendLog log = new AppendLog(directory, "test-", false)) {
+			log.open();
+			log.append(bytes("old"));
+			long generation = log.rotate();
+			log.append(bytes("new"));
+			log.deleteBefore(generation);
+			assertEquals(List.of(generation), log.generations());
+		}
+	}
+
+	@Test
+	void testConcurrentAppendsAreAllDurable() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (AppendLog log = new AppendLog(directory, "test-", true)) {
+			log.open();
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String value = "record-" + i;
+				futures.add(executor.submit(() -> {
+					log.sync(log.append(bytes(value)));
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			assertEquals(200, log.lastSequence());
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		AppendLog reopened = new AppendLog(directory, "test-", true);
+		assertEquals(200, reopened.replay(0, (generation, payload) -> {
+		}));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String string(byte[] payload) {
+		return new String(payload, StandardCharsets.UTF_8);
+	}
+
+}
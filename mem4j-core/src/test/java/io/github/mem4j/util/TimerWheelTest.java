@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimerWheel
+ */
+class TimerWheelTest {
+
+	@Test
+	void testFiresAtDeadlineTick() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 1000);
+		wheel.schedule("soon", 1025);
+		wheel.schedule("past", 900);
+		wheel.schedule("later", 1639);
+
+		assertEquals(List.of("past"), wheel.advance(1019));
+		assertEquals(List.of("soon"), wheel.advance(1029));
+		assertEquals(List.of(), wheel.advance(1629));
+		assertEquals(List.of("later"), wheel.advance(1630));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void testCascadesAcrossLevelsInDeadlineOrder() {
+		TimerWheel<Long> wheel = new TimerWheel<>(1, 0);
+		Random random = new Random(7);
+		List<Long> deadlines = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			long deadline = random.nextInt(300_000);
+			deadlines.add(deadline);
+			wheel.schedule(deadline, deadline);
+		}
+
+		List<Long> fired = new ArrayList<>();
+		for (long now = 0; now < 300_000; now += 997) {
+			for (long deadline : wheel.advance(now)) {
+				assertTrue(deadline <= now, "fired early");
+				assertTrue(deadline > now - 997, "fired late");
+				fired.add(deadline);
+			}
+		}
+		fired.addAll(wheel.advance(300_000));
+
+		deadlines.sort(null);
+		List<Long> sorted = new ArrayList<>(fired);
+		sorted.sort(null);
+		assertEquals(deadlines, sorted);
+	}
+
+	@Test
+	void testSchedulesWhileAdvancing() {
+		TimerWheel<String> wheel = new TimerWheel<>(1000, 0);
+		wheel.advance(5_000_000);
+		wheel.schedule("day", 5_000_000 + 86_400_000);
+
+		assertEquals(List.of(), wheel.advance(5_000_000 + 86_399_000));
+		assertEquals(List.of("day"), wheel.advance(5_000_000 + 86_400_000));
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.vectorstores.capacity.CapacityTracker;
+import io.github.mem4j.vectorstores.capacity.EvictionPolicy;
+import io.github.mem4j.vectorstores.filter.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CapacityLimitedVectorStoreService
+ */
+class CapacityLimitedVectorStoreServiceTest {
+
+	private final AtomicInteger clock = new AtomicInteger();
+
+	private final InMemoryVectorStoreService backend = new InMemoryVectorStoreService();
+
+	@Test
+	void testPerUserLimitEvictsLeastRecentlyRetrieved() {
+		CapacityLimitedVectorStoreService store = create(3, 0, EvictionPolicy.leastRecentlyUsed());
+		store.add(createItem("a", "user1"));
+		store.add(createItem("b", "user1"));
+		store.add(createItem("c", "user1"));
+		store.add(createItem("other", "user2"));
+		store.get("a");
+		store.add(createItem("d", "user1"));
+
+		assertNull(backend.get("b"));
+		assertEquals(List.of("a", "c", "d"), ids(backend.getAll(Map.of("user_id", "user1"), 10)));
+		assertNotNull(backend.get("other"));
+	}
+
+	@Test
+	void testGlobalLimitEvictsOldestUpdate() {
+		CapacityLimitedVectorStoreService store = create(0, 2, EvictionPolicy.oldestUpdate());
+		MemoryItem first = createItem("first", "user1");
+		first.setUpdatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+		MemoryItem second = createItem("second", "user2");
+		second.setUpdatedAt(Instant.parse("2023-01-01T00:00:00Z"));
+		store.add(first);
+		store.add(second);
+		store.add(createItem("third", "user3"));
+
+		assertNull(backend.get("second"));
+		assertEquals(2, backend.size());
+	}
+
+	@Test
+	void testImportanceAndFrequencyPolicies() {
+		CapacityLimitedVectorStoreService byImportance = create(2, 0, EvictionPolicy.lowestImportance());
+		MemoryItem important = createItem("important", "user1");
+		important.setMetadata(Map.of("importance", 0.9));
+		MemoryItem trivial = createItem("trivial", "user1");
+		trivial.setMetadata(Map.of("importance", "0.1"));
+		byImportance.add(trivial);
+		byImportance.add(important);
+		byImportance.add(createItem("plain", "user1"));
+		assertEquals(List.of("important", "plain"), ids(backend.getAll(Filter.all(), 10)));
+
+		backend.reset();
+		CapacityLimitedVectorStoreService byFrequency = create(2, 0, EvictionPolicy.leastFrequentlyUsed());
+		byFrequency.add(createItem("popular", "user1"));
+		byFrequency.add(createItem("ignored", "user1"));
+		for (int i = 0; i < 3; i++) {
+			byFrequency.search(vector(1.0, 0.0), Map.of("user_id", "user1"), 1, null);
+		}
+		byFrequency.add(createItem("fresh", "user1"));
+		assertNull(backend.get("ignored"));
+		assertNotNull(backend.get("popular"));
+	}
+
+	@Test
+	void testDeletesReleaseCapacity() {
+		CapacityLimitedVectorStoreService store = create(2, 0, EvictionPolicy.leastRecentlyUsed());
+		store.add(createItem("a", "user1"));
+		store.add(createItem("b", "user1"));
+		store.deleteAll(Map.of("user_id", "user1"));
+		store.add(createItem("c", "user1"));
+		store.add(createItem("d", "user1"));
+		store.delete("c");
+		store.add(createItem("e", "user1"));
+
+		assertEquals(List.of("d", "e"), ids(backend.getAll(Filter.all(), 10)));
+	}
+
+	@Test
+	void testDeleteAllReleasesOnlyMatchingMemories() {
+		CapacityLimitedVectorStoreService store = create(0, 3, EvictionPolicy.leastRecentlyUsed());
+		MemoryItem pinned = createItem("pinned", "user1");
+		pinned.setMetadata(Map.of("topic", "work"));
+		store.add(pinned);
+		store.add(createItem("a", "user1"));
+		store.add(createItem("b", "user2"));
+		store.deleteAll(Filter.and(Filter.eq("user_id", "user1"), Filter.not(Filter.eq("topic", "work"))));
+		store.add(createItem("c", "user2"));
+
+		assertEquals(List.of("pinned", "b", "c"), ids(backend.getAll(Filter.all(), 10)));
+	}
+
+	@Test
+	void testExistingMemoriesCountTowardsCapacity() {
+		backend.add(createItem("a", "user1"));
+		backend.add(createItem("b", "user1"));
+		backend.add(createItem("x", "user2"));
+		CapacityLimitedVectorStoreService store = create(2, 0, EvictionPolicy.leastRecentlyUsed());
+		store.add(createItem("c", "user1"));
+
+		assertEquals(3, backend.size());
+		assertNotNull(backend.get("c"));
+		assertNotNull(backend.get("x"));
+
+		CapacityLimitedVectorStoreService total = create(0, 3, EvictionPolicy.leastRecentlyUsed());
+		total.add(createItem("d", "user3"));
+		assertEquals(3, backend.size());
+		assertNotNull(backend.get("d"));
+	}
+
+	@Test
+	void testExistingMemoriesAreLoadedOnFirstWrite() {
+		CountingStore counting = new CountingStore(backend);
+		backend.add(createItem("a", "user1"));
+		CapacityLimitedVectorStoreService store = new CapacityLimitedVectorStoreService(counting, new CapacityTracker(1,
+				0, EvictionPolicy.leastRecentlyUsed(), CapacityTracker.DEFAULT_SAMPLE_SIZE, clock::incrementAndGet));
+		assertEquals(0, counting.listings.get(), "nothing is listed at startup");
+
+		store.add(createItem("b", "user1"));
+		store.add(createItem("c", "user1"));
+		assertEquals(1, counting.listings.get(), "a user is listed once");
+		assertTrue(counting.largestLimit.get() <= StoreListing.PAGE_SIZE, "listed in pages the stores accept");
+		assertEquals(List.of("c"), ids(backend.getAll(Filter.all(), 10)));
+	}
+
+	@Test
+	void testListingFailureIsNotRetriedPerUser() {
+		CountingStore failing = new CountingStore(backend);
+		failing.failListings = true;
+		CapacityLimitedVectorStoreService store = new CapacityLimitedVectorStoreService(failing, new CapacityTracker(1,
+				0, EvictionPolicy.leastRecentlyUsed(), CapacityTracker.DEFAULT_SAMPLE_SIZE, clock::incrementAndGet));
+
+		store.add(createItem("a", "user1"));
+		store.add(createItem("b", "user2"));
+		store.add(createItem("c", "user1"));
+		assertEquals(1, failing.listings.get(), "a store that cannot list is asked once");
+		assertEquals(List.of("b", "c"), ids(backend.getAll(Filter.all(), 10)), "new writes still count");
+	}
+
+	@Test
+	void testRejectsUnknownPolicy() {
+		assertThrows(IllegalArgumentException.class, () -> EvictionPolicy.named("random"));
+		assertNotNull(EvictionPolicy.named(" LFU "));
+	}
+
+	/**
+	 * Counts the listings of the decorated store
+	 */
+	private static class CountingStore implements VectorStoreService {
+
+		private final VectorStoreService delegate;
+
+		private final AtomicInteger listings = new AtomicInteger();
+
+		private final AtomicInteger largestLimit = new AtomicInteger();
+
+		private boolean failListings;
+
+		CountingStore(VectorStoreService delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void add(MemoryItem item) {
+			delegate.add(item);
+		}
+
+		@Override
+		public List<MemoryItem> search(Double[] queryEmbedding, Filter filter, Integer limit, Double threshold) {
+			return delegate.search(queryEmbedding, filter, limit, threshold);
+		}
+
+		@Override
+		public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
+				Double threshold) {
+			return search(queryEmbedding, Filter.from(filters), limit, threshold);
+		}
+
+		@Override
+		public List<MemoryItem> getAll(Filter filter, Integer limit) {
+			listings.incrementAndGet();
+			largestLimit.accumulateAndGet(limit, Math::max);
+			if (failListings) {
+				throw new UnsupportedOperationException("limit exceeds the maximum the store accepts");
+			}
+			return delegate.getAll(filter, limit);
+		}
+
+		@Override
+		public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+			return getAll(Filter.from(filters), limit);
+		}
+
+		@Override
+		public MemoryItem get(String memoryId) {
+			return delegate.get(memoryId);
+		}
+
+		@Override
+		public void update(MemoryItem item) {
+			delegate.update(item);
+		}
+
+		@Override
+		public void delete(String memoryId) {
+			delegate.delete(memoryId);
+		}
+
+		@Override
+		public void deleteAll(Filter filter) {
+			delegate.deleteAll(filter);
+		}
+
+		@Override
+		public void deleteAll(Map<String, Object> filters) {
+			deleteAll(Filter.from(filters));
+		}
+
+		@Override
+		public void reset() {
+			delegate.reset();
+		}
+
+	}
+
+	private CapacityLimitedVectorStoreService create(int maxPerUser, int maxTotal, EvictionPolicy policy) {
+		CapacityTracker tracker = new CapacityTracker(maxPerUser, maxTotal, policy, CapacityTracker.DEFAULT_SAMPLE_SIZE,
+				clock::incrementAndGet);
+		return new CapacityLimitedVectorStoreService(backend, tracker);
+	}
+
+	private List<String> ids(List<MemoryItem> items) {
+		return items.stream().map(MemoryItem::getId).toList();
+	}
+
+	private MemoryItem createItem(String id, String userId) {
+		MemoryItem item = new MemoryItem("content " + id, MemoryType.FACTUAL.getValue());
+		item.setId(id);
+		item.setUserId(userId);
+		item.setEmbedding(vector(id.equals("popular") ? 1.0 : 0.0, 1.0));
+		return item;
+	}
+
+	private Double[] vector(double... values) {
+		Double[] result = new Double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i];
+		}
+		return result;
+	}
+
+}
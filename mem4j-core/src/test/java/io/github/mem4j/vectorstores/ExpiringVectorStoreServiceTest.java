@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.vectorstores.filter.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiringVectorStoreService
+ */
+class ExpiringVectorStoreServiceTest {
+
+	private static final long START = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+	private final AtomicLong clock = new AtomicLong(START);
+
+	private final InMemoryVectorStoreService backend = new InMemoryVectorStoreService();
+
+	private final ExpiringVectorStoreService store = new ExpiringVectorStoreService(backend,
+			Map.of(MemoryType.WORKING.getValue(), Duration.ofMinutes(10)), 1000, clock::get, false);
+
+	@Test
+	void testExpiredMemoriesAreHiddenThenDeleted() {
+		store.add(createItem("task", MemoryType.WORKING));
+		store.add(createItem("fact", MemoryType.FACTUAL));
+		clock.addAndGet(Duration.ofMinutes(9).toMillis());
+		assertEquals(0, store.expireDue());
+		assertEquals(List.of("task", "fact"), ids(store.search(vector(1.0, 0.0), Filter.all(), 10, null)));
+
+		clock.addAndGet(Duration.ofMinutes(1).toMillis());
+		assertEquals(List.of("fact"), ids(store.search(vector(1.0, 0.0), Filter.all(), 10, null)));
+		assertEquals(List.of("fact"), ids(store.getAll(Filter.all(), 10)));
+		assertNull(store.get("task"));
+		assertNotNull(backend.get("task"), "hidden before the wheel reaches it");
+
+		assertEquals(1, store.expireDue());
+		assertNull(backend.get("task"));
+		assertNotNull(backend.get("fact"));
+	}
+
+	@Test
+	void testUpdateRenewsTtl() {
+		store.add(createItem("task", MemoryType.WORKING));
+		clock.addAndGet(Duration.ofMinutes(8).toMillis());
+		MemoryItem renewed = createItem("task", MemoryType.WORKING);
+		store.update(renewed);
+
+		clock.addAndGet(Duration.ofMinutes(5).toMillis());
+		assertEquals(0, store.expireDue());
+		assertNotNull(store.get("task"));
+
+		clock.addAndGet(Duration.ofMinutes(5).toMillis());
+		assertEquals(1, store.expireDue());
+		assertNull(backend.get("task"));
+	}
+
+	@Test
+	void testExpiredMemoriesDoNotTakeResultSlots() {
+		store.add(createItem("task", MemoryType.WORKING));
+		store.add(createItem("fact", MemoryType.FACTUAL));
+		clock.addAndGet(Duration.ofMinutes(10).toMillis());
+
+		assertEquals(List.of("fact"), ids(store.search(vector(1.0, 0.0), Filter.all(), 1, null)),
+				"the expired best match must not use up the limit");
+		assertEquals(List.of("fact"),
+				ids(store.searchBatch(new float[][] { { 1.0f, 0.0f } }, Filter.all(), 1, null).get(0)));
+		assertEquals(List.of("fact"), ids(store.getAll(Filter.all(), 1)));
+	}
+
+	@Test
+	void testDeleteAllDropsDeadlines() {
+		AtomicLong reads = new AtomicLong();
+		InMemoryVectorStoreService counting = new InMemoryVectorStoreService() {
+			@Override
+			public MemoryItem get(String memoryId) {
+				reads.incrementAndGet();
+				return super.get(memoryId);
+			}
+		};
+		ExpiringVectorStoreService expiring = new ExpiringVectorStoreService(counting,
+				Map.of(MemoryType.WORKING.getValue(), Duration.ofMinutes(10)), 1000, clock::get, false);
+		expiring.add(createItem("task", MemoryType.WORKING));
+		MemoryItem other = createItem("other", MemoryType.WORKING);
+		other.setUserId("user2");
+		expiring.add(other);
+
+		expiring.deleteAll(Filter.eq("user_id", "user1"));
+		clock.addAndGet(Duration.ofMinutes(10).toMillis());
+		assertEquals(1, expiring.expireDue());
+		assertEquals(1, reads.get(), "only the remaining memory is re-read");
+	}
+
+	@Test
+	void testExistingMemoriesAreScheduled() {
+		List<Filter> listings = new ArrayList<>();
+		InMemoryVectorStoreService recording = new InMemoryVectorStoreService() {
+			@Override
+			public List<MemoryItem> getAll(Filter filter, Integer limit) {
+				listings.add(filter);
+				return super.getAll(filter, limit);
+			}
+		};
+		recording.add(createItem("old", MemoryType.WORKING));
+		recording.add(createItem("fact", MemoryType.FACTUAL));
+		ExpiringVectorStoreService reopened = new ExpiringVectorStoreService(recording,
+				Map.of(MemoryType.WORKING.getValue(), Duration.ofMinutes(10)), 1000, clock::get, false);
+		assertEquals(List.of(Filter.in("memory_type", MemoryType.WORKING.getValue())), listings,
+				"only memories of types with a TTL are listed");
+
+		clock.addAndGet(Duration.ofMinutes(11).toMillis());
+		assertEquals(1, reopened.expireDue());
+		assertEquals(1, recording.size());
+		assertNotNull(recording.get("fact"));
+	}
+
+	private List<String> ids(List<MemoryItem> items) {
+		return items.stream().map(MemoryItem::getId).toList();
+	}
+
+	private MemoryItem createItem(String id, MemoryType type) {
+		MemoryItem item = new MemoryItem("content " + id, type.getValue());
+		item.setId(id);
+		item.setUserId("user1");
+		item.setCreatedAt(Instant.ofEpochMilli(clock.get()));
+		item.setUpdatedAt(Instant.ofEpochMilli(clock.get()));
+		item.setEmbedding(vector(1.0, id.equals("task") ? 0.0 : 0.5));
+		return item;
+	}
+
+	private Double[] vector(double... values) {
+		Double[] result = new Double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i];
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,741 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.vectorstores.filter.Filter;
+import io.github.mem4j.vectorstores.inmemory.InMemoryStoreOptions;
+import io.github.mem4j.vectorstores.similarity.Similarity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InMemoryVectorStoreService
+ */
+class InMemoryVectorStoreServiceTest {
+
+	private InMemoryVectorStoreService store;
+
+	@BeforeEach
+	void setUp() {
+		store = new InMemoryVectorStoreService();
+	}
+
+	@Test
+	void testSearchReturnsMostSimilarFirst() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		store.add(createItem("b", "user1", 0.8, 0.6, 0.0));
+		store.add(createItem("c", "user1", 0.0, 0.0, 1.0));
+
+		List<MemoryItem> results = store.search(vector(1.0, 0.0, 0.0), Map.of("user_id", "user1"), 10, 0.5);
+
+		assertEquals(2, results.size());
+		assertEquals("a", results.get(0).getId());
+		assertEquals(1.0, results.get(0).getScore(), 1e-6);
+		assertEquals("b", results.get(1).getId());
+		assertEquals(0.8, results.get(1).getScore(), 1e-6);
+	}
+
+	@Test
+	void testSearchAppliesFiltersAndLimit() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		store.add(createItem("b", "user2", 1.0, 0.0, 0.0));
+		store.add(createItem("c", "user1", 0.9, 0.1, 0.0));
+
+		List<MemoryItem> results = store.search(vector(1.0, 0.0, 0.0), Map.of("user_id", "user1"), 1, 0.0);
+
+		assertEquals(1, results.size());
+		assertEquals("a", results.get(0).getId());
+	}
+
+	@Test
+	void testSearchKeepsBestResultsInOrder() {
+		for (int i = 0; i < 100; i++) {
+			double angle = ((i * 37) % 100) * 0.01;
+			store.add(createItem("id-" + ((i * 37) % 100), "user1", Math.cos(angle), Math.sin(angle), 0.0));
+		}
+
+		List<MemoryItem> top = store.search(vector(1.0, 0.0, 0.0), Filter.all(), 5, null);
+		assertEquals(List.of("id-0", "id-1", "id-2", "id-3", "id-4"), top.stream().map(MemoryItem::getId).toList());
+
+		List<MemoryItem> all = store.search(vector(1.0, 0.0, 0.0), Filter.all(), null, null);
+		assertEquals(100, all.size());
+		for (int i = 1; i < all.size(); i++) {
+			assertTrue(all.get(i - 1).getScore() >= all.get(i).getScore());
+		}
+	}
+
+	@Test
+	void testSearchWithMismatchedDimensionReturnsEmpty() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+
+		assertTrue(store.search(vector(1.0, 0.0), Filter.all(), 10, 0.0).isEmpty());
+	}
+
+	@Test
+	void testGetReturnsStoredEmbedding() {
+		store.add(createItem("a", "user1", 0.25, 0.5, 1.0));
+
+		MemoryItem item = store.get("a");
+
+		assertNotNull(item);
+		assertArrayEquals(vector(0.25, 0.5, 1.0), item.getEmbedding());
+		assertNull(store.get("missing"));
+	}
+
+	@Test
+	void testScoresIgnoreMagnitudeAndNormIsKept() {
+		store.add(createItem("a", "user1", 30.0, 40.0, 0.0));
+		store.add(createItem("b", "user1", 0.0, 0.0, 0.0));
+
+		List<MemoryItem> results = store.search(vector(6.0, 8.0, 0.0), Filter.all(), 10, null);
+
+		assertEquals("a", results.get(0).getId());
+		assertEquals(1.0, results.get(0).getScore(), 1e-6);
+		assertEquals(0.0, results.get(1).getScore(), 1e-6);
+		assertEquals(50.0, store.getEmbeddingNorm("a"), 1e-4);
+		assertEquals(0.0, store.getEmbeddingNorm("b"));
+		assertNull(store.getEmbeddingNorm("missing"));
+		assertArrayEquals(new double[] { 30.0, 40.0, 0.0 },
+				Arrays.stream(store.get("a").getEmbedding()).mapToDouble(Double::doubleValue).toArray(), 1e-4);
+	}
+
+	@Test
+	void testUpdateReplacesContentAndEmbedding() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+
+		MemoryItem updated = createItem("a", "user1", 0.0, 1.0, 0.0);
+		updated.setContent("updated");
+		store.update(updated);
+
+		List<MemoryItem> results = store.search(vector(0.0, 1.0, 0.0), Filter.all(), 10, 0.9);
+		assertEquals(1, results.size());
+		assertEquals("updated", results.get(0).getContent());
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	void testDeleteAndDeleteAll() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		store.add(createItem("b", "user1", 0.0, 1.0, 0.0));
+		store.add(createItem("c", "user2", 0.0, 0.0, 1.0));
+
+		store.delete("a");
+		assertNull(store.get("a"));
+
+		store.deleteAll(Map.of("user_id", "user1"));
+		assertEquals(1, store.size());
+		assertEquals(1, store.getAll(Filter.all(), 100).size());
+		assertEquals("c", store.getAll(Filter.all(), 100).get(0).getId());
+	}
+
+	@Test
+	void testCompactionKeepsLiveEntriesSearchable() {
+		for (int i = 0; i < 3000; i++) {
+			store.add(createItem("id-" + i, "user1", Math.cos(i * 0.001), Math.sin(i * 0.001), 0.0));
+		}
+		for (int i = 0; i < 2900; i++) {
+			store.delete("id-" + i);
+		}
+
+		assertEquals(100, store.size());
+		assertEquals(100, store.getAll(Map.of("user_id", "user1"), 1000).size());
+		MemoryItem last = store.get("id-2999");
+		assertNotNull(last);
+		assertEquals(Math.sin(2.999), last.getEmbedding()[1], 1e-6);
+		assertEquals("id-2999",
+				store.search(vector(Math.cos(3.0), Math.sin(3.0), 0.0), Filter.all(), 1, null).get(0).getId());
+	}
+
+	@Test
+	void testPartitionFollowsUserChanges() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		store.add(createItem("b", "user2", 1.0, 0.0, 0.0));
+
+		MemoryItem moved = createItem("a", "user2", 1.0, 0.0, 0.0);
+		moved.setAgentId("agent1");
+		store.update(moved);
+
+		assertTrue(store.search(vector(1.0, 0.0, 0.0), Map.of("user_id", "user1"), 10, 0.0).isEmpty());
+		assertEquals(2, store.getAll(Map.of("user_id", "user2"), 10).size());
+		List<MemoryItem> results = store.getAll(Map.of("user_id", "user2", "agent_id", "agent1"), 10);
+		assertEquals(1, results.size());
+		assertEquals("a", results.get(0).getId());
+	}
+
+	@Test
+	void testUnknownTenantMatchesNothing() {
+		store.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+
+		assertTrue(store.search(vector(1.0, 0.0, 0.0), Map.of("user_id", "nobody"), 10, 0.0).isEmpty());
+		assertTrue(store.getAll(Map.of("user_id", "nobody"), 10).isEmpty());
+		store.deleteAll(Map.of("user_id", "nobody"));
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	void testFiltersOnMetadataWithInAndNot() {
+		store.add(createItem("a", "user1", Map.of("topic", "food", "tags", List.of("spicy", "thai"), "priority", 2),
+				1.0, 0.0, 0.0));
+		store.add(createItem("b", "user1", Map.of("topic", "travel", "priority", 2.0), 0.9, 0.1, 0.0));
+		store.add(createItem("c", "user1", Map.of("tags", List.of("mild")), 0.8, 0.2, 0.0));
+		store.add(createItem("d", "user2", Map.of("topic", "food"), 1.0, 0.0, 0.0));
+		Double[] query = vector(1.0, 0.0, 0.0);
+
+		assertEquals(List.of("a"), ids(store.search(query, Map.of("user_id", "user1", "topic", "food"), 10, 0.0)));
+		assertEquals(List.of("a"), ids(store.search(query, Map.of("metadata.tags", "spicy"), 10, 0.0)));
+		assertEquals(List.of("a", "b"), ids(store.search(query, Map.of("priority", 2), 10, 0.0)));
+		assertEquals(List.of("a", "d", "b"),
+				ids(store.search(query, Map.of("topic", List.of("food", "travel")), 10, 0.0)));
+		assertEquals(List.of("b", "c"),
+				ids(store.getAll(Map.of("user_id", "user1", "topic", Map.of("ne", "food")), 10)));
+		assertEquals(List.of("c"),
+				ids(store.getAll(Map.of("user_id", "user1", "topic", Map.of("nin", List.of("food", "travel"))), 10)));
+		Map<String, Object> withoutTopic = new HashMap<>();
+		withoutTopic.put("topic", null);
+		assertEquals(List.of("c"), ids(store.getAll(withoutTopic, 10)));
+		assertTrue(store.search(query, Map.of("unknown", "x"), 10, 0.0).isEmpty());
+		assertThrows(RuntimeException.class, () -> store.getAll(Map.of("topic", Map.of("like", "f")), 10));
+
+		MemoryItem moved = createItem("a", "user1", Map.of("topic", "travel"), 1.0, 0.0, 0.0);
+		store.update(moved);
+		assertEquals(List.of("d"), ids(store.search(query, Map.of("topic", "food"), 10, 0.0)));
+		store.deleteAll(Map.of("topic", "travel"));
+		assertEquals(2, store.size());
+	}
+
+	@Test
+	void testFiltersOnTimestampRanges() {
+		Instant start = Instant.parse("2025-01-01T00:00:00Z");
+		for (int day = 0; day < 5; day++) {
+			MemoryItem item = createItem("day-" + day, "user1", 1.0, day * 0.1, 0.0);
+			item.setCreatedAt(start.plus(Duration.ofDays(day)));
+			item.setUpdatedAt(start.plus(Duration.ofDays(day + 10)));
+			store.add(item);
+		}
+		Double[] query = vector(1.0, 0.0, 0.0);
+
+		assertEquals(List.of("day-1", "day-2"),
+				ids(store.getAll(
+						Map.of("created_at",
+								Map.of("gte", start.plus(Duration.ofDays(1)), "lt", start.plus(Duration.ofDays(3)))),
+						10)));
+		assertEquals(List.of("day-3", "day-4"), ids(store.search(query,
+				Map.of("user_id", "user1", "updated_at", Map.of("gt", "2025-01-13T00:00:00Z")), 10, 0.0)));
+		assertEquals(List.of("day-0"), ids(store.getAll(Map.of("created_at", start.toEpochMilli()), 10)));
+		assertThrows(RuntimeException.class, () -> store.getAll(Map.of("created_at", "yesterday"), 10));
+		assertThrows(RuntimeException.class, () -> store.getAll(Map.of("user_id", Map.of("gt", "a")), 10));
+	}
+
+	@Test
+	void testTypedFiltersCombineWithOrAndNot() {
+		store.add(createItem("a", "user1", Map.of("topic", "food", "priority", 1), 1.0, 0.0, 0.0));
+		store.add(createItem("b", "user1", Map.of("topic", "travel", "priority", 3), 0.9, 0.1, 0.0));
+		store.add(createItem("c", "user1", Map.of("topic", "work", "priority", 5.5), 0.8, 0.2, 0.0));
+		store.add(createItem("d", "user2", Map.of("topic", "food"), 0.7, 0.3, 0.0));
+		Double[] query = vector(1.0, 0.0, 0.0);
+
+		Filter urgentOrFood = Filter.and(Filter.eq("user_id", "user1"),
+				Filter.or(Filter.eq("topic", "food"), Filter.gte("priority", 5)));
+		assertEquals(List.of("a", "c"), ids(store.search(query, urgentOrFood, 10, 0.0)));
+		assertEquals(List.of("a", "c"), ids(store.search(query, Filter.from(urgentOrFood.toMap()), 10, 0.0)));
+		assertEquals(List.of("b", "c"),
+				ids(store.getAll(Filter.and(Filter.gt("priority", 1), Filter.lte("priority", 5.5)), 10)));
+		assertEquals(List.of("b", "d"),
+				ids(store.getAll(Filter.not(Filter.or(Filter.eq("priority", 1), Filter.eq("topic", "work"))), 10)));
+		assertTrue(store.getAll(Filter.or(), 10).isEmpty());
+
+		store.deleteAll(Filter.lt("priority", 4));
+		assertEquals(List.of("c", "d"), ids(store.getAll(Filter.all(), 10)));
+	}
+
+	@Test
+	void testHnswSearchAppliesMetadataFilters() {
+		InMemoryVectorStoreService hnsw = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withHnsw(8, 64, 64));
+		for (int i = 0; i < 200; i++) {
+			double angle = i * 0.01;
+			hnsw.add(createItem("id-" + i, "user1", Map.of("parity", i % 2), Math.cos(angle), Math.sin(angle), 0.0));
+		}
+
+		List<MemoryItem> results = hnsw.search(vector(1.0, 0.0, 0.0), Map.of("parity", 1), 3, null);
+
+		assertEquals(List.of("id-1", "id-3", "id-5"), ids(results));
+	}
+
+	@Test
+	void testParallelScanMatchesSequentialScan() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			InMemoryVectorStoreService parallel = new InMemoryVectorStoreService(
+					InMemoryStoreOptions.defaults().withParallelScanThreshold(1000), pool);
+			Random random = new Random(1);
+			for (int i = 0; i < 10000; i++) {
+				double[] values = random.doubles(8).map(v -> v - 0.5).toArray();
+				String userId = i % 3 == 0 ? "user1" : "user2";
+				parallel.add(createItem("id-" + i, userId, values));
+				store.add(createItem("id-" + i, userId, values));
+			}
+
+			Double[] query = vector(random.doubles(8).map(v -> v - 0.5).toArray());
+			assertEquals(ids(store.search(query, Filter.all(), 20, 0.5)),
+					ids(parallel.search(query, Filter.all(), 20, 0.5)));
+			assertEquals(ids(store.search(query, Map.of("user_id", "user2"), 20, null)),
+					ids(parallel.search(query, Map.of("user_id", "user2"), 20, null)));
+			assertEquals(ids(store.getAll(Filter.all(), 7000)), ids(parallel.getAll(Filter.all(), 7000)));
+			assertEquals(ids(store.getAll(Map.of("user_id", "user1"), null)),
+					ids(parallel.getAll(Map.of("user_id", "user1"), null)));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void testSearchBatchMatchesSingleSearches(@TempDir Path directory) {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			InMemoryStoreOptions options = InMemoryStoreOptions.defaults()
+				.withParallelScanThreshold(1000)
+				.withPersistence(directory.toString(), false, 0);
+			InMemoryVectorStoreService batched = new InMemoryVectorStoreService(options, pool);
+			Random random = new Random(2);
+			for (int i = 0; i < 6000; i++) {
+				batched.add(createItem("id-" + i, i % 3 == 0 ? "user1" : "user2",
+						random.doubles(8).map(v -> v - 0.5).toArray()));
+				if (i == 3000) {
+					// Half of the entries end up in a sealed segment
+					batched.flush();
+				}
+			}
+			batched.delete("id-7");
+
+			float[][] queries = new float[4][];
+			for (int q = 0; q < queries.length; q++) {
+				queries[q] = new float[8];
+				for (int d = 0; d < 8; d++) {
+					queries[q][d] = (float) (random.nextDouble() - 0.5);
+				}
+			}
+			queries[3] = new float[] { 1.0f, 0.0f };
+			for (Map<String, Object> filters : List.<Map<String, Object>>of(Map.of(), Map.of("user_id", "user1"))) {
+				List<List<MemoryItem>> results = batched.searchBatch(queries, filters, 15, 0.2);
+				assertEquals(4, results.size());
+				for (int q = 0; q < 3; q++) {
+					Double[] query = new Double[8];
+					for (int d = 0; d < 8; d++) {
+						query[d] = (double) queries[q][d];
+					}
+					assertEquals(ids(batched.search(query, filters, 15, 0.2)), ids(results.get(q)));
+				}
+				assertTrue(results.get(3).isEmpty());
+			}
+			batched.close();
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void testHnswIndexMatchesExactSearch() {
+		InMemoryVectorStoreService hnsw = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withHnsw(8, 64, 32));
+		for (int i = 0; i < 500; i++) {
+			double angle = i * 0.01;
+			MemoryItem item = createItem("id-" + i, i % 2 == 0 ? "user1" : "user2", Math.cos(angle), Math.sin(angle),
+					0.0);
+			hnsw.add(item);
+			store.add(createItem("id-" + i, item.getUserId(), Math.cos(angle), Math.sin(angle), 0.0));
+		}
+
+		Double[] query = vector(Math.cos(1.0), Math.sin(1.0), 0.0);
+		List<MemoryItem> expected = store.search(query, Map.of("user_id", "user1"), 5, 0.0);
+		List<MemoryItem> actual = hnsw.search(query, Map.of("user_id", "user1"), 5, 0.0);
+
+		assertEquals(expected.stream().map(MemoryItem::getId).collect(Collectors.toSet()),
+				actual.stream().map(MemoryItem::getId).collect(Collectors.toSet()));
+		assertEquals(expected.get(0).getScore(), actual.get(0).getScore(), 1e-6);
+	}
+
+	@Test
+	void testHnswIndexFollowsUpdatesAndDeletes() {
+		InMemoryVectorStoreService hnsw = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withHnsw(8, 64, 32));
+		hnsw.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		hnsw.add(createItem("b", "user1", 0.0, 1.0, 0.0));
+		hnsw.add(createItem("c", "user1", 0.0, 0.0, 1.0));
+
+		hnsw.update(createItem("a", "user1", 0.0, 0.0, 1.0));
+		hnsw.delete("c");
+
+		List<MemoryItem> results = hnsw.search(vector(0.0, 0.0, 1.0), Filter.all(), 1, 0.0);
+		assertEquals("a", results.get(0).getId());
+		assertEquals(1.0, results.get(0).getScore(), 1e-6);
+		assertTrue(hnsw.search(vector(1.0, 0.0, 0.0), Filter.all(), 10, 0.5).isEmpty());
+		assertEquals(2, hnsw.size());
+	}
+
+	@Test
+	void testQuantizedSearchRescoresAtFullPrecision() {
+		InMemoryVectorStoreService quantized = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withInt8Quantization(4));
+		for (int i = 0; i < 200; i++) {
+			double angle = i * 0.01;
+			quantized.add(createItem("id-" + i, "user1", Math.cos(angle), Math.sin(angle), 0.0));
+			store.add(createItem("id-" + i, "user1", Math.cos(angle), Math.sin(angle), 0.0));
+		}
+
+		Double[] query = vector(Math.cos(0.505), Math.sin(0.505), 0.0);
+		List<MemoryItem> expected = store.search(query, Filter.all(), 3, 0.0);
+		List<MemoryItem> actual = quantized.search(query, Filter.all(), 3, 0.0);
+
+		assertEquals(expected.stream().map(MemoryItem::getId).toList(),
+				actual.stream().map(MemoryItem::getId).toList());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-9);
+		}
+	}
+
+	@Test
+	void testGetAllReturnsEmbeddings(@TempDir Path directory) {
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withPersistence(directory.toString(), false, 0));
+		persistent.add(createItem("sealed", "user1", 3.0, 4.0));
+		persistent.flush();
+		persistent.add(createItem("buffered", "user1", 0.0, 2.0));
+
+		Map<String, Double[]> embeddings = persistent.getAll(Filter.all(), 10)
+			.stream()
+			.collect(Collectors.toMap(MemoryItem::getId, MemoryItem::getEmbedding));
+		assertArrayEquals(vector(3.0, 4.0), embeddings.get("sealed"));
+		assertArrayEquals(vector(0.0, 2.0), embeddings.get("buffered"));
+		persistent.close();
+	}
+
+	@Test
+	void testSealedSegmentsAreSearchedThroughHnswAndInt8(@TempDir Path directory) {
+		for (int i = 0; i < 500; i++) {
+			double angle = i * 0.01;
+			store.add(createItem("id-" + i, "user1", Math.cos(angle), Math.sin(angle), 0.0));
+		}
+		store.delete("id-100");
+		Double[] query = vector(Math.cos(1.0), Math.sin(1.0), 0.0);
+		List<MemoryItem> expected = store.search(query, Filter.all(), 5, 0.0);
+
+		for (InMemoryStoreOptions options : List.of(
+				InMemoryStoreOptions.defaults()
+					.withHnsw(8, 64, 32)
+					.withPersistence(directory.resolve("hnsw").toString(), false, 0),
+				InMemoryStoreOptions.defaults()
+					.withInt8Quantization(4)
+					.withPersistence(directory.resolve("int8").toString(), false, 0))) {
+			InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+			for (int i = 0; i < 500; i++) {
+				double angle = i * 0.01;
+				persistent.add(createItem("id-" + i, "user1", Math.cos(angle), Math.sin(angle), 0.0));
+			}
+			persistent.flush();
+			persistent.indexSegments();
+			persistent.delete("id-100");
+
+			List<MemoryItem> actual = persistent.search(query, Filter.all(), 5, 0.0);
+			assertEquals(ids(expected), ids(actual));
+			assertEquals(expected.get(0).getScore(), actual.get(0).getScore(), 1e-6);
+			assertEquals(ids(expected),
+					ids(persistent.searchBatch(new float[][] { Similarity.toFloatArray(query) }, Filter.all(), 5, 0.0)
+						.get(0)));
+			persistent.close();
+		}
+	}
+
+	@Test
+	void testPersistentStoreRecoversFromWriteAheadLog(@TempDir Path directory) {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults().withPersistence(directory.toString(), true, 0);
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		persistent.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		persistent.add(createItem("b", "user1", 0.0, 2.0, 0.0));
+		persistent.add(createItem("c", "user2", 0.0, 0.0, 1.0));
+		MemoryItem updated = createItem("a", "user1", 0.0, 0.0, 3.0);
+		updated.setMetadata(Map.of("source", "chat"));
+		persistent.update(updated);
+		persistent.delete("b");
+		persistent.deleteAll(Map.of("user_id", "user2"));
+		persistent.add(createItem("d", "user2", 1.0, 0.0, 0.0));
+
+		// Simulate a crash: the first instance is abandoned without a final flush
+		InMemoryVectorStoreService recovered = new InMemoryVectorStoreService(options);
+
+		assertEquals(2, recovered.size());
+		assertNull(recovered.get("b"));
+		assertNull(recovered.get("c"));
+		MemoryItem a = recovered.get("a");
+		assertEquals("content a", a.getContent());
+		assertEquals("chat", a.getMetadata().get("source"));
+		assertEquals(3.0, recovered.getEmbeddingNorm("a"), 1e-6);
+		List<MemoryItem> results = recovered.search(vector(0.0, 0.0, 1.0), Map.of("user_id", "user1"), 10, 0.5);
+		assertEquals(List.of("a"), ids(results));
+		recovered.close();
+	}
+
+	@Test
+	void testBatchWritesRecoverFromWriteAheadLog(@TempDir Path directory) {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults().withPersistence(directory.toString(), true, 0);
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		persistent.addAll(List.of(createItem("a", "user1", 1.0, 0.0, 0.0), createItem("b", "user1", 0.0, 1.0, 0.0),
+				createItem("c", "user2", 0.0, 0.0, 1.0)));
+		MemoryItem renamed = createItem("a", "user1", 0.0, 1.0, 0.0);
+		renamed.setContent("renamed");
+		persistent.updateAll(List.of(renamed, createItem("d", "user2", 1.0, 0.0, 0.0)));
+		persistent.deleteByIds(List.of("b", "c", "missing"));
+
+		assertEquals(List.of("a", "d"), ids(persistent.getAll(Filter.all(), 10)).stream().sorted().toList());
+
+		InMemoryVectorStoreService recovered = new InMemoryVectorStoreService(options);
+		assertEquals(2, recovered.size());
+		assertNull(recovered.get("b"));
+		assertEquals("renamed", recovered.get("a").getContent());
+		assertEquals(List.of("a"), ids(recovered.search(vector(0.0, 1.0, 0.0), Filter.all(), 10, 0.5)));
+		recovered.close();
+	}
+
+	@Test
+	void testFlushTruncatesLogAndRecovers(@TempDir Path directory) throws Exception {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults().withPersistence(directory.toString(), true, 0);
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		for (int i = 0; i < 50; i++) {
+			double angle = i * 0.01;
+			persistent.add(createItem("id-" + i, "user1", 2 * Math.cos(angle), 2 * Math.sin(angle), 0.0));
+		}
+		persistent.flush();
+		persistent.delete("id-0");
+		persistent.reset();
+		persistent.add(createItem("after-reset", "user1", 1.0, 0.0, 0.0));
+
+		try (var files = Files.list(directory)) {
+			assertEquals(3, files.count(), "manifest, segment and the log generation written after it");
+		}
+
+		InMemoryVectorStoreService recovered = new InMemoryVectorStoreService(options);
+		assertEquals(1, recovered.size());
+		assertNotNull(recovered.get("after-reset"));
+		recovered.close();
+
+		InMemoryVectorStoreService snapshotted = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withPersistence(directory.resolve("other").toString(), false, 0));
+		for (int i = 0; i < 50; i++) {
+			double angle = i * 0.01;
+			snapshotted.add(createItem("id-" + i, "user1", 2 * Math.cos(angle), 2 * Math.sin(angle), 0.0));
+		}
+		snapshotted.close();
+		InMemoryVectorStoreService reopened = new InMemoryVectorStoreService(
+				InMemoryStoreOptions.defaults().withPersistence(directory.resolve("other").toString(), false, 0));
+		assertEquals(50, reopened.size());
+		assertEquals(2.0, reopened.getEmbeddingNorm("id-7"), 1e-6);
+		Double[] query = vector(Math.cos(0.07), Math.sin(0.07), 0.0);
+		assertEquals("id-7", reopened.search(query, Filter.all(), 1, 0.0).get(0).getId());
+		reopened.close();
+	}
+
+	@Test
+	void testWritesAfterFlushOverlaySealedSegment(@TempDir Path directory) {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults().withPersistence(directory.toString(), false, 0);
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		persistent.add(createItem("a", "user1", 1.0, 0.0, 0.0));
+		persistent.add(createItem("b", "user1", 0.0, 1.0, 0.0));
+		persistent.add(createItem("c", "user2", 0.0, 0.0, 1.0));
+		persistent.add(createItem("d", "user2", 0.0, 1.0, 0.0));
+		persistent.flush();
+
+		MemoryItem renamed = createItem("a", "user1");
+		renamed.setEmbedding(null);
+		renamed.setContent("renamed");
+		persistent.update(renamed);
+		persistent.delete("b");
+		persistent.deleteAll(Map.of("user_id", "user2"));
+		persistent.add(createItem("e", "user1", 0.6, 0.8, 0.0));
+
+		assertEquals(2, persistent.size());
+		assertEquals("renamed", persistent.get("a").getContent());
+		assertEquals(1.0, persistent.getEmbeddingNorm("a"), 1e-6);
+		assertEquals(List.of("e"), ids(persistent.search(vector(0.0, 1.0, 0.0), Filter.all(), 10, 0.5)));
+		assertEquals(List.of("a", "e"), ids(persistent.search(vector(1.0, 0.0, 0.0), Filter.all(), 10, 0.5)));
+		assertTrue(persistent.getAll(Map.of("user_id", "user2"), 10).isEmpty());
+		persistent.close();
+
+		InMemoryVectorStoreService reopened = new InMemoryVectorStoreService(options);
+		assertEquals(2, reopened.size());
+		assertEquals(List.of("a", "e"), ids(reopened.getAll(Map.of("user_id", "user1"), 10)));
+		assertEquals(List.of("e"), ids(reopened.search(vector(0.6, 0.8, 0.0), Map.of("user_id", "user1"), 1, null)));
+		reopened.close();
+	}
+
+	@Test
+	void testMetadataFiltersSpanSealedSegmentsAndLog(@TempDir Path directory) {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults().withPersistence(directory.toString(), false, 0);
+		Instant start = Instant.parse("2025-01-01T00:00:00Z");
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		for (int i = 0; i < 6; i++) {
+			MemoryItem item = createItem("id-" + i, "user1", Map.of("topic", i % 2 == 0 ? "food" : "travel"), 1.0,
+					i * 0.1, 0.0);
+			item.setCreatedAt(start.plus(Duration.ofDays(i)));
+			persistent.add(item);
+			if (i == 2) {
+				persistent.flush();
+			}
+		}
+		Double[] query = vector(1.0, 0.0, 0.0);
+
+		assertEquals(List.of("id-0", "id-2", "id-4"),
+				ids(persistent.search(query, Map.of("user_id", "user1", "topic", "food"), 10, 0.0)));
+		assertEquals(List.of("id-1", "id-3"), ids(persistent.getAll(
+				Map.of("topic", Map.of("ne", "food"), "created_at", Map.of("lt", start.plus(Duration.ofDays(5)))),
+				10)));
+		persistent.deleteAll(Map.of("created_at", Map.of("lte", start.plus(Duration.ofDays(1))), "topic", "food"));
+
+		// Abandon the instance so that the logged filter is replayed
+
+		InMemoryVectorStoreService reopened = new InMemoryVectorStoreService(options);
+		assertEquals(List.of("id-2", "id-4"), ids(reopened.getAll(Map.of("topic", "food"), 10)));
+		assertEquals(5, reopened.size());
+		reopened.close();
+	}
+
+	@Test
+	void testMergeRewritesMostlyDeletedSegments(@TempDir Path directory) throws Exception {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults()
+			.withPersistence(directory.toString(), false, 0)
+			.withSegments(100_000, 0.5);
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		for (int segment = 0; segment < 3; segment++) {
+			for (int i = 0; i < 10; i++) {
+				double angle = (segment * 10 + i) * 0.01;
+				persistent.add(createItem("id-" + (segment * 10 + i), "user" + segment, Math.cos(angle),
+						Math.sin(angle), 0.0));
+			}
+			persistent.flush();
+		}
+		for (int i = 10; i < 16; i++) {
+			persistent.delete("id-" + i);
+		}
+		MemoryItem renamed = createItem("id-17", "user1");
+		renamed.setEmbedding(null);
+		renamed.setContent("renamed");
+		persistent.update(renamed);
+		persistent.flush();
+		persistent.mergeSegments();
+
+		try (var files = Files.list(directory)) {
+			List<String> names = files.map(file -> file.getFileName().toString()).toList();
+			assertEquals(4, names.stream().filter(name -> name.endsWith(".seg")).count());
+			assertFalse(names.contains("segment-00000000000000000002.seg"), "the mostly deleted segment is rewritten");
+		}
+		assertEquals(24, persistent.size());
+		assertEquals(List.of("id-16", "id-18", "id-19", "id-17"),
+				ids(persistent.getAll(Map.of("user_id", "user1"), 10)));
+		assertEquals("id-17",
+				persistent.search(vector(Math.cos(0.17), Math.sin(0.17), 0.0), Filter.all(), 1, null).get(0).getId());
+		persistent.close();
+
+		InMemoryVectorStoreService reopened = new InMemoryVectorStoreService(options);
+		assertEquals(24, reopened.size());
+		assertNull(reopened.get("id-12"));
+		assertEquals("renamed", reopened.get("id-17").getContent());
+		assertEquals(1.0, reopened.getEmbeddingNorm("id-17"), 1e-6);
+		reopened.close();
+	}
+
+	@Test
+	void testSearchesSeeConsistentStateWhileSegmentsAreFlushed(@TempDir Path directory) throws Exception {
+		InMemoryStoreOptions options = InMemoryStoreOptions.defaults()
+			.withPersistence(directory.toString(), false, 0)
+			.withSegments(64, 0.3);
+		InMemoryVectorStoreService persistent = new InMemoryVectorStoreService(options);
+		int count = 2000;
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < count; i++) {
+				double angle = i * 0.0005;
+				persistent.add(createItem("id-" + i, "user1", Math.cos(angle), Math.sin(angle), 0.0));
+				if (i % 3 == 0) {
+					persistent.delete("id-" + (i / 2));
+				}
+			}
+		});
+		writer.start();
+		Double[] query = vector(1.0, 0.0, 0.0);
+		while (writer.isAlive()) {
+			List<MemoryItem> results = persistent.search(query, Map.of("user_id", "user1"), 10, null);
+			assertEquals(results.size(), ids(results).stream().distinct().count(), "no entry is returned twice");
+		}
+		writer.join();
+
+		persistent.flush();
+		persistent.mergeSegments();
+		int expected = persistent.size();
+		assertEquals(expected, persistent.getAll(Filter.all(), null).size());
+		persistent.close();
+
+		InMemoryVectorStoreService reopened = new InMemoryVectorStoreService(options);
+		assertEquals(expected, reopened.size());
+		assertNotNull(reopened.get("id-" + (count - 1)));
+		assertNull(reopened.get("id-0"));
+		reopened.close();
+	}
+
+	private List<String> ids(List<MemoryItem> items) {
+		return items.stream().map(MemoryItem::getId).toList();
+	}
+
+	private MemoryItem createItem(String id, String userId, double... embedding) {
+		MemoryItem item = new MemoryItem("content " + id, MemoryType.FACTUAL.getValue());
+		item.setId(id);
+		item.setUserId(userId);
+		item.setEmbedding(vector(embedding));
+		return item;
+	}
+
+	private MemoryItem createItem(String id, String userId, Map<String, Object> metadata, double... embedding) {
+		MemoryItem item = createItem(id, userId, embedding);
+		item.setMetadata(metadata);
+		return item;
+	}
+
+	private Double[] vector(double... values) {
+		Double[] result = new Double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i];
+		}
+		return result;
+	}
+
+}
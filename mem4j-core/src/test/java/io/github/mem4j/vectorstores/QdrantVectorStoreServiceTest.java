@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.config.MemoryConfigurable;
+import io.github.mem4j.embeddings.EmbeddingService;
+import io.github.mem4j.llms.LLMService;
+import io.github.mem4j.memory.Memory;
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.memory.MemoryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * Unit tests for QdrantVectorStoreService
+ */
+@ExtendWith(MockitoExtension.class)
+class QdrantVectorStoreServiceTest {
+
+	@Mock(answer = Answers.RETURNS_DEEP_STUBS)
+	private MemoryConfigurable memoryConfig;
+
+	@Mock
+	private LLMService llmService;
+
+	@Mock
+	private EmbeddingService embeddingService;
+
+	private QdrantVectorStoreService store;
+
+	private Memory memory;
+
+	@BeforeEach
+	void setUp() {
+		lenient().when(memoryConfig.getVectorStore().getCollection()).thenReturn("memories");
+		lenient().when(memoryConfig.getEmbeddingDimension()).thenReturn(2);
+		Map<String, Double[]> embeddings = Map.of("pizza", vector(1.0, 0.0), "work", vector(0.0, 1.0));
+		lenient().when(embeddingService.embed(anyString()))
+			.thenAnswer(invocation -> embeddings.get(invocation.<String>getArgument(0)));
+		lenient().when(embeddingService.embed(any(String[].class))).thenAnswer(invocation -> {
+			String[] texts = invocation.getArgument(0);
+			Double[][] result = new Double[texts.length][];
+			for (int i = 0; i < texts.length; i++) {
+				result[i] = embeddings.get(texts[i]);
+			}
+			return result;
+		});
+
+		store = new QdrantVectorStoreService(memoryConfig);
+		memory = new Memory(memoryConfig, store, llmService, embeddingService);
+	}
+
+	@Test
+	void testSearchBatchReturnsScoredCopies() {
+		store.add(createItem("likes", "User likes pizza", vector(1.0, 0.0)));
+		store.add(createItem("job", "User works as a developer", vector(0.0, 1.0)));
+
+		List<List<MemoryItem>> results = memory.searchBatch(List.of("pizza", "work"), "test_user", null, 10, 0.5);
+
+		assertEquals(2, results.size());
+		assertEquals(List.of("likes"), ids(results.get(0)));
+		assertEquals(List.of("job"), ids(results.get(1)));
+		MemoryItem hit = results.get(0).get(0);
+		assertEquals(1.0, hit.getScore(), 1e-6);
+		assertNotSame(store.get("likes"), hit);
+		assertNull(store.get("likes").getScore(), "the stored item is not scored");
+	}
+
+	private static MemoryItem createItem(String id, String content, Double[] embedding) {
+		MemoryItem item = new MemoryItem(content, MemoryType.FACTUAL.getValue());
+		item.setId(id);
+		item.setUserId("test_user");
+		item.setEmbedding(embedding);
+		return item;
+	}
+
+	private static Double[] vector(Double... values) {
+		return values;
+	}
+
+	private static List<String> ids(List<MemoryItem> items) {
+		return items.stream().map(MemoryItem::getId).toList();
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.memory.MemoryType;
+import io.github.mem4j.vectorstores.filter.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StoreListing
+ */
+class StoreListingTest {
+
+	private final List<Integer> limits = new ArrayList<>();
+
+	private final InMemoryVectorStoreService backend = new InMemoryVectorStoreService() {
+		@Override
+		public List<MemoryItem> getAll(Filter filter, Integer limit) {
+			limits.add(limit);
+			return super.getAll(filter, limit);
+		}
+	};
+
+	@Test
+	void testSmallListingTakesOnePage() {
+		backend.add(createItem("a", "user1", 1000));
+		backend.add(createItem("b", "user2", 2000));
+
+		List<String> listed = new ArrayList<>();
+		StoreListing.forEach(backend, Filter.eq("user_id", "user1"), 2, item -> listed.add(item.getId()));
+
+		assertEquals(List.of("a"), listed);
+		assertEquals(List.of(2), limits);
+	}
+
+	@Test
+	void testFullPagesAreSplitByCreationTime() {
+		for (int i = 0; i < 9; i++) {
+			backend.add(createItem("m" + i, "user1", 1_000_000L * (i + 1)));
+		}
+		backend.add(createItem("other", "user2", 1_500_000L));
+
+		List<String> listed = new ArrayList<>();
+		StoreListing.forEach(backend, Filter.eq("user_id", "user1"), 3, item -> listed.add(item.getId()));
+
+		assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8"), listed.stream().sorted().toList());
+		assertTrue(limits.stream().allMatch(limit -> limit == 3));
+	}
+
+	private MemoryItem createItem(String id, String userId, long createdAt) {
+		MemoryItem item = new MemoryItem("content " + id, MemoryType.FACTUAL.getValue());
+		item.setId(id);
+		item.setUserId(userId);
+		item.setCreatedAt(Instant.ofEpochMilli(createdAt));
+		item.setEmbedding(new Double[] { 1.0, 0.0 });
+		return item;
+	}
+
+}
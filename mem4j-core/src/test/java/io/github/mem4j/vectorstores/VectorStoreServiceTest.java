@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores;
+
+import io.github.mem4j.memory.MemoryItem;
+import io.github.mem4j.vectorstores.filter.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the defaults of VectorStoreService
+ */
+class VectorStoreServiceTest {
+
+	@Test
+	void testFilterOverloadsReachMapOnlyStore() {
+		MapOnlyStore store = new MapOnlyStore();
+		Filter filter = Filter.and(Filter.eq("user_id", "user1"), Filter.gte("created_at", 1000L));
+
+		store.search(new Double[] { 1.0 }, filter, 5, 0.5);
+		store.getAll(filter, 10);
+		store.deleteAll(filter);
+		store.searchBatch(new float[][] { { 1.0f } }, filter, 5, 0.5);
+
+		assertEquals(4, store.received.size());
+		for (Map<String, Object> received : store.received) {
+			assertEquals(filter, Filter.from(received));
+		}
+	}
+
+	/**
+	 * Store written against the map-based methods only
+	 */
+	private static class MapOnlyStore implements VectorStoreService {
+
+		private final List<Map<String, Object>> received = new ArrayList<>();
+
+		@Override
+		public void add(MemoryItem item) {
+		}
+
+		@Override
+		public List<MemoryItem> search(Double[] queryEmbedding, Map<String, Object> filters, Integer limit,
+				Double threshold) {
+			received.add(filters);
+			return List.of();
+		}
+
+		@Override
+		public List<MemoryItem> getAll(Map<String, Object> filters, Integer limit) {
+			received.add(filters);
+			return List.of();
+		}
+
+		@Override
+		public MemoryItem get(String memoryId) {
+			return null;
+		}
+
+		@Override
+		public void update(MemoryItem item) {
+		}
+
+		@Override
+		public void delete(String memoryId) {
+		}
+
+		@Override
+		public void deleteAll(Map<String, Object> filters) {
+			received.add(filters);
+		}
+
+		@Override
+		public void reset() {
+		}
+
+	}
+
+}
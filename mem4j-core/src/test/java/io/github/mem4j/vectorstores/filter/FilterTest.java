@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.filter;
+
+import io.github.mem4j.memory.MemoryItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Filter
+ */
+class FilterTest {
+
+	@Test
+	void testParsesMapSyntax() {
+		assertEquals(Filter.all(), Filter.from(null));
+		assertEquals(Filter.eq("user_id", "alice"), Filter.from(Map.of("user_id", "alice")));
+		assertEquals(Filter.in("topic", "food", "travel"), Filter.from(Map.of("topic", List.of("food", "travel"))));
+		assertEquals(Filter.and(Filter.ne("topic", "food"), Filter.gte("priority", 2)), Filter
+			.from(Map.of("AND", List.of(Map.of("topic", Map.of("ne", "food")), Map.of("priority", Map.of("gte", 2))))));
+		assertEquals(new Filter.Range("created_at", 1L, false, 5L, true),
+				Filter.from(Map.of("created_at", Map.of("gt", 1L, "lte", 5L))));
+		assertEquals(Filter.or(Filter.eq("a", 1), Filter.not(Filter.eq("b", 2))),
+				Filter.from(Map.of("OR", List.of(Map.of("a", 1), Map.of("NOT", Map.of("b", 2))))));
+		assertThrows(IllegalArgumentException.class, () -> Filter.from(Map.of("topic", Map.of("like", "f"))));
+		assertThrows(IllegalArgumentException.class, () -> Filter.from(Map.of("OR", Map.of("a", 1))));
+		assertThrows(IllegalArgumentException.class, () -> Filter.eq("topic", List.of("a")));
+	}
+
+	@Test
+	void testToMapRoundTrips() {
+		Filter filter = Filter.and(Filter.eq("user_id", "alice"), Filter.eq("topic", null),
+				Filter.or(Filter.in("tags", List.of("a", "b")), Filter.lt("created_at", 10L)),
+				Filter.not(Filter.nin("source", List.of("import"))));
+
+		assertEquals(filter, Filter.from(filter.toMap()));
+		assertEquals(Filter.all(), Filter.from(Filter.all().toMap()));
+	}
+
+	@Test
+	void testCanonicalValues() {
+		assertEquals("1", FilterValues.canonical(1));
+		assertEquals("1", FilterValues.canonical(1.0));
+		assertEquals("1", FilterValues.canonical(new BigDecimal("1.000")));
+		assertEquals("0.5", FilterValues.canonical(0.5f));
+		assertEquals("true", FilterValues.canonical(true));
+		assertNull(FilterValues.canonical(List.of(1)));
+		assertNull(FilterValues.canonical(null));
+		assertNull(FilterValues.number("food"));
+		assertEquals(0, new BigDecimal("-2.5").compareTo(FilterValues.number("-2.5")));
+	}
+
+	@Test
+	void testItemPredicates() {
+		MemoryItem item = new MemoryItem("content", "factual");
+		item.setUserId("alice");
+		item.setCreatedAt(Instant.ofEpochMilli(1000));
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("tags", List.of("a", 3));
+		metadata.put("priority", 2.0);
+		item.setMetadata(metadata);
+
+		assertTrue(matches(Filter.and(Filter.eq("user_id", "alice"), Filter.eq("metadata.priority", "2")), item));
+		assertTrue(matches(Filter.in("tags", List.of("b", "a")), item));
+		assertTrue(matches(Filter.gt("tags", 2), item));
+		assertFalse(matches(Filter.lt("priority", 2), item));
+		assertTrue(matches(Filter.lte("priority", 2), item));
+		assertTrue(matches(Filter.eq("topic", null), item));
+		assertFalse(matches(Filter.ne("user_id", "alice"), item));
+		assertTrue(matches(Filter.or(Filter.eq("user_id", "bob"), Filter.gte("created_at", "1970-01-01T00:00:01Z")),
+				item));
+		assertFalse(matches(Filter.or(), item));
+		assertThrows(IllegalArgumentException.class, () -> ItemPredicates.compile(Filter.gt("user_id", "a")));
+		assertThrows(IllegalArgumentException.class, () -> ItemPredicates.compile(Filter.gt("priority", "high")));
+	}
+
+	@Test
+	void testCacheCompilesEqualFiltersOnce() {
+		AtomicInteger compilations = new AtomicInteger();
+		FilterCache<String> cache = new FilterCache<>(filter -> {
+			compilations.incrementAndGet();
+			return filter.toString();
+		}, 2);
+
+		cache.get(Filter.from(Map.of("user_id", "alice")));
+		cache.get(Filter.eq("user_id", "alice"));
+		assertEquals(1, compilations.get());
+		cache.get(Filter.eq("user_id", "bob"));
+		cache.get(Filter.eq("user_id", "carol"));
+		assertEquals(3, compilations.get());
+		assertEquals(1, cache.size());
+	}
+
+	private static boolean matches(Filter filter, MemoryItem item) {
+		Predicate<MemoryItem> predicate = ItemPredicates.compile(filter);
+		return predicate.test(item);
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.memory.MemoryItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BitmapIndex
+ */
+class BitmapIndexTest {
+
+	@Test
+	void testIndexesBuiltInFieldsAndMetadata() {
+		BitmapIndex index = new BitmapIndex();
+		index.add(item("alice", Map.of("topic", "food", "tags", List.of("a", "b"), "nested", Map.of("x", 1))), 5);
+		index.add(item("alice", Map.of("topic", "travel")), 1);
+		index.add(item("bob", Map.of()), 2);
+
+		assertArrayEquals(new int[] { 1, 5 }, index.get("user_id", "alice").toArray());
+		assertArrayEquals(new int[] { 5 }, index.get("metadata.tags", "b").toArray());
+		assertEquals(2, index.cardinality("metadata.topic"));
+		assertArrayEquals(new int[] { 1, 5 }, index.matching("metadata.topic", value -> true).toArray());
+		assertArrayEquals(new int[] { 1 }, index.matching("metadata.topic", "travel"::equals).toArray());
+		assertEquals(0, index.cardinality("metadata.nested"));
+		assertEquals(0, index.cardinality("agent_id"));
+	}
+
+	@Test
+	void testRemoveDropsEmptyBitmaps() {
+		BitmapIndex index = new BitmapIndex();
+		MemoryItem item = item("alice", Map.of("topic", "food"));
+		index.add(item, 3);
+		index.add(item("alice", Map.of()), 4);
+
+		index.remove(item, 3);
+
+		assertArrayEquals(new int[] { 4 }, index.get("user_id", "alice").toArray());
+		assertFalse(index.fields().contains("metadata.topic"));
+		index.clear();
+		assertTrue(index.get("user_id", "alice").isEmpty());
+	}
+
+	private static MemoryItem item(String userId, Map<String, Object> metadata) {
+		MemoryItem item = new MemoryItem("content", "factual");
+		item.setUserId(userId);
+		item.setMetadata(metadata);
+		return item;
+	}
+
+}
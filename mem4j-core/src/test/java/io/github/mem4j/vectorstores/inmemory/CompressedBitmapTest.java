@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompressedBitmap
+ */
+class CompressedBitmapTest {
+
+	@Test
+	void testSetOperationsMatchBitSet() {
+		Random random = new Random(7);
+		for (int round = 0; round < 20; round++) {
+			// Mix sparse and dense blocks so both container kinds meet each other
+			BitSet expectedA = randomSet(random, round % 2 == 0 ? 200 : 20_000);
+			BitSet expectedB = randomSet(random, round % 3 == 0 ? 300 : 30_000);
+			CompressedBitmap a = toBitmap(expectedA);
+			CompressedBitmap b = toBitmap(expectedB);
+
+			BitSet and = (BitSet) expectedA.clone();
+			and.and(expectedB);
+			BitSet or = (BitSet) expectedA.clone();
+			or.or(expectedB);
+			BitSet andNot = (BitSet) expectedA.clone();
+			andNot.andNot(expectedB);
+
+			assertArrayEquals(and.stream().toArray(), a.and(b).toArray());
+			assertArrayEquals(or.stream().toArray(), a.or(b).toArray());
+			assertArrayEquals(andNot.stream().toArray(), a.andNot(b).toArray());
+			assertEquals(expectedA.cardinality(), a.cardinality());
+		}
+	}
+
+	@Test
+	void testAddAndRemoveAcrossContainerKinds() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int i = 0; i < 10_000; i++) {
+			bitmap.add(i * 3);
+		}
+		bitmap.add(3);
+		assertEquals(10_000, bitmap.cardinality());
+		assertTrue(bitmap.contains(29_997));
+		assertFalse(bitmap.contains(29_998));
+
+		for (int i = 0; i < 10_000; i += 2) {
+			bitmap.remove(i * 3);
+		}
+		assertEquals(5_000, bitmap.cardinality());
+		assertFalse(bitmap.contains(0));
+		assertTrue(bitmap.contains(3));
+
+		for (int value : bitmap.toArray()) {
+			bitmap.remove(value);
+		}
+		assertTrue(bitmap.isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+	}
+
+	@Test
+	void testRangeAndSerialization() {
+		CompressedBitmap range = CompressedBitmap.range(65_530, 200_000);
+		assertEquals(200_000 - 65_530, range.cardinality());
+		assertFalse(range.contains(65_529));
+		assertTrue(range.contains(65_536));
+		assertTrue(range.contains(199_999));
+		assertFalse(range.contains(200_000));
+		assertTrue(CompressedBitmap.range(5, 5).isEmpty());
+
+		CompressedBitmap sparse = new CompressedBitmap();
+		sparse.add(1);
+		sparse.add(1_000_000);
+		CompressedBitmap mixed = range.or(sparse);
+		ByteBuffer buffer = ByteBuffer.allocate(mixed.serialize().length + 3);
+		buffer.position(3);
+		buffer.put(mixed.serialize());
+		buffer.position(3);
+
+		CompressedBitmap restored = CompressedBitmap.deserialize(buffer);
+		assertArrayEquals(mixed.toArray(), restored.toArray());
+		assertTrue(restored.contains(1_000_000));
+	}
+
+	private static BitSet randomSet(Random random, int count) {
+		BitSet set = new BitSet();
+		for (int i = 0; i < count; i++) {
+			set.set(random.nextInt(200_000));
+		}
+		return set;
+	}
+
+	private static CompressedBitmap toBitmap(BitSet set) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		set.stream().forEach(bitmap::add);
+		return bitmap;
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HnswIndex
+ */
+class HnswIndexTest {
+
+	private static final int DIMENSION = 32;
+
+	private static final int COUNT = 1000;
+
+	private float[][] vectors;
+
+	private HnswIndex index;
+
+	@BeforeEach
+	void setUp() {
+		Random random = new Random(7);
+		vectors = new float[COUNT][DIMENSION];
+		for (float[] vector : vectors) {
+			for (int i = 0; i < DIMENSION; i++) {
+				vector[i] = (float) random.nextGaussian();
+			}
+		}
+		index = new HnswIndex(new HnswIndex.Scorer() {
+			@Override
+			public float[] vector(int ordinal) {
+				return vectors[ordinal];
+			}
+
+			@Override
+			public float score(float[] query, int ordinal) {
+				return dot(query, vectors[ordinal]);
+			}
+		}, 16, 100);
+		for (int i = 0; i < COUNT; i++) {
+			index.insert(i);
+		}
+	}
+
+	@Test
+	void testRecallAgainstExactSearch() {
+		Random random = new Random(11);
+		int k = 10;
+		int found = 0;
+		int queries = 50;
+		for (int q = 0; q < queries; q++) {
+			float[] query = vectors[random.nextInt(COUNT)].clone();
+			query[0] += 0.1f;
+			Set<Integer> expected = exactTopK(query, k, -1);
+			NeighborQueue results = index.search(query, k, 64, null);
+			assertEquals(k, results.size());
+			while (!results.isEmpty()) {
+				if (expected.contains(results.pop())) {
+					found++;
+				}
+			}
+		}
+
+		double recall = found / (double) (queries * k);
+		assertTrue(recall >= 0.9, "recall was " + recall);
+	}
+
+	@Test
+	void testDeletedNodesAreNeverReturned() {
+		float[] query = vectors[42];
+		index.markDeleted(42);
+
+		NeighborQueue results = index.search(query, 5, 64, null);
+
+		assertEquals(5, results.size());
+		while (!results.isEmpty()) {
+			assertNotEquals(42, results.pop());
+		}
+		assertEquals(1, index.deletedCount());
+		assertEquals(COUNT, index.size());
+	}
+
+	@Test
+	void testFilterRestrictsResults() {
+		NeighborQueue results = index.search(vectors[3], 10, 64, ordinal -> ordinal % 2 == 0);
+
+		assertEquals(10, results.size());
+		while (!results.isEmpty()) {
+			assertEquals(0, results.pop() % 2);
+		}
+	}
+
+	@Test
+	void testRejectsDuplicateInsert() {
+		assertThrows(IllegalArgumentException.class, () -> index.insert(0));
+	}
+
+	private Set<Integer> exactTopK(float[] query, int k, int excluded) {
+		NeighborQueue top = new NeighborQueue(k, false);
+		for (int i = 0; i < COUNT; i++) {
+			if (i != excluded) {
+				top.insertWithOverflow(i, dot(query, vectors[i]), k);
+			}
+		}
+		Set<Integer> result = new HashSet<>();
+		while (!top.isEmpty()) {
+			result.add(top.pop());
+		}
+		return result;
+	}
+
+	private static float dot(float[] a, float[] b) {
+		float sum = 0f;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+}
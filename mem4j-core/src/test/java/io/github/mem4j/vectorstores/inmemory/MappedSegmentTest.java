@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.memory.MemoryItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MappedSegment
+ */
+class MappedSegmentTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testWriteAndMapEntries() throws Exception {
+		Path file = directory.resolve("test.seg");
+		MappedSegment.write(file, 2, 100, sink -> {
+			for (int i = 0; i < 100; i++) {
+				MemoryItem item = new MemoryItem("content " + i, i % 2 == 0 ? "factual" : "episodic");
+				item.setId("id-" + i);
+				item.setUserId("user" + (i % 3));
+				item.setMetadata(Map.of("index", i));
+				item.setCreatedAt(Instant.ofEpochMilli(1000L + i));
+				float angle = i * 0.01f;
+				sink.add(item, i == 7 ? null : new float[] { (float) Math.cos(angle), (float) Math.sin(angle) }, 2f);
+			}
+		});
+
+		MappedSegment segment = MappedSegment.open(file);
+		assertEquals(100, segment.count());
+		assertEquals(2, segment.dimension());
+		assertEquals(42, segment.ordinal("id-42"));
+		assertEquals(-1, segment.ordinal("missing"));
+		assertEquals("id-42", segment.id(42));
+
+		MemoryItem item = segment.item(42);
+		assertEquals("content 42", item.getContent());
+		assertEquals("user0", item.getUserId());
+		assertEquals(42, item.getMetadata().get("index"));
+
+		assertFalse(segment.hasVector(7));
+		assertTrue(segment.hasVector(8));
+		assertEquals(2f, segment.norm(8));
+		assertEquals((float) Math.cos(0.08f), segment.vector(8)[0], 1e-6);
+		assertEquals(1f, segment.dot(new float[] { (float) Math.cos(0.08f), (float) Math.sin(0.08f) }, 8), 1e-6);
+
+		int[] postings = segment.postings("user_id", "user1").toArray();
+		assertEquals(33, postings.length);
+		assertEquals(1, postings[0]);
+		assertEquals(97, postings[32]);
+		assertTrue(segment.postings("memory_type", "episodic").contains(43));
+		assertFalse(segment.postings("memory_type", "episodic").contains(42));
+		assertTrue(segment.postings("user_id", "nobody").isEmpty());
+		assertTrue(segment.postings("metadata.index", "42").contains(42));
+		assertEquals(1042L, segment.timestamp(BitmapFilter.CREATED_AT, 42));
+	}
+
+	@Test
+	void testRejectsWrongEntryCount() {
+		Path file = directory.resolve("short.seg");
+		assertThrows(IllegalStateException.class, () -> MappedSegment.write(file, 1, 2, sink -> {
+			MemoryItem item = new MemoryItem("content", "factual");
+			item.setId("only");
+			sink.add(item, new float[] { 1f }, 1f);
+		}));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuantizedSlab
+ */
+class QuantizedSlabTest {
+
+	@Test
+	void testRoundTripStaysWithinQuantizationError() {
+		Random random = new Random(3);
+		QuantizedSlab slab = new QuantizedSlab(256);
+		float[] vector = new float[256];
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		slab.set(0, vector);
+
+		float[] decoded = slab.get(0);
+		float min = Float.POSITIVE_INFINITY;
+		float max = Float.NEGATIVE_INFINITY;
+		for (float value : vector) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		float halfStep = (max - min) / 255f / 2f;
+		for (int i = 0; i < vector.length; i++) {
+			assertEquals(vector[i], decoded[i], halfStep + 1e-5f);
+		}
+		assertEquals(QuantizedSlab.norm(vector), slab.norm(0), 1e-4f);
+	}
+
+	@Test
+	void testApproximateCosineIsCloseToExact() {
+		Random random = new Random(5);
+		int dimension = 384;
+		QuantizedSlab slab = new QuantizedSlab(dimension);
+		float[] query = new float[dimension];
+		for (int i = 0; i < dimension; i++) {
+			query[i] = (float) random.nextGaussian();
+		}
+		for (int ordinal = 0; ordinal < 50; ordinal++) {
+			float[] vector = new float[dimension];
+			for (int i = 0; i < dimension; i++) {
+				vector[i] = query[i] * 0.5f + (float) random.nextGaussian();
+			}
+			slab.set(ordinal, vector);
+
+			float exact = dot(query, vector) / (QuantizedSlab.norm(query) * QuantizedSlab.norm(vector));
+			float approximate = slab.cosine(query, QuantizedSlab.sum(query), QuantizedSlab.norm(query), ordinal);
+			assertEquals(exact, approximate, 0.01f);
+		}
+	}
+
+	@Test
+	void testConstantVectorEncodesExactly() {
+		QuantizedSlab slab = new QuantizedSlab(4);
+		slab.set(2, new float[] { 0.5f, 0.5f, 0.5f, 0.5f });
+
+		assertEquals(3, slab.size());
+		assertArrayEquals(new float[] { 0.5f, 0.5f, 0.5f, 0.5f }, slab.get(2));
+	}
+
+	@Test
+	void testUsesQuarterOfFloatMemory() {
+		QuantizedSlab codes = new QuantizedSlab(1536);
+		VectorSlab floats = new VectorSlab(1536);
+		for (int i = 0; i < 1000; i++) {
+			float[] vector = new float[1536];
+			vector[i] = 1f;
+			codes.set(i, vector);
+			floats.append(vector);
+		}
+
+		assertTrue(codes.memoryBytes() * 3 < floats.memoryBytes());
+	}
+
+	private static float dot(float[] a, float[] b) {
+		float sum = 0f;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+}
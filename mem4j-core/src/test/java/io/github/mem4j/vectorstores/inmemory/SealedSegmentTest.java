@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import io.github.mem4j.memory.MemoryItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SealedSegment
+ */
+class SealedSegmentTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testTombstonesHideEntries() throws Exception {
+		SealedSegment segment = new SealedSegment(1, write(130));
+
+		assertEquals(130, segment.liveCount());
+		assertEquals(65, segment.liveOrdinal("id-65"));
+		assertTrue(segment.delete(65));
+		assertFalse(segment.delete(65));
+		assertTrue(segment.delete(129));
+
+		assertTrue(segment.isDeleted(65));
+		assertFalse(segment.isDeleted(64));
+		assertEquals(-1, segment.liveOrdinal("id-65"));
+		assertEquals(2, segment.deadCount());
+		assertEquals(128, segment.liveCount());
+		assertEquals(2 / 130.0, segment.deadRatio(), 1e-9);
+	}
+
+	@Test
+	void testTombstonesRoundTrip() throws Exception {
+		MappedSegment mapped = write(70);
+		SealedSegment segment = new SealedSegment(1, mapped);
+		segment.delete(3);
+		segment.delete(69);
+		assertTrue(segment.hasUnpersistedTombstones());
+
+		SealedSegment reopened = new SealedSegment(1, mapped);
+		reopened.loadTombstones(segment.tombstoneWords());
+
+		assertFalse(reopened.hasUnpersistedTombstones());
+		assertEquals(2, reopened.deadCount());
+		assertTrue(reopened.isDeleted(3));
+		assertTrue(reopened.isDeleted(69));
+		assertFalse(reopened.isDeleted(4));
+	}
+
+	private MappedSegment write(int count) throws Exception {
+		Path file = directory.resolve("segment-" + count + ".seg");
+		MappedSegment.write(file, 1, count, sink -> {
+			for (int i = 0; i < count; i++) {
+				MemoryItem item = new MemoryItem("content " + i, "factual");
+				item.setId("id-" + i);
+				sink.add(item, new float[] { 1f }, 1f);
+			}
+		});
+		return MappedSegment.open(file);
+	}
+
+}
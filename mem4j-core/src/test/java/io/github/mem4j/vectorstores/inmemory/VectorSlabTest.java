@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.inmemory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VectorSlab
+ */
+class VectorSlabTest {
+
+	@Test
+	void testAppendAcrossChunks() {
+		VectorSlab slab = new VectorSlab(1536);
+		int count = slab.chunkCapacity() * 2 + 3;
+		for (int i = 0; i < count; i++) {
+			float[] vector = new float[1536];
+			vector[0] = i;
+			vector[1535] = -i;
+			assertEquals(i, slab.append(vector));
+		}
+
+		assertEquals(count, slab.size());
+		for (int i = 0; i < count; i++) {
+			float[] chunk = slab.chunk(i);
+			int offset = slab.offset(i);
+			assertEquals(i, chunk[offset]);
+			assertEquals(-i, chunk[offset + 1535]);
+		}
+	}
+
+	@Test
+	void testSetPadsWithZeroVectors() {
+		VectorSlab slab = new VectorSlab(2);
+		slab.set(5, new float[] { 1f, 2f });
+
+		assertEquals(6, slab.size());
+		assertArrayEquals(new float[] { 0f, 0f }, slab.get(3));
+		assertArrayEquals(new float[] { 1f, 2f }, slab.get(5));
+	}
+
+	@Test
+	void testSmallSlabStaysSmall() {
+		VectorSlab slab = new VectorSlab(1536);
+		slab.append(new float[1536]);
+
+		assertTrue(slab.memoryBytes() < 1536L * Float.BYTES * 32);
+	}
+
+	@Test
+	void testRejectsDimensionMismatch() {
+		VectorSlab slab = new VectorSlab(3);
+
+		assertThrows(IllegalArgumentException.class, () -> slab.append(new float[2]));
+		assertThrows(IndexOutOfBoundsException.class, () -> slab.get(0));
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.mem4j.vectorstores.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Similarity and its kernels
+ */
+class SimilarityTest {
+
+	private static final int[] LENGTHS = { 1, 3, 7, 16, 33, 384, 1536 };
+
+	@Test
+	void testVectorApiKernelIsSelectedWhenModuleIsResolved() {
+		// Surefire starts the test JVM with --add-modules jdk.incubator.vector
+		assertTrue(Similarity.kernel().name().startsWith("vector-api"), Similarity.kernel().name());
+	}
+
+	@Test
+	void testScalarKernelMatchesReference() {
+		assertMatchesReference(ScalarSimilarityKernel.INSTANCE);
+	}
+
+	@Test
+	void testVectorApiKernelMatchesReference() {
+		assertMatchesReference(new VectorApiSimilarityKernel());
+	}
+
+	@Test
+	void testCosineOfZeroVectorIsZero() {
+		float[] zero = new float[8];
+		float[] ones = new float[8];
+		Arrays.fill(ones, 1f);
+
+		assertEquals(0f, Similarity.cosine(zero, ones));
+		assertEquals(0f, ScalarSimilarityKernel.INSTANCE.cosine(zero, 0, ones, 0, 8));
+		assertEquals(1f, Similarity.cosine(ones, ones), 1e-6f);
+	}
+
+	@Test
+	void testHelpers() {
+		float[] a = { 3f, 4f };
+		float[] b = { 0f, 0f };
+
+		assertEquals(5f, Similarity.norm(a), 1e-6f);
+		assertEquals(5f, Similarity.l2(a, b), 1e-6f);
+		assertEquals(25f, Similarity.squaredL2(a, new float[] { 9f, 0f, 0f }, 1), 1e-6f);
+		assertEquals(4f, Similarity.dot(a, new float[] { 7f, 0f, 1f }, 1), 1e-6f);
+		assertArrayEquals(a, Similarity.toFloatArray(new Double[] { 3.0, 4.0 }));
+		assertThrows(IllegalArgumentException.class, () -> Similarity.dot(a, new float[3]));
+
+		float[] unit = { 3f, 4f };
+		assertEquals(5f, Similarity.normalize(unit), 1e-6f);
+		assertArrayEquals(new float[] { 0.6f, 0.8f }, unit, 1e-6f);
+		float[] zero = { 0f, 0f };
+		assertEquals(0f, Similarity.normalize(zero));
+		assertArrayEquals(new float[] { 0f, 0f }, zero);
+	}
+
+	private static void assertMatchesReference(SimilarityKernel kernel) {
+		Random random = new Random(17);
+		for (int length : LENGTHS) {
+			int offset = random.nextInt(5);
+			float[] a = randomVector(random, length);
+			float[] b = randomVector(random, length + offset);
+
+			double dot = 0;
+			double normA = 0;
+			double normB = 0;
+			double distance = 0;
+			for (int i = 0; i < length; i++) {
+				double x = a[i];
+				double y = b[offset + i];
+				dot += x * y;
+				normA += x * x;
+				normB += y * y;
+				distance += (x - y) * (x - y);
+			}
+
+			double tolerance = 1e-4 * length;
+			assertEquals(dot, kernel.dot(a, 0, b, offset, length), tolerance, kernel.name() + " dot " + length);
+			assertEquals(dot / Math.sqrt(normA * normB), kernel.cosine(a, 0, b, offset, length), 1e-5,
+					kernel.name() + " cosine " + length);
+			assertEquals(distance, kernel.squaredDistance(a, 0, b, offset, length), tolerance,
+					kernel.name() + " l2 " + length);
+		}
+	}
+
+	private static float[] randomVector(Random random, int length) {
+		float[] vector = new float[length];
+		for (int i = 0; i < length; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+}
@@ -16,12 +16,16 @@
 
 package io.github.mem4j.example;
 
+import io.github.mem4j.ingestion.IngestionQueue;
 import io.github.mem4j.memory.Memory;
 import io.github.mem4j.memory.MemoryItem;
 import io.github.mem4j.memory.Message;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,9 +34,14 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/chat")
 public class ChatController {
 
+	private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
+
 	@Autowired
 	private Memory memory;
 
+	@Autowired
+	private IngestionQueue ingestionQueue;
+
 	@PostMapping("/send")
 	public ChatResponse sendMessage(@RequestBody ChatRequest request) {
 		String userId = request.getUserId();
@@ -46,10 +55,16 @@ public class ChatController {
 
 		// 只有当消息包含新信息时才存储记忆
 		// 查询类消息（如"我喜欢喝什么？"）不应该被存储为记忆
+		// 记忆在后台写入，回复无需等待 LLM 提取和向量检索
 		if (shouldStoreAsMemory(message)) {
 			List<Message> conversation = Arrays.asList(new Message("user", message),
 					new Message("assistant", response));
-			memory.add(conversation, userId);
+			try {
+				ingestionQueue.submit(conversation, userId);
+			}
+			catch (RejectedExecutionException e) {
+				logger.warn("Memory ingestion queue is saturated, not storing message for user {}", userId);
+			}
 		}
 
 		return new ChatResponse(response, relevantMemories.size());